@@ -0,0 +1,37 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc;
+
+/**
+ * A truncation that can also be applied to a tree stored in a
+ * {@link HologramArena}, writing its result in the same arena instead of
+ * creating new {@link HologramNode}s.
+ */
+public interface ArenaTruncation extends Truncation
+{
+	/**
+	 * Applies the transformation to a tree of an arena. The result must be
+	 * equal to the one produced by {@link #applyTo(HologramNode)} for the
+	 * same tree.
+	 * @param arena The arena
+	 * @param root The root of the tree to transform
+	 * @return The root of the resulting tree, which may be a node added to
+	 * the arena or a node of the original tree
+	 */
+	public int applyTo(HologramArena arena, int root);
+}
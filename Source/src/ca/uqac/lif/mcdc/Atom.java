@@ -17,12 +17,21 @@
  */
 package ca.uqac.lif.mcdc;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 
 public class Atom extends Operator
 {
 	protected String m_name;
 	
+	/**
+	 * The global ID of this atom's variable (see
+	 * {@link SymbolTable#getVariableId(String)}), or -1 if it has not been
+	 * requested yet.
+	 */
+	protected transient int m_id = -1;
+	
 	public Atom(String name)
 	{
 		super();
@@ -38,11 +47,36 @@ public class Atom extends Operator
 		return m_name;
 	}
 	
+	/**
+	 * Gets the global ID of this atom's variable.
+	 * @return The ID
+	 */
+	public int getId()
+	{
+		int id = m_id;
+		if (id < 0)
+		{
+			id = SymbolTable.getVariableId(m_name);
+			m_id = id;
+		}
+		return id;
+	}
+	
 	@Override
-	public HologramNode evaluate(Valuation v)
+	protected HologramNode evaluate(Valuation v, EvaluationContext context)
 	{
-		HologramNode n = new HologramNode(m_name);
-		n.setValue(v.get(m_name));
+		SymbolTable symbols = v.m_symbols;
+		int slot = symbols == null ? -1 : symbols.getSlot(this);
+		HologramNode n = new HologramNode(m_name, slot);
+		if (slot >= 0)
+		{
+			// The valuation stores this variable at its slot
+			n.setValue(v.get(slot));
+		}
+		else
+		{
+			n.setValue(v.get(m_name));
+		}
 		return n;
 	}
 
@@ -52,6 +86,12 @@ public class Atom extends Operator
 		return new Atom(m_name);
 	}
 	
+	@Override
+	protected List<Operator> getOperandList()
+	{
+		return Collections.emptyList();
+	}
+	
 	@Override
 	protected void getVariables(Set<String> vars)
 	{
@@ -0,0 +1,720 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A reduced ordered binary decision diagram (ROBDD) package. A BDD
+ * represents a Boolean function of <i>n</i> variables, or equivalently
+ * the set of valuations for which this function is true. Variables are
+ * numbered from 0 to <i>n</i>-1, which is also their order in the
+ * diagram; when a BDD is built from a formula, each variable is given the
+ * number of its slot in the formula's {@link SymbolTable}. A valuation is
+ * then represented by the same number as in {@link HypergraphGenerator},
+ * where bit <i>i</i> holds the value of variable <i>i</i>.
+ * <p>
+ * Functions are designated by the integer index of their root node in the
+ * package. Nodes are shared by all the functions of the package and are
+ * never freed; two equivalent functions always have the same index.
+ */
+public class Bdd
+{
+	/**
+	 * The index of the constant function <tt>false</tt>.
+	 */
+	public static final int FALSE = 0;
+	
+	/**
+	 * The index of the constant function <tt>true</tt>.
+	 */
+	public static final int TRUE = 1;
+	
+	/**
+	 * The code of the conjunction in the computed table.
+	 */
+	protected static final int OP_AND = 1;
+	
+	/**
+	 * The code of the disjunction in the computed table.
+	 */
+	protected static final int OP_OR = 2;
+	
+	/**
+	 * The code of the negation in the computed table.
+	 */
+	protected static final int OP_NOT = 3;
+	
+	/**
+	 * The number of entries in the computed table.
+	 */
+	protected static final int CACHE_SIZE = 1 << 16;
+	
+	/**
+	 * The number of variables.
+	 */
+	protected final int m_numVars;
+	
+	/**
+	 * The variable tested by each node. Terminal nodes are given the
+	 * number of variables.
+	 */
+	protected int[] m_var;
+	
+	/**
+	 * The child of each node when its variable is <tt>false</tt>.
+	 */
+	protected int[] m_low;
+	
+	/**
+	 * The child of each node when its variable is <tt>true</tt>.
+	 */
+	protected int[] m_high;
+	
+	/**
+	 * The number of nodes in the package.
+	 */
+	protected int m_size;
+	
+	/**
+	 * The unique table, an open-addressing hash table of node indices
+	 * (0 marks an empty entry).
+	 */
+	protected int[] m_unique;
+	
+	/**
+	 * The operation of each entry of the computed table (0 marks an empty
+	 * entry).
+	 */
+	protected final int[] m_cacheOp;
+	
+	/**
+	 * The first operand of each entry of the computed table.
+	 */
+	protected final int[] m_cacheA;
+	
+	/**
+	 * The second operand of each entry of the computed table.
+	 */
+	protected final int[] m_cacheB;
+	
+	/**
+	 * The result of each entry of the computed table.
+	 */
+	protected final int[] m_cacheResult;
+	
+	/**
+	 * Creates a new BDD package.
+	 * @param num_vars The number of variables
+	 */
+	public Bdd(int num_vars)
+	{
+		super();
+		if (num_vars > SymbolTable.MAX_VARIABLES)
+		{
+			throw new IllegalArgumentException("Cannot handle more than " + SymbolTable.MAX_VARIABLES + " variables");
+		}
+		m_numVars = num_vars;
+		int capacity = 1024;
+		m_var = new int[capacity];
+		m_low = new int[capacity];
+		m_high = new int[capacity];
+		m_var[FALSE] = num_vars;
+		m_var[TRUE] = num_vars;
+		m_size = 2;
+		m_unique = new int[2 * capacity];
+		m_cacheOp = new int[CACHE_SIZE];
+		m_cacheA = new int[CACHE_SIZE];
+		m_cacheB = new int[CACHE_SIZE];
+		m_cacheResult = new int[CACHE_SIZE];
+	}
+	
+	/**
+	 * Gets the number of variables of this package.
+	 * @return The number of variables
+	 */
+	public int getVariableCount()
+	{
+		return m_numVars;
+	}
+	
+	/**
+	 * Gets the number of nodes created so far, including the two terminal
+	 * nodes.
+	 * @return The number of nodes
+	 */
+	public int getNodeCount()
+	{
+		return m_size;
+	}
+	
+	/**
+	 * Gets the function that is true when a variable is true.
+	 * @param v The variable
+	 * @return The function
+	 */
+	public int var(int v)
+	{
+		return mk(v, FALSE, TRUE);
+	}
+	
+	/**
+	 * Gets the function that is true when a variable has a given value.
+	 * @param v The variable
+	 * @param value The value
+	 * @return The function
+	 */
+	public int literal(int v, boolean value)
+	{
+		return value ? mk(v, FALSE, TRUE) : mk(v, TRUE, FALSE);
+	}
+	
+	/**
+	 * Computes the negation of a function.
+	 * @param f The function
+	 * @return The negation
+	 */
+	public int not(int f)
+	{
+		if (f == FALSE)
+		{
+			return TRUE;
+		}
+		if (f == TRUE)
+		{
+			return FALSE;
+		}
+		int h = cacheIndex(OP_NOT, f, 0);
+		if (m_cacheOp[h] == OP_NOT && m_cacheA[h] == f)
+		{
+			return m_cacheResult[h];
+		}
+		int r = mk(m_var[f], not(m_low[f]), not(m_high[f]));
+		cacheStore(h, OP_NOT, f, 0, r);
+		return r;
+	}
+	
+	/**
+	 * Computes the conjunction of two functions.
+	 * @param f The first function
+	 * @param g The second function
+	 * @return The conjunction
+	 */
+	public int and(int f, int g)
+	{
+		if (f == FALSE || g == FALSE)
+		{
+			return FALSE;
+		}
+		if (f == TRUE || f == g)
+		{
+			return g;
+		}
+		if (g == TRUE)
+		{
+			return f;
+		}
+		return apply(OP_AND, f, g);
+	}
+	
+	/**
+	 * Computes the disjunction of two functions.
+	 * @param f The first function
+	 * @param g The second function
+	 * @return The disjunction
+	 */
+	public int or(int f, int g)
+	{
+		if (f == TRUE || g == TRUE)
+		{
+			return TRUE;
+		}
+		if (f == FALSE || f == g)
+		{
+			return g;
+		}
+		if (g == FALSE)
+		{
+			return f;
+		}
+		return apply(OP_OR, f, g);
+	}
+	
+	/**
+	 * Computes the function that is true when two functions differ.
+	 * @param f The first function
+	 * @param g The second function
+	 * @return The exclusive or of the functions
+	 */
+	public int xor(int f, int g)
+	{
+		return or(and(f, not(g)), and(not(f), g));
+	}
+	
+	/**
+	 * Builds the function computed by a formula. Each atom is given the
+	 * slot of its variable in a symbol table; an operator instance that
+	 * occurs several times in the formula is only converted once.
+	 * @param phi The formula
+	 * @param symbols The symbol table
+	 * @return The function
+	 */
+	public int build(Operator phi, SymbolTable symbols)
+	{
+		return build(phi, symbols, new IdentityHashMap<Operator,Integer>());
+	}
+	
+	/**
+	 * Builds the function computed by a formula, reusing the functions
+	 * already computed for some of its subformulas.
+	 * @param phi The formula
+	 * @param symbols The symbol table
+	 * @param built A map associating subformulas to their function
+	 * @return The function
+	 */
+	public int build(Operator phi, SymbolTable symbols, Map<Operator,Integer> built)
+	{
+		Integer f = built.get(phi);
+		if (f != null)
+		{
+			return f;
+		}
+		int r;
+		if (phi instanceof Atom)
+		{
+			r = var(symbols.getSlot(((Atom) phi).getName()));
+		}
+		else if (phi instanceof Negation)
+		{
+			r = not(build(((Negation) phi).getOperand(), symbols, built));
+		}
+		else if (phi instanceof Conjunction)
+		{
+			r = TRUE;
+			for (Operator op : ((Conjunction) phi).getOperands())
+			{
+				r = and(r, build(op, symbols, built));
+			}
+		}
+		else if (phi instanceof Disjunction)
+		{
+			r = FALSE;
+			for (Operator op : ((Disjunction) phi).getOperands())
+			{
+				r = or(r, build(op, symbols, built));
+			}
+		}
+		else
+		{
+			throw new IllegalArgumentException("Cannot build a BDD for operator " + phi);
+		}
+		built.put(phi, r);
+		return r;
+	}
+	
+	/**
+	 * Counts the valuations of all the variables for which a function is
+	 * true.
+	 * @param f The function
+	 * @return The number of valuations
+	 */
+	public long count(int f)
+	{
+		return count(f, new HashMap<Integer,Long>()) << m_var[f];
+	}
+	
+	/**
+	 * Counts the valuations of the variables from the one tested by a node
+	 * onwards for which a function is true.
+	 * @param f The function
+	 * @param counts The counts already computed
+	 * @return The number of valuations
+	 */
+	protected long count(int f, Map<Integer,Long> counts)
+	{
+		if (f == FALSE)
+		{
+			return 0;
+		}
+		if (f == TRUE)
+		{
+			return 1;
+		}
+		Long c = counts.get(f);
+		if (c != null)
+		{
+			return c;
+		}
+		int low = m_low[f], high = m_high[f];
+		long n = (count(low, counts) << (m_var[low] - m_var[f] - 1))
+				+ (count(high, counts) << (m_var[high] - m_var[f] - 1));
+		counts.put(f, n);
+		return n;
+	}
+	
+	/**
+	 * Picks one valuation for which a function is true. Variables that do
+	 * not matter are set to <tt>false</tt>.
+	 * @param f The function, which must not be {@link #FALSE}
+	 * @return The valuation, as a number whose bit <i>i</i> is the value of
+	 * variable <i>i</i>
+	 */
+	public long pickOne(int f)
+	{
+		if (f == FALSE)
+		{
+			throw new IllegalArgumentException("The function has no solution");
+		}
+		long values = 0;
+		while (f != TRUE)
+		{
+			if (m_low[f] != FALSE)
+			{
+				f = m_low[f];
+			}
+			else
+			{
+				values |= 1L << m_var[f];
+				f = m_high[f];
+			}
+		}
+		return values;
+	}
+	
+	/**
+	 * Determines if a function is true for a given valuation.
+	 * @param f The function
+	 * @param values The valuation, as a number whose bit <i>i</i> is the value
+	 * of variable <i>i</i>
+	 * @return <tt>true</tt> if the function is true for this valuation,
+	 * <tt>false</tt> otherwise
+	 */
+	public boolean contains(int f, long values)
+	{
+		while (f != TRUE && f != FALSE)
+		{
+			f = ((values >>> m_var[f]) & 1L) != 0 ? m_high[f] : m_low[f];
+		}
+		return f == TRUE;
+	}
+
+	/**
+	 * Finds the first valuation, in ascending order of numbers, for which a
+	 * function is true, starting from a given valuation. The cost of a call
+	 * depends on the number of variables and the size of the function, but
+	 * not on the number of valuations skipped.
+	 * @param f The function
+	 * @param from The first valuation to consider, as a number whose bit
+	 * <i>i</i> is the value of variable <i>i</i>
+	 * @return The smallest valuation greater than or equal to <tt>from</tt>
+	 * for which the function is true, or -1 if there is none
+	 */
+	public long next(int f, long from)
+	{
+		if (from < 0 || from >= 1L << m_numVars)
+		{
+			return -1;
+		}
+		if (contains(f, from))
+		{
+			return from;
+		}
+		// The next valuation keeps the bits of from above some bit k that is
+		// 0 in from, sets bit k, and takes the smallest possible lower bits;
+		// the lowest such k gives the smallest valuation
+		for (int k = 0; k < m_numVars; k++)
+		{
+			if (((from >>> k) & 1L) != 0)
+			{
+				continue;
+			}
+			long values = (from & (-1L << (k + 1))) | (1L << k);
+			if (isSatisfiable(f, values, k, new HashMap<Integer,Boolean>()))
+			{
+				for (int j = k - 1; j >= 0; j--)
+				{
+					// Keep bit j to 0 if the lower bits can still make f true
+					if (!isSatisfiable(f, values, j, new HashMap<Integer,Boolean>()))
+					{
+						values |= 1L << j;
+					}
+				}
+				return values;
+			}
+		}
+		return -1;
+	}
+	
+	/**
+	 * Determines if a function is true for some values of the variables
+	 * before a given one, when the other variables have fixed values.
+	 * @param f The function
+	 * @param values The values of the variables from <tt>level</tt> onwards,
+	 * as a number whose bit <i>i</i> is the value of variable <i>i</i>
+	 * @param level The first variable whose value is fixed
+	 * @param results The results already computed for the nodes testing a
+	 * variable before <tt>level</tt>
+	 * @return <tt>true</tt> if the function can be made true,
+	 * <tt>false</tt> otherwise
+	 */
+	protected boolean isSatisfiable(int f, long values, int level, Map<Integer,Boolean> results)
+	{
+		while (f != TRUE && f != FALSE && m_var[f] >= level)
+		{
+			f = ((values >>> m_var[f]) & 1L) != 0 ? m_high[f] : m_low[f];
+		}
+		if (f == TRUE || f == FALSE)
+		{
+			return f == TRUE;
+		}
+		Boolean b = results.get(f);
+		if (b == null)
+		{
+			b = isSatisfiable(m_low[f], values, level, results) || isSatisfiable(m_high[f], values, level, results);
+			results.put(f, b);
+		}
+		return b;
+	}
+	
+	/**
+	 * Adds to a set all the valuations for which a function is true.
+	 * @param f The function
+	 * @param ids The set, where each valuation is represented as a number
+	 * whose bit <i>i</i> is the value of variable <i>i</i>
+	 */
+	public void expand(int f, Set<Long> ids)
+	{
+		expand(f, 0, 0, ids);
+	}
+	
+	/**
+	 * Adds to a set all the valuations for which a function is true, given
+	 * the values of the variables before a given one.
+	 * @param f The function
+	 * @param level The first variable whose value is not fixed
+	 * @param prefix The values of the variables before <tt>level</tt>
+	 * @param ids The set
+	 */
+	protected void expand(int f, int level, long prefix, Set<Long> ids)
+	{
+		if (f == FALSE)
+		{
+			return;
+		}
+		if (level == m_numVars)
+		{
+			ids.add(prefix);
+			return;
+		}
+		if (m_var[f] > level)
+		{
+			// The function does not depend on this variable
+			expand(f, level + 1, prefix, ids);
+			expand(f, level + 1, prefix | (1L << level), ids);
+			return;
+		}
+		expand(m_low[f], level + 1, prefix, ids);
+		expand(m_high[f], level + 1, prefix | (1L << level), ids);
+	}
+	
+	/**
+	 * Computes the function that is true when some variables have given
+	 * values, regardless of the others.
+	 * @param vars The variables
+	 * @param values The value of each variable
+	 * @return The function
+	 */
+	public int cube(int[] vars, boolean[] values)
+	{
+		int r = TRUE;
+		for (int i = 0; i < vars.length; i++)
+		{
+			r = and(r, literal(vars[i], values[i]));
+		}
+		return r;
+	}
+	
+	/**
+	 * Computes the function that is true for a single valuation.
+	 * @param values The valuation, as a number whose bit <i>i</i> is the
+	 * value of variable <i>i</i>
+	 * @return The function
+	 */
+	public int minterm(long values)
+	{
+		int r = TRUE;
+		for (int v = m_numVars - 1; v >= 0; v--)
+		{
+			r = ((values >>> v) & 1L) != 0 ? mk(v, FALSE, r) : mk(v, r, FALSE);
+		}
+		return r;
+	}
+	
+	/**
+	 * Computes the conjunction or disjunction of two non-constant
+	 * functions.
+	 * @param op The operation
+	 * @param f The first function
+	 * @param g The second function
+	 * @return The result
+	 */
+	protected int apply(int op, int f, int g)
+	{
+		if (f > g)
+		{
+			int t = f;
+			f = g;
+			g = t;
+		}
+		int h = cacheIndex(op, f, g);
+		if (m_cacheOp[h] == op && m_cacheA[h] == f && m_cacheB[h] == g)
+		{
+			return m_cacheResult[h];
+		}
+		int v = Math.min(m_var[f], m_var[g]);
+		int f0 = f, f1 = f, g0 = g, g1 = g;
+		if (m_var[f] == v)
+		{
+			f0 = m_low[f];
+			f1 = m_high[f];
+		}
+		if (m_var[g] == v)
+		{
+			g0 = m_low[g];
+			g1 = m_high[g];
+		}
+		int r;
+		if (op == OP_AND)
+		{
+			r = mk(v, and(f0, g0), and(f1, g1));
+		}
+		else
+		{
+			r = mk(v, or(f0, g0), or(f1, g1));
+		}
+		cacheStore(h, op, f, g, r);
+		return r;
+	}
+	
+	/**
+	 * Gets the node testing a variable with given children, creating it if
+	 * it does not exist.
+	 * @param v The variable
+	 * @param low The child when the variable is <tt>false</tt>
+	 * @param high The child when the variable is <tt>true</tt>
+	 * @return The index of the node
+	 */
+	protected int mk(int v, int low, int high)
+	{
+		if (low == high)
+		{
+			return low;
+		}
+		int mask = m_unique.length - 1;
+		int h = hash(v, low, high) & mask;
+		while (m_unique[h] != 0)
+		{
+			int n = m_unique[h];
+			if (m_var[n] == v && m_low[n] == low && m_high[n] == high)
+			{
+				return n;
+			}
+			h = (h + 1) & mask;
+		}
+		if (m_size == m_var.length)
+		{
+			int capacity = 2 * m_var.length;
+			m_var = Arrays.copyOf(m_var, capacity);
+			m_low = Arrays.copyOf(m_low, capacity);
+			m_high = Arrays.copyOf(m_high, capacity);
+		}
+		int n = m_size++;
+		m_var[n] = v;
+		m_low[n] = low;
+		m_high[n] = high;
+		m_unique[h] = n;
+		if (2 * m_size > m_unique.length)
+		{
+			rehash();
+		}
+		return n;
+	}
+	
+	/**
+	 * Doubles the size of the unique table.
+	 */
+	protected void rehash()
+	{
+		m_unique = new int[2 * m_unique.length];
+		int mask = m_unique.length - 1;
+		for (int n = 2; n < m_size; n++)
+		{
+			int h = hash(m_var[n], m_low[n], m_high[n]) & mask;
+			while (m_unique[h] != 0)
+			{
+				h = (h + 1) & mask;
+			}
+			m_unique[h] = n;
+		}
+	}
+	
+	/**
+	 * Computes a hash code for a node.
+	 * @param v The variable
+	 * @param low The child when the variable is <tt>false</tt>
+	 * @param high The child when the variable is <tt>true</tt>
+	 * @return The hash code
+	 */
+	protected static int hash(int v, int low, int high)
+	{
+		int h = v * 0x9E3779B1 + low * 0x85EBCA77 + high * 0xC2B2AE3D;
+		return h ^ (h >>> 15);
+	}
+	
+	/**
+	 * Gets the entry of the computed table for an operation.
+	 * @param op The operation
+	 * @param f The first operand
+	 * @param g The second operand
+	 * @return The index of the entry
+	 */
+	protected static int cacheIndex(int op, int f, int g)
+	{
+		return hash(op, f, g) & (CACHE_SIZE - 1);
+	}
+	
+	/**
+	 * Stores the result of an operation in the computed table.
+	 * @param h The index of the entry
+	 * @param op The operation
+	 * @param f The first operand
+	 * @param g The second operand
+	 * @param r The result
+	 */
+	protected void cacheStore(int h, int op, int f, int g, int r)
+	{
+		m_cacheOp[h] = op;
+		m_cacheA[h] = f;
+		m_cacheB[h] = g;
+		m_cacheResult[h] = r;
+	}
+}
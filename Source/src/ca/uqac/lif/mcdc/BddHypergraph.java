@@ -0,0 +1,137 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A hypergraph whose hyperedges are sets of valuations represented by
+ * {@link Bdd}s instead of explicit lists of valuation IDs. The hyperedges
+ * are only expanded into IDs when a {@link Hypergraph} is requested by
+ * calling {@link #expand()}.
+ */
+public class BddHypergraph
+{
+	/**
+	 * The BDD package in which the sets of valuations are represented.
+	 */
+	protected final Bdd m_bdd;
+	
+	/**
+	 * A map associating a hologram to the set of valuations producing it.
+	 * Its keys are the canonical instances of {@link #m_factory}, so that
+	 * finding a key compares the trees by reference.
+	 */
+	protected final Map<HologramNode,Integer> m_edges;
+	
+	/**
+	 * The factory producing the canonical instance of each hologram.
+	 */
+	protected final HologramFactory m_factory;
+	
+	/**
+	 * The symbol table of the formula whose valuations are represented, if
+	 * known. It is given to the encoder of the expanded hypergraph.
+	 */
+	protected final SymbolTable m_symbols;
+	
+	/**
+	 * Creates a new empty hypergraph.
+	 * @param bdd The BDD package in which the sets of valuations are
+	 * represented
+	 */
+	public BddHypergraph(Bdd bdd)
+	{
+		this(bdd, null);
+	}
+	
+	/**
+	 * Creates a new empty hypergraph for the valuations of a formula.
+	 * @param bdd The BDD package in which the sets of valuations are
+	 * represented
+	 * @param symbols The symbol table of the formula, or <tt>null</tt>
+	 */
+	public BddHypergraph(Bdd bdd, SymbolTable symbols)
+	{
+		super();
+		m_bdd = bdd;
+		m_symbols = symbols;
+		m_edges = new HashMap<HologramNode,Integer>();
+		m_factory = new HologramFactory(symbols);
+	}
+	
+	/**
+	 * Gets the BDD package in which the sets of valuations are represented.
+	 * @return The package
+	 */
+	public Bdd getBdd()
+	{
+		return m_bdd;
+	}
+	
+	/**
+	 * Adds a set of valuations to a hyperedge of the graph. The hologram is
+	 * replaced by its canonical instance before being looked up; its hash
+	 * code is then cached, and the hyperedge is found by reference.
+	 * @param n The hologram produced by the valuations
+	 * @param set The set of valuations
+	 */
+	public void addTo(HologramNode n, int set)
+	{
+		HologramNode key = m_factory.intern(n);
+		Integer f = m_edges.get(key);
+		m_edges.put(key, f == null ? set : m_bdd.or(f, set));
+	}
+	
+	/**
+	 * Counts hyperedges in the hypergraph.
+	 * @return The number of hyperedges
+	 */
+	public int getEdgeCount()
+	{
+		return m_edges.size();
+	}
+	
+	/**
+	 * Gets the hyperedges of the hypergraph.
+	 * @return A map associating each hologram to the set of valuations
+	 * producing it. This map cannot be modified. Its keys are canonical
+	 * instances (see {@link HologramFactory}).
+	 */
+	public Map<HologramNode,Integer> getEdges()
+	{
+		return Collections.unmodifiableMap(m_edges);
+	}
+	
+	/**
+	 * Creates the hypergraph where each hyperedge contains the IDs of its
+	 * valuations.
+	 * @return The hypergraph
+	 */
+	public Hypergraph expand()
+	{
+		Hypergraph h = new Hypergraph(new HologramEncoder(m_symbols));
+		for (Map.Entry<HologramNode,Integer> e : m_edges.entrySet())
+		{
+			m_bdd.expand(e.getValue(), h.getEdge(e.getKey()).m_vertices);
+		}
+		return h;
+	}
+}
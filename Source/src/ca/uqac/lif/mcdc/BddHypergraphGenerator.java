@@ -0,0 +1,220 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds a hypergraph without enumerating the valuations of a formula.
+ * For each truncation, the valuation space is split into classes of
+ * valuations producing the same truncated tree, each represented by a
+ * {@link Bdd}; the tree of a class is obtained by evaluating the formula on
+ * a single valuation of that class. The resulting {@link BddHypergraph}
+ * is the same as the one produced by {@link HypergraphGenerator}, and can
+ * handle formulas with many more variables.
+ * <p>
+ * The classes are computed symbolically for {@link KeepIfDetermines},
+ * {@link KeepValuesOf} and {@link KeepNthClause}; other truncations are
+ * not supported.
+ */
+public class BddHypergraphGenerator
+{
+	public BddHypergraph getGraph(Operator phi, Set<Truncation> truncations)
+	{
+		return getGraph(phi, truncations.toArray(new Truncation[truncations.size()]));
+	}
+	
+	public BddHypergraph getGraph(Operator phi, Truncation ... truncations)
+	{
+		SymbolTable symbols = phi.getSymbolTable();
+		Bdd bdd = new Bdd(symbols.size());
+		Map<Operator,Integer> functions = new IdentityHashMap<Operator,Integer>();
+		bdd.build(phi, symbols, functions);
+		BddHypergraph h = new BddHypergraph(bdd, symbols);
+		for (Truncation t : truncations)
+		{
+			for (int c : getClasses(bdd, phi, symbols, functions, t))
+			{
+				if (c == Bdd.FALSE)
+				{
+					continue;
+				}
+				Valuation v = symbols.unpack(bdd.pickOne(c));
+				h.addTo(t.applyTo(phi.evaluate(v)), c);
+			}
+		}
+		return h;
+	}
+	
+	/**
+	 * Splits the valuations of a formula into classes that a truncation
+	 * turns into the same tree.
+	 * @param bdd The BDD package
+	 * @param phi The formula
+	 * @param symbols The symbol table of the formula
+	 * @param functions A map associating each subformula of
+	 * <tt>phi</tt> to its function
+	 * @param t The truncation
+	 * @return The list of classes; some of them may be empty
+	 */
+	protected static List<Integer> getClasses(Bdd bdd, Operator phi, SymbolTable symbols, Map<Operator,Integer> functions, Truncation t)
+	{
+		int f = functions.get(phi);
+		List<Integer> classes = new ArrayList<Integer>();
+		if (t instanceof KeepIfDetermines)
+		{
+			// Either a leaf of the variable, with its value, or a dummy node
+			// with the value of the formula
+			String name = ((KeepIfDetermines) t).m_name;
+			int det = determines(bdd, phi, name, functions, new IdentityHashMap<Operator,Integer>());
+			int x = symbols.getSlot(name) < 0 ? Bdd.FALSE : bdd.var(symbols.getSlot(name));
+			classes.add(bdd.and(det, x));
+			classes.add(bdd.and(det, bdd.not(x)));
+			classes.add(bdd.and(bdd.not(det), f));
+			classes.add(bdd.and(bdd.not(det), bdd.not(f)));
+		}
+		else if (t instanceof KeepValuesOf)
+		{
+			// One class for each combination of values of the variables kept
+			List<Integer> slots = new ArrayList<Integer>();
+			for (String name : ((KeepValuesOf) t).m_variables)
+			{
+				int slot = symbols.getSlot(name);
+				if (slot >= 0 && !slots.contains(slot))
+				{
+					slots.add(slot);
+				}
+			}
+			int[] vars = new int[slots.size()];
+			for (int i = 0; i < vars.length; i++)
+			{
+				vars[i] = slots.get(i);
+			}
+			boolean[] values = new boolean[vars.length];
+			for (long combination = 0; combination < 1L << vars.length; combination++)
+			{
+				for (int i = 0; i < values.length; i++)
+				{
+					values[i] = ((combination >>> i) & 1L) != 0;
+				}
+				classes.add(bdd.cube(vars, values));
+			}
+		}
+		else if (t instanceof KeepNthClause)
+		{
+			// The values of the formula and of the clause
+			int clause_nb = ((KeepNthClause) t).m_clauseNb;
+			List<Operator> operands = getOperands(phi);
+			List<Integer> parts = new ArrayList<Integer>(2);
+			parts.add(f);
+			parts.add(bdd.not(f));
+			if (clause_nb < operands.size())
+			{
+				int c = functions.get(operands.get(clause_nb));
+				for (int part : parts)
+				{
+					classes.add(bdd.and(part, c));
+					classes.add(bdd.and(part, bdd.not(c)));
+				}
+			}
+			else
+			{
+				classes.addAll(parts);
+			}
+		}
+		else
+		{
+			throw new IllegalArgumentException("Truncation " + t + " cannot be computed symbolically");
+		}
+		return classes;
+	}
+	
+	/**
+	 * Computes the set of valuations for which
+	 * {@link KeepIfDetermines#determines(HologramNode, String)} finds a leaf
+	 * of a variable in the hologram of a formula.
+	 * @param bdd The BDD package
+	 * @param op The formula
+	 * @param name The name of the variable
+	 * @param functions A map associating each subformula to its function
+	 * @param computed The sets already computed for some subformulas
+	 * @return The set of valuations
+	 */
+	protected static int determines(Bdd bdd, Operator op, String name, Map<Operator,Integer> functions, Map<Operator,Integer> computed)
+	{
+		Integer d = computed.get(op);
+		if (d != null)
+		{
+			return d;
+		}
+		int r;
+		if (op instanceof Atom)
+		{
+			r = ((Atom) op).getName().equals(name) ? Bdd.TRUE : Bdd.FALSE;
+		}
+		else if (op instanceof Negation)
+		{
+			r = determines(bdd, ((Negation) op).getOperand(), name, functions, computed);
+		}
+		else
+		{
+			// Conjunction: a false operand that does not determine the variable
+			// makes a false conjunction fail; dually for a disjunction
+			boolean is_and = op instanceof Conjunction;
+			int any = Bdd.FALSE, all = Bdd.TRUE;
+			for (Operator c : getOperands(op))
+			{
+				int d_c = determines(bdd, c, name, functions, computed);
+				int f_c = functions.get(c);
+				any = bdd.or(any, d_c);
+				all = bdd.and(all, bdd.or(d_c, is_and ? f_c : bdd.not(f_c)));
+			}
+			int f = functions.get(op);
+			r = bdd.and(any, bdd.or(is_and ? f : bdd.not(f), all));
+		}
+		computed.put(op, r);
+		return r;
+	}
+	
+	/**
+	 * Gets the operands of an operator.
+	 * @param op The operator
+	 * @return The list of operands, which is empty for an atom
+	 */
+	protected static List<Operator> getOperands(Operator op)
+	{
+		if (op instanceof Conjunction)
+		{
+			return ((Conjunction) op).getOperands();
+		}
+		if (op instanceof Disjunction)
+		{
+			return ((Disjunction) op).getOperands();
+		}
+		if (op instanceof Negation)
+		{
+			return Collections.singletonList(((Negation) op).getOperand());
+		}
+		return Collections.<Operator>emptyList();
+	}
+}
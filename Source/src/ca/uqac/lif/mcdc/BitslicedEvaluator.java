@@ -0,0 +1,511 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evaluates a formula and all its subformulas on 64 valuations at a time.
+ * The valuations of the formula are split into blocks of 64 consecutive
+ * valuation IDs (following the enumeration order of
+ * {@link HypergraphGenerator}); for a given block, the value of each
+ * variable is a <tt>long</tt> whose bit <i>k</i> is the value of that
+ * variable in the <i>k</i>-th valuation of the block. Negation, conjunction
+ * and disjunction then become bitwise operations on these words, and a
+ * complete truth table over 2<sup><i>n</i></sup> valuations takes
+ * 2<sup><i>n</i></sup>/64 word operations per node of the formula.
+ * <p>
+ * Nodes of the formula are numbered in postorder; the root is therefore
+ * the last node. An operator instance occurring at several places in the
+ * formula is a single node.
+ * <p>
+ * Blocks and valuations are numbered with <tt>long</tt>s, so the formula
+ * can have at most {@link SymbolTable#MAX_VARIABLES} variables, like a
+ * {@link CompiledFormula}. Methods that return complete truth tables
+ * also need the number of blocks to fit in an array.
+ */
+public class BitslicedEvaluator
+{
+	/**
+	 * The number of valuations in a block.
+	 */
+	public static final int BLOCK_SIZE = 64;
+	
+	/**
+	 * Node type for an atom.
+	 */
+	protected static final int ATOM = 0;
+	
+	/**
+	 * Node type for a negation.
+	 */
+	protected static final int NOT = 1;
+	
+	/**
+	 * Node type for a conjunction.
+	 */
+	protected static final int AND = 2;
+	
+	/**
+	 * Node type for a disjunction.
+	 */
+	protected static final int OR = 3;
+	
+	/**
+	 * The values of the variables at slots 0 to 5 in any block.
+	 */
+	protected static final long[] s_patterns = {
+			0xAAAAAAAAAAAAAAAAL, 0xCCCCCCCCCCCCCCCCL, 0xF0F0F0F0F0F0F0F0L,
+			0xFF00FF00FF00FF00L, 0xFFFF0000FFFF0000L, 0xFFFFFFFF00000000L};
+	
+	/**
+	 * The type of each node.
+	 */
+	protected final int[] m_types;
+	
+	/**
+	 * For an atom, the slot of its variable; -1 for other nodes.
+	 */
+	protected final int[] m_slots;
+	
+	/**
+	 * The label given to each node in a hologram.
+	 */
+	protected final String[] m_labels;
+	
+	/**
+	 * The indices of the children of each node.
+	 */
+	protected final int[][] m_children;
+	
+	/**
+	 * The operator corresponding to each node.
+	 */
+	protected final Operator[] m_operators;
+	
+	/**
+	 * The symbol table of the formula.
+	 */
+	protected final SymbolTable m_symbols;
+	
+	/**
+	 * Creates a new evaluator for a formula.
+	 * @param phi The formula
+	 */
+	public BitslicedEvaluator(Operator phi)
+	{
+		this(phi, phi.getSymbolTable());
+	}
+	
+	/**
+	 * Creates a new evaluator for a formula, whose variables are numbered
+	 * according to a given symbol table. Blocks then enumerate the
+	 * valuations of all the variables of this table, which may contain
+	 * variables that do not occur in the formula.
+	 * @param phi The formula
+	 * @param symbols The symbol table, which must contain all the variables
+	 * of the formula
+	 */
+	public BitslicedEvaluator(Operator phi, SymbolTable symbols)
+	{
+		super();
+		m_symbols = symbols;
+		if (m_symbols.size() > SymbolTable.MAX_VARIABLES)
+		{
+			throw new IllegalArgumentException("Cannot evaluate a formula with more than " + SymbolTable.MAX_VARIABLES + " variables");
+		}
+		List<Operator> nodes = new ArrayList<Operator>(phi.getSize());
+		List<int[]> children = new ArrayList<int[]>(phi.getSize());
+		flatten(phi, nodes, children, new IdentityHashMap<Operator,Integer>());
+		int size = nodes.size();
+		m_types = new int[size];
+		m_slots = new int[size];
+		m_labels = new String[size];
+		m_operators = new Operator[size];
+		m_children = new int[size][];
+		for (int i = 0; i < size; i++)
+		{
+			Operator op = nodes.get(i);
+			m_operators[i] = op;
+			m_children[i] = children.get(i);
+			m_slots[i] = -1;
+			if (op instanceof Atom)
+			{
+				m_types[i] = ATOM;
+				m_labels[i] = ((Atom) op).getName();
+				m_slots[i] = m_symbols.getSlot(m_labels[i]);
+				if (m_slots[i] < 0)
+				{
+					throw new IllegalArgumentException("Variable " + m_labels[i] + " is not in the symbol table");
+				}
+			}
+			else if (op instanceof Negation)
+			{
+				m_types[i] = NOT;
+				m_labels[i] = Negation.SYMBOL;
+			}
+			else if (op instanceof Conjunction)
+			{
+				m_types[i] = AND;
+				m_labels[i] = Conjunction.SYMBOL;
+			}
+			else
+			{
+				m_types[i] = OR;
+				m_labels[i] = Disjunction.SYMBOL;
+			}
+		}
+	}
+	
+	/**
+	 * Adds the nodes of a formula to a list, in postorder. An operator
+	 * instance that occurs more than once in the formula (see
+	 * {@link OperatorPool}) is given a single node, and is therefore
+	 * evaluated only once per block.
+	 * @param op The formula
+	 * @param nodes The list of nodes
+	 * @param children The list of children indices for each node
+	 * @param visited A map associating operators already added to the list
+	 * to their index
+	 * @return The index of the node corresponding to <tt>op</tt>
+	 */
+	protected static int flatten(Operator op, List<Operator> nodes, List<int[]> children, Map<Operator,Integer> visited)
+	{
+		Integer index = visited.get(op);
+		if (index != null)
+		{
+			return index;
+		}
+		int[] c_indices;
+		if (op instanceof Atom)
+		{
+			c_indices = new int[0];
+		}
+		else if (op instanceof Negation)
+		{
+			c_indices = new int[] {flatten(((Negation) op).getOperand(), nodes, children, visited)};
+		}
+		else
+		{
+			List<Operator> operands;
+			if (op instanceof Conjunction)
+			{
+				operands = ((Conjunction) op).getOperands();
+			}
+			else if (op instanceof Disjunction)
+			{
+				operands = ((Disjunction) op).getOperands();
+			}
+			else
+			{
+				throw new IllegalArgumentException("Cannot evaluate operator " + op);
+			}
+			c_indices = new int[operands.size()];
+			for (int i = 0; i < c_indices.length; i++)
+			{
+				c_indices[i] = flatten(operands.get(i), nodes, children, visited);
+			}
+		}
+		nodes.add(op);
+		children.add(c_indices);
+		visited.put(op, nodes.size() - 1);
+		return nodes.size() - 1;
+	}
+	
+	/**
+	 * Gets the number of nodes in the formula.
+	 * @return The number of nodes
+	 */
+	public int getNodeCount()
+	{
+		return m_types.length;
+	}
+	
+	/**
+	 * Gets the index of the root node of the formula.
+	 * @return The index
+	 */
+	public int getRoot()
+	{
+		return m_types.length - 1;
+	}
+	
+	/**
+	 * Gets the operator corresponding to a node.
+	 * @param node The index of the node
+	 * @return The operator
+	 */
+	public Operator getOperator(int node)
+	{
+		return m_operators[node];
+	}
+	
+	/**
+	 * Gets the symbol table of the formula.
+	 * @return The symbol table
+	 */
+	public SymbolTable getSymbolTable()
+	{
+		return m_symbols;
+	}
+	
+	/**
+	 * Gets the number of blocks needed to cover all the valuations of the
+	 * formula.
+	 * @return The number of blocks
+	 */
+	public long getBlockCount()
+	{
+		int n = m_symbols.size();
+		if (n <= 6)
+		{
+			return 1;
+		}
+		return 1L << (n - 6);
+	}
+	
+	/**
+	 * Gets the number of valuations in each block. This is 64, except for
+	 * formulas with fewer than 6 variables.
+	 * @return The number of valuations
+	 */
+	public int getValuationsPerBlock()
+	{
+		int n = m_symbols.size();
+		if (n >= 6)
+		{
+			return BLOCK_SIZE;
+		}
+		return 1 << n;
+	}
+	
+	/**
+	 * Evaluates every node of the formula on a block of valuations.
+	 * @param block The number of the block
+	 * @param words An array with one element per node, which will receive
+	 * the value of each node for the 64 valuations of the block
+	 */
+	public void evaluate(long block, long[] words)
+	{
+		evaluate(block, null, words);
+	}
+	
+	/**
+	 * Evaluates every node of the formula on up to 64 arbitrary valuations.
+	 * This is used to evaluate valuations that do not form a block, such as
+	 * valuations drawn at random.
+	 * @param ids The IDs of the valuations, in the format of
+	 * {@link SymbolTable#pack(Valuation)}
+	 * @param count The number of valuations in the array to evaluate
+	 * @param words An array with one element per node, which will receive
+	 * in bit <i>k</i> the value of each node for valuation <tt>ids[k]</tt>
+	 */
+	public void evaluate(long[] ids, int count, long[] words)
+	{
+		if (count > BLOCK_SIZE)
+		{
+			throw new IllegalArgumentException("Cannot evaluate more than " + BLOCK_SIZE + " valuations at once");
+		}
+		long[] variables = new long[m_symbols.size()];
+		for (int k = 0; k < count; k++)
+		{
+			long bits = ids[k];
+			while (bits != 0)
+			{
+				variables[Long.numberOfTrailingZeros(bits)] |= 1L << k;
+				bits &= bits - 1;
+			}
+		}
+		evaluate(0, variables, words);
+	}
+	
+	/**
+	 * Evaluates every node of the formula, given the values of the
+	 * variables.
+	 * @param block The number of the block, used if <tt>variables</tt> is
+	 * <tt>null</tt>
+	 * @param variables The word of values of each variable, indexed by
+	 * slot, or <tt>null</tt> to use the values of the block
+	 * @param words An array with one element per node, which will receive
+	 * the value of each node
+	 */
+	protected void evaluate(long block, long[] variables, long[] words)
+	{
+		for (int i = 0; i < m_types.length; i++)
+		{
+			int[] children = m_children[i];
+			long w;
+			switch (m_types[i])
+			{
+			case ATOM:
+				w = variables == null ? getVariableWord(m_slots[i], block) : variables[m_slots[i]];
+				break;
+			case NOT:
+				w = ~words[children[0]];
+				break;
+			case AND:
+				w = -1L;
+				for (int c : children)
+				{
+					w &= words[c];
+				}
+				break;
+			default:
+				w = 0L;
+				for (int c : children)
+				{
+					w |= words[c];
+				}
+			}
+			words[i] = w;
+		}
+	}
+	
+	/**
+	 * Computes the truth table of every node of the formula. Bit <i>k</i> of
+	 * word <i>w</i> in the table of a node is its value for the valuation
+	 * with ID 64<i>w</i>+<i>k</i>. Since this requires
+	 * 2<sup><i>n</i></sup>/8 bytes per node, this method is only meant for
+	 * formulas of moderate width; {@link #evaluate(long, long[])} can be used
+	 * to process wider formulas block by block.
+	 * @return An array containing the truth table of each node
+	 */
+	public long[][] getTruthTables()
+	{
+		int num_blocks = getTableLength();
+		long[][] tables = new long[m_types.length][num_blocks];
+		long[] words = new long[m_types.length];
+		long mask = getMask();
+		for (int b = 0; b < num_blocks; b++)
+		{
+			evaluate(b, words);
+			for (int i = 0; i < words.length; i++)
+			{
+				tables[i][b] = words[i] & mask;
+			}
+		}
+		return tables;
+	}
+	
+	/**
+	 * Computes the truth table of the formula.
+	 * @return The truth table
+	 * @see #getTruthTables()
+	 */
+	public long[] getTruthTable()
+	{
+		int num_blocks = getTableLength();
+		long[] table = new long[num_blocks];
+		long[] words = new long[m_types.length];
+		long mask = getMask();
+		for (int b = 0; b < num_blocks; b++)
+		{
+			evaluate(b, words);
+			table[b] = words[words.length - 1] & mask;
+		}
+		return table;
+	}
+	
+	/**
+	 * Gets the number of words in the truth table of a node.
+	 * @return The number of words, which is the number of blocks
+	 * @throws IllegalArgumentException If the table does not fit in an array
+	 */
+	protected int getTableLength()
+	{
+		long num_blocks = getBlockCount();
+		if (num_blocks > Integer.MAX_VALUE)
+		{
+			throw new IllegalArgumentException("The truth table of a formula with " + m_symbols.size() + " variables does not fit in an array");
+		}
+		return (int) num_blocks;
+	}
+	
+	/**
+	 * Gets the mask of the bits that correspond to actual valuations in a
+	 * block.
+	 * @return The mask
+	 */
+	public long getMask()
+	{
+		int size = getValuationsPerBlock();
+		if (size == BLOCK_SIZE)
+		{
+			return -1L;
+		}
+		return (1L << size) - 1;
+	}
+	
+	/**
+	 * Creates the hologram of one valuation of a block that has been
+	 * evaluated. The resulting tree is identical to the one produced by
+	 * {@link Operator#evaluate(Valuation)} for the same valuation.
+	 * @param words The value of each node for the block, as computed by
+	 * {@link #evaluate(long, long[])}
+	 * @param k The position of the valuation in the block
+	 * @return The hologram
+	 */
+	public HologramNode getHologram(long[] words, int k)
+	{
+		return getHologram(words, k, getRoot());
+	}
+	
+	/**
+	 * Creates the hologram of a node for one valuation of a block.
+	 * @param words The value of each node for the block
+	 * @param k The position of the valuation in the block
+	 * @param node The index of the node
+	 * @return The hologram
+	 */
+	protected HologramNode getHologram(long[] words, int k, int node)
+	{
+		HologramNode n;
+		if (m_types[node] == ATOM)
+		{
+			n = new HologramNode(m_labels[node], m_slots[node]);
+		}
+		else
+		{
+			n = new HologramNode(m_labels[node]);
+			for (int c : m_children[node])
+			{
+				n.addChild(getHologram(words, k, c));
+			}
+		}
+		n.setValue(((words[node] >>> k) & 1L) != 0);
+		return n;
+	}
+	
+	/**
+	 * Gets the values taken by a variable in a block of valuations.
+	 * @param slot The slot of the variable
+	 * @param block The number of the block
+	 * @return The values of the variable
+	 */
+	protected static long getVariableWord(int slot, long block)
+	{
+		if (slot < 6)
+		{
+			return s_patterns[slot];
+		}
+		return ((block >>> (slot - 6)) & 1L) != 0 ? -1L : 0L;
+	}
+}
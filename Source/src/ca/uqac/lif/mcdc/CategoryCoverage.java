@@ -18,6 +18,7 @@
 package ca.uqac.lif.mcdc;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -26,12 +27,29 @@ public class CategoryCoverage extends TruncationMetric
 {
 	protected Truncation[] m_truncations;
 	
+	/**
+	 * Whether valuations are enumerated in Gray-code order.
+	 */
+	protected boolean m_grayCode = false;
+	
 	public CategoryCoverage(Truncation ... truncations)
 	{
 		super();
 		m_truncations = truncations;
 	}
 	
+	/**
+	 * Sets whether {@link #getCoverage(Operator, Set)} enumerates valuations
+	 * in Gray-code order (see {@link GrayCodeEvaluator}). The coverage
+	 * computed is the same in both cases.
+	 * @param b <tt>true</tt> to use Gray-code order, <tt>false</tt> to
+	 * enumerate valuations in binary order by blocks (the default)
+	 */
+	public void setGrayCode(boolean b)
+	{
+		m_grayCode = b;
+	}
+	
 	/**
 	 * Computes the category coverage ratio of a test suite.
 	 * 
@@ -41,23 +59,79 @@ public class CategoryCoverage extends TruncationMetric
 	 */
 	public float getCoverage(Operator formula, Set<Valuation> test_suite)
 	{
-		ObjectIdentifier<HologramNode> identifier_all = new ObjectIdentifier<HologramNode>();
-		ObjectIdentifier<HologramNode> identifier_suite = new ObjectIdentifier<HologramNode>();
-		ValuationIterator it = new ValuationIterator(formula.getSortedVariables());
-		while (it.hasNext())
+		return getCoverage(formula, TestSuite.of(formula.getSymbolTable(), test_suite));
+	}
+	
+	/**
+	 * Computes the category coverage ratio of a test suite given as a set of
+	 * valuation IDs.
+	 * 
+	 * @param formula The formula
+	 * @param suite_ids The test suite to compute coverage
+	 * @return The coverage ratio
+	 */
+	public float getCoverage(Operator formula, TestSuite suite_ids)
+	{
+		BitslicedEvaluator evaluator = formula.freeze().getEvaluator();
+		if (m_grayCode)
 		{
-			Valuation v = it.next();
-			HologramNode original = formula.evaluate(v);
+			return getGrayCodeCoverage(evaluator, suite_ids);
+		}
+		ObjectIdentifier<HologramSignature> identifier_all = new ObjectIdentifier<HologramSignature>();
+		ObjectIdentifier<HologramSignature> identifier_suite = new ObjectIdentifier<HologramSignature>();
+		HologramEncoder encoder = new HologramEncoder(evaluator.getSymbolTable());
+		long[] words = new long[evaluator.getNodeCount()];
+		int per_block = evaluator.getValuationsPerBlock();
+		for (long b = 0; b < evaluator.getBlockCount(); b++)
+		{
+			evaluator.evaluate(b, words);
+			for (int k = 0; k < per_block; k++)
+			{
+				HologramNode original = evaluator.getHologram(words, k);
+				boolean in_suite = suite_ids.contains(b * BitslicedEvaluator.BLOCK_SIZE + k);
+				for (Truncation t : m_truncations)
+				{
+					HologramSignature n = encoder.encode(t.applyTo(original));
+					identifier_all.seenBefore(n);
+					if (in_suite) 
+					{
+						identifier_suite.seenBefore(n);
+					}
+				}
+			}
+		}
+		return (float) identifier_suite.countDistinctObjects() / (float) identifier_all.countDistinctObjects();
+	}
+	
+	/**
+	 * Computes the category coverage ratio of a test suite by enumerating
+	 * valuations in Gray-code order.
+	 * @param evaluator The evaluator for the formula
+	 * @param suite_ids The IDs of the valuations in the test suite
+	 * @return The coverage ratio
+	 */
+	protected float getGrayCodeCoverage(BitslicedEvaluator evaluator, TestSuite suite_ids)
+	{
+		// The tree of the evaluator changes at every step, so holograms are
+		// stored as signatures
+		HologramEncoder encoder = new HologramEncoder(evaluator.getSymbolTable());
+		ObjectIdentifier<HologramSignature> identifier_all = new ObjectIdentifier<HologramSignature>();
+		ObjectIdentifier<HologramSignature> identifier_suite = new ObjectIdentifier<HologramSignature>();
+		GrayCodeEvaluator gray = new GrayCodeEvaluator(evaluator);
+		do
+		{
+			HologramNode original = gray.getRoot();
+			boolean in_suite = suite_ids.contains(gray.getIndex());
 			for (Truncation t : m_truncations)
 			{
-				HologramNode n = t.applyTo(original);
+				HologramSignature n = encoder.encode(t.applyTo(original));
 				identifier_all.seenBefore(n);
-				if (test_suite.contains(v)) 
+				if (in_suite)
 				{
 					identifier_suite.seenBefore(n);
 				}
 			}
-		}
+		} while (gray.next());
 		return (float) identifier_suite.countDistinctObjects() / (float) identifier_all.countDistinctObjects();
 	}
 	
@@ -73,14 +147,15 @@ public class CategoryCoverage extends TruncationMetric
 	 */
 	public float getCoverage(Operator formula, Set<Valuation> test_suite, Set<Valuation> reference_test_suite)
 	{
-		ObjectIdentifier<HologramNode> identifier_all = new ObjectIdentifier<HologramNode>();
-		ObjectIdentifier<HologramNode> identifier_suite = new ObjectIdentifier<HologramNode>();
+		ObjectIdentifier<HologramSignature> identifier_all = new ObjectIdentifier<HologramSignature>();
+		ObjectIdentifier<HologramSignature> identifier_suite = new ObjectIdentifier<HologramSignature>();
+		HologramEncoder encoder = new HologramEncoder(formula.getSymbolTable());
 		for (Valuation v : reference_test_suite)
 		{
 			HologramNode original = formula.evaluate(v);
 			for (Truncation t : m_truncations)
 			{
-				HologramNode n = t.applyTo(original);
+				HologramSignature n = encoder.encode(t.applyTo(original));
 				identifier_all.seenBefore(n);
 			}
 		}
@@ -89,7 +164,44 @@ public class CategoryCoverage extends TruncationMetric
 			HologramNode original = formula.evaluate(v);
 			for (Truncation t : m_truncations)
 			{
-				HologramNode n = t.applyTo(original);
+				HologramSignature n = encoder.encode(t.applyTo(original));
+				identifier_suite.seenBefore(n);
+			}
+		}
+		return (float) identifier_suite.countDistinctObjects() / (float) identifier_all.countDistinctObjects();
+	}
+	
+	/**
+	 * Computes the category coverage ratio of a test suite, based on a
+	 * reference test suite that is assumed to have full coverage. This is
+	 * the same as {@link #getCoverage(Operator, Set, Set)}, for test suites
+	 * made of packed valuations.
+	 * 
+	 * @param formula The formula
+	 * @param test_suite The test suite to compute coverage
+	 * @param reference_test_suite The reference coverage
+	 * @return The coverage ratio
+	 */
+	public float getPackedCoverage(Operator formula, Set<PackedValuation> test_suite, Set<PackedValuation> reference_test_suite)
+	{
+		ObjectIdentifier<HologramSignature> identifier_all = new ObjectIdentifier<HologramSignature>();
+		ObjectIdentifier<HologramSignature> identifier_suite = new ObjectIdentifier<HologramSignature>();
+		HologramEncoder encoder = new HologramEncoder(formula.getSymbolTable());
+		for (PackedValuation v : reference_test_suite)
+		{
+			HologramNode original = formula.evaluate(v.toValuation());
+			for (Truncation t : m_truncations)
+			{
+				HologramSignature n = encoder.encode(t.applyTo(original));
+				identifier_all.seenBefore(n);
+			}
+		}
+		for (PackedValuation v : test_suite)
+		{
+			HologramNode original = formula.evaluate(v.toValuation());
+			for (Truncation t : m_truncations)
+			{
+				HologramSignature n = encoder.encode(t.applyTo(original));
 				identifier_suite.seenBefore(n);
 			}
 		}
@@ -100,26 +212,45 @@ public class CategoryCoverage extends TruncationMetric
 	 * Computes the distribution of all valuations across equivalence classes
 	 * induced by the set of tree transformations. A distribution is an
 	 * associative map between a tree and an integer, representing the number
-	 * of valuations that produce the given tree.
+	 * of valuations that produce the given tree. Trees are counted by their
+	 * signature, and the keys of the maps are frozen trees.
 	 * @param formula The formula on which to apply the transformations
 	 * @return A set of distributions, one for each tree transformation
 	 */
 	public List<Map<HologramNode,Integer>> getCategoryDistribution(Operator formula)
 	{
-		String[] variables = formula.getSortedVariables();
+		BitslicedEvaluator evaluator = formula.freeze().getEvaluator();
+		HologramEncoder encoder = new HologramEncoder(evaluator.getSymbolTable());
 		List<Map<HologramNode,Integer>> distros = new ArrayList<Map<HologramNode,Integer>>(m_truncations.length);
-		for (Truncation t : m_truncations)
+		List<ObjectCounter<HologramSignature>> counters = new ArrayList<ObjectCounter<HologramSignature>>(m_truncations.length);
+		for (int i = 0; i < m_truncations.length; i++)
+		{
+			counters.add(new ObjectCounter<HologramSignature>());
+		}
+		long[] words = new long[evaluator.getNodeCount()];
+		int per_block = evaluator.getValuationsPerBlock();
+		for (long b = 0; b < evaluator.getBlockCount(); b++)
+		{
+			evaluator.evaluate(b, words);
+			for (int k = 0; k < per_block; k++)
+			{
+				HologramNode original = evaluator.getHologram(words, k);
+				for (int i = 0; i < m_truncations.length; i++)
+				{
+					HologramNode n = m_truncations[i].applyTo(original);
+					if (n != null)
+					counters.get(i).seenBefore(encoder.encode(n));
+				}
+			}
+		}
+		for (ObjectCounter<HologramSignature> id : counters)
 		{
-			ObjectCounter<HologramNode> id = new ObjectCounter<HologramNode>();
-			ValuationIterator it = new ValuationIterator(variables);
-			while (it.hasNext())
+			Map<HologramNode,Integer> distro = new HashMap<HologramNode,Integer>();
+			for (Map.Entry<HologramSignature,Integer> e : id.m_objectIds.entrySet())
 			{
-				Valuation v = it.next();
-				HologramNode n = t.applyTo(formula.evaluate(v));
-				if (n != null)
-				id.seenBefore(n);
+				distro.put(encoder.decode(e.getKey()).freeze(), e.getValue());
 			}
-			distros.add(id.m_objectIds);
+			distros.add(distro);
 		}
 		return distros;
 	}
@@ -0,0 +1,110 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Enumerates all the subsets of <i>t</i> elements among <i>n</i>, in
+ * lexicographic order. Each subset is represented as a sorted array of
+ * indices between 0 and <i>n</i>-1, and is computed from the previous one
+ * in amortized constant time; the enumeration therefore takes
+ * C(<i>n</i>,<i>t</i>) steps.
+ */
+public class CombinationIterator implements Iterator<int[]>
+{
+	/**
+	 * The number of elements to choose from.
+	 */
+	protected final int m_n;
+	
+	/**
+	 * The indices of the current subset.
+	 */
+	protected final int[] m_indices;
+	
+	/**
+	 * Whether the enumeration is over.
+	 */
+	protected boolean m_done;
+	
+	/**
+	 * Creates a new combination iterator.
+	 * @param n The number of elements to choose from
+	 * @param t The number of elements in each subset
+	 */
+	public CombinationIterator(int n, int t)
+	{
+		super();
+		m_n = n;
+		m_done = t < 0 || t > n;
+		m_indices = new int[m_done ? 0 : t];
+		for (int i = 0; i < m_indices.length; i++)
+		{
+			m_indices[i] = i;
+		}
+	}
+	
+	@Override
+	public boolean hasNext()
+	{
+		return !m_done;
+	}
+	
+	/**
+	 * Gets the next subset. The array returned is a copy and can be kept by
+	 * the caller.
+	 * @return The indices of the elements in the subset
+	 */
+	@Override
+	public int[] next()
+	{
+		if (m_done)
+		{
+			throw new NoSuchElementException("No new combination to enumerate");
+		}
+		int[] current = m_indices.clone();
+		// Find the rightmost index that can still be incremented
+		int t = m_indices.length;
+		int i = t - 1;
+		while (i >= 0 && m_indices[i] == m_n - t + i)
+		{
+			i--;
+		}
+		if (i < 0)
+		{
+			m_done = true;
+		}
+		else
+		{
+			m_indices[i]++;
+			for (int j = i + 1; j < t; j++)
+			{
+				m_indices[j] = m_indices[j - 1] + 1;
+			}
+		}
+		return current;
+	}
+	
+	@Override
+	public void remove()
+	{
+		throw new UnsupportedOperationException("Cannot remove a combination");
+	}
+}
@@ -0,0 +1,249 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc;
+
+import java.util.List;
+
+/**
+ * A formula compiled into a flat program that only computes its truth
+ * value. Contrary to {@link Operator#evaluate(Valuation)}, evaluating a
+ * compiled formula creates no {@link HologramNode}: the program works on a
+ * single Boolean accumulator, and conjunctions and disjunctions jump past
+ * their remaining operands as soon as their value is known.
+ * <p>
+ * The program reads the values of variables from a <tt>long</tt>, where
+ * bit <i>i</i> holds the value of the variable at slot <i>i</i> of the
+ * formula's {@link SymbolTable}. Since slots follow the order in which
+ * {@link HypergraphGenerator} enumerates valuations, this number is also
+ * the ID given to a valuation in a hypergraph. Formulas can therefore have
+ * at most {@link SymbolTable#MAX_VARIABLES} variables, as for the other
+ * engines that number valuations.
+ */
+public class CompiledFormula
+{
+	/**
+	 * Instruction that loads the value of a variable into the accumulator.
+	 * Its argument is the slot of the variable.
+	 */
+	protected static final int LOAD = 0;
+	
+	/**
+	 * Instruction that negates the accumulator.
+	 */
+	protected static final int NOT = 1;
+	
+	/**
+	 * Instruction that jumps to another instruction if the accumulator is
+	 * <tt>false</tt>. Its argument is the address to jump to.
+	 */
+	protected static final int JUMP_IF_FALSE = 2;
+	
+	/**
+	 * Instruction that jumps to another instruction if the accumulator is
+	 * <tt>true</tt>. Its argument is the address to jump to.
+	 */
+	protected static final int JUMP_IF_TRUE = 3;
+	
+	/**
+	 * Instruction that sets the accumulator to a constant. Its argument is 1
+	 * for <tt>true</tt> and 0 for <tt>false</tt>.
+	 */
+	protected static final int CONSTANT = 4;
+	
+	/**
+	 * The number of bits used by the opcode of an instruction; the remaining
+	 * bits hold its argument.
+	 */
+	protected static final int OP_BITS = 3;
+	
+	/**
+	 * The mask extracting the opcode of an instruction.
+	 */
+	protected static final int OP_MASK = (1 << OP_BITS) - 1;
+	
+	/**
+	 * The program's instructions.
+	 */
+	protected final int[] m_program;
+	
+	/**
+	 * The symbol table giving the bit position of each variable.
+	 */
+	protected final SymbolTable m_symbols;
+	
+	/**
+	 * Compiles a formula.
+	 * @param phi The formula
+	 */
+	public CompiledFormula(Operator phi)
+	{
+		super();
+		m_symbols = phi.getSymbolTable();
+		if (m_symbols.size() > SymbolTable.MAX_VARIABLES)
+		{
+			throw new IllegalArgumentException("Cannot compile a formula with more than " + SymbolTable.MAX_VARIABLES + " variables");
+		}
+		int[] program = new int[2 * phi.getSize()];
+		int length = compile(phi, program, 0);
+		m_program = new int[length];
+		System.arraycopy(program, 0, m_program, 0, length);
+	}
+	
+	/**
+	 * Gets the symbol table giving the bit position of each variable.
+	 * @return The symbol table
+	 */
+	public SymbolTable getSymbolTable()
+	{
+		return m_symbols;
+	}
+	
+	/**
+	 * Evaluates the formula.
+	 * @param values The values of the variables, packed into a number
+	 * @return The truth value of the formula
+	 */
+	public boolean evaluate(long values)
+	{
+		boolean acc = false;
+		int pc = 0;
+		while (pc < m_program.length)
+		{
+			int ins = m_program[pc];
+			int arg = ins >>> OP_BITS;
+			switch (ins & OP_MASK)
+			{
+			case LOAD:
+				acc = ((values >>> arg) & 1L) != 0;
+				break;
+			case NOT:
+				acc = !acc;
+				break;
+			case JUMP_IF_FALSE:
+				if (!acc)
+				{
+					pc = arg;
+					continue;
+				}
+				break;
+			case JUMP_IF_TRUE:
+				if (acc)
+				{
+					pc = arg;
+					continue;
+				}
+				break;
+			default:
+				acc = arg != 0;
+			}
+			pc++;
+		}
+		return acc;
+	}
+	
+	/**
+	 * Evaluates the formula.
+	 * @param v The valuation
+	 * @return The truth value of the formula
+	 */
+	public boolean evaluate(Valuation v)
+	{
+		return evaluate(pack(v));
+	}
+	
+	/**
+	 * Packs the values of a valuation into a number, following the slots of
+	 * this formula's symbol table. Variables without a value are taken to be
+	 * <tt>false</tt>.
+	 * @param v The valuation
+	 * @return The packed values
+	 */
+	public long pack(Valuation v)
+	{
+		return m_symbols.pack(v);
+	}
+	
+	/**
+	 * Writes the instructions computing the value of an operator.
+	 * @param op The operator
+	 * @param program The array of instructions to write to
+	 * @param pc The address of the first instruction to write
+	 * @return The address following the last written instruction
+	 */
+	protected int compile(Operator op, int[] program, int pc)
+	{
+		if (op instanceof Atom)
+		{
+			program[pc++] = instruction(LOAD, m_symbols.getSlot(((Atom) op).getName()));
+			return pc;
+		}
+		if (op instanceof Negation)
+		{
+			pc = compile(((Negation) op).getOperand(), program, pc);
+			program[pc++] = instruction(NOT, 0);
+			return pc;
+		}
+		List<Operator> operands;
+		int jump;
+		if (op instanceof Conjunction)
+		{
+			operands = ((Conjunction) op).getOperands();
+			jump = JUMP_IF_FALSE;
+		}
+		else if (op instanceof Disjunction)
+		{
+			operands = ((Disjunction) op).getOperands();
+			jump = JUMP_IF_TRUE;
+		}
+		else
+		{
+			throw new IllegalArgumentException("Cannot compile operator " + op);
+		}
+		if (operands.isEmpty())
+		{
+			program[pc++] = instruction(CONSTANT, jump == JUMP_IF_FALSE ? 1 : 0);
+			return pc;
+		}
+		int[] jumps = new int[operands.size() - 1];
+		for (int i = 0; i < operands.size(); i++)
+		{
+			pc = compile(operands.get(i), program, pc);
+			if (i < jumps.length)
+			{
+				jumps[i] = pc++;
+			}
+		}
+		// All jumps lead past the last operand
+		for (int address : jumps)
+		{
+			program[address] = instruction(jump, pc);
+		}
+		return pc;
+	}
+	
+	/**
+	 * Encodes an instruction.
+	 * @param opcode The instruction's opcode
+	 * @param arg The instruction's argument
+	 * @return The encoded instruction
+	 */
+	protected static int instruction(int opcode, int arg)
+	{
+		return (arg << OP_BITS) | opcode;
+	}
+}
@@ -55,29 +55,53 @@ public class ConfusionMatrix extends TruncationMetric
 	 * collection of tree transformations
 	 */
 	public ConfusionMatrix(Operator formula, Collection<Truncation> criterion1, Collection<Truncation> criterion2)
+	{
+		this(formula, criterion1, criterion2, 1);
+	}
+	
+	/**
+	 * Creates a new confusion matrix, enumerating valuations with multiple
+	 * threads. The matrix does not depend on the number of threads.
+	 * @param formula The formula to evaluate
+	 * @param criterion1 The first coverage criterion, represented as a
+	 * collection of tree transformations
+	 * @param criterion2 The second coverage criterion, represented as a
+	 * collection of tree transformations
+	 * @param threads The number of threads to use
+	 */
+	public ConfusionMatrix(Operator formula, Collection<Truncation> criterion1, Collection<Truncation> criterion2, int threads)
 	{
 		super();
 		m_tupleIdentifier1 = new ObjectIdentifier<NumericTuple>();
 		m_tupleIdentifier2 = new ObjectIdentifier<NumericTuple>();
 		m_formula = formula;
 		m_entries = new HashMap<TupleTuple,Integer>();
-		List<Truncation> l_criterion1 = setToList(criterion1);
-		List<Truncation> l_criterion2 = setToList(criterion2);
-		ValuationIterator it = new ValuationIterator(formula.getSortedVariables());
-		while (it.hasNext())
+		List<Truncation> l_criterion = setToList(criterion1);
+		int split = l_criterion.size();
+		l_criterion.addAll(setToList(criterion2));
+		for (Map.Entry<NumericTuple,Integer> e : countTuples(formula, l_criterion, threads).entrySet())
 		{
-			Valuation v = it.next();
-			HologramNode original = formula.evaluate(v);
-			NumericTuple nt1 = getTuple(original, l_criterion1);
-			NumericTuple nt2 = getTuple(original, l_criterion2);
+			NumericTuple nt1 = new NumericTuple();
+			NumericTuple nt2 = new NumericTuple();
+			for (int i = 0; i < e.getKey().m_elements.size(); i++)
+			{
+				if (i < split)
+				{
+					nt1.add(e.getKey().m_elements.get(i));
+				}
+				else
+				{
+					nt2.add(e.getKey().m_elements.get(i));
+				}
+			}
 			TupleTuple tt = new TupleTuple(m_tupleIdentifier1.getObjectId(nt1), m_tupleIdentifier2.getObjectId(nt2));
 			if (m_entries.containsKey(tt))
 			{
-				m_entries.put(tt, m_entries.get(tt) + 1);
+				m_entries.put(tt, m_entries.get(tt) + e.getValue());
 			}
 			else
 			{
-				m_entries.put(tt, 1);
+				m_entries.put(tt, e.getValue());
 			}
 		}
 	}
@@ -117,7 +141,7 @@ public class ConfusionMatrix extends TruncationMetric
 		int y = m_tupleIdentifier2.countDistinctObjects();
 		int[][] array = getArray();
 		double[][] n_array = new double[x][y];
-		double total = Math.pow(2, m_formula.getVariables().size());
+		double total = Math.pow(2, m_formula.freeze().getVariableCount());
 		for (int i = 0; i < x; i++)
 		{
 			for (int j = 0; j < y; j++)
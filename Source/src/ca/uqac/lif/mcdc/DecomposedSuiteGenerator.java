@@ -0,0 +1,253 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Generates a test suite by handling each independent component of a
+ * formula separately. For a formula made of components over <i>k</i><sub>1</sub>,
+ * &hellip;, <i>k</i><sub>m</sub> variables, the hypergraphs are built over
+ * sub-spaces of 2<sup><i>k</i><sub>1</sub></sup>, &hellip;,
+ * 2<sup><i>k</i><sub>m</sub></sup> valuations instead of a single space of
+ * 2<sup><i>k</i><sub>1</sub>+&hellip;+<i>k</i><sub>m</sub></sup> valuations.
+ * <p>
+ * The partial test suites are merged as follows:
+ * <ol>
+ * <li>each test of a component is completed with a "neutral" valuation of
+ * every other component (see {@link FormulaDecomposition#getNeutral(Operator)}),
+ * so that the effect of the component is visible at the root of the
+ * formula; tests that make their own component neutral do not hide the
+ * others, and are therefore combined together into as few valuations as
+ * possible;</li>
+ * <li>the merged suite is then checked against the hypergraph of the whole
+ * formula, computed symbolically with {@link BddHypergraphGenerator};
+ * for each hyperedge it does not hit, one of its valuations is added.</li>
+ * </ol>
+ * The first step is only a heuristic, which usually hits most hyperedges
+ * of the whole formula with few valuations; only the truncations that
+ * refer to the variables of a single component are used in that step.
+ * The only guarantee comes from the second step, which makes the result a
+ * hitting set of the whole hypergraph, including for classes that depend
+ * on more than one component (for example the combinations of values
+ * required by {@link KeepValuesOf} across components). As a consequence,
+ * all the truncations must be supported by {@link BddHypergraphGenerator}.
+ * <p>
+ * The second step never enumerates valuations: the suite is turned into a
+ * BDD once, and each hyperedge is checked with a single conjunction with
+ * that BDD, whose cost is bounded by the product of their sizes rather
+ * than by the number of valuations in the hyperedge and in the suite.
+ */
+public class DecomposedSuiteGenerator
+{
+	/**
+	 * The solver used to compute the hitting set of each component.
+	 */
+	protected final HittingSetSolver m_solver;
+	
+	/**
+	 * Creates a new generator using the greedy hitting set solver.
+	 */
+	public DecomposedSuiteGenerator()
+	{
+		this(GreedyHittingSetSolver.instance);
+	}
+	
+	/**
+	 * Creates a new generator.
+	 * @param solver The solver used to compute the hitting set of each
+	 * component
+	 */
+	public DecomposedSuiteGenerator(HittingSetSolver solver)
+	{
+		super();
+		m_solver = solver;
+	}
+	
+	/**
+	 * Generates a test suite for a formula.
+	 * @param phi The formula
+	 * @param truncations The truncations defining the coverage criterion
+	 * @return The set of IDs of the valuations in the test suite; these IDs
+	 * are the same as those given by {@link HypergraphGenerator} to the
+	 * valuations of <tt>phi</tt>
+	 */
+	public Set<Long> generate(Operator phi, Set<Truncation> truncations)
+	{
+		return generate(phi, truncations.toArray(new Truncation[truncations.size()]));
+	}
+	
+	/**
+	 * Generates a test suite for a formula.
+	 * @param phi The formula
+	 * @param truncations The truncations defining the coverage criterion
+	 * @return The set of IDs of the valuations in the test suite; these IDs
+	 * are the same as those given by {@link HypergraphGenerator} to the
+	 * valuations of <tt>phi</tt>
+	 */
+	public Set<Long> generate(Operator phi, Truncation ... truncations)
+	{
+		SymbolTable symbols = phi.getSymbolTable();
+		FormulaDecomposition d = FormulaDecomposition.decompose(phi);
+		List<Operator> components = d.getComponents();
+		int[][] slots = new int[components.size()][];
+		long context = 0;
+		long[] neutrals = new long[components.size()];
+		for (int i = 0; i < components.size(); i++)
+		{
+			String[] names = components.get(i).getSortedVariables();
+			slots[i] = new int[names.length];
+			for (int j = 0; j < names.length; j++)
+			{
+				slots[i][j] = symbols.getSlot(names[j]);
+			}
+			long neutral = d.isSplit() ? d.getNeutral(components.get(i)) : 0;
+			neutrals[i] = neutral < 0 ? 0 : lift(neutral, slots[i]);
+			context |= neutrals[i];
+		}
+		Set<Long> suite = new HashSet<Long>();
+		List<List<Long>> zipped = new ArrayList<List<Long>>(components.size());
+		for (int i = 0; i < components.size(); i++)
+		{
+			Operator component = components.get(i);
+			List<Long> neutral_tests = new ArrayList<Long>();
+			zipped.add(neutral_tests);
+			Truncation[] local = d.isSplit() ? getLocalTruncations(component, truncations) : truncations;
+			if (local.length == 0)
+			{
+				continue;
+			}
+			Hypergraph h = new HypergraphGenerator().getGraph(component, local);
+			CompiledFormula compiled = component.freeze().getCompiled();
+			long others = context & ~neutrals[i];
+			for (long id : m_solver.solve(h))
+			{
+				// Only the truth value is needed, so no hologram is built
+				if (d.isSplit() && compiled.evaluate(id) == d.isConjunction())
+				{
+					neutral_tests.add(lift(id, slots[i]));
+				}
+				else
+				{
+					suite.add(others | lift(id, slots[i]));
+				}
+			}
+		}
+		// Tests leaving their component neutral can share the same valuation
+		for (int j = 0; ; j++)
+		{
+			long id = 0;
+			boolean found = false;
+			for (int i = 0; i < components.size(); i++)
+			{
+				List<Long> neutral_tests = zipped.get(i);
+				if (j < neutral_tests.size())
+				{
+					id |= neutral_tests.get(j);
+					found = true;
+				}
+				else
+				{
+					id |= neutrals[i];
+				}
+			}
+			if (!found)
+			{
+				break;
+			}
+			suite.add(id);
+		}
+		complete(phi, suite, truncations);
+		return suite;
+	}
+	
+	/**
+	 * Selects the truncations that only refer to the variables of a
+	 * component. The other ones, such as {@link KeepNthClause} which refers
+	 * to the root of the whole formula, are left to the final completion
+	 * step.
+	 * @param component The component
+	 * @param truncations The truncations defining the coverage criterion
+	 * @return The truncations to apply to the component
+	 */
+	protected static Truncation[] getLocalTruncations(Operator component, Truncation ... truncations)
+	{
+		Set<String> vars = component.getVariables();
+		List<Truncation> local = new ArrayList<Truncation>(truncations.length);
+		for (Truncation t : truncations)
+		{
+			if ((t instanceof VariableBasedTruncation && vars.contains(((VariableBasedTruncation) t).m_name))
+					|| (t instanceof KeepValuesOf && vars.containsAll(((KeepValuesOf) t).m_variables)))
+			{
+				local.add(t);
+			}
+		}
+		return local.toArray(new Truncation[local.size()]);
+	}
+	
+	/**
+	 * Adds to a test suite one valuation of each hyperedge of a formula's
+	 * hypergraph that the suite does not already hit.
+	 * @param phi The formula
+	 * @param suite The set of IDs of the valuations in the test suite
+	 * @param truncations The truncations defining the coverage criterion
+	 */
+	protected static void complete(Operator phi, Set<Long> suite, Truncation ... truncations)
+	{
+		BddHypergraph h = new BddHypergraphGenerator().getGraph(phi, truncations);
+		Bdd bdd = h.getBdd();
+		int tests = Bdd.FALSE;
+		for (long id : suite)
+		{
+			tests = bdd.or(tests, bdd.minterm(id));
+		}
+		for (int edge : h.getEdges().values())
+		{
+			if (bdd.and(edge, tests) == Bdd.FALSE)
+			{
+				long id = bdd.pickOne(edge);
+				suite.add(id);
+				tests = bdd.or(tests, bdd.minterm(id));
+			}
+		}
+	}
+	
+	/**
+	 * Converts the ID of a valuation of a component into the ID of the
+	 * corresponding partial valuation of the whole formula.
+	 * @param id The ID of the valuation of the component
+	 * @param slots An array associating each slot of the component to its
+	 * slot in the whole formula
+	 * @return The ID in the whole formula
+	 */
+	protected static long lift(long id, int[] slots)
+	{
+		long lifted = 0;
+		for (int j = 0; j < slots.length; j++)
+		{
+			if (((id >>> j) & 1L) != 0)
+			{
+				lifted |= 1L << slots[j];
+			}
+		}
+		return lifted;
+	}
+}
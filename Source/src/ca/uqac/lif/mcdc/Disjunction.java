@@ -44,7 +44,7 @@ public class Disjunction extends Operator
 				d.m_operands.add(new Atom((String) o));
 			}
 		}
-		return d;
+		return (Disjunction) OperatorPool.intern(d);
 	}
 	
 	public Disjunction(Operator ... operands)
@@ -67,20 +67,32 @@ public class Disjunction extends Operator
 	}
 	
 	@Override
-	public HologramNode evaluate(Valuation v)
+	protected HologramNode evaluate(Valuation v, EvaluationContext context)
 	{
-		boolean b = false;
+		boolean b = false, unknown = false;
 		HologramNode n = new HologramNode(SYMBOL);
 		for (Operator op : m_operands)
 		{
-			HologramNode c = op.evaluate(v);
+			HologramNode c = evaluateOperand(op, v, context);
 			n.addChild(c);
-			if (c.getValue() == true)
+			Boolean c_value = c.getValue();
+			if (c_value == null)
+			{
+				unknown = true;
+			}
+			else if (c_value == true)
 			{
 				b = true;
 			}
 		}
-		n.setValue(b);
+		if (!b && unknown)
+		{
+			n.setValue(null);
+		}
+		else
+		{
+			n.setValue(b);
+		}
 		return n;
 	}
 
@@ -95,6 +107,12 @@ public class Disjunction extends Operator
 		return a;
 	}
 	
+	@Override
+	protected List<Operator> getOperandList()
+	{
+		return m_operands;
+	}
+	
 	@Override
 	protected void getVariables(Set<String> vars)
 	{
@@ -0,0 +1,229 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static ca.uqac.lif.mcdc.Conjunction.And;
+import static ca.uqac.lif.mcdc.Disjunction.Or;
+
+/**
+ * Splits the operands of a top-level conjunction or disjunction into groups
+ * that do not share any variable. Each group forms an independent
+ * component: the formula is the conjunction (or disjunction) of its
+ * components, and the valuations of one component can be chosen without
+ * regard to the variables of the others.
+ * <p>
+ * A formula whose root is neither a conjunction nor a disjunction, or whose
+ * operands are all connected through shared variables, has a single
+ * component, which is the formula itself.
+ */
+public class FormulaDecomposition
+{
+	/**
+	 * The decomposed formula.
+	 */
+	protected final Operator m_formula;
+	
+	/**
+	 * Whether the root of the formula is a conjunction.
+	 */
+	protected final boolean m_conjunction;
+	
+	/**
+	 * The independent components of the formula.
+	 */
+	protected final List<Operator> m_components;
+	
+	/**
+	 * Decomposes a formula into independent components.
+	 * @param phi The formula
+	 * @return The decomposition
+	 */
+	public static FormulaDecomposition decompose(Operator phi)
+	{
+		List<Operator> operands;
+		boolean conjunction = phi instanceof Conjunction;
+		if (conjunction)
+		{
+			operands = ((Conjunction) phi).getOperands();
+		}
+		else if (phi instanceof Disjunction)
+		{
+			operands = ((Disjunction) phi).getOperands();
+		}
+		else
+		{
+			return new FormulaDecomposition(phi, false, Collections.singletonList(phi));
+		}
+		// Union-find over operands, joined whenever they share a variable
+		int[] parent = new int[operands.size()];
+		for (int i = 0; i < parent.length; i++)
+		{
+			parent[i] = i;
+		}
+		List<Set<String>> vars = new ArrayList<Set<String>>(operands.size());
+		for (Operator op : operands)
+		{
+			vars.add(op.getVariables());
+		}
+		for (int i = 0; i < parent.length; i++)
+		{
+			for (int j = i + 1; j < parent.length; j++)
+			{
+				if (!Collections.disjoint(vars.get(i), vars.get(j)))
+				{
+					parent[find(parent, j)] = find(parent, i);
+				}
+			}
+		}
+		List<List<Operator>> groups = new ArrayList<List<Operator>>();
+		int[] group_of = new int[parent.length];
+		Arrays.fill(group_of, -1);
+		for (int i = 0; i < parent.length; i++)
+		{
+			int root = find(parent, i);
+			if (group_of[root] < 0)
+			{
+				group_of[root] = groups.size();
+				groups.add(new ArrayList<Operator>());
+			}
+			groups.get(group_of[root]).add(operands.get(i));
+		}
+		if (groups.size() < 2)
+		{
+			return new FormulaDecomposition(phi, conjunction, Collections.singletonList(phi));
+		}
+		List<Operator> components = new ArrayList<Operator>(groups.size());
+		for (List<Operator> group : groups)
+		{
+			if (group.size() == 1)
+			{
+				components.add(group.get(0));
+			}
+			else if (conjunction)
+			{
+				components.add(And(group.toArray()));
+			}
+			else
+			{
+				components.add(Or(group.toArray()));
+			}
+		}
+		return new FormulaDecomposition(phi, conjunction, Collections.unmodifiableList(components));
+	}
+	
+	/**
+	 * Creates a new decomposition.
+	 * @param phi The decomposed formula
+	 * @param conjunction Whether the root of the formula is a conjunction
+	 * @param components The independent components of the formula
+	 */
+	protected FormulaDecomposition(Operator phi, boolean conjunction, List<Operator> components)
+	{
+		super();
+		m_formula = phi;
+		m_conjunction = conjunction;
+		m_components = components;
+	}
+	
+	/**
+	 * Gets the decomposed formula.
+	 * @return The formula
+	 */
+	public Operator getFormula()
+	{
+		return m_formula;
+	}
+	
+	/**
+	 * Gets the independent components of the formula.
+	 * @return The list of components
+	 */
+	public List<Operator> getComponents()
+	{
+		return m_components;
+	}
+	
+	/**
+	 * Determines if the formula has more than one component.
+	 * @return <tt>true</tt> if the formula was split, <tt>false</tt>
+	 * otherwise
+	 */
+	public boolean isSplit()
+	{
+		return m_components.size() > 1;
+	}
+	
+	/**
+	 * Determines if the root of the formula is a conjunction.
+	 * @return <tt>true</tt> if the root is a conjunction, <tt>false</tt>
+	 * if it is a disjunction or the formula is not split
+	 */
+	public boolean isConjunction()
+	{
+		return m_conjunction;
+	}
+	
+	/**
+	 * Gets a "neutral" valuation of a component, that is, a valuation that
+	 * does not hide the value of the other components at the root of the
+	 * formula. This is a valuation making the component true if the root is
+	 * a conjunction, and false if it is a disjunction.
+	 * @param component The component
+	 * @return The valuation, as a number whose bit <i>i</i> is the value of
+	 * the variable at slot <i>i</i> in the symbol table of the component,
+	 * or -1 if no such valuation exists
+	 */
+	public long getNeutral(Operator component)
+	{
+		SymbolTable symbols = component.getSymbolTable();
+		Bdd bdd = new Bdd(symbols.size());
+		int f = bdd.build(component, symbols);
+		if (!m_conjunction)
+		{
+			f = bdd.not(f);
+		}
+		if (f == Bdd.FALSE)
+		{
+			return -1;
+		}
+		return bdd.pickOne(f);
+	}
+	
+	/**
+	 * Finds the representative of an element in a union-find array, and
+	 * compresses the path leading to it.
+	 * @param parent The array
+	 * @param i The element
+	 * @return The representative
+	 */
+	protected static int find(int[] parent, int i)
+	{
+		while (parent[i] != i)
+		{
+			parent[i] = parent[parent[i]];
+			i = parent[i];
+		}
+		return i;
+	}
+}
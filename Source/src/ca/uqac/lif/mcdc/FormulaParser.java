@@ -0,0 +1,312 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parses Boolean formulas written as text. The parser reads the infix
+ * syntax produced by {@link Operator#toString()}, such as
+ * <tt>((a &and; &not;b) &or; c)</tt>, as well as the compact syntax used
+ * by external MC/DC tools, such as <tt>(a!b+c)</tt>, where <tt>+</tt> stands for a
+ * disjunction, <tt>!</tt> for a negation, and juxtaposed operands form a
+ * conjunction. The symbols of both syntaxes can be mixed; the ASCII
+ * symbols <tt>&amp;</tt>, <tt>|</tt> and <tt>~</tt> are also accepted.
+ * Negation binds tighter than conjunction, which binds tighter than
+ * disjunction.
+ * <p>
+ * The two syntaxes differ in how variable names are delimited. In the
+ * infix syntax, a name is any sequence of letters, digits and
+ * underscores. In the compact syntax, where names are not separated, a
+ * name is a single letter, optionally followed by digits.
+ * <p>
+ * A parenthesized formula with a single operand, such as <tt>(a)</tt>,
+ * is read as this operand.
+ * <p>
+ * Formulas are built with {@link Conjunction#And(Object...)},
+ * {@link Disjunction#Or(Object...)} and {@link Negation#Not(Object)}, and
+ * a parser gives the same {@link Atom} to all occurrences of a variable.
+ * Since the parser keeps its position in the text being read, an instance
+ * must not be used by multiple threads at the same time.
+ */
+public class FormulaParser
+{
+	/**
+	 * The value returned by {@link #peek()} at the end of the text.
+	 */
+	protected static final int END = -1;
+	
+	/**
+	 * Whether variable names follow the compact syntax.
+	 */
+	protected final boolean m_compact;
+	
+	/**
+	 * The atoms created so far, indexed by their name.
+	 */
+	protected final Map<String,Atom> m_atoms;
+	
+	/**
+	 * The text being parsed.
+	 */
+	protected String m_input;
+	
+	/**
+	 * The position of the next character to read.
+	 */
+	protected int m_pos;
+	
+	/**
+	 * Creates a new parser for the infix syntax.
+	 */
+	public FormulaParser()
+	{
+		this(false);
+	}
+	
+	/**
+	 * Creates a new parser.
+	 * @param compact Set to <tt>true</tt> to read variable names in the
+	 * compact syntax, <tt>false</tt> to read them in the infix syntax
+	 */
+	public FormulaParser(boolean compact)
+	{
+		super();
+		m_compact = compact;
+		m_atoms = new HashMap<String,Atom>();
+	}
+	
+	/**
+	 * Parses a formula.
+	 * @param s The text of the formula
+	 * @return The formula
+	 * @throws IllegalArgumentException If the text is not a valid formula
+	 */
+	public Operator parse(String s)
+	{
+		m_input = s;
+		m_pos = 0;
+		Operator op = parseDisjunction();
+		if (peek() != END)
+		{
+			throw error("Unexpected character '" + m_input.charAt(m_pos) + "'");
+		}
+		m_input = null;
+		return op;
+	}
+	
+	/**
+	 * Parses a disjunction of one or more conjunctions.
+	 * @return The formula
+	 */
+	protected Operator parseDisjunction()
+	{
+		Operator first = parseConjunction();
+		if (!isOr(peek()))
+		{
+			return first;
+		}
+		List<Operator> operands = new ArrayList<Operator>();
+		operands.add(first);
+		while (isOr(peek()))
+		{
+			m_pos++;
+			operands.add(parseConjunction());
+		}
+		return Disjunction.Or(operands.toArray());
+	}
+	
+	/**
+	 * Parses a conjunction of one or more factors. Two factors that follow
+	 * each other without a symbol between them are also a conjunction.
+	 * @return The formula
+	 */
+	protected Operator parseConjunction()
+	{
+		Operator first = parseFactor();
+		List<Operator> operands = null;
+		for (;;)
+		{
+			int c = peek();
+			if (isAnd(c))
+			{
+				m_pos++;
+			}
+			else if (!startsFactor(c))
+			{
+				break;
+			}
+			if (operands == null)
+			{
+				operands = new ArrayList<Operator>();
+				operands.add(first);
+			}
+			operands.add(parseFactor());
+		}
+		if (operands == null)
+		{
+			return first;
+		}
+		return Conjunction.And(operands.toArray());
+	}
+	
+	/**
+	 * Parses a negation, a parenthesized formula or a variable.
+	 * @return The formula
+	 */
+	protected Operator parseFactor()
+	{
+		int c = peek();
+		if (isNot(c))
+		{
+			m_pos++;
+			return Negation.Not(parseFactor());
+		}
+		if (c == '(')
+		{
+			m_pos++;
+			Operator op = parseDisjunction();
+			if (peek() != ')')
+			{
+				throw error("Expected ')'");
+			}
+			m_pos++;
+			return op;
+		}
+		if (startsAtom(c))
+		{
+			return parseAtom();
+		}
+		if (c == END)
+		{
+			throw error("Unexpected end of formula");
+		}
+		throw error("Unexpected character '" + (char) c + "'");
+	}
+	
+	/**
+	 * Parses the name of a variable.
+	 * @return The atom for this variable
+	 */
+	protected Atom parseAtom()
+	{
+		int start = m_pos;
+		m_pos++;
+		int len = m_input.length();
+		while (m_pos < len)
+		{
+			char c = m_input.charAt(m_pos);
+			if (m_compact ? !Character.isDigit(c) : !Character.isLetterOrDigit(c) && c != '_')
+			{
+				break;
+			}
+			m_pos++;
+		}
+		String name = m_input.substring(start, m_pos);
+		Atom a = m_atoms.get(name);
+		if (a == null)
+		{
+			a = new Atom(name);
+			m_atoms.put(name, a);
+		}
+		return a;
+	}
+	
+	/**
+	 * Skips whitespace and gets the next character to read, without
+	 * consuming it.
+	 * @return The character, or {@link #END} if the end of the text is
+	 * reached
+	 */
+	protected int peek()
+	{
+		int len = m_input.length();
+		while (m_pos < len && Character.isWhitespace(m_input.charAt(m_pos)))
+		{
+			m_pos++;
+		}
+		if (m_pos >= len)
+		{
+			return END;
+		}
+		return m_input.charAt(m_pos);
+	}
+	
+	/**
+	 * Determines if a character can start a factor.
+	 * @param c The character
+	 * @return <tt>true</tt> if it can, <tt>false</tt> otherwise
+	 */
+	protected static boolean startsFactor(int c)
+	{
+		return c == '(' || isNot(c) || startsAtom(c);
+	}
+	
+	/**
+	 * Determines if a character can start the name of a variable.
+	 * @param c The character
+	 * @return <tt>true</tt> if it can, <tt>false</tt> otherwise
+	 */
+	protected static boolean startsAtom(int c)
+	{
+		return c != END && (Character.isLetterOrDigit(c) || c == '_');
+	}
+	
+	/**
+	 * Determines if a character is a conjunction symbol.
+	 * @param c The character
+	 * @return <tt>true</tt> if it is, <tt>false</tt> otherwise
+	 */
+	protected static boolean isAnd(int c)
+	{
+		return c == '\u2227' || c == '&';
+	}
+	
+	/**
+	 * Determines if a character is a disjunction symbol.
+	 * @param c The character
+	 * @return <tt>true</tt> if it is, <tt>false</tt> otherwise
+	 */
+	protected static boolean isOr(int c)
+	{
+		return c == '\u2228' || c == '+' || c == '|';
+	}
+	
+	/**
+	 * Determines if a character is a negation symbol.
+	 * @param c The character
+	 * @return <tt>true</tt> if it is, <tt>false</tt> otherwise
+	 */
+	protected static boolean isNot(int c)
+	{
+		return c == '\u00ac' || c == '!' || c == '~';
+	}
+	
+	/**
+	 * Creates an exception for a syntax error at the current position.
+	 * @param message The message describing the error
+	 * @return The exception
+	 */
+	protected IllegalArgumentException error(String message)
+	{
+		return new IllegalArgumentException(message + " at position " + m_pos + " of formula " + m_input);
+	}
+}
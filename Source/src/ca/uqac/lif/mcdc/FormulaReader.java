@@ -0,0 +1,180 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads formulas from a text source, one formula per line. Lines are read
+ * and parsed one at a time as the iterator advances, so that a large file
+ * never needs to be held in memory. Empty lines and lines starting with
+ * <tt>#</tt> are ignored.
+ */
+public class FormulaReader implements Iterator<Operator>, Closeable
+{
+	/**
+	 * The source of the lines.
+	 */
+	protected final BufferedReader m_reader;
+	
+	/**
+	 * The parser for each line.
+	 */
+	protected final FormulaParser m_parser;
+	
+	/**
+	 * The next formula to return, if it has already been read.
+	 */
+	protected Operator m_next = null;
+	
+	/**
+	 * The number of lines read so far.
+	 */
+	protected int m_lineNumber = 0;
+	
+	/**
+	 * Creates a new formula reader.
+	 * @param r The source of the lines
+	 * @param parser The parser for each line
+	 */
+	public FormulaReader(Reader r, FormulaParser parser)
+	{
+		super();
+		if (r instanceof BufferedReader)
+		{
+			m_reader = (BufferedReader) r;
+		}
+		else
+		{
+			m_reader = new BufferedReader(r);
+		}
+		m_parser = parser;
+	}
+	
+	/**
+	 * Creates a new formula reader for a UTF-8 input stream.
+	 * @param is The input stream
+	 * @param parser The parser for each line
+	 */
+	public FormulaReader(InputStream is, FormulaParser parser)
+	{
+		this(new InputStreamReader(is, Charset.forName("UTF-8")), parser);
+	}
+	
+	/**
+	 * Reads all the remaining formulas.
+	 * @return The list of formulas
+	 */
+	public List<Operator> readAll()
+	{
+		List<Operator> list = new ArrayList<Operator>();
+		while (hasNext())
+		{
+			list.add(next());
+		}
+		return list;
+	}
+	
+	/**
+	 * Gets the number of the last line read.
+	 * @return The line number, starting at 1
+	 */
+	public int getLineNumber()
+	{
+		return m_lineNumber;
+	}
+	
+	@Override
+	public boolean hasNext()
+	{
+		if (m_next == null)
+		{
+			m_next = readNext();
+		}
+		return m_next != null;
+	}
+	
+	@Override
+	public Operator next()
+	{
+		if (!hasNext())
+		{
+			throw new NoSuchElementException("No more formulas to read");
+		}
+		Operator op = m_next;
+		m_next = null;
+		return op;
+	}
+	
+	@Override
+	public void remove()
+	{
+		throw new UnsupportedOperationException("Cannot remove a formula");
+	}
+	
+	@Override
+	public void close() throws IOException
+	{
+		m_reader.close();
+	}
+	
+	/**
+	 * Reads lines until a formula is found.
+	 * @return The formula, or <tt>null</tt> if the end of the source is
+	 * reached
+	 */
+	protected Operator readNext()
+	{
+		String line;
+		try
+		{
+			while ((line = m_reader.readLine()) != null)
+			{
+				m_lineNumber++;
+				line = line.trim();
+				if (line.isEmpty() || line.charAt(0) == '#')
+				{
+					continue;
+				}
+				try
+				{
+					return m_parser.parse(line);
+				}
+				catch (IllegalArgumentException e)
+				{
+					throw new IllegalArgumentException("Line " + m_lineNumber + ": " + e.getMessage(), e);
+				}
+			}
+		}
+		catch (IOException e)
+		{
+			throw new IllegalStateException("Cannot read formulas", e);
+		}
+		return null;
+	}
+}
@@ -0,0 +1,433 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Simplifies the structure of a formula without changing the function it
+ * computes. The simplifier applies the following stages, each of which can
+ * be turned off:
+ * <ol>
+ * <li>Flattening: an operand of a conjunction (resp. disjunction) that is
+ * itself a conjunction (resp. disjunction) is replaced by its operands.</li>
+ * <li>Removal of duplicates: an operand that repeats a previous operand of
+ * the same conjunction or disjunction is dropped.</li>
+ * <li>Removal of constant clauses: a conjunction containing a literal and
+ * its negation can never be true, and is dropped from the disjunction it
+ * belongs to; dually, a disjunction containing a literal and its negation
+ * is always true, and is dropped from the conjunction it belongs to. The
+ * last operand of an operator is never dropped.</li>
+ * </ol>
+ * The smaller formula produces smaller holograms, and hence fewer distinct
+ * truncated trees. Since the positions of nodes change, the
+ * {@link Simplification} returned by the simplifier tells how the nodes of
+ * the two holograms correspond.
+ */
+public class FormulaSimplifier
+{
+	/**
+	 * Whether nested operators of the same kind are flattened.
+	 */
+	protected boolean m_flatten = true;
+	
+	/**
+	 * Whether duplicate operands are removed.
+	 */
+	protected boolean m_removeDuplicates = true;
+	
+	/**
+	 * Whether clauses that are never or always true are removed.
+	 */
+	protected boolean m_removeConstantClauses = true;
+	
+	/**
+	 * Sets whether nested operators of the same kind are flattened.
+	 * @param b <tt>true</tt> to flatten operators (the default),
+	 * <tt>false</tt> otherwise
+	 */
+	public void setFlatten(boolean b)
+	{
+		m_flatten = b;
+	}
+	
+	/**
+	 * Sets whether duplicate operands are removed.
+	 * @param b <tt>true</tt> to remove duplicates (the default),
+	 * <tt>false</tt> otherwise
+	 */
+	public void setRemoveDuplicates(boolean b)
+	{
+		m_removeDuplicates = b;
+	}
+	
+	/**
+	 * Sets whether clauses that are never or always true are removed. Such
+	 * clauses are reported by the {@link Simplification} in all cases.
+	 * @param b <tt>true</tt> to remove these clauses (the default),
+	 * <tt>false</tt> otherwise
+	 */
+	public void setRemoveConstantClauses(boolean b)
+	{
+		m_removeConstantClauses = b;
+	}
+	
+	/**
+	 * Simplifies a formula.
+	 * @param phi The formula
+	 * @return The simplification, containing the simplified formula
+	 */
+	public Simplification simplify(Operator phi)
+	{
+		Node root = Node.expand(phi, new int[0]);
+		List<int[]> never_true = new ArrayList<int[]>();
+		List<int[]> always_true = new ArrayList<int[]>();
+		simplify(root, never_true, always_true);
+		Simplification s = new Simplification(phi, root.build());
+		s.m_neverTrue.addAll(never_true);
+		s.m_alwaysTrue.addAll(always_true);
+		mapPaths(root, new int[0], s);
+		return s;
+	}
+	
+	/**
+	 * Simplifies a node and its descendants.
+	 * @param n The node
+	 * @param never_true The list where the paths of clauses that are never
+	 * true are added
+	 * @param always_true The list where the paths of clauses that are
+	 * always true are added
+	 */
+	protected void simplify(Node n, List<int[]> never_true, List<int[]> always_true)
+	{
+		for (Node c : n.m_children)
+		{
+			simplify(c, never_true, always_true);
+		}
+		if (n.m_type != Node.AND && n.m_type != Node.OR)
+		{
+			return;
+		}
+		if (m_flatten)
+		{
+			List<Node> children = new ArrayList<Node>(n.m_children.size());
+			for (Node c : n.m_children)
+			{
+				if (c.m_type == n.m_type)
+				{
+					n.m_merged.add(c.m_path);
+					n.m_merged.addAll(c.m_merged);
+					children.addAll(c.m_children);
+				}
+				else
+				{
+					children.add(c);
+				}
+			}
+			n.m_children = children;
+		}
+		if (m_removeDuplicates)
+		{
+			List<Node> children = new ArrayList<Node>(n.m_children.size());
+			Map<String,Node> seen = new HashMap<String,Node>();
+			for (Node c : n.m_children)
+			{
+				Node first = seen.get(c.getKey());
+				if (first == null)
+				{
+					seen.put(c.getKey(), c);
+					children.add(c);
+				}
+				else
+				{
+					first.absorb(c);
+				}
+			}
+			n.m_children = children;
+		}
+		// A literal and its negation among the operands
+		Set<String> keys = new HashSet<String>();
+		for (Node c : n.m_children)
+		{
+			keys.add(c.getKey());
+		}
+		for (Node c : n.m_children)
+		{
+			if (c.m_type == Node.NOT && c.m_children.get(0).m_type == Node.ATOM && keys.contains(c.m_children.get(0).getKey()))
+			{
+				if (n.m_type == Node.AND)
+				{
+					n.m_neverTrue = true;
+					never_true.add(n.m_path);
+				}
+				else
+				{
+					n.m_alwaysTrue = true;
+					always_true.add(n.m_path);
+				}
+				break;
+			}
+		}
+		if (m_removeConstantClauses)
+		{
+			List<Node> children = new ArrayList<Node>(n.m_children.size());
+			for (Node c : n.m_children)
+			{
+				boolean constant = n.m_type == Node.OR ? c.m_neverTrue : c.m_alwaysTrue;
+				if (!constant)
+				{
+					children.add(c);
+				}
+			}
+			if (!children.isEmpty())
+			{
+				n.m_children = children;
+			}
+		}
+	}
+	
+	/**
+	 * Records the correspondence between the nodes of the original and the
+	 * simplified holograms.
+	 * @param n A node of the simplified formula
+	 * @param path The path of this node in the simplified hologram
+	 * @param s The simplification
+	 */
+	protected static void mapPaths(Node n, int[] path, Simplification s)
+	{
+		s.m_toOriginal.put(Simplification.toList(path), n.m_path);
+		s.map(n.m_path, path);
+		for (int[] merged : n.m_merged)
+		{
+			s.map(merged, path);
+		}
+		for (int i = 0; i < n.m_children.size(); i++)
+		{
+			int[] c_path = Arrays.copyOf(path, path.length + 1);
+			c_path[path.length] = i;
+			mapPaths(n.m_children.get(i), c_path, s);
+		}
+	}
+	
+	/**
+	 * A node of the formula being simplified.
+	 */
+	protected static class Node
+	{
+		/**
+		 * Node type for an atom.
+		 */
+		protected static final int ATOM = 0;
+		
+		/**
+		 * Node type for a negation.
+		 */
+		protected static final int NOT = 1;
+		
+		/**
+		 * Node type for a conjunction.
+		 */
+		protected static final int AND = 2;
+		
+		/**
+		 * Node type for a disjunction.
+		 */
+		protected static final int OR = 3;
+		
+		/**
+		 * The type of the node.
+		 */
+		protected final int m_type;
+		
+		/**
+		 * For an atom, the operator it comes from.
+		 */
+		protected final Operator m_atom;
+		
+		/**
+		 * The children of the node.
+		 */
+		protected List<Node> m_children;
+		
+		/**
+		 * The path of this node in the original hologram.
+		 */
+		protected final int[] m_path;
+		
+		/**
+		 * The paths in the original hologram of the nodes merged into this
+		 * one.
+		 */
+		protected final List<int[]> m_merged;
+		
+		/**
+		 * Whether this node is a conjunction that can never be true.
+		 */
+		protected boolean m_neverTrue = false;
+		
+		/**
+		 * Whether this node is a disjunction that is always true.
+		 */
+		protected boolean m_alwaysTrue = false;
+		
+		/**
+		 * A string representing the structure of this node, computed on
+		 * demand.
+		 */
+		protected String m_key = null;
+		
+		/**
+		 * Creates a new node.
+		 * @param type The type of the node
+		 * @param atom For an atom, the operator it comes from
+		 * @param path The path of this node in the original hologram
+		 */
+		protected Node(int type, Operator atom, int[] path)
+		{
+			super();
+			m_type = type;
+			m_atom = atom;
+			m_path = path;
+			m_children = new ArrayList<Node>();
+			m_merged = new ArrayList<int[]>();
+		}
+		
+		/**
+		 * Creates the tree of nodes of a formula.
+		 * @param op The formula
+		 * @param path The path of the formula in the original hologram
+		 * @return The root of the tree
+		 */
+		protected static Node expand(Operator op, int[] path)
+		{
+			List<Operator> operands;
+			Node n;
+			if (op instanceof Atom)
+			{
+				return new Node(ATOM, op, path);
+			}
+			else if (op instanceof Negation)
+			{
+				n = new Node(NOT, null, path);
+				operands = new ArrayList<Operator>(1);
+				operands.add(((Negation) op).getOperand());
+			}
+			else if (op instanceof Conjunction)
+			{
+				n = new Node(AND, null, path);
+				operands = ((Conjunction) op).getOperands();
+			}
+			else if (op instanceof Disjunction)
+			{
+				n = new Node(OR, null, path);
+				operands = ((Disjunction) op).getOperands();
+			}
+			else
+			{
+				throw new IllegalArgumentException("Cannot simplify operator " + op);
+			}
+			for (int i = 0; i < operands.size(); i++)
+			{
+				int[] c_path = Arrays.copyOf(path, path.length + 1);
+				c_path[path.length] = i;
+				n.m_children.add(expand(operands.get(i), c_path));
+			}
+			return n;
+		}
+		
+		/**
+		 * Merges into this node a node with the same structure, along with
+		 * their descendants.
+		 * @param n The node to merge
+		 */
+		protected void absorb(Node n)
+		{
+			m_merged.add(n.m_path);
+			m_merged.addAll(n.m_merged);
+			for (int i = 0; i < m_children.size(); i++)
+			{
+				m_children.get(i).absorb(n.m_children.get(i));
+			}
+		}
+		
+		/**
+		 * Gets a string representing the structure of this node. Two nodes
+		 * have the same key if and only if they compute the same subformula
+		 * with the same hologram.
+		 * @return The key
+		 */
+		protected String getKey()
+		{
+			if (m_key == null)
+			{
+				if (m_type == ATOM)
+				{
+					m_key = ((Atom) m_atom).getName();
+				}
+				else
+				{
+					StringBuilder out = new StringBuilder();
+					out.append(m_type).append("(");
+					for (int i = 0; i < m_children.size(); i++)
+					{
+						if (i > 0)
+						{
+							out.append(",");
+						}
+						out.append(m_children.get(i).getKey());
+					}
+					out.append(")");
+					m_key = out.toString();
+				}
+			}
+			return m_key;
+		}
+		
+		/**
+		 * Builds the operator corresponding to this node.
+		 * @return The operator
+		 */
+		protected Operator build()
+		{
+			if (m_type == ATOM)
+			{
+				return m_atom;
+			}
+			Operator[] operands = new Operator[m_children.size()];
+			for (int i = 0; i < operands.length; i++)
+			{
+				operands[i] = m_children.get(i).build();
+			}
+			if (m_type == NOT)
+			{
+				return Negation.Not(operands[0]);
+			}
+			if (m_type == AND)
+			{
+				return Conjunction.And((Object[]) operands);
+			}
+			return Disjunction.Or((Object[]) operands);
+		}
+	}
+}
@@ -0,0 +1,195 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable view of a formula, along with structural metadata computed
+ * once: its set of variables, the sorted array of these variables, its
+ * size, its depth and its symbol table. The evaluation engines built for
+ * the formula are also created at most once and shared by every component
+ * that asks for them, instead of being recomputed by each of them.
+ * <p>
+ * A frozen formula is obtained by calling {@link Operator#freeze()}. The
+ * underlying operator must no longer be modified afterwards.
+ */
+public class FrozenFormula
+{
+	/**
+	 * The formula
+	 */
+	protected final Operator m_formula;
+	
+	/**
+	 * The set of variables occurring in the formula
+	 */
+	protected final Set<String> m_variables;
+	
+	/**
+	 * The symbol table of the formula, giving its variables in sorted order
+	 */
+	protected final SymbolTable m_symbols;
+	
+	/**
+	 * The number of connectives in the formula
+	 */
+	protected final int m_size;
+	
+	/**
+	 * The nesting depth of the formula
+	 */
+	protected final int m_depth;
+	
+	/**
+	 * The number of parents of each non-atomic operator occurring more than
+	 * once in the formula. It is kept here rather than on the operators,
+	 * since a pooled operator can occur a different number of times in
+	 * each formula it belongs to.
+	 */
+	protected final Map<Operator,Integer> m_parents;
+	
+	/**
+	 * The bitsliced evaluator of the formula, created on demand
+	 */
+	protected volatile BitslicedEvaluator m_evaluator = null;
+	
+	/**
+	 * The compiled form of the formula, created on demand
+	 */
+	protected volatile CompiledFormula m_compiled = null;
+	
+	/**
+	 * Creates a new frozen formula.
+	 * @param phi The formula
+	 */
+	FrozenFormula(Operator phi)
+	{
+		super();
+		m_formula = phi;
+		m_variables = Collections.unmodifiableSet(phi.getVariables());
+		m_symbols = phi.getSymbolTable();
+		m_size = phi.getSize();
+		m_depth = phi.getDepth();
+		m_parents = Collections.unmodifiableMap(Operator.countParents(phi));
+	}
+	
+	/**
+	 * Gets the formula.
+	 * @return The formula
+	 */
+	public Operator getFormula()
+	{
+		return m_formula;
+	}
+	
+	/**
+	 * Gets the set of variables occurring in the formula.
+	 * @return The set of variable names. This set cannot be modified.
+	 */
+	public Set<String> getVariables()
+	{
+		return m_variables;
+	}
+	
+	/**
+	 * Gets the number of variables occurring in the formula.
+	 * @return The number of variables
+	 */
+	public int getVariableCount()
+	{
+		return m_symbols.size();
+	}
+	
+	/**
+	 * Gets the variables occurring in the formula, sorted in ascending
+	 * order.
+	 * @return The array of variable names. This array must not be modified.
+	 */
+	public String[] getSortedVariables()
+	{
+		return m_symbols.getNames();
+	}
+	
+	/**
+	 * Gets the symbol table of the formula.
+	 * @return The symbol table
+	 */
+	public SymbolTable getSymbolTable()
+	{
+		return m_symbols;
+	}
+	
+	/**
+	 * Gets the number of connectives in the formula.
+	 * @return The size
+	 */
+	public int getSize()
+	{
+		return m_size;
+	}
+	
+	/**
+	 * Gets the nesting depth of the formula.
+	 * @return The depth
+	 */
+	public int getDepth()
+	{
+		return m_depth;
+	}
+	
+	/**
+	 * Gets the bitsliced evaluator of the formula. It is created the first
+	 * time it is requested.
+	 * @return The evaluator
+	 */
+	public BitslicedEvaluator getEvaluator()
+	{
+		BitslicedEvaluator e = m_evaluator;
+		if (e == null)
+		{
+			e = new BitslicedEvaluator(m_formula);
+			m_evaluator = e;
+		}
+		return e;
+	}
+	
+	/**
+	 * Gets the compiled form of the formula. It is created the first time it
+	 * is requested.
+	 * @return The compiled formula
+	 */
+	public CompiledFormula getCompiled()
+	{
+		CompiledFormula c = m_compiled;
+		if (c == null)
+		{
+			c = new CompiledFormula(m_formula);
+			m_compiled = c;
+		}
+		return c;
+	}
+	
+	@Override
+	public String toString()
+	{
+		return m_formula.toString();
+	}
+}
@@ -0,0 +1,168 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable hologram node. Its children are themselves immutable, so
+ * that its hash code, which combines the label, the value and the codes
+ * of the children, can be computed once when the node is created. Frozen
+ * nodes are used as the keys of maps of holograms, such as the hyperedges
+ * of a {@link Hypergraph}; a frozen tree is equal to, and has the same
+ * hash code as, any mutable tree with the same contents.
+ */
+public class FrozenHologramNode extends HologramNode
+{
+	/**
+	 * The hash code of the tree rooted at this node.
+	 */
+	protected final int m_hashCode;
+	
+	/**
+	 * The dummy nodes shared by all trees, for the values <tt>null</tt>,
+	 * <tt>false</tt> and <tt>true</tt>.
+	 */
+	protected static final FrozenHologramNode[] s_dummies = {
+			new FrozenHologramNode(DUMMY_SYMBOL, null, -1, new ArrayList<HologramNode>(0)),
+			new FrozenHologramNode(DUMMY_SYMBOL, false, -1, new ArrayList<HologramNode>(0)),
+			new FrozenHologramNode(DUMMY_SYMBOL, true, -1, new ArrayList<HologramNode>(0))};
+	
+	/**
+	 * Creates a new frozen node.
+	 * @param label The label of the node
+	 * @param value The value of the node
+	 * @param slot The slot of the variable of the node, or -1
+	 * @param children The children of the node, which must all be frozen
+	 */
+	protected FrozenHologramNode(String label, Boolean value, int slot, List<HologramNode> children)
+	{
+		super(label, value);
+		m_slot = slot;
+		m_children = Collections.unmodifiableList(children);
+		m_hashCode = super.hashCode();
+	}
+	
+	/**
+	 * Gets the dummy node with a given value. There is a single instance of
+	 * each of these nodes, which is shared by all the trees that contain
+	 * it.
+	 * @param value The value of the node
+	 * @return The node
+	 */
+	public static FrozenHologramNode getDummy(Boolean value)
+	{
+		return s_dummies[value == null ? 0 : (value ? 2 : 1)];
+	}
+	
+	/**
+	 * Creates a frozen copy of a tree. The tree is traversed with an
+	 * explicit stack, and subtrees that are already frozen are reused as
+	 * is.
+	 * @param n The root of the tree
+	 * @return The frozen copy
+	 */
+	public static FrozenHologramNode freeze(HologramNode n)
+	{
+		if (n instanceof FrozenHologramNode)
+		{
+			return (FrozenHologramNode) n;
+		}
+		Map<HologramNode,FrozenHologramNode> frozen = new IdentityHashMap<HologramNode,FrozenHologramNode>();
+		List<HologramNode> stack = new ArrayList<HologramNode>();
+		stack.add(n);
+		while (!stack.isEmpty())
+		{
+			HologramNode top = stack.get(stack.size() - 1);
+			boolean ready = true;
+			for (HologramNode c : top.m_children)
+			{
+				if (c != null && !(c instanceof FrozenHologramNode) && !frozen.containsKey(c))
+				{
+					stack.add(c);
+					ready = false;
+				}
+			}
+			if (!ready)
+			{
+				continue;
+			}
+			stack.remove(stack.size() - 1);
+			if (frozen.containsKey(top))
+			{
+				continue;
+			}
+			List<HologramNode> children = new ArrayList<HologramNode>(top.m_children.size());
+			for (HologramNode c : top.m_children)
+			{
+				if (c == null || c instanceof FrozenHologramNode)
+				{
+					children.add(c);
+				}
+				else
+				{
+					children.add(frozen.get(c));
+				}
+			}
+			frozen.put(top, new FrozenHologramNode(top.m_label, top.m_value, top.m_slot, children));
+		}
+		return frozen.get(n);
+	}
+	
+	@Override
+	public FrozenHologramNode freeze()
+	{
+		return this;
+	}
+	
+	/**
+	 * Creates a copy of this tree. A copy with the values of the nodes is
+	 * this tree itself; a copy without them is a mutable tree.
+	 */
+	@Override
+	public HologramNode duplicate(boolean with_state)
+	{
+		if (with_state)
+		{
+			return this;
+		}
+		return super.duplicate(false);
+	}
+	
+	@Override
+	public void setValue(Boolean b)
+	{
+		throw new UnsupportedOperationException("A frozen hologram cannot be modified");
+	}
+	
+	@Override
+	public void addChild(HologramNode n)
+	{
+		throw new UnsupportedOperationException("A frozen hologram cannot be modified");
+	}
+	
+	@Override
+	public int hashCode()
+	{
+		return m_hashCode;
+	}
+}
@@ -0,0 +1,228 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc;
+
+/**
+ * Enumerates the valuations of a formula in Gray-code order, where each
+ * valuation differs from the previous one by the value of a single
+ * variable. The hologram of the current valuation is kept in a
+ * {@link HologramBuffer}; when moving to the next valuation, only the
+ * leaves of the flipped variable and the nodes above them are evaluated
+ * again, and the rest of the tree is left as it is.
+ * <p>
+ * The valuations are visited in a different order than in
+ * {@link HypergraphGenerator}, but {@link #getIndex()} always gives the
+ * ID that the current valuation has in the usual binary order, where bit
+ * <i>i</i> is the value of the variable at slot <i>i</i>.
+ */
+public class GrayCodeEvaluator
+{
+	/**
+	 * The evaluator the formula's nodes are taken from.
+	 */
+	protected final BitslicedEvaluator m_evaluator;
+	
+	/**
+	 * The tree holding the hologram of the current valuation. It is only
+	 * updated by this evaluator, so that it never gets out of step with the
+	 * current valuation.
+	 */
+	protected final HologramBuffer m_buffer;
+	
+	/**
+	 * The value of each node for the current valuation.
+	 */
+	protected final boolean[] m_values;
+	
+	/**
+	 * For each slot, the indices of the nodes that depend on the variable
+	 * at that slot, in ascending (postorder) order.
+	 */
+	protected final int[][] m_cones;
+	
+	/**
+	 * The number of valuations visited so far, minus one.
+	 */
+	protected long m_step;
+	
+	/**
+	 * The total number of valuations.
+	 */
+	protected final long m_count;
+	
+	/**
+	 * Creates a new Gray-code evaluator for the formula of an evaluator.
+	 * @param evaluator The evaluator
+	 */
+	public GrayCodeEvaluator(BitslicedEvaluator evaluator)
+	{
+		super();
+		m_evaluator = evaluator;
+		m_buffer = new HologramBuffer(evaluator);
+		int size = evaluator.getNodeCount();
+		int num_vars = evaluator.getSymbolTable().size();
+		m_values = new boolean[size];
+		m_count = 1L << num_vars;
+		m_cones = new int[num_vars][];
+		boolean[] marked = new boolean[size];
+		for (int s = 0; s < num_vars; s++)
+		{
+			int cone_size = 0;
+			for (int i = 0; i < size; i++)
+			{
+				if (evaluator.m_types[i] == BitslicedEvaluator.ATOM)
+				{
+					marked[i] = evaluator.m_slots[i] == s;
+				}
+				else
+				{
+					marked[i] = false;
+					for (int c : evaluator.m_children[i])
+					{
+						if (marked[c])
+						{
+							marked[i] = true;
+							break;
+						}
+					}
+				}
+				if (marked[i])
+				{
+					cone_size++;
+				}
+			}
+			int[] cone = new int[cone_size];
+			for (int i = 0, j = 0; i < size; i++)
+			{
+				if (marked[i])
+				{
+					cone[j++] = i;
+				}
+			}
+			m_cones[s] = cone;
+		}
+		reset();
+	}
+	
+	/**
+	 * Goes back to the first valuation, where all variables are
+	 * <tt>false</tt>.
+	 */
+	public void reset()
+	{
+		m_step = 0;
+		for (int i = 0; i < m_values.length; i++)
+		{
+			update(i);
+		}
+	}
+	
+	/**
+	 * Gets the hologram of the current valuation. Its values change when
+	 * moving to another valuation, so it should not be kept without being
+	 * copied first.
+	 * @return The root of the hologram
+	 */
+	public HologramNode getRoot()
+	{
+		return m_buffer.getRoot();
+	}
+	
+	/**
+	 * Gets the total number of valuations enumerated by this evaluator.
+	 * @return The number of valuations
+	 */
+	public long getValuationCount()
+	{
+		return m_count;
+	}
+	
+	/**
+	 * Gets the ID of the current valuation in binary order.
+	 * @return The ID
+	 */
+	public long getIndex()
+	{
+		return m_step ^ (m_step >>> 1);
+	}
+	
+	/**
+	 * Moves to the next valuation in Gray-code order, by flipping the value
+	 * of a single variable and updating the nodes that depend on it.
+	 * @return <tt>true</tt> if there was a next valuation, <tt>false</tt>
+	 * if all valuations have already been visited
+	 */
+	public boolean next()
+	{
+		if (m_step + 1 >= m_count)
+		{
+			return false;
+		}
+		m_step++;
+		int slot = Long.numberOfTrailingZeros(m_step);
+		for (int i : m_cones[slot])
+		{
+			update(i);
+		}
+		return true;
+	}
+	
+	/**
+	 * Evaluates a node for the current valuation, assuming its children
+	 * have already been evaluated, and copies its value into the tree.
+	 * @param i The index of the node
+	 */
+	protected void update(int i)
+	{
+		boolean b;
+		int[] children = m_evaluator.m_children[i];
+		switch (m_evaluator.m_types[i])
+		{
+		case BitslicedEvaluator.ATOM:
+			b = ((getIndex() >>> m_evaluator.m_slots[i]) & 1L) != 0;
+			break;
+		case BitslicedEvaluator.NOT:
+			b = !m_values[children[0]];
+			break;
+		case BitslicedEvaluator.AND:
+			b = true;
+			for (int c : children)
+			{
+				if (!m_values[c])
+				{
+					b = false;
+					break;
+				}
+			}
+			break;
+		default:
+			b = false;
+			for (int c : children)
+			{
+				if (m_values[c])
+				{
+					b = true;
+					break;
+				}
+			}
+			break;
+		}
+		m_values[i] = b;
+		m_buffer.setValue(i, b);
+	}
+}
@@ -0,0 +1,86 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Computes an approximate hitting set with the classical greedy algorithm:
+ * the vertex contained in the largest number of hyperedges not yet hit is
+ * repeatedly added to the set. Ties are broken in favor of the vertex with
+ * the smallest ID, so that the result is deterministic.
+ */
+public class GreedyHittingSetSolver implements HittingSetSolver
+{
+	/**
+	 * A single publicly visible instance of the solver.
+	 */
+	public static final GreedyHittingSetSolver instance = new GreedyHittingSetSolver();
+	
+	@Override
+	public Set<Long> solve(Hypergraph h)
+	{
+		List<Set<Long>> edges = new ArrayList<Set<Long>>(h.m_edges.size());
+		for (Hypergraph.Hyperedge e : h.m_edges.values())
+		{
+			edges.add(e.m_vertices);
+		}
+		Set<Long> solution = new HashSet<Long>();
+		while (!edges.isEmpty())
+		{
+			Map<Long,Integer> degrees = new HashMap<Long,Integer>();
+			long best = -1;
+			int best_degree = 0;
+			for (Set<Long> e : edges)
+			{
+				for (long v : e)
+				{
+					Integer d = degrees.get(v);
+					int degree = d == null ? 1 : d + 1;
+					degrees.put(v, degree);
+					if (degree > best_degree || (degree == best_degree && v < best))
+					{
+						best = v;
+						best_degree = degree;
+					}
+				}
+			}
+			if (best < 0)
+			{
+				// Only empty edges remain
+				break;
+			}
+			solution.add(best);
+			List<Set<Long>> remaining = new ArrayList<Set<Long>>(edges.size());
+			for (Set<Long> e : edges)
+			{
+				if (!e.contains(best))
+				{
+					remaining.add(e);
+				}
+			}
+			edges = remaining;
+		}
+		return solution;
+	}
+}
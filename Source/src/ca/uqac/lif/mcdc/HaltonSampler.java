@@ -0,0 +1,126 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc;
+
+import java.util.Random;
+
+/**
+ * Draws valuations following a low-discrepancy sequence. The <i>k</i>-th
+ * valuation is derived from the <i>k</i>-th point of the Halton sequence:
+ * the variable at slot <i>i</i> takes the value of the first digit of the
+ * radical inverse of <i>k</i> in the <i>i</i>-th prime base, that is, it
+ * is true if this inverse is at least 1/2. The digits of each coordinate
+ * are scrambled by a random permutation, so that different seeds produce
+ * different valuations and the correlation between large bases in the
+ * first points of the sequence is broken.
+ * <p>
+ * Contrary to uniform sampling, the values of each variable and of each
+ * small group of variables alternate evenly from one valuation to the
+ * next.
+ */
+public class HaltonSampler implements ValuationSampler
+{
+	/**
+	 * The first 62 prime numbers, one for each variable slot.
+	 */
+	protected static final int[] s_primes = {2, 3, 5, 7, 11, 13, 17, 19, 23,
+		29, 31, 37, 41, 43, 47, 53, 59, 61, 67, 71, 73, 79, 83, 89, 97, 101,
+		103, 107, 109, 113, 127, 131, 137, 139, 149, 151, 157, 163, 167, 173,
+		179, 181, 191, 193, 197, 199, 211, 223, 227, 229, 233, 239, 241, 251,
+		257, 263, 269, 271, 277, 281, 283, 293};
+	
+	/**
+	 * The position of the next valuation in the sequence.
+	 */
+	protected long m_index;
+	
+	/**
+	 * The permutation applied to the digits of each coordinate.
+	 */
+	protected final int[][] m_permutations;
+	
+	/**
+	 * Creates a new low-discrepancy sampler.
+	 * @param seed The seed used to scramble the sequence
+	 */
+	public HaltonSampler(long seed)
+	{
+		super();
+		m_index = 1;
+		m_permutations = new int[s_primes.length][];
+		Random r = new Random(seed);
+		for (int i = 0; i < s_primes.length; i++)
+		{
+			int[] perm = new int[s_primes[i]];
+			for (int j = 0; j < perm.length; j++)
+			{
+				perm[j] = j;
+			}
+			for (int j = perm.length - 1; j > 0; j--)
+			{
+				int x = r.nextInt(j + 1);
+				int tmp = perm[j];
+				perm[j] = perm[x];
+				perm[x] = tmp;
+			}
+			m_permutations[i] = perm;
+		}
+	}
+	
+	@Override
+	public long next(int num_vars)
+	{
+		if (num_vars > s_primes.length)
+		{
+			throw new IllegalArgumentException("Cannot sample more than " + s_primes.length + " variables");
+		}
+		long id = 0;
+		for (int i = 0; i < num_vars; i++)
+		{
+			if (radicalInverse(m_index, s_primes[i], m_permutations[i]) >= 0.5)
+			{
+				id |= 1L << i;
+			}
+		}
+		m_index++;
+		return id;
+	}
+	
+	/**
+	 * Computes the scrambled radical inverse of a number in a given base,
+	 * which is obtained by permuting its digits and mirroring them around
+	 * the decimal point. Leading zeros are permuted as well, up to the
+	 * precision of a double.
+	 * @param k The number
+	 * @param base The base
+	 * @param perm The permutation of the digits
+	 * @return The radical inverse, between 0 and 1
+	 */
+	protected static double radicalInverse(long k, int base, int[] perm)
+	{
+		double inverse = 0;
+		double factor = 1d / base;
+		while (factor > 1e-15)
+		{
+			inverse += perm[(int) (k % base)] * factor;
+			k /= base;
+			factor /= base;
+		}
+		return inverse;
+	}
+}
@@ -19,6 +19,8 @@ package ca.uqac.lif.mcdc;
 
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.util.HashSet;
+import java.util.Set;
 
 import clojure.lang.PersistentHashSet;
 import mcdc.Hswrapper;
@@ -27,7 +29,7 @@ import mcdc.Hswrapper;
  * Generates a hypergraph vertex cover using the
  * <a href="https://github.com/bdesham/hitting-set">hitting-set</a> library.
  */
-public class HittingSetRunner
+public class HittingSetRunner implements HittingSetSolver
 {
 	public static PersistentHashSet runHittingSet(Hypergraph h)
 	{
@@ -37,4 +39,15 @@ public class HittingSetRunner
 		PersistentHashSet o = (PersistentHashSet) Hswrapper.getApproximateSet(baos.toString());
 		return o;
 	}
+	
+	@Override
+	public Set<Long> solve(Hypergraph h)
+	{
+		Set<Long> ids = new HashSet<Long>();
+		for (Object o : runHittingSet(h))
+		{
+			ids.add(((Number) o).longValue());
+		}
+		return ids;
+	}
 }
@@ -0,0 +1,33 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc;
+
+import java.util.Set;
+
+/**
+ * Finds a set of vertices of a hypergraph that intersects every hyperedge.
+ */
+public interface HittingSetSolver
+{
+	/**
+	 * Computes a hitting set of a hypergraph.
+	 * @param h The hypergraph
+	 * @return The set of IDs of the vertices in the hitting set
+	 */
+	public Set<Long> solve(Hypergraph h);
+}
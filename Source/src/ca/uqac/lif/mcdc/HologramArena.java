@@ -0,0 +1,478 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc;
+
+/**
+ * A set of hologram trees stored in arrays of primitive values rather
+ * than as {@link HologramNode} objects. Each node is an index in these
+ * arrays, which give its label (as an ID of a {@link HologramEncoder}),
+ * its value, its first child and its next sibling.
+ * <p>
+ * An arena is created for the formula of a {@link BitslicedEvaluator};
+ * the tree of this formula is laid out once, in preorder, at the start of
+ * the arrays, and {@link #fill(long[], int)} only overwrites its values
+ * for each valuation. Truncations implementing {@link ArenaTruncation}
+ * append their result after this tree; these nodes are discarded by the
+ * next call to {@link #fill(long[], int)} or {@link #clear()}. Once the
+ * arrays have grown to the size of the largest truncated tree, evaluating
+ * and truncating a valuation no longer allocates any object.
+ * <p>
+ * An arena is not thread-safe; each thread should use its own.
+ */
+public class HologramArena
+{
+	/**
+	 * The value code of a node whose value is unknown.
+	 */
+	protected static final byte UNKNOWN = 0;
+	
+	/**
+	 * The value code of a missing (<tt>null</tt>) child. Such a node has no
+	 * label and no children.
+	 */
+	protected static final byte MISSING = (byte) HologramEncoder.NO_NODE;
+	
+	/**
+	 * The encoder whose IDs are used as the labels of the nodes.
+	 */
+	protected final HologramEncoder m_encoder;
+	
+	/**
+	 * The ID of the label of each node.
+	 */
+	protected int[] m_labels;
+	
+	/**
+	 * The slot of the variable of each node, or -1.
+	 */
+	protected int[] m_slots;
+	
+	/**
+	 * The value code of each node: 0 if unknown, 1 for <tt>false</tt>, 2 for
+	 * <tt>true</tt>, and {@link #MISSING} for a missing child.
+	 */
+	protected byte[] m_values;
+	
+	/**
+	 * The first child of each node, or -1.
+	 */
+	protected int[] m_firstChild;
+	
+	/**
+	 * The last child of each node, or -1.
+	 */
+	protected int[] m_lastChild;
+	
+	/**
+	 * The next sibling of each node, or -1.
+	 */
+	protected int[] m_nextSibling;
+	
+	/**
+	 * For each node of the formula's tree, the index of the corresponding
+	 * node in the evaluator.
+	 */
+	protected final int[] m_sources;
+	
+	/**
+	 * The number of nodes in the formula's tree.
+	 */
+	protected final int m_base;
+	
+	/**
+	 * The number of nodes in the arena.
+	 */
+	protected int m_size;
+	
+	/**
+	 * The writer reused to encode the trees of the arena.
+	 */
+	protected final HologramEncoder.BitWriter m_writer = new HologramEncoder.BitWriter();
+	
+	/**
+	 * Creates a new arena for the formula of an evaluator.
+	 * @param evaluator The evaluator
+	 * @param encoder The encoder giving the IDs of the labels
+	 */
+	public HologramArena(BitslicedEvaluator evaluator, HologramEncoder encoder)
+	{
+		super();
+		m_encoder = encoder;
+		int capacity = 2 * evaluator.getNodeCount() + 16;
+		m_labels = new int[capacity];
+		m_slots = new int[capacity];
+		m_values = new byte[capacity];
+		m_firstChild = new int[capacity];
+		m_lastChild = new int[capacity];
+		m_nextSibling = new int[capacity];
+		int[] sources = new int[capacity];
+		m_size = 0;
+		sources = layOut(evaluator, evaluator.getRoot(), -1, sources);
+		m_base = m_size;
+		m_sources = sources;
+	}
+	
+	/**
+	 * Appends the tree of a node of the evaluator to the arena.
+	 * @param evaluator The evaluator
+	 * @param node The index of the node in the evaluator
+	 * @param parent The node of the arena to which the tree is added as a
+	 * child, or -1
+	 * @param sources The array associating each node of the arena to a node
+	 * of the evaluator
+	 * @return The array of sources, which may have been grown
+	 */
+	protected int[] layOut(BitslicedEvaluator evaluator, int node, int parent, int[] sources)
+	{
+		boolean atom = evaluator.m_types[node] == BitslicedEvaluator.ATOM;
+		int i = addNode(m_encoder.getId(evaluator.m_labels[node]), UNKNOWN, atom ? evaluator.m_slots[node] : -1);
+		if (i >= sources.length)
+		{
+			int[] new_sources = new int[m_labels.length];
+			System.arraycopy(sources, 0, new_sources, 0, sources.length);
+			sources = new_sources;
+		}
+		sources[i] = node;
+		if (parent >= 0)
+		{
+			addChild(parent, i);
+		}
+		if (!atom)
+		{
+			for (int c : evaluator.m_children[node])
+			{
+				sources = layOut(evaluator, c, i, sources);
+			}
+		}
+		return sources;
+	}
+	
+	/**
+	 * Sets the values of the formula's tree to those of one valuation of a
+	 * block, and discards all other trees.
+	 * @param words The value of each node for the block, as computed by
+	 * {@link BitslicedEvaluator#evaluate(long, long[])}
+	 * @param k The position of the valuation in the block
+	 * @return The root of the formula's tree
+	 */
+	public int fill(long[] words, int k)
+	{
+		for (int i = 0; i < m_base; i++)
+		{
+			m_values[i] = ((words[m_sources[i]] >>> k) & 1L) != 0 ? (byte) 2 : (byte) 1;
+		}
+		m_size = m_base;
+		return 0;
+	}
+	
+	/**
+	 * Discards all the trees added after the formula's tree.
+	 */
+	public void clear()
+	{
+		m_size = m_base;
+	}
+	
+	/**
+	 * Gets the root of the formula's tree.
+	 * @return The root
+	 */
+	public int getRoot()
+	{
+		return 0;
+	}
+	
+	/**
+	 * Gets the encoder giving the IDs of the labels of this arena.
+	 * @return The encoder
+	 */
+	public HologramEncoder getEncoder()
+	{
+		return m_encoder;
+	}
+	
+	/**
+	 * Gets the number of nodes in the arena.
+	 * @return The number of nodes
+	 */
+	public int size()
+	{
+		return m_size;
+	}
+	
+	/**
+	 * Gets the ID of a label in this arena.
+	 * @param label The label
+	 * @return The ID
+	 */
+	public int getLabelId(String label)
+	{
+		return m_encoder.getId(label);
+	}
+	
+	/**
+	 * Gets the ID of the label of a node.
+	 * @param i The node
+	 * @return The ID
+	 */
+	public int getLabelId(int i)
+	{
+		return m_labels[i];
+	}
+	
+	/**
+	 * Gets the label of a node.
+	 * @param i The node
+	 * @return The label
+	 */
+	public String getLabel(int i)
+	{
+		return m_encoder.getLabel(m_labels[i]);
+	}
+	
+	/**
+	 * Gets the value of a node.
+	 * @param i The node
+	 * @return The value, or <tt>null</tt> if it is unknown
+	 */
+	public Boolean getValue(int i)
+	{
+		byte v = m_values[i];
+		return v == 2 ? Boolean.TRUE : (v == 1 ? Boolean.FALSE : null);
+	}
+	
+	/**
+	 * Gets the slot of the variable of a node.
+	 * @param i The node
+	 * @return The slot, or -1 if the node does not correspond to a variable
+	 */
+	public int getSlot(int i)
+	{
+		return m_slots[i];
+	}
+	
+	/**
+	 * Determines if a node stands for a missing (<tt>null</tt>) child.
+	 * @param i The node
+	 * @return <tt>true</tt> if the child is missing, <tt>false</tt>
+	 * otherwise
+	 */
+	public boolean isMissing(int i)
+	{
+		return m_values[i] == MISSING;
+	}
+	
+	/**
+	 * Gets the first child of a node.
+	 * @param i The node
+	 * @return The first child, or -1 if the node has no children
+	 */
+	public int getFirstChild(int i)
+	{
+		return m_firstChild[i];
+	}
+	
+	/**
+	 * Gets the next sibling of a node.
+	 * @param i The node
+	 * @return The next sibling, or -1 if the node is the last child of its
+	 * parent
+	 */
+	public int getNextSibling(int i)
+	{
+		return m_nextSibling[i];
+	}
+	
+	/**
+	 * Counts the children of a node.
+	 * @param i The node
+	 * @return The number of children
+	 */
+	public int getChildCount(int i)
+	{
+		int count = 0;
+		for (int c = m_firstChild[i]; c >= 0; c = m_nextSibling[c])
+		{
+			count++;
+		}
+		return count;
+	}
+	
+	/**
+	 * Gets a child of a node.
+	 * @param i The node
+	 * @param k The position of the child
+	 * @return The child, or -1 if the node has fewer children
+	 */
+	public int getChild(int i, int k)
+	{
+		int c = m_firstChild[i];
+		for (int j = 0; j < k && c >= 0; j++)
+		{
+			c = m_nextSibling[c];
+		}
+		return c;
+	}
+	
+	/**
+	 * Adds a node without children.
+	 * @param label The ID of the label of the node
+	 * @param value The value of the node, or <tt>null</tt>
+	 * @param slot The slot of the variable of the node, or -1
+	 * @return The new node
+	 */
+	public int addNode(int label, Boolean value, int slot)
+	{
+		return addNode(label, value == null ? UNKNOWN : (value ? (byte) 2 : (byte) 1), slot);
+	}
+	
+	/**
+	 * Adds a node with the same label, value and slot as another one, but
+	 * without children.
+	 * @param i The node to copy
+	 * @return The new node
+	 */
+	public int copyNode(int i)
+	{
+		return addNode(m_labels[i], m_values[i], m_slots[i]);
+	}
+	
+	/**
+	 * Adds a node standing for a missing (<tt>null</tt>) child.
+	 * @return The new node
+	 */
+	public int addMissing()
+	{
+		return addNode(-1, MISSING, -1);
+	}
+	
+	/**
+	 * Appends a node to the children of another one. A node can only be the
+	 * child of a single parent.
+	 * @param parent The parent
+	 * @param child The child
+	 */
+	public void addChild(int parent, int child)
+	{
+		if (m_lastChild[parent] < 0)
+		{
+			m_firstChild[parent] = child;
+		}
+		else
+		{
+			m_nextSibling[m_lastChild[parent]] = child;
+		}
+		m_lastChild[parent] = child;
+	}
+	
+	/**
+	 * Finds the first leaf with a given label in a tree, in preorder.
+	 * @param i The root of the tree
+	 * @param label The ID of the label
+	 * @return The leaf, or -1 if there is none
+	 */
+	public int findLeaf(int i, int label)
+	{
+		if (m_firstChild[i] < 0)
+		{
+			return m_labels[i] == label && m_values[i] != MISSING ? i : -1;
+		}
+		for (int c = m_firstChild[i]; c >= 0; c = m_nextSibling[c])
+		{
+			int leaf = findLeaf(c, label);
+			if (leaf >= 0)
+			{
+				return leaf;
+			}
+		}
+		return -1;
+	}
+	
+	/**
+	 * Creates a {@link HologramNode} tree with the contents of a tree of the
+	 * arena.
+	 * @param i The root of the tree, or -1
+	 * @return The new tree, or <tt>null</tt> if the root is a missing child
+	 */
+	public HologramNode toNode(int i)
+	{
+		if (i < 0 || m_values[i] == MISSING)
+		{
+			return null;
+		}
+		HologramNode n = new HologramNode(getLabel(i), getValue(i));
+		n.m_slot = m_slots[i];
+		for (int c = m_firstChild[i]; c >= 0; c = m_nextSibling[c])
+		{
+			n.addChild(toNode(c));
+		}
+		return n;
+	}
+	
+	/**
+	 * Adds a node without children.
+	 * @param label The ID of the label of the node
+	 * @param value The value code of the node
+	 * @param slot The slot of the variable of the node, or -1
+	 * @return The new node
+	 */
+	protected int addNode(int label, byte value, int slot)
+	{
+		if (m_size == m_labels.length)
+		{
+			grow();
+		}
+		int i = m_size++;
+		m_labels[i] = label;
+		m_values[i] = value;
+		m_slots[i] = slot;
+		m_firstChild[i] = -1;
+		m_lastChild[i] = -1;
+		m_nextSibling[i] = -1;
+		return i;
+	}
+	
+	/**
+	 * Doubles the capacity of the arrays of the arena.
+	 */
+	protected void grow()
+	{
+		int capacity = 2 * m_labels.length;
+		m_labels = grow(m_labels, capacity);
+		m_slots = grow(m_slots, capacity);
+		m_firstChild = grow(m_firstChild, capacity);
+		m_lastChild = grow(m_lastChild, capacity);
+		m_nextSibling = grow(m_nextSibling, capacity);
+		byte[] values = new byte[capacity];
+		System.arraycopy(m_values, 0, values, 0, m_values.length);
+		m_values = values;
+	}
+	
+	/**
+	 * Copies an array into a larger one.
+	 * @param a The array
+	 * @param capacity The size of the new array
+	 * @return The new array
+	 */
+	protected static int[] grow(int[] a, int capacity)
+	{
+		int[] new_a = new int[capacity];
+		System.arraycopy(a, 0, new_a, 0, a.length);
+		return new_a;
+	}
+}
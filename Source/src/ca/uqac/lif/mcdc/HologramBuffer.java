@@ -0,0 +1,173 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc;
+
+/**
+ * A hologram tree that is allocated once for a formula and whose values
+ * are overwritten for each valuation. Each node of the tree stands for one
+ * node of the {@link BitslicedEvaluator} it is created from; filling it from
+ * a block evaluated by that evaluator only copies one bit per node, instead
+ * of allocating a new {@link HologramNode} and its list of children for
+ * every node and every valuation.
+ * <p>
+ * Like the holograms produced by {@link Operator#evaluate(Valuation)}, the
+ * buffer is a tree: a subformula occurring more than once in the formula
+ * is a single node of the evaluator, but each of its occurrences gets its
+ * own subtree in the buffer, so that no node has more than one parent.
+ * <p>
+ * Since the contents of the tree change on every call to
+ * {@link #fill(long[], int)}, neither the tree nor any of its subtrees
+ * should be kept (for instance as a key in a map) without being copied
+ * first.
+ */
+public class HologramBuffer
+{
+	/**
+	 * The nodes of the tree, in postorder.
+	 */
+	protected final HologramNode[] m_nodes;
+	
+	/**
+	 * For each node of the tree, the index of the node of the evaluator it
+	 * stands for.
+	 */
+	protected final int[] m_sources;
+	
+	/**
+	 * For each node of the evaluator, the indices of the nodes of the tree
+	 * that stand for it.
+	 */
+	protected final int[][] m_occurrences;
+	
+	/**
+	 * Creates a new buffer for the formula of an evaluator.
+	 * @param evaluator The evaluator
+	 */
+	public HologramBuffer(BitslicedEvaluator evaluator)
+	{
+		super();
+		int num_nodes = evaluator.getNodeCount();
+		// The number of nodes of the subtree of each node of the evaluator
+		int[] sizes = new int[num_nodes];
+		for (int i = 0; i < num_nodes; i++)
+		{
+			long size = 1;
+			for (int c : evaluator.m_children[i])
+			{
+				size += sizes[c];
+			}
+			if (size > Integer.MAX_VALUE)
+			{
+				throw new IllegalArgumentException("The hologram of the formula has too many nodes");
+			}
+			sizes[i] = (int) size;
+		}
+		int size = sizes[num_nodes - 1];
+		m_nodes = new HologramNode[size];
+		m_sources = new int[size];
+		// The first position of the subtree of each node of the tree
+		int[] starts = new int[size];
+		int[] occurrence_counts = new int[num_nodes];
+		int[] stack_nodes = new int[size];
+		int[] stack_starts = new int[size];
+		int top = 0;
+		stack_nodes[top] = num_nodes - 1;
+		stack_starts[top] = 0;
+		top++;
+		while (top > 0)
+		{
+			top--;
+			int i = stack_nodes[top];
+			int start = stack_starts[top];
+			int p = start + sizes[i] - 1;
+			m_sources[p] = i;
+			starts[p] = start;
+			occurrence_counts[i]++;
+			if (evaluator.m_types[i] == BitslicedEvaluator.ATOM)
+			{
+				m_nodes[p] = new HologramNode(evaluator.m_labels[i], evaluator.m_slots[i]);
+			}
+			else
+			{
+				m_nodes[p] = new HologramNode(evaluator.m_labels[i]);
+				for (int c : evaluator.m_children[i])
+				{
+					stack_nodes[top] = c;
+					stack_starts[top] = start;
+					top++;
+					start += sizes[c];
+				}
+			}
+		}
+		m_occurrences = new int[num_nodes][];
+		for (int i = 0; i < num_nodes; i++)
+		{
+			m_occurrences[i] = new int[occurrence_counts[i]];
+			occurrence_counts[i] = 0;
+		}
+		for (int p = 0; p < size; p++)
+		{
+			int i = m_sources[p];
+			m_occurrences[i][occurrence_counts[i]++] = p;
+			int start = starts[p];
+			for (int c : evaluator.m_children[i])
+			{
+				start += sizes[c];
+				m_nodes[p].addChild(m_nodes[start - 1]);
+			}
+		}
+	}
+	
+	/**
+	 * Gets the root of the tree.
+	 * @return The root
+	 */
+	public HologramNode getRoot()
+	{
+		return m_nodes[m_nodes.length - 1];
+	}
+	
+	/**
+	 * Sets the values of the tree to those of one valuation of a block.
+	 * @param words The value of each node of the evaluator for the block, as
+	 * computed by {@link BitslicedEvaluator#evaluate(long, long[])}
+	 * @param k The position of the valuation in the block
+	 * @return The root of the tree
+	 */
+	public HologramNode fill(long[] words, int k)
+	{
+		for (int p = 0; p < m_nodes.length; p++)
+		{
+			m_nodes[p].m_value = ((words[m_sources[p]] >>> k) & 1L) != 0;
+		}
+		return m_nodes[m_nodes.length - 1];
+	}
+	
+	/**
+	 * Sets the value of every occurrence of a node of the evaluator.
+	 * @param i The index of the node in the evaluator
+	 * @param b The value
+	 */
+	public void setValue(int i, boolean b)
+	{
+		for (int p : m_occurrences[i])
+		{
+			m_nodes[p].m_value = b;
+		}
+	}
+}
@@ -0,0 +1,446 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Encodes hologram trees into {@link HologramSignature}s. A tree is
+ * written in preorder; each node is encoded as:
+ * <ol>
+ * <li>two bits for its value: 0 if unknown, 1 for <tt>false</tt>, 2 for
+ * <tt>true</tt>, and 3 for a missing (<tt>null</tt>) child, which has no
+ * other field;</li>
+ * <li>the ID of its label;</li>
+ * <li>its number of children.</li>
+ * </ol>
+ * Numbers are written in groups of three bits, each followed by a bit
+ * telling whether another group follows. The variables of the symbol
+ * table given to the encoder take the IDs of their slots; other labels
+ * are given the next free ID the first time they are seen. For a formula
+ * with fewer than eight variables, a leaf thus takes 10 bits.
+ * <p>
+ * Signatures are only comparable if they come from the same encoder. An
+ * encoder can be shared by several threads.
+ */
+public class HologramEncoder
+{
+	/**
+	 * The code of the value of a missing child.
+	 */
+	protected static final int NO_NODE = 3;
+	
+	/**
+	 * The symbol table giving the IDs of the variables, or <tt>null</tt>.
+	 */
+	protected final SymbolTable m_symbols;
+	
+	/**
+	 * A map associating each label to its ID.
+	 */
+	protected final ConcurrentHashMap<String,Integer> m_ids;
+	
+	/**
+	 * The labels, indexed by their ID.
+	 */
+	protected final List<String> m_labels;
+	
+	/**
+	 * Creates a new encoder.
+	 */
+	public HologramEncoder()
+	{
+		this(null);
+	}
+	
+	/**
+	 * Creates a new encoder giving the variables of a symbol table the IDs
+	 * of their slots.
+	 * @param symbols The symbol table, or <tt>null</tt>
+	 */
+	public HologramEncoder(SymbolTable symbols)
+	{
+		super();
+		m_symbols = symbols;
+		m_ids = new ConcurrentHashMap<String,Integer>();
+		m_labels = new ArrayList<String>();
+		if (symbols != null)
+		{
+			for (String name : symbols.getNames())
+			{
+				getId(name);
+			}
+		}
+		getId(HologramNode.DUMMY_SYMBOL);
+		getId(Conjunction.SYMBOL);
+		getId(Disjunction.SYMBOL);
+		getId(Negation.SYMBOL);
+	}
+	
+	/**
+	 * Encodes a tree.
+	 * @param n The root of the tree, or <tt>null</tt>
+	 * @return The signature of the tree
+	 */
+	public HologramSignature encode(HologramNode n)
+	{
+		BitWriter out = new BitWriter();
+		encode(n, out);
+		return out.getSignature();
+	}
+	
+	/**
+	 * Writes the encoding of a tree.
+	 * @param n The root of the tree, or <tt>null</tt>
+	 * @param out The writer receiving the bits
+	 */
+	protected void encode(HologramNode n, BitWriter out)
+	{
+		if (n == null)
+		{
+			out.write(NO_NODE, 2);
+			return;
+		}
+		out.write(n.m_value == null ? 0 : (n.m_value ? 2 : 1), 2);
+		out.writeNumber(getId(n));
+		out.writeNumber(n.m_children.size());
+		for (HologramNode c : n.m_children)
+		{
+			encode(c, out);
+		}
+	}
+	
+	/**
+	 * Encodes a tree of an arena whose labels are IDs of this encoder. The
+	 * signature is the same as for the equivalent {@link HologramNode}
+	 * tree.
+	 * @param arena The arena
+	 * @param root The root of the tree, or -1 for a <tt>null</tt> tree
+	 * @return The signature of the tree
+	 */
+	public HologramSignature encode(HologramArena arena, int root)
+	{
+		if (arena.m_encoder != this)
+		{
+			return encode(arena.toNode(root));
+		}
+		BitWriter out = arena.m_writer;
+		out.clear();
+		if (root < 0)
+		{
+			out.write(NO_NODE, 2);
+		}
+		else
+		{
+			encode(arena, root, out);
+		}
+		return out.getSignature();
+	}
+	
+	/**
+	 * Writes the encoding of a tree of an arena.
+	 * @param arena The arena
+	 * @param i The root of the tree
+	 * @param out The writer receiving the bits
+	 */
+	protected void encode(HologramArena arena, int i, BitWriter out)
+	{
+		int value = arena.m_values[i];
+		out.write(value, 2);
+		if (value == NO_NODE)
+		{
+			return;
+		}
+		out.writeNumber(arena.m_labels[i]);
+		out.writeNumber(arena.getChildCount(i));
+		for (int c = arena.m_firstChild[i]; c >= 0; c = arena.m_nextSibling[c])
+		{
+			encode(arena, c, out);
+		}
+	}
+	
+	/**
+	 * Decodes a signature produced by this encoder.
+	 * @param s The signature
+	 * @return A new tree with the contents encoded by the signature
+	 */
+	public HologramNode decode(HologramSignature s)
+	{
+		BitReader in = new BitReader(s);
+		List<HologramNode> parents = new ArrayList<HologramNode>();
+		List<Integer> missing = new ArrayList<Integer>();
+		HologramNode root = null;
+		do
+		{
+			HologramNode n = null;
+			int value = in.read(2);
+			if (value != NO_NODE)
+			{
+				String label = getLabel(in.readNumber());
+				n = new HologramNode(label, value == 0 ? null : value == 2);
+				if (m_symbols != null)
+				{
+					n.m_slot = m_symbols.getSlot(label);
+				}
+			}
+			if (parents.isEmpty())
+			{
+				root = n;
+			}
+			else
+			{
+				int top = parents.size() - 1;
+				parents.get(top).addChild(n);
+				missing.set(top, missing.get(top) - 1);
+			}
+			if (n != null)
+			{
+				int size = in.readNumber();
+				if (size > 0)
+				{
+					parents.add(n);
+					missing.add(size);
+				}
+			}
+			while (!parents.isEmpty() && missing.get(missing.size() - 1) == 0)
+			{
+				parents.remove(parents.size() - 1);
+				missing.remove(missing.size() - 1);
+			}
+		} while (!parents.isEmpty());
+		return root;
+	}
+	
+	/**
+	 * Encodes a signature produced by another encoder with the IDs of this
+	 * one.
+	 * @param s The signature
+	 * @param other The encoder that produced the signature
+	 * @return The signature of the same tree for this encoder
+	 */
+	public HologramSignature translate(HologramSignature s, HologramEncoder other)
+	{
+		if (other == this)
+		{
+			return s;
+		}
+		return encode(other.decode(s));
+	}
+	
+	/**
+	 * Gets the ID of the label of a node.
+	 * @param n The node
+	 * @return The ID
+	 */
+	protected int getId(HologramNode n)
+	{
+		int slot = n.m_slot;
+		if (m_symbols != null && slot >= 0 && slot < m_symbols.size() && m_symbols.getName(slot).equals(n.m_label))
+		{
+			return slot;
+		}
+		return getId(n.m_label);
+	}
+	
+	/**
+	 * Gets the ID of a label, giving it the next free ID if it has none.
+	 * @param label The label
+	 * @return The ID
+	 */
+	protected int getId(String label)
+	{
+		Integer id = m_ids.get(label);
+		if (id != null)
+		{
+			return id;
+		}
+		synchronized (m_labels)
+		{
+			id = m_ids.get(label);
+			if (id == null)
+			{
+				id = m_labels.size();
+				m_labels.add(label);
+				m_ids.put(label, id);
+			}
+			return id;
+		}
+	}
+	
+	/**
+	 * Gets the label with a given ID.
+	 * @param id The ID
+	 * @return The label
+	 */
+	protected String getLabel(int id)
+	{
+		synchronized (m_labels)
+		{
+			if (id < 0 || id >= m_labels.size())
+			{
+				throw new IllegalArgumentException("Unknown label ID " + id);
+			}
+			return m_labels.get(id);
+		}
+	}
+	
+	/**
+	 * Accumulates the bits of a signature.
+	 */
+	protected static class BitWriter
+	{
+		/**
+		 * The bits written so far, 64 per word.
+		 */
+		protected long[] m_words = new long[1];
+		
+		/**
+		 * The number of bits written so far.
+		 */
+		protected int m_length = 0;
+		
+		/**
+		 * Erases the bits written so far.
+		 */
+		public void clear()
+		{
+			for (int i = 0; i <= (m_length >>> 6) && i < m_words.length; i++)
+			{
+				m_words[i] = 0;
+			}
+			m_length = 0;
+		}
+		
+		/**
+		 * Writes the lowest bits of a number.
+		 * @param x The number
+		 * @param bits The number of bits to write, at most 32
+		 */
+		public void write(int x, int bits)
+		{
+			int word = m_length >>> 6;
+			int offset = m_length & 63;
+			if (word + 1 >= m_words.length)
+			{
+				long[] new_words = new long[2 * m_words.length + 1];
+				System.arraycopy(m_words, 0, new_words, 0, m_words.length);
+				m_words = new_words;
+			}
+			long v = x & ((1L << bits) - 1);
+			m_words[word] |= v << offset;
+			if (offset + bits > 64)
+			{
+				m_words[word + 1] |= v >>> (64 - offset);
+			}
+			m_length += bits;
+		}
+		
+		/**
+		 * Writes a non-negative number in groups of three bits.
+		 * @param x The number
+		 */
+		public void writeNumber(int x)
+		{
+			while (x >= 8)
+			{
+				write((x & 7) | 8, 4);
+				x >>>= 3;
+			}
+			write(x, 4);
+		}
+		
+		/**
+		 * Gets the signature made of the bits written so far.
+		 * @return The signature
+		 */
+		public HologramSignature getSignature()
+		{
+			if (m_length <= 64)
+			{
+				return new HologramSignature(m_words[0]);
+			}
+			byte[] bytes = new byte[(m_length + 7) >>> 3];
+			for (int i = 0; i < bytes.length; i++)
+			{
+				bytes[i] = (byte) (m_words[i >>> 3] >>> (8 * (i & 7)));
+			}
+			return new HologramSignature(bytes);
+		}
+	}
+	
+	/**
+	 * Reads the bits of a signature.
+	 */
+	protected static class BitReader
+	{
+		/**
+		 * The signature.
+		 */
+		protected final HologramSignature m_signature;
+		
+		/**
+		 * The position of the next bit to read.
+		 */
+		protected int m_position = 0;
+		
+		/**
+		 * Creates a new reader.
+		 * @param s The signature to read
+		 */
+		public BitReader(HologramSignature s)
+		{
+			super();
+			m_signature = s;
+		}
+		
+		/**
+		 * Reads a number.
+		 * @param bits The number of bits of the number
+		 * @return The number
+		 */
+		public int read(int bits)
+		{
+			int x = 0;
+			for (int i = 0; i < bits; i++)
+			{
+				x |= m_signature.getBit(m_position++) << i;
+			}
+			return x;
+		}
+		
+		/**
+		 * Reads a number written in groups of three bits.
+		 * @return The number
+		 */
+		public int readNumber()
+		{
+			int x = 0;
+			int shift = 0;
+			int group;
+			do
+			{
+				group = read(4);
+				x |= (group & 7) << shift;
+				shift += 3;
+			} while ((group & 8) != 0);
+			return x;
+		}
+	}
+}
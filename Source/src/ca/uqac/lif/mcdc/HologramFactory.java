@@ -0,0 +1,245 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Produces a canonical instance of each distinct hologram tree. Trees
+ * are interned bottom-up: a node is looked up from its label, its value
+ * and the canonical instances of its children, so that two trees
+ * obtained from the same factory are equal if and only if they are the
+ * same object. Leaves for the variables of a {@link SymbolTable}, and the
+ * dummy node, are created in advance, which gives 2&times;<i>n</i>+1
+ * flyweights for a formula with <i>n</i> variables. The dummy nodes are
+ * those of {@link FrozenHologramNode#getDummy(Boolean)}, which truncations
+ * already return, so that they are shared by all factories.
+ * <p>
+ * A factory is not thread-safe; each thread should use its own.
+ */
+public class HologramFactory
+{
+	/**
+	 * The canonical instances of the trees interned so far. Each of them is
+	 * associated to itself.
+	 */
+	protected Map<HologramNode,FrozenHologramNode> m_nodes;
+	
+	/**
+	 * The symbol table giving the slots of the variables, or <tt>null</tt>.
+	 */
+	protected SymbolTable m_symbols;
+	
+	/**
+	 * The leaves for the variables of the symbol table. The leaf for the
+	 * variable at slot <i>i</i> with value <i>b</i> is at index
+	 * 2<i>i</i> if <i>b</i> is <tt>false</tt> and 2<i>i</i>+1 otherwise.
+	 */
+	protected FrozenHologramNode[] m_leaves;
+	
+	/**
+	 * A mutable node reused to look up a node before creating it.
+	 */
+	protected HologramNode m_probe;
+	
+	/**
+	 * Creates a new empty factory.
+	 */
+	public HologramFactory()
+	{
+		this(null);
+	}
+	
+	/**
+	 * Creates a new factory with the leaves for the variables of a symbol
+	 * table.
+	 * @param symbols The symbol table, or <tt>null</tt>
+	 */
+	public HologramFactory(SymbolTable symbols)
+	{
+		super();
+		m_nodes = new HashMap<HologramNode,FrozenHologramNode>();
+		m_probe = new HologramNode(HologramNode.DUMMY_SYMBOL);
+		m_symbols = symbols;
+		List<FrozenHologramNode> no_children = new ArrayList<FrozenHologramNode>(0);
+		getNode(HologramNode.DUMMY_SYMBOL, null, -1, no_children, 0);
+		if (symbols == null)
+		{
+			m_leaves = new FrozenHologramNode[0];
+			return;
+		}
+		m_leaves = new FrozenHologramNode[2 * symbols.size()];
+		for (int i = 0; i < symbols.size(); i++)
+		{
+			m_leaves[2 * i] = getNode(symbols.getName(i), false, i, no_children, 0);
+			m_leaves[2 * i + 1] = getNode(symbols.getName(i), true, i, no_children, 0);
+		}
+	}
+	
+	/**
+	 * Gets the canonical leaf for a variable.
+	 * @param slot The slot of the variable in the factory's symbol table
+	 * @param value The value of the variable
+	 * @return The leaf
+	 */
+	public FrozenHologramNode getLeaf(int slot, boolean value)
+	{
+		if (slot < 0 || 2 * slot >= m_leaves.length)
+		{
+			throw new IllegalArgumentException("No variable at slot " + slot);
+		}
+		return m_leaves[2 * slot + (value ? 1 : 0)];
+	}
+	
+	/**
+	 * Gets the canonical node with given label, value and children.
+	 * @param label The label of the node
+	 * @param value The value of the node
+	 * @param children The children of the node. They do not need to come
+	 * from this factory.
+	 * @return The node
+	 */
+	public FrozenHologramNode getNode(String label, Boolean value, HologramNode ... children)
+	{
+		List<FrozenHologramNode> canonical = new ArrayList<FrozenHologramNode>(children.length);
+		for (HologramNode c : children)
+		{
+			canonical.add(intern(c));
+		}
+		return getNode(label, value, -1, canonical, 0);
+	}
+	
+	/**
+	 * Gets the canonical instance of a tree. The tree is traversed with an
+	 * explicit stack; it is left untouched and can be modified afterwards.
+	 * @param n The root of the tree, or <tt>null</tt>
+	 * @return The canonical instance, or <tt>null</tt> if the tree is
+	 * <tt>null</tt>
+	 */
+	public FrozenHologramNode intern(HologramNode n)
+	{
+		if (n == null)
+		{
+			return null;
+		}
+		if (n.m_children.isEmpty())
+		{
+			return internLeaf(n);
+		}
+		List<HologramNode> stack = new ArrayList<HologramNode>();
+		int[] positions = new int[8];
+		List<FrozenHologramNode> done = new ArrayList<FrozenHologramNode>();
+		stack.add(n);
+		while (!stack.isEmpty())
+		{
+			int top = stack.size() - 1;
+			HologramNode cur = stack.get(top);
+			if (positions[top] < cur.m_children.size())
+			{
+				HologramNode c = cur.m_children.get(positions[top]++);
+				if (c == null || c.m_children.isEmpty())
+				{
+					done.add(c == null ? null : internLeaf(c));
+				}
+				else
+				{
+					if (top + 1 == positions.length)
+					{
+						int[] new_positions = new int[2 * positions.length];
+						System.arraycopy(positions, 0, new_positions, 0, positions.length);
+						positions = new_positions;
+					}
+					positions[top + 1] = 0;
+					stack.add(c);
+				}
+				continue;
+			}
+			stack.remove(top);
+			int first = done.size() - cur.m_children.size();
+			FrozenHologramNode f = getNode(cur.m_label, cur.m_value, cur.m_slot, done, first);
+			done.subList(first, done.size()).clear();
+			done.add(f);
+		}
+		return done.get(0);
+	}
+	
+	/**
+	 * Gets the number of distinct nodes created by this factory.
+	 * @return The number of nodes
+	 */
+	public int size()
+	{
+		return m_nodes.size();
+	}
+	
+	/**
+	 * Gets the canonical instance of a leaf.
+	 * @param n The leaf
+	 * @return The canonical instance
+	 */
+	protected FrozenHologramNode internLeaf(HologramNode n)
+	{
+		int slot = n.m_slot;
+		if (slot >= 0 && 2 * slot < m_leaves.length && n.m_value != null && m_symbols.getName(slot).equals(n.m_label))
+		{
+			return m_leaves[2 * slot + (n.m_value ? 1 : 0)];
+		}
+		return getNode(n.m_label, n.m_value, slot, n.m_children, 0);
+	}
+	
+	/**
+	 * Gets the canonical node with given contents, creating it if it does
+	 * not exist.
+	 * @param label The label of the node
+	 * @param value The value of the node
+	 * @param slot The slot of the variable of the node, or -1
+	 * @param children A list whose elements from a given position are the
+	 * canonical instances of the children of the node
+	 * @param first The position of the first child in this list
+	 * @return The node
+	 */
+	protected FrozenHologramNode getNode(String label, Boolean value, int slot, List<? extends HologramNode> children, int first)
+	{
+		if (first == children.size() && label.equals(HologramNode.DUMMY_SYMBOL))
+		{
+			FrozenHologramNode d = FrozenHologramNode.getDummy(value);
+			if (!m_nodes.containsKey(d))
+			{
+				m_nodes.put(d, d);
+			}
+			return d;
+		}
+		m_probe.m_label = label;
+		m_probe.m_value = value;
+		m_probe.m_children.clear();
+		for (int i = first; i < children.size(); i++)
+		{
+			m_probe.m_children.add(children.get(i));
+		}
+		FrozenHologramNode f = m_nodes.get(m_probe);
+		if (f == null)
+		{
+			f = new FrozenHologramNode(label, value, slot, new ArrayList<HologramNode>(m_probe.m_children));
+			m_nodes.put(f, f);
+		}
+		return f;
+	}
+}
@@ -18,6 +18,7 @@
 package ca.uqac.lif.mcdc;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -35,6 +36,12 @@ public class HologramNode
 	
 	protected String m_label;
 	
+	/**
+	 * For a leaf produced by an {@link Atom}, the slot of the corresponding
+	 * variable in the formula's {@link SymbolTable}; -1 otherwise.
+	 */
+	protected int m_slot = -1;
+	
 	public HologramNode(String label, Boolean value)
 	{
 		super();
@@ -48,11 +55,32 @@ public class HologramNode
 		this(label, null);
 	}
 	
+	/**
+	 * Creates a new leaf node for a variable.
+	 * @param label The name of the variable
+	 * @param slot The slot of the variable in the formula's symbol table
+	 */
+	public HologramNode(String label, int slot)
+	{
+		this(label, null);
+		m_slot = slot;
+	}
+	
 	public String getLabel()
 	{
 		return m_label;
 	}
 	
+	/**
+	 * Gets the slot of the variable this node stands for.
+	 * @return The slot, or -1 if the node does not correspond to a variable
+	 * bound to a symbol table
+	 */
+	public int getSlot()
+	{
+		return m_slot;
+	}
+	
 	public void setValue(Boolean b)
 	{
 		m_value = b;
@@ -63,6 +91,32 @@ public class HologramNode
 		return m_value;
 	}
 	
+	/**
+	 * Determines if the value of every node of the tree, down to a given
+	 * depth, is known (i.e. not <tt>null</tt>).
+	 * @param depth The depth; this node is at depth 1
+	 * @return <tt>true</tt> if all these values are known, <tt>false</tt>
+	 * otherwise
+	 */
+	public boolean hasKnownValues(int depth)
+	{
+		if (m_value == null)
+		{
+			return false;
+		}
+		if (depth > 1)
+		{
+			for (HologramNode c : m_children)
+			{
+				if (c != null && !c.hasKnownValues(depth - 1))
+				{
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+	
 	public void addChild(HologramNode n)
 	{
 		m_children.add(n);
@@ -80,9 +134,10 @@ public class HologramNode
 	public HologramNode duplicate(boolean with_state)
 	{
 		HologramNode n = new HologramNode(m_label);
+		n.m_slot = m_slot;
 		for (HologramNode c : m_children)
 		{
-			n.addChild(c.duplicate(with_state));
+			n.addChild(c == null ? null : c.duplicate(with_state));
 		}
 		if (with_state)
 		{
@@ -91,45 +146,191 @@ public class HologramNode
 		return n;
 	}
 	
+	/**
+	 * Creates an immutable copy of this tree, whose hash code is computed
+	 * once and for all.
+	 * @return The copy
+	 */
+	public FrozenHologramNode freeze()
+	{
+		return FrozenHologramNode.freeze(this);
+	}
+	
+	/**
+	 * Determines if two trees are equal. The comparison is done with an
+	 * explicit stack rather than by recursion, so that it does not depend on
+	 * the depth of the trees. Subtrees whose hash code is cached (see
+	 * {@link FrozenHologramNode}) are first compared by this code.
+	 */
 	@Override
 	public boolean equals(Object o)
 	{
+		if (o == this)
+		{
+			return true;
+		}
 		if (o == null || !(o instanceof HologramNode))
 		{
 			return false;
 		}
 		HologramNode n = (HologramNode) o;
-		if (m_value != n.m_value)
+		if (!sameNode(this, n))
 		{
 			return false;
 		}
-		if (m_children.size() != n.m_children.size())
+		if (m_children.isEmpty())
+		{
+			return true;
+		}
+		List<HologramNode> stack = new ArrayList<HologramNode>();
+		stack.add(this);
+		stack.add(n);
+		while (!stack.isEmpty())
+		{
+			HologramNode n2 = stack.remove(stack.size() - 1);
+			HologramNode n1 = stack.remove(stack.size() - 1);
+			for (int i = 0; i < n1.m_children.size(); i++)
+			{
+				HologramNode c1 = n1.m_children.get(i);
+				HologramNode c2 = n2.m_children.get(i);
+				if (c1 == c2)
+				{
+					continue;
+				}
+				if (c1 == null || c2 == null || !sameNode(c1, c2))
+				{
+					return false;
+				}
+				if (!c1.m_children.isEmpty())
+				{
+					stack.add(c1);
+					stack.add(c2);
+				}
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Compares the label, value and number of children of two nodes.
+	 * @param n1 The first node
+	 * @param n2 The second node
+	 * @return <tt>false</tt> if the two nodes are known to be the roots of
+	 * different trees, <tt>true</tt> otherwise
+	 */
+	protected static boolean sameNode(HologramNode n1, HologramNode n2)
+	{
+		if (n1 instanceof FrozenHologramNode && n2 instanceof FrozenHologramNode && n1.hashCode() != n2.hashCode())
 		{
 			return false;
 		}
-		if (m_label.compareTo(n.m_label) != 0)
+		if (n1.m_value == null ? n2.m_value != null : !n1.m_value.equals(n2.m_value))
 		{
 			return false;
 		}
+		return n1.m_children.size() == n2.m_children.size() && n1.m_label.equals(n2.m_label);
+	}
+	
+	/**
+	 * Computes a hash code over the label, the value and the hash codes of
+	 * the children of this node. Trees that differ anywhere therefore
+	 * rarely share the same code. The code of a mutable node is computed
+	 * anew on every call, since the tree may have changed; this is done in
+	 * postorder with an explicit stack, as in {@link #freeze()}, and the
+	 * cached codes of frozen subtrees are reused.
+	 */
+	@Override
+	public int hashCode()
+	{
+		int flat_h = getSeed(this);
+		boolean flat = true;
 		for (int i = 0; i < m_children.size(); i++)
 		{
-			HologramNode n1 = m_children.get(i);
-			if (n1 == null)
+			HologramNode c = m_children.get(i);
+			if (c != null && !(c instanceof FrozenHologramNode))
+			{
+				flat = false;
+				break;
+			}
+			flat_h = flat_h * 31 + (c == null ? 0 : c.hashCode());
+		}
+		if (flat)
+		{
+			// Common case of a node whose children are all frozen
+			return finish(flat_h);
+		}
+		HologramNode[] nodes = new HologramNode[16];
+		int[] positions = new int[16];
+		int[] codes = new int[16];
+		int top = 0;
+		nodes[0] = this;
+		codes[0] = getSeed(this);
+		while (true)
+		{
+			HologramNode n = nodes[top];
+			int pos = positions[top];
+			if (pos < n.m_children.size())
 			{
-				System.out.println("");
+				positions[top] = pos + 1;
+				HologramNode c = n.m_children.get(pos);
+				if (c == null || c instanceof FrozenHologramNode)
+				{
+					codes[top] = codes[top] * 31 + (c == null ? 0 : c.hashCode());
+					continue;
+				}
+				top++;
+				if (top == nodes.length)
+				{
+					nodes = Arrays.copyOf(nodes, 2 * top);
+					positions = Arrays.copyOf(positions, 2 * top);
+					codes = Arrays.copyOf(codes, 2 * top);
+				}
+				nodes[top] = c;
+				positions[top] = 0;
+				codes[top] = getSeed(c);
+				continue;
 			}
-			if (!m_children.get(i).equals(n.m_children.get(i)))
+			int h = finish(codes[top]);
+			if (top == 0)
 			{
-				return false;
+				return h;
 			}
+			top--;
+			codes[top] = codes[top] * 31 + h;
 		}
-		return true;
 	}
 	
-	@Override
-	public int hashCode()
+	/**
+	 * Computes the part of the hash code of a node that does not depend on
+	 * its children.
+	 * @param n The node
+	 * @return The initial hash code
+	 */
+	protected static int getSeed(HologramNode n)
+	{
+		int h = n.m_label.hashCode() * 3;
+		if (n.m_value != null)
+		{
+			h += n.m_value ? 1 : 2;
+		}
+		return h;
+	}
+	
+	/**
+	 * Mixes the bits of a hash code, once the codes of all the children of
+	 * a node have been added to it.
+	 * @param h The hash code
+	 * @return The final hash code
+	 */
+	protected static int finish(int h)
 	{
-		return m_label.hashCode() * m_children.size();
+		// Finalization step of MurmurHash3
+		h ^= h >>> 16;
+		h *= 0x85ebca6b;
+		h ^= h >>> 13;
+		h *= 0xc2b2ae35;
+		h ^= h >>> 16;
+		return h;
 	}
 	
 	@Override
@@ -143,17 +344,18 @@ public class HologramNode
 	protected void toString(StringBuilder out, String indent)
 	{
 		out.append(indent).append(m_label).append(",");
-		if (m_value == true)
+		if (m_value == null)
 		{
-			out.append("T");
+			// Unknown value, as produced by a partial valuation
+			out.append("?");
 		}
-		else if (m_value == false)
+		else if (m_value)
 		{
-			out.append("F");
+			out.append("T");
 		}
 		else
 		{
-			out.append("?");
+			out.append("F");
 		}
 		String new_indent = indent + " ";
 		for (HologramNode c : m_children)
@@ -198,7 +400,7 @@ public class HologramNode
 	 */
 	public boolean hasLabel(String name)
 	{
-		if (m_label.compareTo(name) == 0)
+		if (m_label.equals(name))
 		{
 			return true;
 		}
@@ -219,7 +421,7 @@ public class HologramNode
 	 */
 	public Boolean getLeafValue(String v)
 	{
-		if (m_label.compareTo(v) == 0)
+		if (m_label.equals(v))
 		{
 			return m_value;
 		}
@@ -235,12 +437,24 @@ public class HologramNode
 	}
 	
 	/**
-	 * Creates a new instance of dummy node.
+	 * Gets the dummy node. This node is shared by all the trees that
+	 * contain it, and cannot be modified.
 	 * @return The node
 	 */
 	public static HologramNode dummyNode()
 	{
-		return new HologramNode(HologramNode.DUMMY_SYMBOL, null);
+		return FrozenHologramNode.getDummy(null);
+	}
+	
+	/**
+	 * Gets the dummy node with a given value. This node is shared by all the
+	 * trees that contain it, and cannot be modified.
+	 * @param value The value of the node
+	 * @return The node
+	 */
+	public static HologramNode dummyNode(Boolean value)
+	{
+		return FrozenHologramNode.getDummy(value);
 	}
 	
 	/**
@@ -253,12 +467,13 @@ public class HologramNode
 	public static HologramNode negate(HologramNode n, String v)
 	{
 		HologramNode new_n = new HologramNode(n.getLabel(), n.getValue());
+		new_n.m_slot = n.m_slot;
 		String cur_label = n.getLabel();
-		if (cur_label.compareTo(v) == 0)
+		if (cur_label.equals(v))
 		{
 			new_n.setValue(!n.getValue());
 		}
-		else if (cur_label.compareTo(Negation.SYMBOL) == 0)
+		else if (cur_label.equals(Negation.SYMBOL))
 		{
 			HologramNode new_child = negate(n.m_children.get(0), v);
 			new_n.addChild(new_child);
@@ -271,7 +486,7 @@ public class HologramNode
 				new_n.setValue(!new_child.getValue());
 			}
 		}
-		else if (cur_label.compareTo(Conjunction.SYMBOL) == 0)
+		else if (cur_label.equals(Conjunction.SYMBOL))
 		{
 			boolean value = true;
 			for (HologramNode child : n.m_children)
@@ -285,7 +500,7 @@ public class HologramNode
 			}
 			new_n.setValue(value);
 		}
-		else if (cur_label.compareTo(Disjunction.SYMBOL) == 0)
+		else if (cur_label.equals(Disjunction.SYMBOL))
 		{
 			boolean value = false;
 			for (HologramNode child : n.m_children)
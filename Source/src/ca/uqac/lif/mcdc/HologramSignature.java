@@ -0,0 +1,221 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc;
+
+import java.util.Arrays;
+
+/**
+ * A compact and canonical encoding of a hologram tree, produced by a
+ * {@link HologramEncoder}. Two trees encoded by the same encoder have the
+ * same signature if and only if they are equal, so that signatures can
+ * replace the trees themselves as the keys of maps; they are hashed and
+ * compared with operations on primitive values.
+ * <p>
+ * A signature of at most 64 bits is packed into a <tt>long</tt>; a longer
+ * one is stored in an array of bytes. Since the encoding of a tree is
+ * self-delimiting, the padding bits are always zero and do not need to be
+ * counted. Signatures can be written out with {@link #toBytes()}, read
+ * back with {@link #fromBytes(byte[])}, and are totally ordered so that
+ * they can be sorted outside of memory.
+ */
+public class HologramSignature implements Comparable<HologramSignature>
+{
+	/**
+	 * The bits of the signature, when it is packed into a <tt>long</tt>.
+	 */
+	protected final long m_bits;
+	
+	/**
+	 * The bytes of the signature, or <tt>null</tt> if it is packed into a
+	 * <tt>long</tt>.
+	 */
+	protected final byte[] m_bytes;
+	
+	/**
+	 * Creates a signature packed into a <tt>long</tt>.
+	 * @param bits The bits of the signature
+	 */
+	public HologramSignature(long bits)
+	{
+		super();
+		m_bits = bits;
+		m_bytes = null;
+	}
+	
+	/**
+	 * Creates a signature stored in an array of bytes.
+	 * @param bytes The bytes of the signature; there must be more than 8
+	 */
+	protected HologramSignature(byte[] bytes)
+	{
+		super();
+		m_bits = 0;
+		m_bytes = bytes;
+	}
+	
+	/**
+	 * Creates a signature from the bytes produced by {@link #toBytes()}.
+	 * @param bytes The bytes
+	 * @return The signature
+	 */
+	public static HologramSignature fromBytes(byte[] bytes)
+	{
+		if (bytes.length > 8)
+		{
+			return new HologramSignature(Arrays.copyOf(bytes, bytes.length));
+		}
+		long bits = 0;
+		for (int i = 0; i < bytes.length; i++)
+		{
+			bits |= (bytes[i] & 0xFFL) << (8 * i);
+		}
+		return new HologramSignature(bits);
+	}
+	
+	/**
+	 * Determines if the signature is packed into a <tt>long</tt>.
+	 * @return <tt>true</tt> if the signature is packed, <tt>false</tt>
+	 * otherwise
+	 */
+	public boolean isPacked()
+	{
+		return m_bytes == null;
+	}
+	
+	/**
+	 * Gets the bits of a signature packed into a <tt>long</tt>.
+	 * @return The bits
+	 */
+	public long getBits()
+	{
+		if (m_bytes != null)
+		{
+			throw new IllegalStateException("The signature is not packed into a long");
+		}
+		return m_bits;
+	}
+	
+	/**
+	 * Gets the bytes of the signature. A packed signature gives its 8
+	 * bytes, least significant first.
+	 * @return A new array with the bytes
+	 */
+	public byte[] toBytes()
+	{
+		if (m_bytes != null)
+		{
+			return Arrays.copyOf(m_bytes, m_bytes.length);
+		}
+		byte[] bytes = new byte[8];
+		for (int i = 0; i < 8; i++)
+		{
+			bytes[i] = (byte) (m_bits >>> (8 * i));
+		}
+		return bytes;
+	}
+	
+	/**
+	 * Gets the bit of the signature at a given position.
+	 * @param i The position
+	 * @return The bit, which is 0 past the end of the signature
+	 */
+	protected int getBit(int i)
+	{
+		if (m_bytes == null)
+		{
+			return i < 64 ? (int) (m_bits >>> i) & 1 : 0;
+		}
+		return i < 8 * m_bytes.length ? (m_bytes[i >>> 3] >>> (i & 7)) & 1 : 0;
+	}
+	
+	@Override
+	public boolean equals(Object o)
+	{
+		if (o == null || !(o instanceof HologramSignature))
+		{
+			return false;
+		}
+		HologramSignature s = (HologramSignature) o;
+		if (m_bytes == null)
+		{
+			return s.m_bytes == null && m_bits == s.m_bits;
+		}
+		return Arrays.equals(m_bytes, s.m_bytes);
+	}
+	
+	@Override
+	public int hashCode()
+	{
+		if (m_bytes != null)
+		{
+			return Arrays.hashCode(m_bytes);
+		}
+		// Finalization step of MurmurHash3 (64-bit variant)
+		long h = m_bits;
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return (int) h;
+	}
+	
+	/**
+	 * Compares two signatures. Packed signatures come first and are ordered
+	 * as unsigned numbers; other signatures are ordered by their bytes,
+	 * taken as unsigned numbers.
+	 */
+	@Override
+	public int compareTo(HologramSignature s)
+	{
+		if (m_bytes == null || s.m_bytes == null)
+		{
+			if (m_bytes != null)
+			{
+				return 1;
+			}
+			if (s.m_bytes != null)
+			{
+				return -1;
+			}
+			long a = m_bits ^ Long.MIN_VALUE;
+			long b = s.m_bits ^ Long.MIN_VALUE;
+			return a < b ? -1 : (a == b ? 0 : 1);
+		}
+		for (int i = 0; i < m_bytes.length && i < s.m_bytes.length; i++)
+		{
+			int c = (m_bytes[i] & 0xFF) - (s.m_bytes[i] & 0xFF);
+			if (c != 0)
+			{
+				return c;
+			}
+		}
+		return m_bytes.length - s.m_bytes.length;
+	}
+	
+	@Override
+	public String toString()
+	{
+		StringBuilder out = new StringBuilder();
+		for (byte b : toBytes())
+		{
+			out.append(Integer.toHexString((b & 0xFF) | 0x100).substring(1));
+		}
+		return out.toString();
+	}
+}
@@ -34,36 +34,106 @@ public class Hypergraph
 	 * A map associating a hologram to the hyperedge containing all valuations
 	 * producing this hologram.
 	 */
-	protected Map<HologramNode,Hyperedge> m_edges;
+	protected Map<HologramSignature,Hyperedge> m_edges;
+	
+	/**
+	 * The encoder giving the signature of each hologram.
+	 */
+	protected HologramEncoder m_encoder;
 	
 	/**
 	 * Creates a new empty hypergraph.
 	 */
 	public Hypergraph()
+	{
+		this(new HologramEncoder());
+	}
+	
+	/**
+	 * Creates a new empty hypergraph whose holograms are encoded by a given
+	 * encoder.
+	 * @param encoder The encoder
+	 */
+	public Hypergraph(HologramEncoder encoder)
 	{
 		super();
-		m_edges = new HashMap<HologramNode,Hyperedge>();
+		m_edges = new HashMap<HologramSignature,Hyperedge>();
+		m_encoder = encoder;
 	}
 	
 	/**
-	 * Adds a valuation to a hyperedge of the graph.
+	 * Adds a valuation to a hyperedge of the graph. Hyperedges are keyed on
+	 * the signature of their hologram (see {@link HologramSignature}) rather
+	 * than on the tree itself; the hologram passed to this method can
+	 * therefore be modified afterwards (see {@link HologramBuffer}).
 	 * @param n The hologram produced by the valuation
 	 * @param id The ID given to this valuation
 	 */
 	public void addTo(HologramNode n, long id)
 	{
-		if (m_edges.containsKey(n))
+		getEdge(n).add(id);
+	}
+	
+	/**
+	 * Adds a valuation to a hyperedge of the graph, given the hologram it
+	 * produces as a tree of an arena.
+	 * @param arena The arena
+	 * @param i The root of the hologram in the arena
+	 * @param id The ID given to this valuation
+	 */
+	public void addTo(HologramArena arena, int i, long id)
+	{
+		getEdge(m_encoder.encode(arena, i)).add(id);
+	}
+	
+	/**
+	 * Adds all the hyperedges of another hypergraph to this one. Hyperedges
+	 * associated to the same hologram in both graphs are merged.
+	 * @param h The other hypergraph
+	 */
+	public void addAll(Hypergraph h)
+	{
+		for (Map.Entry<HologramSignature,Hyperedge> e : h.m_edges.entrySet())
 		{
-			Hyperedge e = m_edges.get(n);
-			e.add(id);
+			HologramSignature key = m_encoder.translate(e.getKey(), h.m_encoder);
+			Hyperedge mine = m_edges.get(key);
+			if (mine == null)
+			{
+				m_edges.put(key, e.getValue());
+			}
+			else
+			{
+				mine.m_vertices.addAll(e.getValue().m_vertices);
+			}
 		}
-		else
+	}
+	
+	/**
+	 * Gets the hyperedge associated to a hologram, creating it if it does
+	 * not exist.
+	 * @param n The hologram
+	 * @return The hyperedge
+	 */
+	protected Hyperedge getEdge(HologramNode n)
+	{
+		return getEdge(m_encoder.encode(n));
+	}
+	
+	/**
+	 * Gets the hyperedge associated to the signature of a hologram, creating
+	 * it if it does not exist.
+	 * @param key The signature
+	 * @return The hyperedge
+	 */
+	protected Hyperedge getEdge(HologramSignature key)
+	{
+		Hyperedge e = m_edges.get(key);
+		if (e == null)
 		{
-			Hyperedge e = new Hyperedge();
-			e.add(id);
-			m_edges.put(n, e);
-			//System.out.println(n);
+			e = new Hyperedge();
+			m_edges.put(key, e);
 		}
+		return e;
 	}
 	
 	/**
@@ -84,7 +154,7 @@ public class Hypergraph
 		long edge_cnt = 0;
 		boolean first = true;
 		ps.println("{");
-		for (Map.Entry<HologramNode,Hyperedge> e : m_edges.entrySet())
+		for (Map.Entry<HologramSignature,Hyperedge> e : m_edges.entrySet())
 		{
 			if (first)
 			{
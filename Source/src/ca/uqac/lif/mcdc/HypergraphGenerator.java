@@ -25,14 +25,176 @@ import java.util.Set;
 public class HypergraphGenerator
 {
 	/**
-	 * A list mapping valuations to integers (their position in the list)
+	 * The symbol table of the formula of the last hypergraph produced. The
+	 * ID of a valuation is obtained from this table with
+	 * {@link SymbolTable#pack(Valuation)}.
 	 */
-	protected transient List<Valuation> m_indices;
+	protected transient SymbolTable m_symbols = null;
+	
+	/**
+	 * Whether valuations are enumerated in Gray-code order.
+	 */
+	protected boolean m_grayCode = false;
+	
+	/**
+	 * Whether valuations are processed cube by cube.
+	 */
+	protected boolean m_cubes = false;
+	
+	/**
+	 * Whether hyperedges are computed from the truth tables of the
+	 * subformulas.
+	 */
+	protected boolean m_truthTables = false;
+	
+	/**
+	 * Whether only one valuation of each orbit of interchangeable variables
+	 * is evaluated.
+	 */
+	protected boolean m_symmetry = false;
+	
+	/**
+	 * The number of threads used to enumerate valuations.
+	 */
+	protected int m_threads = 1;
+	
+	/**
+	 * Whether the truncations that support it are applied to trees stored
+	 * in a {@link HologramArena}.
+	 */
+	protected boolean m_arena = true;
+	
+	/**
+	 * A formula that feasible valuations must satisfy, or <tt>null</tt> if
+	 * all valuations are feasible.
+	 */
+	protected Operator m_constraint = null;
+	
+	/**
+	 * The symmetry used to build the last hypergraph, or <tt>null</tt> if
+	 * this hypergraph has one vertex per valuation.
+	 */
+	protected transient VariableSymmetry m_orbits = null;
+	
+	/**
+	 * The formula of the last hypergraph built on orbits of valuations.
+	 */
+	protected transient Operator m_orbitFormula = null;
+	
+	/**
+	 * The truncations of the last hypergraph built on orbits of valuations.
+	 */
+	protected transient Truncation[] m_orbitTruncations = null;
 	
 	public HypergraphGenerator()
 	{
 		super();
-		m_indices = new ArrayList<Valuation>();
+	}
+	
+	/**
+	 * Sets whether valuations are enumerated in Gray-code order (see
+	 * {@link GrayCodeEvaluator}). In both cases, valuations are given the
+	 * same IDs and the generator produces the same hypergraph.
+	 * @param b <tt>true</tt> to use Gray-code order, <tt>false</tt> to
+	 * enumerate valuations in binary order by blocks (the default)
+	 */
+	public void setGrayCode(boolean b)
+	{
+		m_grayCode = b;
+	}
+	
+	/**
+	 * Sets whether valuations are processed cube by cube. In this mode,
+	 * the formula is evaluated on partial valuations, and all the
+	 * valuations that complete one of them are added to a hyperedge at once
+	 * whenever the truncated tree does not depend on their free variables.
+	 * This mode is only used when all the truncations given to the generator
+	 * are {@link StructuralTruncation}s; the hypergraph produced is the same
+	 * in both cases.
+	 * @param b <tt>true</tt> to process valuations cube by cube,
+	 * <tt>false</tt> otherwise (the default)
+	 */
+	public void setCubes(boolean b)
+	{
+		m_cubes = b;
+	}
+	
+	/**
+	 * Sets whether hyperedges are computed from the truth tables of the
+	 * subformulas with word-level operations (see
+	 * {@link TruthTableHypergraphGenerator}) rather than by evaluating the
+	 * formula on each valuation. This mode is only used when all the
+	 * truncations given to the generator are supported by
+	 * {@link TruthTableHypergraphGenerator}; the hypergraph produced is the
+	 * same in both cases.
+	 * @param b <tt>true</tt> to use truth tables, <tt>false</tt> otherwise
+	 * (the default)
+	 */
+	public void setTruthTables(boolean b)
+	{
+		m_truthTables = b;
+	}
+	
+	/**
+	 * Sets whether the generator collapses valuations that only differ by
+	 * a permutation of interchangeable variables (see
+	 * {@link VariableSymmetry}). In this mode, the vertices of the
+	 * hypergraph are the canonical representatives of each orbit, and the
+	 * holograms are put in canonical form; a hitting set of this graph must
+	 * then be passed to {@link #expand(Set)} to obtain a test suite for the
+	 * formula.
+	 * @param b <tt>true</tt> to collapse symmetric valuations, <tt>false</tt>
+	 * otherwise (the default)
+	 */
+	public void setSymmetry(boolean b)
+	{
+		m_symmetry = b;
+	}
+	
+	/**
+	 * Sets the number of threads used to enumerate valuations. The range of
+	 * valuations is split into as many {@link ValuationRange}s, each of
+	 * which produces a partial hypergraph; these graphs are then merged.
+	 * This setting only applies to the default enumeration by blocks, and
+	 * requires the truncations to be safe to use from multiple threads.
+	 * @param threads The number of threads (the default is 1)
+	 */
+	public void setThreads(int threads)
+	{
+		if (threads < 1)
+		{
+			throw new IllegalArgumentException("Invalid number of threads: " + threads);
+		}
+		m_threads = threads;
+	}
+	
+	/**
+	 * Sets whether the default enumeration by blocks stores the tree of each
+	 * valuation in a {@link HologramArena}. In this mode, the truncations
+	 * that implement {@link ArenaTruncation} write their result in the arena
+	 * instead of creating new {@link HologramNode}s; the hypergraph produced
+	 * is the same in both cases.
+	 * @param b <tt>true</tt> to use an arena (the default), <tt>false</tt>
+	 * otherwise
+	 */
+	public void setArena(boolean b)
+	{
+		m_arena = b;
+	}
+	
+	/**
+	 * Sets a constraint on the valuations of the formulas given to the
+	 * generator, such as the mutual exclusion of two conditions. Valuations
+	 * that violate the constraint are not evaluated, and the hypergraph
+	 * only contains the feasible ones. The Gray-code, cube and symmetry
+	 * modes are not used when a constraint is set.
+	 * @param constraint The constraint, whose variables must all occur in
+	 * the formulas given to the generator, or <tt>null</tt> to enumerate
+	 * all valuations (the default)
+	 */
+	public void setConstraint(Operator constraint)
+	{
+		m_constraint = constraint;
 	}
 	
 	public Hypergraph getGraph(Operator phi, Set<Truncation> truncations)
@@ -48,31 +210,350 @@ public class HypergraphGenerator
 	
 	public Hypergraph getGraph(Operator phi, Truncation ... truncations)
 	{
-		Hypergraph h = new Hypergraph();
-		String[] vars = getSortedVariables(phi);
+		BitslicedEvaluator evaluator = phi.freeze().getEvaluator();
+		m_symbols = phi.getSymbolTable();
+		Hypergraph h = new Hypergraph(new HologramEncoder(m_symbols));
+		m_orbits = null;
+		long[] domain = null;
+		if (m_constraint != null)
+		{
+			domain = new BitslicedEvaluator(m_constraint, m_symbols).getTruthTable();
+		}
+		if (m_symmetry && domain == null)
+		{
+			VariableSymmetry symmetry = VariableSymmetry.detect(phi, truncations);
+			if (!symmetry.getGroups().isEmpty())
+			{
+				m_orbits = symmetry;
+				m_orbitFormula = phi;
+				m_orbitTruncations = truncations;
+				return getSymmetryGraph(h, phi, truncations);
+			}
+		}
+		if (m_truthTables && TruthTableHypergraphGenerator.supports(truncations))
+		{
+			return new TruthTableHypergraphGenerator().getGraph(phi, domain, truncations);
+		}
+		if (m_cubes && domain == null && areStructural(truncations))
+		{
+			return getCubeGraph(h, phi, truncations);
+		}
+		if (m_grayCode && domain == null)
+		{
+			return getGrayCodeGraph(h, evaluator, truncations);
+		}
+		if (m_threads > 1)
+		{
+			return getParallelGraph(h, evaluator, domain, truncations);
+		}
+		HologramBuffer buffer = new HologramBuffer(evaluator);
+		HologramArena arena = m_arena ? new HologramArena(evaluator, h.m_encoder) : null;
+		long[] words = new long[evaluator.getNodeCount()];
+		int per_block = evaluator.getValuationsPerBlock();
 		long val_nb = 0;
-		ValuationIterator it = new ValuationIterator(vars);
-		while (it.hasNext())
+		for (long b = 0; b < evaluator.getBlockCount(); b++)
 		{
-			Valuation v = it.next();
-			m_indices.add(v);
-			HologramNode n = phi.evaluate(v);
+			long feasible = domain == null ? -1L : domain[(int) b];
+			if (feasible == 0)
+			{
+				val_nb += per_block;
+				continue;
+			}
+			evaluator.evaluate(b, words);
+			for (int k = 0; k < per_block; k++, val_nb++)
+			{
+				if (((feasible >>> k) & 1L) == 0)
+				{
+					continue;
+				}
+				addValuation(h, arena, buffer, words, k, val_nb, truncations);
+			}
+		}
+		return h;
+	}
+	
+	/**
+	 * Adds a valuation of a block to the hyperedges of each truncation.
+	 * Truncations that implement {@link ArenaTruncation} are applied to the
+	 * tree of the arena, if any; the others are applied to the tree of the
+	 * buffer, which is only filled if one of them needs it.
+	 * @param h The hypergraph
+	 * @param arena The arena, or <tt>null</tt>
+	 * @param buffer The buffer
+	 * @param words The value of each node for the block
+	 * @param k The position of the valuation in the block
+	 * @param id The ID of the valuation
+	 * @param truncations The truncations to apply
+	 */
+	protected static void addValuation(Hypergraph h, HologramArena arena, HologramBuffer buffer, long[] words, int k, long id, Truncation[] truncations)
+	{
+		HologramNode n = null;
+		int root = arena == null ? -1 : arena.fill(words, k);
+		for (Truncation t : truncations)
+		{
+			if (arena != null && t instanceof ArenaTruncation)
+			{
+				arena.clear();
+				h.addTo(arena, ((ArenaTruncation) t).applyTo(arena, root), id);
+			}
+			else
+			{
+				if (n == null)
+				{
+					n = buffer.fill(words, k);
+				}
+				h.addTo(t.applyTo(n), id);
+			}
+		}
+	}
+	
+	/**
+	 * Fills a hypergraph by splitting the range of valuations and processing
+	 * each part in a separate thread.
+	 * @param h The hypergraph
+	 * @param evaluator The evaluator for the formula
+	 * @param domain The truth table of the feasible valuations, or
+	 * <tt>null</tt> if all valuations are feasible
+	 * @param truncations The truncations to apply
+	 * @return The hypergraph
+	 */
+	protected Hypergraph getParallelGraph(Hypergraph h, final BitslicedEvaluator evaluator, final long[] domain, final Truncation ... truncations)
+	{
+		List<ValuationRange> ranges = new ValuationRange(evaluator.getSymbolTable()).split(m_threads);
+		final HologramEncoder encoder = h.m_encoder;
+		final boolean use_arena = m_arena;
+		List<Hypergraph> parts = ValuationRange.process(ranges, m_threads, new ValuationRange.Task<Hypergraph>() {
+			@Override
+			public Hypergraph process(ValuationRange r)
+			{
+				Hypergraph part = new Hypergraph(encoder);
+				HologramBuffer buffer = new HologramBuffer(evaluator);
+				HologramArena arena = use_arena ? new HologramArena(evaluator, encoder) : null;
+				long[] words = new long[evaluator.getNodeCount()];
+				int per_block = evaluator.getValuationsPerBlock();
+				for (long b = r.getFirstBlock(per_block); b < r.getLastBlock(per_block); b++)
+				{
+					long feasible = domain == null ? -1L : domain[(int) b];
+					if (feasible == 0)
+					{
+						continue;
+					}
+					evaluator.evaluate(b, words);
+					for (int k = 0; k < per_block; k++)
+					{
+						if (((feasible >>> k) & 1L) == 0)
+						{
+							continue;
+						}
+						addValuation(part, arena, buffer, words, k, b * per_block + k, truncations);
+					}
+				}
+				return part;
+			}
+		});
+		for (Hypergraph part : parts)
+		{
+			h.addAll(part);
+		}
+		return h;
+	}
+	
+	/**
+	 * Fills a hypergraph by enumerating valuations in Gray-code order.
+	 * @param h The hypergraph
+	 * @param evaluator The evaluator for the formula
+	 * @param truncations The truncations to apply
+	 * @return The hypergraph
+	 */
+	protected Hypergraph getGrayCodeGraph(Hypergraph h, BitslicedEvaluator evaluator, Truncation ... truncations)
+	{
+		GrayCodeEvaluator gray = new GrayCodeEvaluator(evaluator);
+		do
+		{
+			HologramNode n = gray.getRoot();
+			long val_nb = gray.getIndex();
 			for (Truncation t : truncations)
 			{
 				HologramNode truncated = t.applyTo(n);
-				if (n != null)
+				h.addTo(truncated, val_nb);
+			}
+		} while (gray.next());
+		return h;
+	}
+	
+	/**
+	 * Fills a hypergraph by evaluating a formula on the canonical
+	 * representative of each orbit of valuations.
+	 * @param h The hypergraph
+	 * @param phi The formula
+	 * @param truncations The truncations to apply
+	 * @return The hypergraph
+	 */
+	protected Hypergraph getSymmetryGraph(Hypergraph h, Operator phi, Truncation ... truncations)
+	{
+		BitslicedEvaluator evaluator = phi.freeze().getEvaluator();
+		HologramBuffer buffer = new HologramBuffer(evaluator);
+		long[] words = new long[evaluator.getNodeCount()];
+		int per_block = evaluator.getValuationsPerBlock();
+		for (long b = 0; b < evaluator.getBlockCount(); b++)
+		{
+			boolean evaluated = false;
+			for (int k = 0; k < per_block; k++)
+			{
+				long val_nb = b * per_block + k;
+				if (!m_orbits.isCanonical(val_nb))
+				{
+					continue;
+				}
+				if (!evaluated)
 				{
-					h.addTo(truncated, val_nb);
+					evaluator.evaluate(b, words);
+					evaluated = true;
+				}
+				HologramNode n = buffer.fill(words, k);
+				for (Truncation t : truncations)
+				{
+					h.addTo(m_orbits.canonicalize(t.applyTo(n)), val_nb);
 				}
 			}
-			val_nb++;
 		}
 		return h;
 	}
 	
+	/**
+	 * Fills a hypergraph by evaluating a formula on cubes of valuations.
+	 * @param h The hypergraph
+	 * @param phi The formula
+	 * @param truncations The truncations to apply, which must all be
+	 * structural
+	 * @return The hypergraph
+	 */
+	protected Hypergraph getCubeGraph(Hypergraph h, Operator phi, Truncation ... truncations)
+	{
+		SymbolTable symbols = phi.getSymbolTable();
+		List<StructuralTruncation> pending = new ArrayList<StructuralTruncation>(truncations.length);
+		for (Truncation t : truncations)
+		{
+			pending.add((StructuralTruncation) t);
+		}
+		addCube(h, phi, new Valuation(symbols), 0, 0, pending);
+		return h;
+	}
+	
+	/**
+	 * Adds to a hypergraph the valuations of a cube. The cube is made of
+	 * the valuations whose variables at slots 0 to <i>k</i>-1 have the
+	 * values of a partial valuation; if a truncation is not determined by
+	 * this partial valuation, the cube is split in two by fixing the
+	 * variable at slot <i>k</i>.
+	 * @param h The hypergraph
+	 * @param phi The formula
+	 * @param v The partial valuation
+	 * @param k The number of variables with a value in the cube
+	 * @param prefix The values of these variables, as bits of a valuation's
+	 * ID
+	 * @param truncations The truncations that are not yet determined
+	 */
+	protected static void addCube(Hypergraph h, Operator phi, Valuation v, int k, long prefix, List<StructuralTruncation> truncations)
+	{
+		int num_vars = v.getSymbolTable().size();
+		HologramNode n = phi.evaluate(v);
+		List<StructuralTruncation> pending = new ArrayList<StructuralTruncation>(truncations.size());
+		for (StructuralTruncation t : truncations)
+		{
+			if (k < num_vars && !t.isDetermined(n))
+			{
+				pending.add(t);
+				continue;
+			}
+			Hypergraph.Hyperedge e = h.getEdge(t.applyTo(n));
+			for (long x = 0; x < 1L << (num_vars - k); x++)
+			{
+				e.add(prefix | (x << k));
+			}
+		}
+		if (pending.isEmpty())
+		{
+			return;
+		}
+		Valuation v_false = new Valuation(v);
+		v_false.set(k, false);
+		addCube(h, phi, v_false, k + 1, prefix, pending);
+		Valuation v_true = new Valuation(v);
+		v_true.set(k, true);
+		addCube(h, phi, v_true, k + 1, prefix | (1L << k), pending);
+	}
+	
+	/**
+	 * Determines if all the truncations of an array are
+	 * {@link StructuralTruncation}s.
+	 * @param truncations The truncations
+	 * @return <tt>true</tt> if they are all structural, <tt>false</tt>
+	 * otherwise
+	 */
+	protected static boolean areStructural(Truncation ... truncations)
+	{
+		for (Truncation t : truncations)
+		{
+			if (!(t instanceof StructuralTruncation))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Turns a hitting set of the last hypergraph produced by this generator
+	 * into a set of valuations of the formula, using the greedy solver.
+	 * @param ids The IDs of the valuations in the hitting set
+	 * @return The IDs of the valuations in the test suite
+	 * @see #expand(Set, HittingSetSolver)
+	 */
+	public Set<Long> expand(Set<Long> ids)
+	{
+		return expand(ids, GreedyHittingSetSolver.instance);
+	}
+	
+	/**
+	 * Turns a hitting set of the last hypergraph produced by this generator
+	 * into a set of valuations of the formula. When this hypergraph was
+	 * built on orbits of valuations, valuations are picked in the orbits of
+	 * the representatives (see
+	 * {@link VariableSymmetry#expand(Set, Operator, HittingSetSolver, Truncation...)});
+	 * otherwise, the set is returned as is.
+	 * @param ids The IDs of the valuations in the hitting set
+	 * @param solver The solver used to pick valuations in the orbits
+	 * @return The IDs of the valuations in the test suite
+	 */
+	public Set<Long> expand(Set<Long> ids, HittingSetSolver solver)
+	{
+		if (m_orbits == null)
+		{
+			return ids;
+		}
+		return m_orbits.expand(ids, m_orbitFormula, solver, m_orbitTruncations);
+	}
+	
+	/**
+	 * Gets the valuation corresponding to a vertex of the last hypergraph
+	 * produced. Bit <i>i</i> of the ID of a vertex is the value of the
+	 * <i>i</i>-th variable of the formula in alphabetical order, so the
+	 * valuation is computed from the ID without being stored.
+	 * @param index The ID of the vertex
+	 * @return The valuation
+	 */
 	public Valuation getValuation(long index)
 	{
-		return m_indices.get((int) index);
+		if (m_symbols == null)
+		{
+			throw new IllegalStateException("No hypergraph has been produced");
+		}
+		if (index < 0 || (m_symbols.size() < 64 && index >= 1L << m_symbols.size()))
+		{
+			throw new IllegalArgumentException("Invalid valuation ID: " + index);
+		}
+		return m_symbols.unpack(index);
 	}
 	
 	/**
@@ -20,7 +20,7 @@ package ca.uqac.lif.mcdc;
 /**
  * The identity transformation.
  */
-public class KeepAll implements Truncation
+public class KeepAll implements StructuralTruncation
 {
 	/**
 	 * A single publicly visible instance of the class.
@@ -40,6 +40,12 @@ public class KeepAll implements Truncation
 	{
 		return n;
 	}
+	
+	@Override
+	public boolean isDetermined(HologramNode n)
+	{
+		return n.hasKnownValues(Integer.MAX_VALUE);
+	}
 
 	@Override
 	public String toMathML()
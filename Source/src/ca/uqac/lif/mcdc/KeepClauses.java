@@ -22,7 +22,7 @@ package ca.uqac.lif.mcdc;
  * corresponds to keeping the root node of each clause, but not their
  * children. 
  */
-public class KeepClauses implements Truncation
+public class KeepClauses implements StructuralTruncation, ArenaTruncation
 {
 	/**
 	 * A single publicly visible instance of the class.
@@ -40,7 +40,7 @@ public class KeepClauses implements Truncation
 	@Override
 	public HologramNode applyTo(HologramNode n)
 	{
-		if (n.getLabel().compareTo(Disjunction.SYMBOL) != 0)
+		if (!n.getLabel().equals(Disjunction.SYMBOL))
 		{
 			// Not a formula in DNF, do nothing
 			return n;
@@ -56,6 +56,32 @@ public class KeepClauses implements Truncation
 		return root;
 	}
 	
+	@Override
+	public int applyTo(HologramArena arena, int root)
+	{
+		if (arena.getLabelId(root) != arena.getLabelId(Disjunction.SYMBOL))
+		{
+			// Not a formula in DNF, do nothing
+			return root;
+		}
+		int new_root = arena.copyNode(root);
+		for (int c = arena.getFirstChild(root); c >= 0; c = arena.getNextSibling(c))
+		{
+			arena.addChild(new_root, arena.copyNode(c));
+		}
+		return new_root;
+	}
+	
+	@Override
+	public boolean isDetermined(HologramNode n)
+	{
+		if (!n.getLabel().equals(Disjunction.SYMBOL))
+		{
+			return n.hasKnownValues(Integer.MAX_VALUE);
+		}
+		return n.hasKnownValues(2);
+	}
+	
 	@Override
 	public String toMathML()
 	{
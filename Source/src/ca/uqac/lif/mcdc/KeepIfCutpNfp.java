@@ -144,7 +144,7 @@ public class KeepIfCutpNfp extends KeepIfMultipleNearFalsePoint
 	public static Set<Truncation> generateCUTPNFPCoverage(Operator phi)
 	{
 		int num_clauses = countClauses(phi);
-		Set<String> vars = phi.getVariables();
+		Set<String> vars = phi.freeze().getVariables();
 		Set<Truncation> out_set = new HashSet<Truncation>(num_clauses);
 		for (String v1 : vars)
 		{
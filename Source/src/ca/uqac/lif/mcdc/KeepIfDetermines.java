@@ -43,27 +43,26 @@ public class KeepIfDetermines extends VariableBasedTruncation
 		HologramNode new_n = determines(n, m_name);
 		if (new_n == null)
 		{
-			new_n = new HologramNode(HologramNode.DUMMY_SYMBOL);
-			new_n.setValue(n.getValue());
+			new_n = HologramNode.dummyNode(n.getValue());
 		}
 		return new_n;
 	}
 	
 	public static HologramNode determines(HologramNode n, String var_name)
 	{
-		if (n.getLabel().compareTo(Conjunction.SYMBOL) == 0)
+		if (n.getLabel().equals(Conjunction.SYMBOL))
 		{
 			return determinesNary(n, true, var_name);
 		}
-		else if (n.getLabel().compareTo(Disjunction.SYMBOL) == 0)
+		else if (n.getLabel().equals(Disjunction.SYMBOL))
 		{
 			return determinesNary(n, false, var_name);
 		}
-		else if (n.getLabel().compareTo(Negation.SYMBOL) == 0)
+		else if (n.getLabel().equals(Negation.SYMBOL))
 		{
 			return determines(n.m_children.get(0), var_name);
 		}
-		else if (n.getLabel().compareTo(var_name) == 0)
+		else if (n.getLabel().equals(var_name))
 		{
 			return n;
 		}
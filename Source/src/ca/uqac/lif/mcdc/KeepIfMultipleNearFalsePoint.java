@@ -113,7 +113,7 @@ public class KeepIfMultipleNearFalsePoint extends ClauseBasedTruncation
 	public static Set<Truncation> generateMNFPCoverage(Operator phi)
 	{
 		int num_clauses = countClauses(phi);
-		Set<String> vars = phi.getVariables();
+		Set<String> vars = phi.freeze().getVariables();
 		Set<Truncation> out_set = new HashSet<Truncation>(num_clauses);
 		for (String v1 : vars)
 		{
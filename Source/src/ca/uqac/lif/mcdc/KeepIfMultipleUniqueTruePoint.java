@@ -63,7 +63,7 @@ public class KeepIfMultipleUniqueTruePoint extends ClauseBasedTruncation
 	{
 		int num_clauses = countClauses(phi);
 		Set<Truncation> out_set = new HashSet<Truncation>(num_clauses);
-		Set<String> vars = phi.getVariables();
+		Set<String> vars = phi.freeze().getVariables();
 		for (String v : vars)
 		{
 			for (int i = 0; i < num_clauses; i++)
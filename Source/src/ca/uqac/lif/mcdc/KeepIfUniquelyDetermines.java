@@ -17,8 +17,16 @@
  */
 package ca.uqac.lif.mcdc;
 
+import java.util.ArrayList;
+
 public class KeepIfUniquelyDetermines extends VariableBasedTruncation
 {
+	/**
+	 * The leaf returned when the variable determines the value of a node,
+	 * shared by all the trees produced by this truncation.
+	 */
+	protected final FrozenHologramNode m_leaf;
+	
 	/**
 	 * Creates a new instance of the truncation.
 	 * @param name The name of the variable to keep
@@ -26,6 +34,7 @@ public class KeepIfUniquelyDetermines extends VariableBasedTruncation
 	public KeepIfUniquelyDetermines(String name)
 	{
 		super(name);
+		m_leaf = new FrozenHologramNode(name, null, -1, new ArrayList<HologramNode>(0));
 	}
 	
 	/**
@@ -40,18 +49,32 @@ public class KeepIfUniquelyDetermines extends VariableBasedTruncation
 	@Override
 	public HologramNode applyTo(HologramNode n)
 	{
-		return determines(n, m_name);
+		return determines(n, m_name, m_leaf);
 	}
 	
 	public static HologramNode determines(HologramNode n, String var_name)
 	{
-		if (n.getLabel().compareTo(Conjunction.SYMBOL) == 0)
+		return determines(n, var_name, new HologramNode(var_name));
+	}
+	
+	/**
+	 * Finds the part of a tree where a variable determines the value of
+	 * the root.
+	 * @param n The root of the tree
+	 * @param var_name The name of the variable
+	 * @param leaf The node to return when the variable determines every
+	 * child of a node
+	 * @return The resulting tree, or <tt>null</tt>
+	 */
+	protected static HologramNode determines(HologramNode n, String var_name, HologramNode leaf)
+	{
+		if (n.getLabel().equals(Conjunction.SYMBOL))
 		{
 			if (n.getValue() == true)
 			{
 				for (HologramNode c : n.m_children)
 				{
-					HologramNode new_c = determines(c, var_name);
+					HologramNode new_c = determines(c, var_name, leaf);
 					if (new_c != null)
 					{
 						return new_c;
@@ -63,22 +86,22 @@ public class KeepIfUniquelyDetermines extends VariableBasedTruncation
 			{
 				for (HologramNode c : n.m_children)
 				{
-					HologramNode new_c = determines(c, var_name);
+					HologramNode new_c = determines(c, var_name, leaf);
 					if (new_c == null)
 					{
 						return null;
 					}
 				}
-				return new HologramNode(var_name);
+				return leaf;
 			}
 		}
-		else if (n.getLabel().compareTo(Disjunction.SYMBOL) == 0)
+		else if (n.getLabel().equals(Disjunction.SYMBOL))
 		{
 			if (n.getValue() == false)
 			{
 				for (HologramNode c : n.m_children)
 				{
-					HologramNode new_c = determines(c, var_name);
+					HologramNode new_c = determines(c, var_name, leaf);
 					if (new_c != null)
 					{
 						return new_c;
@@ -90,20 +113,20 @@ public class KeepIfUniquelyDetermines extends VariableBasedTruncation
 			{
 				for (HologramNode c : n.m_children)
 				{
-					HologramNode new_c = determines(c, var_name);
+					HologramNode new_c = determines(c, var_name, leaf);
 					if (new_c == null)
 					{
 						return null;
 					}
 				}
-				return new HologramNode(var_name);
+				return leaf;
 			}
 		}
-		else if (n.getLabel().compareTo(Negation.SYMBOL) == 0)
+		else if (n.getLabel().equals(Negation.SYMBOL))
 		{
-			return determines(n.m_children.get(0), var_name);
+			return determines(n.m_children.get(0), var_name, leaf);
 		}
-		else if (n.getLabel().compareTo(var_name) == 0)
+		else if (n.getLabel().equals(var_name))
 		{
 			return n;
 		}
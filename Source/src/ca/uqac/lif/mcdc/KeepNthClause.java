@@ -20,7 +20,7 @@ package ca.uqac.lif.mcdc;
 import java.util.HashSet;
 import java.util.Set;
 
-public class KeepNthClause extends ClauseBasedTruncation
+public class KeepNthClause extends ClauseBasedTruncation implements StructuralTruncation, ArenaTruncation
 {
 	/**
 	 * Creates a new instance of the truncation.
@@ -52,6 +52,35 @@ public class KeepNthClause extends ClauseBasedTruncation
 		return new_n;
 	}
 	
+	@Override
+	public int applyTo(HologramArena arena, int root)
+	{
+		int new_root = arena.copyNode(root);
+		int i = 0;
+		for (int c = arena.getFirstChild(root); c >= 0; c = arena.getNextSibling(c), i++)
+		{
+			if (i == m_clauseNb)
+			{
+				arena.addChild(new_root, arena.copyNode(c));
+			}
+			else
+			{
+				arena.addChild(new_root, arena.addNode(arena.getLabelId(HologramNode.DUMMY_SYMBOL), null, -1));
+			}
+		}
+		return new_root;
+	}
+	
+	@Override
+	public boolean isDetermined(HologramNode n)
+	{
+		if (n.getValue() == null)
+		{
+			return false;
+		}
+		return m_clauseNb >= n.m_children.size() || n.m_children.get(m_clauseNb).getValue() != null;
+	}
+	
 	/**
 	 * Generates a set of transformations corresponding to clause coverage for
 	 * a given formula.
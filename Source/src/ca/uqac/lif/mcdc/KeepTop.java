@@ -17,7 +17,7 @@
  */
 package ca.uqac.lif.mcdc;
 
-public class KeepTop implements Truncation
+public class KeepTop implements StructuralTruncation, ArenaTruncation
 {
 	/**
 	 * The depth at which the tree should be cut.
@@ -43,6 +43,7 @@ public class KeepTop implements Truncation
 	protected HologramNode cutAt(HologramNode n, int current_depth)
 	{
 		HologramNode new_n = new HologramNode(n.getLabel(), n.getValue());
+		new_n.m_slot = n.m_slot;
 		if (current_depth == m_depth)
 		{
 			return new_n;
@@ -54,6 +55,32 @@ public class KeepTop implements Truncation
 		return new_n;
 	}
 	
+	@Override
+	public int applyTo(HologramArena arena, int root)
+	{
+		return cutAt(arena, root, 1);
+	}
+	
+	protected int cutAt(HologramArena arena, int i, int current_depth)
+	{
+		int new_i = arena.copyNode(i);
+		if (current_depth == m_depth)
+		{
+			return new_i;
+		}
+		for (int c = arena.getFirstChild(i); c >= 0; c = arena.getNextSibling(c))
+		{
+			arena.addChild(new_i, cutAt(arena, c, current_depth + 1));
+		}
+		return new_i;
+	}
+	
+	@Override
+	public boolean isDetermined(HologramNode n)
+	{
+		return n.hasKnownValues(m_depth);
+	}
+	
 	@Override
 	public String toMathML()
 	{
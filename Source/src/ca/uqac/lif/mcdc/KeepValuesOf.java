@@ -20,11 +20,12 @@ package ca.uqac.lif.mcdc;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-public class KeepValuesOf implements Truncation
+public class KeepValuesOf implements ArenaTruncation
 {
 	/**
 	 * The list of variables to keep in the resulting tree.
@@ -68,6 +69,18 @@ public class KeepValuesOf implements Truncation
 		return new_n;
 	}
 	
+	@Override
+	public int applyTo(HologramArena arena, int root)
+	{
+		int new_root = arena.addNode(arena.getLabelId(HologramNode.DUMMY_SYMBOL), null, -1);
+		for (int i = 0; i < m_variables.size(); i++)
+		{
+			int leaf = arena.findLeaf(root, arena.getLabelId(m_variables.get(i)));
+			arena.addChild(new_root, leaf < 0 ? arena.addMissing() : arena.copyNode(leaf));
+		}
+		return new_root;
+	}
+	
 	/**
 	 * Fetches the leaf nodes of a tree that are among the variables to be
 	 * kept.
@@ -104,29 +117,60 @@ public class KeepValuesOf implements Truncation
 	 */
 	public static Set<Truncation> generateTWay(int t, Operator op)
 	{
-		String[] variables = op.getSortedVariables();
 		Set<Truncation> out_set = new HashSet<Truncation>();
-		ValuationIterator it = new ValuationIterator(variables);
-		while (it.hasNext())
+		for (KeepValuesOf kvo : iterateTWay(t, op))
 		{
-			Valuation v = it.next();
-			if (v.countTrue() != t)
-			{
-				continue;
-			}
-			List<String> a_variables = new ArrayList<String>(t);
-			for (String x : variables)
-			{
-				if (v.get(x) != null && v.get(x) == true)
-				{
-					a_variables.add(x);
-				}
-			}
-			out_set.add(new KeepValuesOf(a_variables));
+			out_set.add(kvo);
 		}
 		return out_set;
 	}
 	
+	/**
+	 * Enumerates the truncations that keep each combination of <i>t</i>
+	 * variables of a formula. Contrary to {@link #generateTWay(int, Operator)},
+	 * truncations are created one at a time as the iteration proceeds.
+	 * @param t The number of variables to keep in each truncation
+	 * @param op The formula
+	 * @return An iterable over the truncations; each combination is
+	 * produced once, and its variables are sorted alphabetically
+	 */
+	public static Iterable<KeepValuesOf> iterateTWay(final int t, Operator op)
+	{
+		final String[] variables = op.freeze().getSortedVariables();
+		return new Iterable<KeepValuesOf>() {
+			@Override
+			public Iterator<KeepValuesOf> iterator()
+			{
+				final CombinationIterator it = new CombinationIterator(variables.length, t);
+				return new Iterator<KeepValuesOf>() {
+					@Override
+					public boolean hasNext()
+					{
+						return it.hasNext();
+					}
+
+					@Override
+					public KeepValuesOf next()
+					{
+						int[] indices = it.next();
+						List<String> a_variables = new ArrayList<String>(indices.length);
+						for (int i : indices)
+						{
+							a_variables.add(variables[i]);
+						}
+						return new KeepValuesOf(a_variables);
+					}
+
+					@Override
+					public void remove()
+					{
+						throw new UnsupportedOperationException("Cannot remove a truncation");
+					}
+				};
+			}
+		};
+	}
+	
 	@Override
 	public String toString()
 	{
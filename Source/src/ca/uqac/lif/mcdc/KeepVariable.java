@@ -34,14 +34,14 @@ public class KeepVariable extends VariableBasedTruncation
 		HologramNode v = findVariable(n);
 		if (v == null)
 		{
-			return new HologramNode("?");
+			return HologramNode.dummyNode();
 		}
 		return v;
 	}
 
 	protected HologramNode findVariable(HologramNode n)
 	{
-		if (m_name.compareTo(n.getLabel()) == 0)
+		if (m_name.equals(n.getLabel()))
 		{
 			return n;
 		}
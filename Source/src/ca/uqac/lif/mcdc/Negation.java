@@ -17,6 +17,8 @@
  */
 package ca.uqac.lif.mcdc;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 
 public class Negation extends Operator
@@ -32,11 +34,11 @@ public class Negation extends Operator
 	{
 		if (o instanceof String)
 		{
-			return new Negation(new Atom((String) o));
+			return (Negation) OperatorPool.intern(new Negation(new Atom((String) o)));
 		}
 		if (o instanceof Operator)
 		{
-			return new Negation((Operator) o);
+			return (Negation) OperatorPool.intern(new Negation((Operator) o));
 		}
 		return null;
 	}
@@ -53,12 +55,13 @@ public class Negation extends Operator
 	}
 	
 	@Override
-	public HologramNode evaluate(Valuation v) 
+	protected HologramNode evaluate(Valuation v, EvaluationContext context) 
 	{
 		HologramNode n = new HologramNode(SYMBOL);
-		HologramNode c = m_operand.evaluate(v);
+		HologramNode c = evaluateOperand(m_operand, v, context);
 		n.addChild(c);
-		n.setValue(!c.getValue());
+		Boolean c_value = c.getValue();
+		n.setValue(c_value == null ? null : !c_value);
 		return n;
 	}
 
@@ -68,6 +71,12 @@ public class Negation extends Operator
 		return new Negation(m_operand.duplicate(with_state));
 	}
 	
+	@Override
+	protected List<Operator> getOperandList()
+	{
+		return Collections.singletonList(m_operand);
+	}
+	
 	@Override
 	protected void getVariables(Set<String> vars)
 	{
@@ -84,4 +84,27 @@ public class ObjectIdentifier<T>
 		m_objectIds.put(n, m_idCounter);
 		return m_idCounter;
 	}
+	
+	/**
+	 * Gives an ID in another identifier to each object seen by this one.
+	 * Objects are passed to the other identifier in the order of their IDs.
+	 * @param other The other identifier
+	 * @return An array associating each ID of this identifier (used as an
+	 * index) to the ID of the same object in the other identifier
+	 */
+	@SuppressWarnings("unchecked")
+	public int[] translate(ObjectIdentifier<T> other)
+	{
+		Object[] objects = new Object[m_idCounter + 1];
+		for (Map.Entry<T,Integer> e : m_objectIds.entrySet())
+		{
+			objects[e.getValue()] = e.getKey();
+		}
+		int[] ids = new int[m_idCounter + 1];
+		for (int i = 1; i <= m_idCounter; i++)
+		{
+			ids[i] = other.getObjectId((T) objects[i]);
+		}
+		return ids;
+	}
 }
@@ -20,12 +20,63 @@ package ca.uqac.lif.mcdc;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public abstract class Operator 
 {
-	public abstract HologramNode evaluate(Valuation v);
+	/**
+	 * The symbol table giving a slot to each variable of this formula. It is
+	 * computed the first time it is requested.
+	 */
+	protected transient SymbolTable m_symbolTable = null;
+	
+	/**
+	 * For an operator obtained from {@link OperatorPool}, the key under which
+	 * it is registered.
+	 */
+	protected transient OperatorPool.Key m_key = null;
+	
+	/**
+	 * The frozen view of this formula, if it has been requested.
+	 */
+	protected transient volatile FrozenFormula m_frozen = null;
+	
+	/**
+	 * Evaluates the operator on a valuation and produces its hologram.
+	 * The valuation may be partial: a variable without a value is
+	 * unknown, and the nodes whose value depends on it get a
+	 * <tt>null</tt> value (Kleene's three-valued logic). A partial
+	 * valuation therefore stands for the whole cube of valuations that
+	 * complete it, and the nodes with a known value have that value in
+	 * all of them.
+	 * <p>
+	 * Once the symbol table of the formula has been computed, a non-atomic
+	 * subformula that occurs more than once in it is evaluated only once
+	 * per call (see {@link EvaluationContext}).
+	 * @param v The valuation
+	 * @return The hologram
+	 */
+	public final HologramNode evaluate(Valuation v)
+	{
+		if (m_symbolTable == null)
+		{
+			return evaluate(v, null);
+		}
+		Map<Operator,Integer> parents = freeze().m_parents;
+		return evaluate(v, parents.isEmpty() ? null : new EvaluationContext(parents));
+	}
+	
+	/**
+	 * Evaluates the operator on a valuation and produces its hologram.
+	 * @param v The valuation
+	 * @param context The context of the evaluation of the whole formula, or
+	 * <tt>null</tt> if no subformula is to be evaluated only once
+	 * @return The hologram
+	 */
+	protected abstract HologramNode evaluate(Valuation v, EvaluationContext context);
 	
 	public abstract Operator duplicate(boolean with_state);
 	
@@ -60,6 +111,48 @@ public abstract class Operator
 		return a_vars;
 	}
 	
+	/**
+	 * Gets the symbol table for the variables of this formula. The first call
+	 * to this method creates the table; the formula should therefore no
+	 * longer be modified afterwards. Atoms find the slot of their variable in the table of the
+	 * valuation they are evaluated on (see {@link SymbolTable#getSlot(Atom)}),
+	 * so an atom shared by several formulas works with the table of each
+	 * of them.
+	 * @return The symbol table
+	 */
+	public final SymbolTable getSymbolTable()
+	{
+		if (m_symbolTable == null)
+		{
+			m_symbolTable = new SymbolTable(getSortedVariables());
+		}
+		return m_symbolTable;
+	}
+	
+	/**
+	 * Gets a frozen view of this formula, whose structural metadata and
+	 * evaluation engines are computed once and shared by everyone who asks
+	 * for them. The formula should no longer be modified afterwards.
+	 * @return The frozen formula
+	 */
+	public final FrozenFormula freeze()
+	{
+		FrozenFormula f = m_frozen;
+		if (f == null)
+		{
+			synchronized (this)
+			{
+				f = m_frozen;
+				if (f == null)
+				{
+					f = new FrozenFormula(this);
+					m_frozen = f;
+				}
+			}
+		}
+		return f;
+	}
+	
 	@Override
 	public String toString()
 	{
@@ -72,5 +165,142 @@ public abstract class Operator
 	
 	protected abstract void getVariables(Set<String> vars);
 	
+	/**
+	 * Evaluates an operand of an operator.
+	 * @param op The operand
+	 * @param v The valuation
+	 * @param context The context of the evaluation, or <tt>null</tt>
+	 * @return The hologram produced by the operand
+	 */
+	protected static HologramNode evaluateOperand(Operator op, Valuation v, EvaluationContext context)
+	{
+		if (context == null)
+		{
+			return op.evaluate(v, null);
+		}
+		return context.evaluate(op, v);
+	}
+	
+	/**
+	 * Counts the parents of the operators of a formula, that is, the number
+	 * of operators of the formula that have each of them as an operand (once
+	 * per position).
+	 * @param phi The formula
+	 * @return A map associating each non-atomic operator with more than one
+	 * parent to its number of parents. Atoms are left out, since evaluating
+	 * them costs no more than copying their hologram.
+	 */
+	protected static Map<Operator,Integer> countParents(Operator phi)
+	{
+		Map<Operator,Integer> counts = new IdentityHashMap<Operator,Integer>();
+		List<Operator> stack = new ArrayList<Operator>();
+		counts.put(phi, 0);
+		stack.add(phi);
+		while (!stack.isEmpty())
+		{
+			Operator op = stack.remove(stack.size() - 1);
+			for (Operator c : op.getOperandList())
+			{
+				Integer count = counts.get(c);
+				if (count == null)
+				{
+					count = 0;
+					stack.add(c);
+				}
+				counts.put(c, count + 1);
+			}
+		}
+		Map<Operator,Integer> parents = new IdentityHashMap<Operator,Integer>();
+		for (Map.Entry<Operator,Integer> e : counts.entrySet())
+		{
+			if (!(e.getKey() instanceof Atom) && e.getValue() > 1)
+			{
+				parents.put(e.getKey(), e.getValue());
+			}
+		}
+		return parents;
+	}
+	
+	/**
+	 * Gets the operands of this operator.
+	 * @return The list of operands, which is empty for an atom
+	 */
+	protected abstract List<Operator> getOperandList();
+	
 	protected abstract void toString(StringBuilder out);
+	
+	/**
+	 * The state of a single call to {@link Operator#evaluate(Valuation)}.
+	 * A subformula shared by several operators of the formula (see
+	 * {@link OperatorPool}) is evaluated only once: its first occurrence
+	 * receives the hologram it produces, and the others a copy of it. The
+	 * call therefore still returns a tree whose nodes are not shared with
+	 * any other tree. Since a context is never used by more than one call,
+	 * pooled operators hold no evaluation state and can be evaluated by
+	 * several threads at once.
+	 */
+	protected static class EvaluationContext
+	{
+		/**
+		 * The number of parents of each shared operator of the formula.
+		 */
+		protected final Map<Operator,Integer> m_parents;
+		
+		/**
+		 * A private copy of the hologram produced by each shared operator
+		 * evaluated so far, as long as some of its parents have not
+		 * received it yet.
+		 */
+		protected final Map<Operator,HologramNode> m_results = new IdentityHashMap<Operator,HologramNode>();
+		
+		/**
+		 * The number of parents of each operator of {@link #m_results}
+		 * that have not received its hologram yet.
+		 */
+		protected final Map<Operator,Integer> m_uses = new IdentityHashMap<Operator,Integer>();
+		
+		/**
+		 * Creates a new evaluation context.
+		 * @param parents The number of parents of each shared operator of
+		 * the formula
+		 */
+		protected EvaluationContext(Map<Operator,Integer> parents)
+		{
+			super();
+			m_parents = parents;
+		}
+		
+		/**
+		 * Evaluates an operand in this context.
+		 * @param op The operand
+		 * @param v The valuation
+		 * @return The hologram produced by the operand
+		 */
+		protected HologramNode evaluate(Operator op, Valuation v)
+		{
+			Integer parents = m_parents.get(op);
+			if (parents == null)
+			{
+				return op.evaluate(v, this);
+			}
+			HologramNode m = m_results.get(op);
+			if (m == null)
+			{
+				HologramNode n = op.evaluate(v, this);
+				m_results.put(op, n.duplicate(true));
+				m_uses.put(op, parents - 1);
+				return n;
+			}
+			int uses = m_uses.get(op) - 1;
+			if (uses > 0)
+			{
+				m_uses.put(op, uses);
+				return m.duplicate(true);
+			}
+			// Last occurrence: hand over the copy
+			m_results.remove(op);
+			m_uses.remove(op);
+			return m;
+		}
+	}
 }
@@ -0,0 +1,229 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Hash-consing factory for operators. The pool keeps a single instance of
+ * each structurally distinct operator: two atoms with the same name, or two
+ * operators of the same type whose operands are the same pooled instances,
+ * are represented by the same object. Formulas built with
+ * {@link Conjunction#And(Object...)}, {@link Disjunction#Or(Object...)} and
+ * {@link Negation#Not(Object)} go through this pool, so that a subformula
+ * that is repeated in a formula (or across formulas) becomes a single
+ * shared node. Once the symbol table of a formula has been computed, a
+ * non-atomic node shared within that formula is evaluated only once per
+ * call to {@link Operator#evaluate(Valuation)}; its other occurrences
+ * receive a copy of its hologram. The state of this sharing belongs to the
+ * call and to the {@link FrozenFormula}, never to the pooled operators, so
+ * that they can be evaluated by several threads at once.
+ * <p>
+ * Pooled operators must not be modified. The pool only keeps weak
+ * references to its operators.
+ */
+public class OperatorPool
+{
+	/**
+	 * The map associating keys to pooled operators. A key is referenced by
+	 * its operator, and hence stays in the map for as long as the operator
+	 * is alive.
+	 */
+	protected static final Map<Key,WeakReference<Operator>> s_pool = new WeakHashMap<Key,WeakReference<Operator>>();
+	
+	/**
+	 * Private constructor; this class only has static methods.
+	 */
+	private OperatorPool()
+	{
+		super();
+	}
+	
+	/**
+	 * Gets the pooled instance of an operator. The operator passed to this
+	 * method is left untouched: if no structurally identical operator is in
+	 * the pool, a new one is created out of the pooled instances of its
+	 * operands and added to the pool.
+	 * @param op The operator
+	 * @return The pooled operator structurally identical to <tt>op</tt>
+	 */
+	public static synchronized Operator intern(Operator op)
+	{
+		if (op.m_key != null)
+		{
+			// Already pooled
+			return op;
+		}
+		Operator[] operands;
+		Key k;
+		if (op instanceof Atom)
+		{
+			operands = new Operator[0];
+			k = new Key(Atom.class, ((Atom) op).getName(), operands);
+		}
+		else if (op instanceof Negation)
+		{
+			operands = new Operator[] {intern(((Negation) op).m_operand)};
+			k = new Key(Negation.class, null, operands);
+		}
+		else if (op instanceof Conjunction)
+		{
+			operands = internAll(((Conjunction) op).m_operands);
+			k = new Key(Conjunction.class, null, operands);
+		}
+		else if (op instanceof Disjunction)
+		{
+			operands = internAll(((Disjunction) op).m_operands);
+			k = new Key(Disjunction.class, null, operands);
+		}
+		else
+		{
+			return op;
+		}
+		WeakReference<Operator> ref = s_pool.get(k);
+		if (ref != null)
+		{
+			Operator pooled = ref.get();
+			if (pooled != null)
+			{
+				return pooled;
+			}
+		}
+		Operator pooled;
+		if (op instanceof Atom)
+		{
+			pooled = new Atom(((Atom) op).getName());
+		}
+		else if (op instanceof Negation)
+		{
+			pooled = new Negation(operands[0]);
+		}
+		else if (op instanceof Conjunction)
+		{
+			pooled = new Conjunction(operands);
+		}
+		else
+		{
+			pooled = new Disjunction(operands);
+		}
+		pooled.m_key = k;
+		s_pool.put(k, new WeakReference<Operator>(pooled));
+		return pooled;
+	}
+	
+	/**
+	 * Gets the pooled instance of each operator of a list.
+	 * @param operands The list of operators, which is left untouched
+	 * @return An array with the pooled operators
+	 */
+	protected static Operator[] internAll(List<Operator> operands)
+	{
+		Operator[] out = new Operator[operands.size()];
+		for (int i = 0; i < out.length; i++)
+		{
+			out[i] = intern(operands.get(i));
+		}
+		return out;
+	}
+	
+	/**
+	 * The key identifying an operator in the pool. Since the operands of a
+	 * pooled operator are themselves pooled, they are compared by identity.
+	 */
+	protected static class Key
+	{
+		/**
+		 * The type of the operator.
+		 */
+		protected final Class<?> m_type;
+		
+		/**
+		 * For an atom, the name of its variable; <tt>null</tt> otherwise.
+		 */
+		protected final String m_name;
+		
+		/**
+		 * The operands of the operator.
+		 */
+		protected final Operator[] m_operands;
+		
+		/**
+		 * The hash code of this key.
+		 */
+		protected final int m_hashCode;
+		
+		/**
+		 * Creates a new key.
+		 * @param type The type of the operator
+		 * @param name For an atom, the name of its variable
+		 * @param operands The operands of the operator
+		 */
+		public Key(Class<?> type, String name, Operator[] operands)
+		{
+			super();
+			m_type = type;
+			m_name = name;
+			m_operands = operands;
+			int h = type.hashCode();
+			if (name != null)
+			{
+				h = 31 * h + name.hashCode();
+			}
+			for (Operator op : operands)
+			{
+				h = 31 * h + System.identityHashCode(op);
+			}
+			m_hashCode = h;
+		}
+		
+		@Override
+		public int hashCode()
+		{
+			return m_hashCode;
+		}
+		
+		@Override
+		public boolean equals(Object o)
+		{
+			if (o == null || !(o instanceof Key))
+			{
+				return false;
+			}
+			Key k = (Key) o;
+			if (m_type != k.m_type || m_hashCode != k.m_hashCode || m_operands.length != k.m_operands.length)
+			{
+				return false;
+			}
+			if (m_name != null && !m_name.equals(k.m_name))
+			{
+				return false;
+			}
+			for (int i = 0; i < m_operands.length; i++)
+			{
+				if (m_operands[i] != k.m_operands[i])
+				{
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
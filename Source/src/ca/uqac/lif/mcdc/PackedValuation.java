@@ -0,0 +1,264 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc;
+
+import java.util.Arrays;
+
+/**
+ * An immutable assignment of truth values to all the variables of a
+ * {@link SymbolTable}, stored as bits. The value of the variable at slot
+ * <i>i</i> is bit <i>i</i> of a <tt>long</tt> for the first 64 variables,
+ * and of an additional array of <tt>long</tt>s for wider formulas. For a
+ * formula with at most 64 variables, this number is the ID given to the
+ * valuation by {@link HypergraphGenerator}.
+ * <p>
+ * Unlike {@link Valuation}, equality is checked by comparing a few words,
+ * and the hash code is computed once and spreads valuations of the same
+ * formula evenly. Methods {@link #PackedValuation(SymbolTable, Valuation)}
+ * and {@link #toValuation()} convert between the two representations.
+ */
+public class PackedValuation
+{
+	/**
+	 * The symbol table giving the slot of each variable.
+	 */
+	protected final SymbolTable m_symbols;
+	
+	/**
+	 * The values of the variables at slots 0 to 63.
+	 */
+	protected final long m_bits;
+	
+	/**
+	 * The values of the variables at slots 64 and above, or <tt>null</tt> if
+	 * the table has at most 64 variables.
+	 */
+	protected final long[] m_more;
+	
+	/**
+	 * The hash code of this valuation.
+	 */
+	protected final int m_hashCode;
+	
+	/**
+	 * Creates a new valuation for a table of at most 64 variables.
+	 * @param symbols The symbol table
+	 * @param bits The values of the variables, where bit <i>i</i> is the
+	 * value of the variable at slot <i>i</i>
+	 */
+	public PackedValuation(SymbolTable symbols, long bits)
+	{
+		this(symbols, bits, null);
+		if (symbols.size() > 64)
+		{
+			throw new IllegalArgumentException("The table has more than 64 variables");
+		}
+	}
+	
+	/**
+	 * Creates a new valuation from the values of a {@link Valuation}.
+	 * Variables of the table without a value are taken to be
+	 * <tt>false</tt>, and variables that are not in the table are ignored.
+	 * @param symbols The symbol table
+	 * @param v The valuation
+	 */
+	public PackedValuation(SymbolTable symbols, Valuation v)
+	{
+		this(symbols, getWords(symbols, v));
+	}
+	
+	/**
+	 * Creates a new valuation from an array of words.
+	 * @param symbols The symbol table
+	 * @param words The values of the variables, where bit <i>i</i> of word
+	 * <i>w</i> is the value of the variable at slot 64<i>w</i>+<i>i</i>
+	 */
+	protected PackedValuation(SymbolTable symbols, long[] words)
+	{
+		this(symbols, words[0], words.length > 1 ? Arrays.copyOfRange(words, 1, words.length) : null);
+	}
+	
+	/**
+	 * Creates a new valuation.
+	 * @param symbols The symbol table
+	 * @param bits The values of the variables at slots 0 to 63
+	 * @param more The values of the other variables, or <tt>null</tt>
+	 */
+	protected PackedValuation(SymbolTable symbols, long bits, long[] more)
+	{
+		super();
+		m_symbols = symbols;
+		m_bits = bits;
+		m_more = more;
+		long h = bits;
+		if (more != null)
+		{
+			h = 31 * h + Arrays.hashCode(more);
+		}
+		// Finalization step of MurmurHash3
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		m_hashCode = (int) h;
+	}
+	
+	/**
+	 * Gets the symbol table of this valuation.
+	 * @return The symbol table
+	 */
+	public SymbolTable getSymbolTable()
+	{
+		return m_symbols;
+	}
+	
+	/**
+	 * Gets the value of a variable designated by its slot.
+	 * @param slot The slot
+	 * @return The value
+	 */
+	public boolean get(int slot)
+	{
+		if (slot < 64)
+		{
+			return ((m_bits >>> slot) & 1L) != 0;
+		}
+		return ((m_more[(slot >>> 6) - 1] >>> (slot & 63)) & 1L) != 0;
+	}
+	
+	/**
+	 * Gets the value of a variable.
+	 * @param name The name of the variable
+	 * @return The value, or <tt>null</tt> if the variable is not in the
+	 * symbol table
+	 */
+	public Boolean get(String name)
+	{
+		int slot = m_symbols.getSlot(name);
+		if (slot < 0)
+		{
+			return null;
+		}
+		return get(slot);
+	}
+	
+	/**
+	 * Gets the ID of this valuation, which is the number whose bit <i>i</i>
+	 * is the value of the variable at slot <i>i</i>.
+	 * @return The ID
+	 */
+	public long getId()
+	{
+		if (m_more != null)
+		{
+			throw new UnsupportedOperationException("The valuation has more than 64 variables");
+		}
+		return m_bits;
+	}
+	
+	/**
+	 * Counts the number of variables set to <tt>true</tt>.
+	 * @return The number of true variables
+	 */
+	public int countTrue()
+	{
+		int cnt = Long.bitCount(m_bits);
+		if (m_more != null)
+		{
+			for (long w : m_more)
+			{
+				cnt += Long.bitCount(w);
+			}
+		}
+		return cnt;
+	}
+	
+	/**
+	 * Creates a {@link Valuation} with the same values, tied to the same
+	 * symbol table.
+	 * @return The valuation
+	 */
+	public Valuation toValuation()
+	{
+		Valuation v = new Valuation(m_symbols);
+		for (int i = 0; i < m_symbols.size(); i++)
+		{
+			v.set(i, get(i));
+		}
+		return v;
+	}
+	
+	@Override
+	public boolean equals(Object o)
+	{
+		if (o == null || !(o instanceof PackedValuation))
+		{
+			return false;
+		}
+		PackedValuation v = (PackedValuation) o;
+		if (m_bits != v.m_bits || m_hashCode != v.m_hashCode || !Arrays.equals(m_more, v.m_more))
+		{
+			return false;
+		}
+		return m_symbols == v.m_symbols || Arrays.equals(m_symbols.getNames(), v.m_symbols.getNames());
+	}
+	
+	@Override
+	public int hashCode()
+	{
+		return m_hashCode;
+	}
+	
+	@Override
+	public String toString()
+	{
+		StringBuilder out = new StringBuilder();
+		out.append("{");
+		for (int i = 0; i < m_symbols.size(); i++)
+		{
+			if (i > 0)
+			{
+				out.append(", ");
+			}
+			out.append(m_symbols.getName(i)).append("=").append(get(i));
+		}
+		out.append("}");
+		return out.toString();
+	}
+	
+	/**
+	 * Packs the values of a valuation into words.
+	 * @param symbols The symbol table
+	 * @param v The valuation
+	 * @return The array of words, with at least one element
+	 */
+	protected static long[] getWords(SymbolTable symbols, Valuation v)
+	{
+		long[] words = new long[Math.max(1, (symbols.size() + 63) >>> 6)];
+		for (int i = 0; i < symbols.size(); i++)
+		{
+			Boolean b = v.m_symbols == symbols ? v.get(i) : v.get(symbols.getName(i));
+			if (b != null && b == true)
+			{
+				words[i >>> 6] |= 1L << (i & 63);
+			}
+		}
+		return words;
+	}
+}
@@ -0,0 +1,288 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Builds a hypergraph from a sample of the valuations of a formula, for
+ * formulas whose number of variables makes the enumeration of all
+ * 2<sup><i>n</i></sup> valuations infeasible. Valuations are drawn from a
+ * {@link ValuationSampler} and evaluated 64 at a time, until the number of
+ * hyperedges not yet seen is estimated to be small enough.
+ * <p>
+ * Each distinct valuation drawn is a sampling unit that reveals a set of
+ * hyperedges. The number of hyperedges never revealed is estimated with
+ * the Chao2 estimator for incidence data,
+ * ((<i>m</i>-1)/<i>m</i>) <i>Q</i><sub>1</sub>(<i>Q</i><sub>1</sub>-1) /
+ * (2(<i>Q</i><sub>2</sub>+1)), where <i>m</i> is the number of valuations
+ * and <i>Q</i><sub>1</sub> and <i>Q</i><sub>2</sub> are the numbers of
+ * hyperedges containing exactly one and two of them. A test suite that
+ * hits every hyperedge of the graph then covers an estimated fraction
+ * <i>E</i>/(<i>E</i>+<i>missing</i>) of the categories of the criterion,
+ * where <i>E</i> is the number of hyperedges; this is the value returned by
+ * {@link #getEstimatedCoverage()}.
+ */
+public class SampledHypergraphGenerator extends HypergraphGenerator
+{
+	/**
+	 * The number of valuations evaluated between two computations of the
+	 * coverage estimate.
+	 */
+	protected static final int CHECK_INTERVAL = 1024;
+	
+	/**
+	 * The sampler producing the valuations.
+	 */
+	protected ValuationSampler m_sampler;
+	
+	/**
+	 * The estimated category coverage at which sampling stops.
+	 */
+	protected double m_targetCoverage = 0.99;
+	
+	/**
+	 * The minimum number of distinct valuations evaluated before sampling
+	 * can stop.
+	 */
+	protected long m_minSamples = 4 * CHECK_INTERVAL;
+	
+	/**
+	 * The maximum number of valuations drawn from the sampler.
+	 */
+	protected long m_maxSamples = 1L << 20;
+	
+	/**
+	 * The number of distinct valuations in the last hypergraph produced.
+	 */
+	protected transient long m_samples = 0;
+	
+	/**
+	 * The estimated number of hyperedges missing from the last hypergraph
+	 * produced.
+	 */
+	protected transient double m_missing = 0;
+	
+	/**
+	 * The number of hyperedges of the last hypergraph produced.
+	 */
+	protected transient int m_edges = 0;
+	
+	/**
+	 * Creates a new sampled hypergraph generator.
+	 * @param sampler The sampler producing the valuations
+	 */
+	public SampledHypergraphGenerator(ValuationSampler sampler)
+	{
+		super();
+		m_sampler = sampler;
+	}
+	
+	/**
+	 * Sets the estimated category coverage at which sampling stops.
+	 * @param coverage The coverage, between 0 and 1 (the default is 0.99)
+	 */
+	public void setTargetCoverage(double coverage)
+	{
+		if (coverage < 0 || coverage > 1)
+		{
+			throw new IllegalArgumentException("Invalid coverage: " + coverage);
+		}
+		m_targetCoverage = coverage;
+	}
+	
+	/**
+	 * Sets the minimum number of distinct valuations evaluated before
+	 * sampling can stop. Hyperedges produced by fewer valuations than the
+	 * inverse of this number are unlikely to be seen, and therefore to be
+	 * accounted for by the estimate.
+	 * @param min_samples The number of valuations (the default is 4096)
+	 */
+	public void setMinSamples(long min_samples)
+	{
+		if (min_samples < 0)
+		{
+			throw new IllegalArgumentException("Invalid number of samples: " + min_samples);
+		}
+		m_minSamples = min_samples;
+	}
+	
+	/**
+	 * Sets the maximum number of valuations drawn from the sampler, whether
+	 * the target coverage is reached or not.
+	 * @param max_samples The number of valuations (the default is
+	 * 2<sup>20</sup>)
+	 */
+	public void setMaxSamples(long max_samples)
+	{
+		if (max_samples < 1)
+		{
+			throw new IllegalArgumentException("Invalid number of samples: " + max_samples);
+		}
+		m_maxSamples = max_samples;
+	}
+	
+	@Override
+	public Hypergraph getGraph(Operator phi, Truncation ... truncations)
+	{
+		BitslicedEvaluator evaluator = phi.freeze().getEvaluator();
+		m_symbols = phi.getSymbolTable();
+		Hypergraph h = new Hypergraph(new HologramEncoder(m_symbols));
+		m_orbits = null;
+		int num_vars = m_symbols.size();
+		Bdd bdd = null;
+		int constraint = Bdd.TRUE;
+		if (m_constraint != null)
+		{
+			bdd = new Bdd(num_vars);
+			constraint = bdd.build(m_constraint, m_symbols);
+		}
+		HologramBuffer buffer = new HologramBuffer(evaluator);
+		long[] words = new long[evaluator.getNodeCount()];
+		long[] ids = new long[BitslicedEvaluator.BLOCK_SIZE];
+		int count = 0;
+		Set<Long> seen = new HashSet<Long>();
+		m_samples = 0;
+		m_missing = Double.POSITIVE_INFINITY;
+		boolean exhausted = false;
+		for (long draws = 0; draws < m_maxSamples; draws++)
+		{
+			if (num_vars < 62 && seen.size() == 1L << num_vars)
+			{
+				exhausted = true;
+				break;
+			}
+			long id = m_sampler.next(num_vars);
+			if (!seen.add(id) || (bdd != null && !bdd.contains(constraint, id)))
+			{
+				continue;
+			}
+			ids[count++] = id;
+			if (count == ids.length)
+			{
+				addBatch(h, evaluator, buffer, words, ids, count, truncations);
+				count = 0;
+				if (m_samples >= m_minSamples && m_samples % CHECK_INTERVAL == 0 && estimate(h) >= m_targetCoverage)
+				{
+					break;
+				}
+			}
+		}
+		addBatch(h, evaluator, buffer, words, ids, count, truncations);
+		estimate(h);
+		if (exhausted)
+		{
+			// All valuations have been drawn: no hyperedge can be missing
+			m_missing = 0;
+		}
+		return h;
+	}
+	
+	/**
+	 * Evaluates a batch of valuations and adds them to the hypergraph.
+	 * @param h The hypergraph
+	 * @param evaluator The evaluator for the formula
+	 * @param buffer The buffer used to produce the holograms
+	 * @param words An array receiving the value of each node
+	 * @param ids The IDs of the valuations
+	 * @param count The number of valuations in the batch
+	 * @param truncations The truncations to apply
+	 */
+	protected void addBatch(Hypergraph h, BitslicedEvaluator evaluator, HologramBuffer buffer, long[] words, long[] ids, int count, Truncation ... truncations)
+	{
+		if (count == 0)
+		{
+			return;
+		}
+		evaluator.evaluate(ids, count, words);
+		for (int k = 0; k < count; k++)
+		{
+			HologramNode n = buffer.fill(words, k);
+			for (Truncation t : truncations)
+			{
+				h.addTo(t.applyTo(n), ids[k]);
+			}
+		}
+		m_samples += count;
+	}
+	
+	/**
+	 * Updates the estimate of the number of missing hyperedges.
+	 * @param h The hypergraph built so far
+	 * @return The estimated category coverage
+	 */
+	protected double estimate(Hypergraph h)
+	{
+		long q1 = 0, q2 = 0;
+		for (Hypergraph.Hyperedge e : h.m_edges.values())
+		{
+			int size = e.m_vertices.size();
+			if (size == 1)
+			{
+				q1++;
+			}
+			else if (size == 2)
+			{
+				q2++;
+			}
+		}
+		m_edges = h.getEdgeCount();
+		m_missing = 0;
+		if (q1 > 1)
+		{
+			m_missing = ((double) (m_samples - 1) / m_samples) * q1 * (q1 - 1) / (2d * (q2 + 1));
+		}
+		return getEstimatedCoverage();
+	}
+	
+	/**
+	 * Gets the number of distinct valuations in the last hypergraph
+	 * produced.
+	 * @return The number of valuations
+	 */
+	public long getSampleCount()
+	{
+		return m_samples;
+	}
+	
+	/**
+	 * Gets the estimated number of hyperedges missing from the last
+	 * hypergraph produced.
+	 * @return The number of hyperedges
+	 */
+	public double getEstimatedMissingEdges()
+	{
+		return m_missing;
+	}
+	
+	/**
+	 * Gets the estimated fraction of the categories of the criterion that
+	 * are covered by a test suite hitting all the hyperedges of the last
+	 * hypergraph produced.
+	 * @return The estimated coverage, between 0 and 1
+	 */
+	public double getEstimatedCoverage()
+	{
+		if (m_edges == 0)
+		{
+			return m_missing == 0 ? 1 : 0;
+		}
+		return m_edges / (m_edges + m_missing);
+	}
+}
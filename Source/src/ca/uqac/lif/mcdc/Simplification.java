@@ -0,0 +1,194 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The result of simplifying a formula with a {@link FormulaSimplifier}. It
+ * keeps both formulas, and tells how the nodes of their holograms map onto
+ * each other. A node of a hologram is designated by its path: the
+ * sequence of child indices that leads to it from the root (the root has
+ * an empty path).
+ * <p>
+ * Every node of the simplified hologram comes from a node of the original
+ * one. Conversely, a node of the original hologram is either kept, merged
+ * into another node (a flattened operator is merged into its parent, and a
+ * duplicate operand into the operand it repeats), or removed along with a
+ * clause that the simplifier dropped.
+ */
+public class Simplification
+{
+	/**
+	 * The original formula.
+	 */
+	protected final Operator m_original;
+	
+	/**
+	 * The simplified formula.
+	 */
+	protected final Operator m_simplified;
+	
+	/**
+	 * A map associating the path of each node of the original hologram to
+	 * the path of the node standing for it in the simplified hologram.
+	 */
+	protected final Map<List<Integer>,int[]> m_toSimplified;
+	
+	/**
+	 * A map associating the path of each node of the simplified hologram to
+	 * the path of the node it comes from in the original hologram.
+	 */
+	protected final Map<List<Integer>,int[]> m_toOriginal;
+	
+	/**
+	 * The paths, in the original hologram, of the clauses that can never be
+	 * true.
+	 */
+	protected final List<int[]> m_neverTrue;
+	
+	/**
+	 * The paths, in the original hologram, of the clauses that are always
+	 * true.
+	 */
+	protected final List<int[]> m_alwaysTrue;
+	
+	/**
+	 * Creates a new simplification.
+	 * @param original The original formula
+	 * @param simplified The simplified formula
+	 */
+	protected Simplification(Operator original, Operator simplified)
+	{
+		super();
+		m_original = original;
+		m_simplified = simplified;
+		m_toSimplified = new HashMap<List<Integer>,int[]>();
+		m_toOriginal = new HashMap<List<Integer>,int[]>();
+		m_neverTrue = new ArrayList<int[]>();
+		m_alwaysTrue = new ArrayList<int[]>();
+	}
+	
+	/**
+	 * Gets the original formula.
+	 * @return The formula
+	 */
+	public Operator getOriginal()
+	{
+		return m_original;
+	}
+	
+	/**
+	 * Gets the simplified formula.
+	 * @return The formula
+	 */
+	public Operator getSimplified()
+	{
+		return m_simplified;
+	}
+	
+	/**
+	 * Gets the node of the simplified hologram that stands for a node of
+	 * the original hologram.
+	 * @param original_path The path of the node in the original hologram
+	 * @return The path of the node in the simplified hologram, or
+	 * <tt>null</tt> if the node has been removed
+	 */
+	public int[] getSimplifiedPath(int ... original_path)
+	{
+		return m_toSimplified.get(toList(original_path));
+	}
+	
+	/**
+	 * Gets the node of the original hologram that a node of the simplified
+	 * hologram comes from.
+	 * @param simplified_path The path of the node in the simplified hologram
+	 * @return The path of the node in the original hologram, or
+	 * <tt>null</tt> if there is no node at this path
+	 */
+	public int[] getOriginalPath(int ... simplified_path)
+	{
+		return m_toOriginal.get(toList(simplified_path));
+	}
+	
+	/**
+	 * Gets the clauses of the original formula that can never be true,
+	 * i.e. conjunctions containing a literal and its negation.
+	 * @return The list of paths of these clauses in the original hologram
+	 */
+	public List<int[]> getNeverTrueClauses()
+	{
+		return Collections.unmodifiableList(m_neverTrue);
+	}
+	
+	/**
+	 * Gets the clauses of the original formula that are always true, i.e.
+	 * disjunctions containing a literal and its negation.
+	 * @return The list of paths of these clauses in the original hologram
+	 */
+	public List<int[]> getAlwaysTrueClauses()
+	{
+		return Collections.unmodifiableList(m_alwaysTrue);
+	}
+	
+	/**
+	 * Gets the node of a hologram at a given path.
+	 * @param root The root of the hologram
+	 * @param path The path
+	 * @return The node
+	 */
+	public static HologramNode getNode(HologramNode root, int ... path)
+	{
+		HologramNode n = root;
+		for (int i : path)
+		{
+			n = n.getChildren().get(i);
+		}
+		return n;
+	}
+	
+	/**
+	 * Records that a node of the original hologram is represented by a node
+	 * of the simplified hologram.
+	 * @param original_path The path of the node in the original hologram
+	 * @param simplified_path The path of the node in the simplified hologram
+	 */
+	protected void map(int[] original_path, int[] simplified_path)
+	{
+		m_toSimplified.put(toList(original_path), simplified_path);
+	}
+	
+	/**
+	 * Converts a path into a list that can be used as a key in a map.
+	 * @param path The path
+	 * @return The list
+	 */
+	protected static List<Integer> toList(int[] path)
+	{
+		List<Integer> list = new ArrayList<Integer>(path.length);
+		for (int i : path)
+		{
+			list.add(i);
+		}
+		return list;
+	}
+}
@@ -0,0 +1,38 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc;
+
+/**
+ * A truncation whose result only depends on the shape of a hologram and on
+ * the values of some of its nodes. For such a truncation, the hologram of a
+ * partial valuation (see {@link Operator#evaluate(Valuation)}) can tell if
+ * all the valuations that complete it are truncated into the same tree; 
+ * {@link HypergraphGenerator} can then add them to a hyperedge at once.
+ */
+public interface StructuralTruncation extends Truncation
+{
+	/**
+	 * Determines if the values of all the nodes kept by the truncation are
+	 * known in a hologram.
+	 * @param n The root of the hologram
+	 * @return <tt>true</tt> if the truncated tree is the same for every
+	 * valuation that completes the one producing the hologram,
+	 * <tt>false</tt> otherwise
+	 */
+	public boolean isDetermined(HologramNode n);
+}
@@ -0,0 +1,260 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Associates each variable of a formula to a dense integer "slot". Slots
+ * are numbered from 0 to <i>n</i>-1 and follow the ascending order of
+ * variable names, which is the same order as the one used by
+ * {@link HypergraphGenerator} to enumerate valuations. Atoms, valuations
+ * and hologram leaves can then refer to a variable by its slot instead of
+ * hashing and comparing its name.
+ * <p>
+ * Every variable name is also given a global ID, shared by all the tables
+ * (see {@link #getVariableId(String)}). A table keeps an array giving the
+ * slot of each ID in the range of the IDs of its variables. An
+ * {@link Atom}, which knows the ID of its name, can therefore find its
+ * slot in any table with an array access, even if it is shared by several
+ * formulas.
+ */
+public class SymbolTable
+{
+	/**
+	 * The largest number of variables of a formula whose valuations can be
+	 * identified by a number (see {@link #pack(Valuation)}). IDs and counts
+	 * of valuations are stored in a <tt>long</tt>; with at most 62
+	 * variables, the number of valuations 2<sup><i>n</i></sup> and every
+	 * ID up to it are non-negative.
+	 */
+	public static final int MAX_VARIABLES = 62;
+	
+	/**
+	 * The names of the variables, indexed by their slot.
+	 */
+	protected String[] m_names;
+
+	/**
+	 * A map associating each variable name to its slot.
+	 */
+	protected Map<String,Integer> m_slots;
+	
+	/**
+	 * The global ID given to each variable name seen so far.
+	 */
+	protected static final Map<String,Integer> s_ids = new ConcurrentHashMap<String,Integer>();
+	
+	/**
+	 * The slot of each variable, indexed by its global ID minus
+	 * {@link #m_firstId}; -1 for IDs that are not in the table.
+	 */
+	protected final int[] m_slotsById;
+	
+	/**
+	 * The smallest global ID of a variable of the table.
+	 */
+	protected final int m_firstId;
+
+	/**
+	 * Creates a new symbol table.
+	 * @param sorted_names The names of the variables, in the order in which
+	 * slots should be given to them
+	 */
+	public SymbolTable(String ... sorted_names)
+	{
+		super();
+		m_names = sorted_names;
+		m_slots = new HashMap<String,Integer>(sorted_names.length);
+		int[] ids = new int[sorted_names.length];
+		int first = Integer.MAX_VALUE, last = -1;
+		for (int i = 0; i < sorted_names.length; i++)
+		{
+			m_slots.put(sorted_names[i], i);
+			ids[i] = getVariableId(sorted_names[i]);
+			first = Math.min(first, ids[i]);
+			last = Math.max(last, ids[i]);
+		}
+		if (last < 0)
+		{
+			first = 0;
+		}
+		m_firstId = first;
+		m_slotsById = new int[last - first + 1];
+		Arrays.fill(m_slotsById, -1);
+		for (int i = 0; i < ids.length; i++)
+		{
+			m_slotsById[ids[i] - first] = i;
+		}
+	}
+	
+	/**
+	 * Gets the global ID of a variable name, giving it the next free ID if
+	 * it has none. IDs are dense and never change for the lifetime of the
+	 * program.
+	 * @param name The name of the variable
+	 * @return The ID
+	 */
+	public static int getVariableId(String name)
+	{
+		Integer id = s_ids.get(name);
+		if (id != null)
+		{
+			return id;
+		}
+		synchronized (s_ids)
+		{
+			id = s_ids.get(name);
+			if (id == null)
+			{
+				id = s_ids.size();
+				s_ids.put(name, id);
+			}
+			return id;
+		}
+	}
+	
+	/**
+	 * Gets the slot of the variable of an atom. Unlike
+	 * {@link #getSlot(String)}, this does not look up the name of the
+	 * variable.
+	 * @param a The atom
+	 * @return The slot, or -1 if the variable is not in the table
+	 */
+	public int getSlot(Atom a)
+	{
+		int i = a.getId() - m_firstId;
+		if (i < 0 || i >= m_slotsById.length)
+		{
+			return -1;
+		}
+		return m_slotsById[i];
+	}
+
+	/**
+	 * Gets the slot associated to a variable.
+	 * @param name The name of the variable
+	 * @return The slot, or -1 if the variable is not in the table
+	 */
+	public int getSlot(String name)
+	{
+		Integer i = m_slots.get(name);
+		if (i == null)
+		{
+			return -1;
+		}
+		return i;
+	}
+
+	/**
+	 * Gets the name of the variable associated to a slot.
+	 * @param slot The slot
+	 * @return The name of the variable
+	 */
+	public String getName(int slot)
+	{
+		return m_names[slot];
+	}
+
+	/**
+	 * Gets the names of all the variables in the table, indexed by their
+	 * slot.
+	 * @return The array of names. This array must not be modified.
+	 */
+	public String[] getNames()
+	{
+		return m_names;
+	}
+
+	/**
+	 * Packs the values of a valuation into a number, where bit <i>i</i> holds
+	 * the value of the variable at slot <i>i</i>. For a valuation that
+	 * assigns a value to exactly the variables of this table, this number is
+	 * the ID given to the valuation by {@link HypergraphGenerator}. Variables
+	 * without a value are taken to be <tt>false</tt>.
+	 * @param v The valuation
+	 * @return The packed values
+	 */
+	public long pack(Valuation v)
+	{
+		long values = 0;
+		for (int i = 0; i < m_names.length && i < 64; i++)
+		{
+			Boolean b;
+			if (v.m_symbols == this)
+			{
+				b = v.get(i);
+			}
+			else
+			{
+				b = v.get(m_names[i]);
+			}
+			if (b != null && b == true)
+			{
+				values |= 1L << i;
+			}
+		}
+		return values;
+	}
+	
+	/**
+	 * Creates the valuation whose values are packed into a number. This is
+	 * the inverse of {@link #pack(Valuation)}.
+	 * @param values The packed values
+	 * @return The valuation, tied to this symbol table
+	 */
+	public Valuation unpack(long values)
+	{
+		Valuation v = new Valuation(this);
+		for (int i = 0; i < m_names.length; i++)
+		{
+			v.set(i, ((values >>> i) & 1L) != 0);
+		}
+		return v;
+	}
+	
+	/**
+	 * Determines if a valuation assigns a value to exactly the variables of
+	 * this table.
+	 * @param v The valuation
+	 * @return <tt>true</tt> if the valuation covers this table,
+	 * <tt>false</tt> otherwise
+	 */
+	public boolean covers(Valuation v)
+	{
+		if (v.m_symbols == this)
+		{
+			return v.m_values.isEmpty() && v.size() == m_names.length;
+		}
+		Set<String> vars = v.getVariables();
+		return vars.size() == m_names.length && m_slots.keySet().containsAll(vars);
+	}
+	
+	/**
+	 * Gets the number of variables in the table.
+	 * @return The number of variables
+	 */
+	public int size()
+	{
+		return m_names.length;
+	}
+}
@@ -0,0 +1,416 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * An immutable set of valuations over the variables of a formula. Each
+ * valuation is represented by its ID (see {@link SymbolTable#pack(Valuation)}),
+ * and the set is stored either as a sorted array of IDs, or as a bitset
+ * over all the 2<sup><i>n</i></sup> valuations when this takes less room.
+ * Membership is then checked in logarithmic or constant time, and union,
+ * intersection and difference are computed by merging arrays or combining
+ * words, without creating any object per valuation.
+ */
+public class TestSuite
+{
+	/**
+	 * The largest number of variables for which a bitset can be used.
+	 */
+	protected static final int MAX_DENSE_VARIABLES = 30;
+	
+	/**
+	 * The number of variables of the valuations.
+	 */
+	protected final int m_numVars;
+	
+	/**
+	 * The sorted IDs of the valuations, or <tt>null</tt> if the suite is
+	 * stored as a bitset.
+	 */
+	protected final long[] m_ids;
+	
+	/**
+	 * The bitset of the valuations, where bit <i>k</i> of word <i>w</i> is
+	 * set if valuation 64<i>w</i>+<i>k</i> is in the suite, or <tt>null</tt>
+	 * if the suite is stored as an array.
+	 */
+	protected final long[] m_bits;
+	
+	/**
+	 * The number of valuations in the suite.
+	 */
+	protected final int m_size;
+	
+	/**
+	 * Creates a test suite from an array of IDs.
+	 * @param num_vars The number of variables of the valuations
+	 * @param ids The IDs; they need not be sorted nor distinct, and the
+	 * array is not kept
+	 * @return The test suite
+	 */
+	public static TestSuite of(int num_vars, long ... ids)
+	{
+		long[] sorted = ids.clone();
+		Arrays.sort(sorted);
+		int size = 0;
+		for (int i = 0; i < sorted.length; i++)
+		{
+			if (i == 0 || sorted[i] != sorted[i - 1])
+			{
+				sorted[size++] = sorted[i];
+			}
+		}
+		return create(num_vars, sorted, size);
+	}
+	
+	/**
+	 * Creates a test suite from a collection of IDs, such as the hitting
+	 * set of a hypergraph.
+	 * @param num_vars The number of variables of the valuations
+	 * @param ids The IDs
+	 * @return The test suite
+	 */
+	public static TestSuite of(int num_vars, Collection<?> ids)
+	{
+		long[] a_ids = new long[ids.size()];
+		int i = 0;
+		for (Object o : ids)
+		{
+			a_ids[i++] = ((Number) o).longValue();
+		}
+		return of(num_vars, a_ids);
+	}
+	
+	/**
+	 * Creates a test suite from a collection of valuations. Valuations that
+	 * do not assign a value to exactly the variables of the symbol table
+	 * cannot be equal to any valuation of the formula, and are ignored.
+	 * @param symbols The symbol table of the formula
+	 * @param valuations The valuations
+	 * @return The test suite
+	 */
+	public static TestSuite of(SymbolTable symbols, Collection<Valuation> valuations)
+	{
+		long[] ids = new long[valuations.size()];
+		int size = 0;
+		for (Valuation v : valuations)
+		{
+			if (symbols.covers(v))
+			{
+				ids[size++] = symbols.pack(v);
+			}
+		}
+		return of(symbols.size(), Arrays.copyOf(ids, size));
+	}
+	
+	/**
+	 * Creates a test suite from sorted and distinct IDs, choosing the
+	 * representation that takes the least room.
+	 * @param num_vars The number of variables of the valuations
+	 * @param sorted The sorted IDs
+	 * @param size The number of IDs to take from the array
+	 * @return The test suite
+	 */
+	protected static TestSuite create(int num_vars, long[] sorted, int size)
+	{
+		if (size > 0 && (sorted[0] < 0 || (num_vars < 63 && sorted[size - 1] >= 1L << num_vars)))
+		{
+			throw new IllegalArgumentException("Invalid valuation ID for " + num_vars + " variables");
+		}
+		if (num_vars <= MAX_DENSE_VARIABLES && size > getWordCount(num_vars))
+		{
+			long[] bits = new long[getWordCount(num_vars)];
+			for (int i = 0; i < size; i++)
+			{
+				bits[(int) (sorted[i] >>> 6)] |= 1L << sorted[i];
+			}
+			return new TestSuite(num_vars, null, bits, size);
+		}
+		return new TestSuite(num_vars, size == sorted.length ? sorted : Arrays.copyOf(sorted, size), null, size);
+	}
+	
+	/**
+	 * Creates a new test suite.
+	 * @param num_vars The number of variables of the valuations
+	 * @param ids The sorted IDs, or <tt>null</tt>
+	 * @param bits The bitset, or <tt>null</tt>
+	 * @param size The number of valuations
+	 */
+	protected TestSuite(int num_vars, long[] ids, long[] bits, int size)
+	{
+		super();
+		m_numVars = num_vars;
+		m_ids = ids;
+		m_bits = bits;
+		m_size = size;
+	}
+	
+	/**
+	 * Gets the number of words of a bitset over all the valuations of some
+	 * variables.
+	 * @param num_vars The number of variables
+	 * @return The number of words
+	 */
+	protected static int getWordCount(int num_vars)
+	{
+		return num_vars <= 6 ? 1 : 1 << (num_vars - 6);
+	}
+	
+	/**
+	 * Gets the number of variables of the valuations of the suite.
+	 * @return The number of variables
+	 */
+	public int getVariableCount()
+	{
+		return m_numVars;
+	}
+	
+	/**
+	 * Gets the number of valuations in the suite.
+	 * @return The number of valuations
+	 */
+	public int size()
+	{
+		return m_size;
+	}
+	
+	/**
+	 * Determines if the suite is empty.
+	 * @return <tt>true</tt> if the suite contains no valuation,
+	 * <tt>false</tt> otherwise
+	 */
+	public boolean isEmpty()
+	{
+		return m_size == 0;
+	}
+	
+	/**
+	 * Determines if the suite is stored as a bitset.
+	 * @return <tt>true</tt> if the suite is a bitset, <tt>false</tt> if it
+	 * is a sorted array
+	 */
+	public boolean isDense()
+	{
+		return m_bits != null;
+	}
+	
+	/**
+	 * Determines if a valuation is in the suite.
+	 * @param id The ID of the valuation
+	 * @return <tt>true</tt> if the valuation is in the suite,
+	 * <tt>false</tt> otherwise
+	 */
+	public boolean contains(long id)
+	{
+		if (m_bits != null)
+		{
+			if (id < 0 || (id >>> 6) >= m_bits.length)
+			{
+				return false;
+			}
+			return ((m_bits[(int) (id >>> 6)] >>> id) & 1L) != 0;
+		}
+		return Arrays.binarySearch(m_ids, id) >= 0;
+	}
+	
+	/**
+	 * Gets the IDs of the valuations of the suite.
+	 * @return A new array with the IDs, in ascending order
+	 */
+	public long[] toArray()
+	{
+		if (m_bits == null)
+		{
+			return m_ids.clone();
+		}
+		long[] ids = new long[m_size];
+		int i = 0;
+		for (int w = 0; w < m_bits.length; w++)
+		{
+			long bits = m_bits[w];
+			while (bits != 0)
+			{
+				ids[i++] = ((long) w << 6) | Long.numberOfTrailingZeros(bits);
+				bits &= bits - 1;
+			}
+		}
+		return ids;
+	}
+	
+	/**
+	 * Gets the valuations of the suite.
+	 * @param symbols The symbol table of the formula
+	 * @return The set of valuations
+	 */
+	public Set<Valuation> toValuations(SymbolTable symbols)
+	{
+		Set<Valuation> valuations = new HashSet<Valuation>(m_size);
+		for (long id : toArray())
+		{
+			valuations.add(symbols.unpack(id));
+		}
+		return valuations;
+	}
+	
+	/**
+	 * Computes the union of this suite with another one.
+	 * @param s The other suite
+	 * @return A new suite with the valuations of both suites
+	 */
+	public TestSuite union(TestSuite s)
+	{
+		return combine(s, true, true, true);
+	}
+	
+	/**
+	 * Computes the intersection of this suite with another one.
+	 * @param s The other suite
+	 * @return A new suite with the valuations common to both suites
+	 */
+	public TestSuite intersection(TestSuite s)
+	{
+		return combine(s, false, false, true);
+	}
+	
+	/**
+	 * Computes the difference between this suite and another one.
+	 * @param s The other suite
+	 * @return A new suite with the valuations of this suite that are not in
+	 * the other
+	 */
+	public TestSuite difference(TestSuite s)
+	{
+		return combine(s, true, false, false);
+	}
+	
+	/**
+	 * Combines this suite with another one. The valuations kept depend on
+	 * whether they belong to this suite only, to the other suite only, or to
+	 * both.
+	 * @param s The other suite
+	 * @param keep_this Whether to keep valuations only in this suite
+	 * @param keep_other Whether to keep valuations only in the other suite
+	 * @param keep_both Whether to keep valuations in both suites
+	 * @return The new suite
+	 */
+	protected TestSuite combine(TestSuite s, boolean keep_this, boolean keep_other, boolean keep_both)
+	{
+		if (s.m_numVars != m_numVars)
+		{
+			throw new IllegalArgumentException("Test suites are on different numbers of variables");
+		}
+		if (m_bits != null && s.m_bits != null)
+		{
+			long[] bits = new long[m_bits.length];
+			int size = 0;
+			for (int w = 0; w < bits.length; w++)
+			{
+				long a = m_bits[w], b = s.m_bits[w];
+				long x = 0;
+				if (keep_this)
+				{
+					x |= a & ~b;
+				}
+				if (keep_other)
+				{
+					x |= b & ~a;
+				}
+				if (keep_both)
+				{
+					x |= a & b;
+				}
+				bits[w] = x;
+				size += Long.bitCount(x);
+			}
+			if (size > bits.length)
+			{
+				return new TestSuite(m_numVars, null, bits, size);
+			}
+			return create(m_numVars, new TestSuite(m_numVars, null, bits, size).toArray(), size);
+		}
+		long[] a = m_bits == null ? m_ids : toArray();
+		long[] b = s.m_bits == null ? s.m_ids : s.toArray();
+		long[] merged = new long[a.length + b.length];
+		int i = 0, j = 0, size = 0;
+		while (i < a.length || j < b.length)
+		{
+			if (j == b.length || (i < a.length && a[i] < b[j]))
+			{
+				if (keep_this)
+				{
+					merged[size++] = a[i];
+				}
+				i++;
+			}
+			else if (i == a.length || b[j] < a[i])
+			{
+				if (keep_other)
+				{
+					merged[size++] = b[j];
+				}
+				j++;
+			}
+			else
+			{
+				if (keep_both)
+				{
+					merged[size++] = a[i];
+				}
+				i++;
+				j++;
+			}
+		}
+		return create(m_numVars, merged, size);
+	}
+	
+	@Override
+	public boolean equals(Object o)
+	{
+		if (o == null || !(o instanceof TestSuite))
+		{
+			return false;
+		}
+		TestSuite s = (TestSuite) o;
+		if (s.m_numVars != m_numVars || s.m_size != m_size)
+		{
+			return false;
+		}
+		if (m_bits != null && s.m_bits != null)
+		{
+			return Arrays.equals(m_bits, s.m_bits);
+		}
+		return Arrays.equals(toArray(), s.toArray());
+	}
+	
+	@Override
+	public int hashCode()
+	{
+		return Arrays.hashCode(toArray());
+	}
+	
+	@Override
+	public String toString()
+	{
+		return Arrays.toString(toArray());
+	}
+}
@@ -26,8 +26,11 @@ public interface Truncation
 	 * Applies the transformation to a hologram node.
 	 * @param n The root of the tree to transform
 	 * @return The resulting tree, or <tt>null</tt> if the empty tree is
-	 * produced. Note that in general, this tree should be a copy of the 
-	 * original (i.e. no shared objects).
+	 * produced. This tree must be treated as read-only: it may contain
+	 * {@link FrozenHologramNode}s shared with other trees, such as the dummy
+	 * nodes of {@link HologramNode#dummyNode()}, and subtrees of
+	 * <tt>n</tt>. A copy should be made with
+	 * {@link HologramNode#duplicate(boolean)} before modifying it.
 	 */
 	/*@ null @*/ public HologramNode applyTo(/*@ not_null @*/ HologramNode n);
 	
@@ -29,12 +29,31 @@ public class TruncationEntropy extends TruncationMetric
 	 */
 	protected Map<Integer,Integer> m_entries;
 	
+	/**
+	 * The number of threads used to enumerate valuations
+	 */
+	protected int m_threads = 1;
+	
 	public TruncationEntropy()
 	{
 		super();
 		m_entries = new HashMap<Integer,Integer>();
 	}
 	
+	/**
+	 * Sets the number of threads used to enumerate valuations. The value
+	 * of the entropy does not depend on this setting.
+	 * @param threads The number of threads (the default is 1)
+	 */
+	public void setThreads(int threads)
+	{
+		if (threads < 1)
+		{
+			throw new IllegalArgumentException("Invalid number of threads: " + threads);
+		}
+		m_threads = threads;
+	}
+	
 	public static double calculate(Operator formula, Set<Truncation> criterion)
 	{
 		TruncationEntropy te = new TruncationEntropy();
@@ -45,22 +64,19 @@ public class TruncationEntropy extends TruncationMetric
 	{
 		List<Truncation> l_criterion = setToList(criterion);
 		ObjectIdentifier<NumericTuple> tuple_identifier = new ObjectIdentifier<NumericTuple>();
-		ValuationIterator it = new ValuationIterator(formula.getSortedVariables());
 		int total = 0;
-		while (it.hasNext())
+		for (Map.Entry<NumericTuple,Integer> e : countTuples(formula, l_criterion, m_threads).entrySet())
 		{
-			Valuation v = it.next();
-			HologramNode original = formula.evaluate(v);
-			int hnt = tuple_identifier.getObjectId(getTuple(original, l_criterion));
+			int hnt = tuple_identifier.getObjectId(e.getKey());
 			if (m_entries.containsKey(hnt))
 			{
-				m_entries.put(hnt, m_entries.get(hnt) + 1);
+				m_entries.put(hnt, m_entries.get(hnt) + e.getValue());
 			}
 			else
 			{
-				m_entries.put(hnt, 1);
+				m_entries.put(hnt, e.getValue());
 			}
-			total++;
+			total += e.getValue();
 		}
 		double entropy = 0;
 		for (Map.Entry<Integer,Integer> e : m_entries.entrySet())
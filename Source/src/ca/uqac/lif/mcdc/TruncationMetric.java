@@ -2,7 +2,9 @@ package ca.uqac.lif.mcdc;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class TruncationMetric 
 {
@@ -14,7 +16,13 @@ public class TruncationMetric
 	/**
 	 * An identifier for the holograms manipulated by the metric.
 	 */
-	protected transient ObjectIdentifier<HologramNode> m_hologramIdentifier;
+	protected transient ObjectIdentifier<HologramSignature> m_hologramIdentifier;
+	
+	/**
+	 * The encoder giving the signature of each truncated hologram; holograms
+	 * are identified by their signature.
+	 */
+	protected transient HologramEncoder m_encoder;
 	
 	/**
 	 * Creates a new truncation metric.
@@ -22,7 +30,8 @@ public class TruncationMetric
 	public TruncationMetric()
 	{
 		super();
-		m_hologramIdentifier = new ObjectIdentifier<HologramNode>();
+		m_hologramIdentifier = new ObjectIdentifier<HologramSignature>();
+		m_encoder = new HologramEncoder();
 	}
 	/**
 	 * Converts a collection of elements into a list by imposing an arbitrary
@@ -46,11 +55,94 @@ public class TruncationMetric
 		for (Truncation t : criterion)
 		{
 			HologramNode n = t.applyTo(original);
-			tuple.add(m_hologramIdentifier.getObjectId(n));
+			tuple.add(m_hologramIdentifier.getObjectId(m_encoder.encode(n)));
 		}
 		return tuple;
 	}
 	
+	/**
+	 * Counts the valuations of a formula producing each tuple of truncated
+	 * holograms. With more than one thread, the range of valuations is split
+	 * into {@link ValuationRange}s; each part numbers its holograms with its
+	 * own identifier, but shares the encoder of this metric, and the parts
+	 * are merged in the order of their ranges.
+	 * In both cases, the result is the same.
+	 * @param formula The formula
+	 * @param criterion The truncations producing each tuple
+	 * @param threads The number of threads to use
+	 * @return A map associating each tuple to its number of valuations,
+	 * iterated in the order in which tuples are first produced
+	 */
+	protected Map<NumericTuple,Integer> countTuples(Operator formula, final List<Truncation> criterion, int threads)
+	{
+		final BitslicedEvaluator evaluator = formula.freeze().getEvaluator();
+		List<ValuationRange> ranges = new ValuationRange(formula.getSymbolTable()).split(threads);
+		if (threads <= 1)
+		{
+			return countTuples(evaluator, ranges.get(0), this, criterion);
+		}
+		List<TruncationMetric> metrics = new ArrayList<TruncationMetric>(ranges.size());
+		for (int i = 0; i < ranges.size(); i++)
+		{
+			TruncationMetric metric = new TruncationMetric();
+			metric.m_encoder = m_encoder;
+			metrics.add(metric);
+		}
+		final List<TruncationMetric> f_metrics = metrics;
+		final List<ValuationRange> f_ranges = ranges;
+		List<Map<NumericTuple,Integer>> parts = ValuationRange.process(ranges, threads, new ValuationRange.Task<Map<NumericTuple,Integer>>() {
+			@Override
+			public Map<NumericTuple,Integer> process(ValuationRange r)
+			{
+				return countTuples(evaluator, r, f_metrics.get(f_ranges.indexOf(r)), criterion);
+			}
+		});
+		Map<NumericTuple,Integer> counts = new LinkedHashMap<NumericTuple,Integer>();
+		for (int i = 0; i < parts.size(); i++)
+		{
+			int[] global_ids = metrics.get(i).m_hologramIdentifier.translate(m_hologramIdentifier);
+			for (Map.Entry<NumericTuple,Integer> e : parts.get(i).entrySet())
+			{
+				NumericTuple tuple = new NumericTuple();
+				for (int id : e.getKey().m_elements)
+				{
+					tuple.add(global_ids[id]);
+				}
+				Integer count = counts.get(tuple);
+				counts.put(tuple, count == null ? e.getValue() : count + e.getValue());
+			}
+		}
+		return counts;
+	}
+	
+	/**
+	 * Counts the valuations of a range producing each tuple of truncated
+	 * holograms.
+	 * @param evaluator The evaluator for the formula
+	 * @param r The range of valuations
+	 * @param metric The metric whose identifier numbers the holograms
+	 * @param criterion The truncations producing each tuple
+	 * @return A map associating each tuple to its number of valuations,
+	 * iterated in the order in which tuples are first produced
+	 */
+	protected static Map<NumericTuple,Integer> countTuples(BitslicedEvaluator evaluator, ValuationRange r, TruncationMetric metric, List<Truncation> criterion)
+	{
+		Map<NumericTuple,Integer> counts = new LinkedHashMap<NumericTuple,Integer>();
+		long[] words = new long[evaluator.getNodeCount()];
+		int per_block = evaluator.getValuationsPerBlock();
+		for (long b = r.getFirstBlock(per_block); b < r.getLastBlock(per_block); b++)
+		{
+			evaluator.evaluate(b, words);
+			for (int k = 0; k < per_block; k++)
+			{
+				NumericTuple tuple = metric.getTuple(evaluator.getHologram(words, k), criterion);
+				Integer count = counts.get(tuple);
+				counts.put(tuple, count == null ? 1 : count + 1);
+			}
+		}
+		return counts;
+	}
+	
 	/**
 	 * Utility method to compute the base-2 logarithm of a number.
 	 * @param x The number
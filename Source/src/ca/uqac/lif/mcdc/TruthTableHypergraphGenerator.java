@@ -0,0 +1,331 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Builds a hypergraph from the truth tables of the subformulas of a
+ * formula. Each node of the formula is given a table of
+ * 2<sup><i>n</i></sup> bits (see {@link BitslicedEvaluator#getTruthTables()});
+ * for each truncation, the valuation space is then split into classes of
+ * valuations producing the same truncated tree using only word-level
+ * operations on these tables, 64 valuations at a time. The tree of a class
+ * is obtained by evaluating the formula on a single valuation of that
+ * class. The resulting hypergraph is the same as the one produced by
+ * {@link HypergraphGenerator}.
+ * <p>
+ * As for {@link BddHypergraphGenerator}, the classes are only computed for
+ * {@link KeepIfDetermines}, {@link KeepValuesOf} and
+ * {@link KeepNthClause}; other truncations are not supported.
+ */
+public class TruthTableHypergraphGenerator
+{
+	/**
+	 * Determines if all the truncations of an array can be handled by this
+	 * generator.
+	 * @param truncations The truncations
+	 * @return <tt>true</tt> if they are all supported, <tt>false</tt>
+	 * otherwise
+	 */
+	public static boolean supports(Truncation ... truncations)
+	{
+		for (Truncation t : truncations)
+		{
+			if (!(t instanceof KeepIfDetermines || t instanceof KeepValuesOf || t instanceof KeepNthClause))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	public Hypergraph getGraph(Operator phi, Set<Truncation> truncations)
+	{
+		return getGraph(phi, truncations.toArray(new Truncation[truncations.size()]));
+	}
+	
+	public Hypergraph getGraph(Operator phi, Truncation ... truncations)
+	{
+		return getGraph(phi, null, truncations);
+	}
+	
+	/**
+	 * Builds the hypergraph of a formula, restricted to a subset of its
+	 * valuations.
+	 * @param phi The formula
+	 * @param domain The truth table of the valuations to keep, in the format
+	 * of {@link BitslicedEvaluator#getTruthTable()}, or <tt>null</tt> to keep
+	 * all valuations
+	 * @param truncations The truncations to apply
+	 * @return The hypergraph
+	 */
+	public Hypergraph getGraph(Operator phi, long[] domain, Truncation ... truncations)
+	{
+		BitslicedEvaluator evaluator = phi.freeze().getEvaluator();
+		SymbolTable symbols = evaluator.getSymbolTable();
+		long[][] tables = evaluator.getTruthTables();
+		Hypergraph h = new Hypergraph(new HologramEncoder(symbols));
+		for (Truncation t : truncations)
+		{
+			for (long[] c : getClasses(evaluator, tables, t))
+			{
+				if (domain != null)
+				{
+					c = and(c, domain);
+				}
+				long first = first(c);
+				if (first < 0)
+				{
+					continue;
+				}
+				Valuation v = symbols.unpack(first);
+				Hypergraph.Hyperedge e = h.getEdge(t.applyTo(phi.evaluate(v)));
+				for (int w = 0; w < c.length; w++)
+				{
+					long bits = c[w];
+					while (bits != 0)
+					{
+						e.add(((long) w << 6) | Long.numberOfTrailingZeros(bits));
+						bits &= bits - 1;
+					}
+				}
+			}
+		}
+		return h;
+	}
+	
+	/**
+	 * Splits the valuations of a formula into classes that a truncation
+	 * turns into the same tree.
+	 * @param evaluator The evaluator of the formula
+	 * @param tables The truth table of each node of the formula
+	 * @param t The truncation
+	 * @return The list of classes; some of them may be empty
+	 */
+	protected static List<long[]> getClasses(BitslicedEvaluator evaluator, long[][] tables, Truncation t)
+	{
+		int root = evaluator.getRoot();
+		long mask = evaluator.getMask();
+		long[] f = tables[root];
+		List<long[]> classes = new ArrayList<long[]>();
+		if (t instanceof KeepIfDetermines)
+		{
+			// Either a leaf of the variable, with its value, or a dummy node
+			// with the value of the formula
+			String name = ((KeepIfDetermines) t).m_name;
+			long[] det = determines(evaluator, tables, root, name, new long[tables.length][]);
+			int slot = evaluator.getSymbolTable().getSlot(name);
+			long[] x = slot < 0 ? new long[f.length] : getLiteral(slot, f.length, mask);
+			classes.add(and(det, x));
+			classes.add(and(det, not(x, mask)));
+			classes.add(and(not(det, mask), f));
+			classes.add(and(not(det, mask), not(f, mask)));
+		}
+		else if (t instanceof KeepValuesOf)
+		{
+			// One class for each combination of values of the variables kept
+			List<long[]> literals = new ArrayList<long[]>();
+			List<Integer> slots = new ArrayList<Integer>();
+			for (String name : ((KeepValuesOf) t).m_variables)
+			{
+				int slot = evaluator.getSymbolTable().getSlot(name);
+				if (slot >= 0 && !slots.contains(slot))
+				{
+					slots.add(slot);
+					literals.add(getLiteral(slot, f.length, mask));
+				}
+			}
+			for (long combination = 0; combination < 1L << literals.size(); combination++)
+			{
+				long[] c = not(new long[f.length], mask);
+				for (int i = 0; i < literals.size(); i++)
+				{
+					long[] x = literals.get(i);
+					c = and(c, ((combination >>> i) & 1L) != 0 ? x : not(x, mask));
+				}
+				classes.add(c);
+			}
+		}
+		else if (t instanceof KeepNthClause)
+		{
+			// The values of the formula and of the clause
+			int clause_nb = ((KeepNthClause) t).m_clauseNb;
+			int[] operands = evaluator.m_children[root];
+			List<long[]> parts = new ArrayList<long[]>(2);
+			parts.add(f);
+			parts.add(not(f, mask));
+			if (clause_nb < operands.length)
+			{
+				long[] c = tables[operands[clause_nb]];
+				for (long[] part : parts)
+				{
+					classes.add(and(part, c));
+					classes.add(and(part, not(c, mask)));
+				}
+			}
+			else
+			{
+				classes.addAll(parts);
+			}
+		}
+		else
+		{
+			throw new IllegalArgumentException("Truncation " + t + " cannot be computed from truth tables");
+		}
+		return classes;
+	}
+	
+	/**
+	 * Computes the set of valuations for which
+	 * {@link KeepIfDetermines#determines(HologramNode, String)} finds a leaf
+	 * of a variable in the hologram of a node.
+	 * @param evaluator The evaluator of the formula
+	 * @param tables The truth table of each node of the formula
+	 * @param node The index of the node
+	 * @param name The name of the variable
+	 * @param computed The sets already computed for some nodes
+	 * @return The set of valuations
+	 */
+	protected static long[] determines(BitslicedEvaluator evaluator, long[][] tables, int node, String name, long[][] computed)
+	{
+		if (computed[node] != null)
+		{
+			return computed[node];
+		}
+		long mask = evaluator.getMask();
+		int length = tables[node].length;
+		long[] r;
+		switch (evaluator.m_types[node])
+		{
+		case BitslicedEvaluator.ATOM:
+			r = new long[length];
+			if (evaluator.m_labels[node].equals(name))
+			{
+				r = not(r, mask);
+			}
+			break;
+		case BitslicedEvaluator.NOT:
+			r = determines(evaluator, tables, evaluator.m_children[node][0], name, computed);
+			break;
+		default:
+			// Conjunction: a false operand that does not determine the variable
+			// makes a false conjunction fail; dually for a disjunction
+			boolean is_and = evaluator.m_types[node] == BitslicedEvaluator.AND;
+			long[] any = new long[length];
+			long[] all = not(new long[length], mask);
+			for (int c : evaluator.m_children[node])
+			{
+				long[] d_c = determines(evaluator, tables, c, name, computed);
+				long[] f_c = is_and ? tables[c] : not(tables[c], mask);
+				any = or(any, d_c);
+				all = and(all, or(d_c, f_c));
+			}
+			long[] f = is_and ? tables[node] : not(tables[node], mask);
+			r = and(any, or(f, all));
+		}
+		computed[node] = r;
+		return r;
+	}
+	
+	/**
+	 * Gets the truth table of a variable.
+	 * @param slot The slot of the variable
+	 * @param length The number of words in the table
+	 * @param mask The mask of the bits that correspond to actual valuations
+	 * in a word
+	 * @return The table
+	 */
+	protected static long[] getLiteral(int slot, int length, long mask)
+	{
+		long[] x = new long[length];
+		for (int w = 0; w < length; w++)
+		{
+			x[w] = BitslicedEvaluator.getVariableWord(slot, w) & mask;
+		}
+		return x;
+	}
+	
+	/**
+	 * Computes the intersection of two sets of valuations.
+	 * @param a The first set
+	 * @param b The second set
+	 * @return The intersection
+	 */
+	protected static long[] and(long[] a, long[] b)
+	{
+		long[] r = new long[a.length];
+		for (int w = 0; w < r.length; w++)
+		{
+			r[w] = a[w] & b[w];
+		}
+		return r;
+	}
+	
+	/**
+	 * Computes the union of two sets of valuations.
+	 * @param a The first set
+	 * @param b The second set
+	 * @return The union
+	 */
+	protected static long[] or(long[] a, long[] b)
+	{
+		long[] r = new long[a.length];
+		for (int w = 0; w < r.length; w++)
+		{
+			r[w] = a[w] | b[w];
+		}
+		return r;
+	}
+	
+	/**
+	 * Computes the complement of a set of valuations.
+	 * @param a The set
+	 * @param mask The mask of the bits that correspond to actual valuations
+	 * in a word
+	 * @return The complement
+	 */
+	protected static long[] not(long[] a, long mask)
+	{
+		long[] r = new long[a.length];
+		for (int w = 0; w < r.length; w++)
+		{
+			r[w] = ~a[w] & mask;
+		}
+		return r;
+	}
+	
+	/**
+	 * Gets the smallest ID in a set of valuations.
+	 * @param a The set
+	 * @return The ID, or -1 if the set is empty
+	 */
+	protected static long first(long[] a)
+	{
+		for (int w = 0; w < a.length; w++)
+		{
+			if (a[w] != 0)
+			{
+				return ((long) w << 6) | Long.numberOfTrailingZeros(a[w]);
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,47 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc;
+
+import java.util.Random;
+
+/**
+ * Draws valuations uniformly at random.
+ */
+public class UniformSampler implements ValuationSampler
+{
+	/**
+	 * The source of randomness.
+	 */
+	protected final Random m_random;
+	
+	/**
+	 * Creates a new uniform sampler.
+	 * @param seed The seed of the random generator
+	 */
+	public UniformSampler(long seed)
+	{
+		super();
+		m_random = new Random(seed);
+	}
+	
+	@Override
+	public long next(int num_vars)
+	{
+		return m_random.nextLong() & ((1L << num_vars) - 1);
+	}
+}
@@ -17,29 +17,61 @@
  */
 package ca.uqac.lif.mcdc;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
 /**
- * An assignment of truth values to a set of variables.
+ * An assignment of truth values to a set of variables. A valuation can be
+ * tied to the {@link SymbolTable} of a formula; in such a case, the values
+ * of the variables in this table are stored in an array indexed by their
+ * slot, and can be read without looking up their name.
  */
 public class Valuation
 {
 	protected static final String[] s_alphabet = {"a", "b", "c", "d", "e", "f", "g", "h", "i", "j", "k", "l", "m"};
 	
 	protected Map<String,Boolean> m_values;
-
+	
+	/**
+	 * The symbol table this valuation is tied to, if any.
+	 */
+	protected transient SymbolTable m_symbols = null;
+	
+	/**
+	 * The values of the variables of the symbol table, indexed by their slot.
+	 * A <tt>null</tt> element indicates that the variable has no value.
+	 */
+	protected Boolean[] m_slotValues = null;
+	
 	public Valuation()
 	{
 		super();
 		m_values = new HashMap<String,Boolean>();
 	}
 	
+	/**
+	 * Creates a new empty valuation tied to a symbol table.
+	 * @param symbols The symbol table
+	 */
+	public Valuation(SymbolTable symbols)
+	{
+		this();
+		m_symbols = symbols;
+		m_slotValues = new Boolean[symbols.size()];
+	}
+	
 	public Valuation(Valuation v)
 	{
 		this();
 		m_values.putAll(v.m_values);
+		if (v.m_symbols != null)
+		{
+			m_symbols = v.m_symbols;
+			m_slotValues = Arrays.copyOf(v.m_slotValues, v.m_slotValues.length);
+		}
 	}
 	
 	public static Valuation get(boolean ... values)
@@ -56,22 +88,73 @@ public class Valuation
 	{
 		for (int i = 0; i < names.length; i++)
 		{
-			m_values.put(names[i], values[i]);
+			set(names[i], values[i]);
 		}
 	}
 	
 	public void set(String name, boolean value)
 	{
+		if (m_symbols != null)
+		{
+			int slot = m_symbols.getSlot(name);
+			if (slot >= 0)
+			{
+				m_slotValues[slot] = value;
+				return;
+			}
+		}
 		m_values.put(name, value);
 	}
 	
+	/**
+	 * Sets the value of a variable designated by its slot. This method can
+	 * only be called on a valuation tied to a symbol table.
+	 * @param slot The slot of the variable
+	 * @param value The value
+	 */
+	public void set(int slot, boolean value)
+	{
+		m_slotValues[slot] = value;
+	}
+	
+	/**
+	 * Gets the symbol table this valuation is tied to.
+	 * @return The symbol table, or <tt>null</tt> if the valuation is not
+	 * tied to any table
+	 */
+	public SymbolTable getSymbolTable()
+	{
+		return m_symbols;
+	}
+	
 	public Set<String> getVariables()
 	{
-		return m_values.keySet();
+		if (m_symbols == null)
+		{
+			return m_values.keySet();
+		}
+		Set<String> vars = new HashSet<String>();
+		for (int i = 0; i < m_slotValues.length; i++)
+		{
+			if (m_slotValues[i] != null)
+			{
+				vars.add(m_symbols.getName(i));
+			}
+		}
+		vars.addAll(m_values.keySet());
+		return vars;
 	}
 	
 	public Boolean get(String name)
 	{
+		if (m_symbols != null)
+		{
+			int slot = m_symbols.getSlot(name);
+			if (slot >= 0)
+			{
+				return m_slotValues[slot];
+			}
+		}
 		if (m_values.containsKey(name))
 		{
 			return m_values.get(name);
@@ -79,6 +162,17 @@ public class Valuation
 		return null;
 	}
 	
+	/**
+	 * Gets the value of a variable designated by its slot. This method can
+	 * only be called on a valuation tied to a symbol table.
+	 * @param slot The slot of the variable
+	 * @return The value, or <tt>null</tt> if the variable has no value
+	 */
+	public Boolean get(int slot)
+	{
+		return m_slotValues[slot];
+	}
+	
 	/**
 	 * Counts the number of variables set to <tt>true</tt> in the current
 	 * valuation.
@@ -94,6 +188,36 @@ public class Valuation
 				cnt++;
 			}
 		}
+		if (m_symbols != null)
+		{
+			for (Boolean b : m_slotValues)
+			{
+				if (b != null && b == true)
+				{
+					cnt++;
+				}
+			}
+		}
+		return cnt;
+	}
+	
+	/**
+	 * Counts the number of variables that have a value in this valuation.
+	 * @return The number of variables
+	 */
+	protected int size()
+	{
+		int cnt = m_values.size();
+		if (m_symbols != null)
+		{
+			for (Boolean b : m_slotValues)
+			{
+				if (b != null)
+				{
+					cnt++;
+				}
+			}
+		}
 		return cnt;
 	}
 	
@@ -105,21 +229,17 @@ public class Valuation
 			return false;
 		}
 		Valuation v = (Valuation) o;
-		if (m_values.size() != v.m_values.size())
+		if (m_symbols != null && m_symbols == v.m_symbols)
+		{
+			return Arrays.equals(m_slotValues, v.m_slotValues) && m_values.equals(v.m_values);
+		}
+		if (size() != v.size())
 		{
 			return false;
 		}
-		for (Map.Entry<String,Boolean> entry : m_values.entrySet())
+		for (String key : getVariables())
 		{
-			String key = entry.getKey();
-			if (v.m_values.containsKey(key))
-			{
-				if (m_values.get(key) != v.m_values.get(key))
-				{
-					return false;
-				}
-			}
-			else
+			if (get(key) != v.get(key))
 			{
 				return false;
 			}
@@ -127,9 +247,52 @@ public class Valuation
 		return true;
 	}
 	
+	/**
+	 * Computes a hash code from the variables and their values. Each
+	 * variable contributes a scrambled value of its name and value, and the
+	 * contributions are added, so that two equal valuations have the same
+	 * hash code whether they are tied to a symbol table or not.
+	 */
 	@Override
 	public int hashCode()
 	{
-		return m_values.size();
+		int h = 0;
+		for (Map.Entry<String,Boolean> e : m_values.entrySet())
+		{
+			if (e.getValue() != null)
+			{
+				h += hash(e.getKey(), e.getValue());
+			}
+		}
+		if (m_symbols != null)
+		{
+			for (int i = 0; i < m_slotValues.length; i++)
+			{
+				if (m_slotValues[i] != null)
+				{
+					h += hash(m_symbols.getName(i), m_slotValues[i]);
+				}
+			}
+		}
+		return h;
+	}
+	
+	/**
+	 * Computes the contribution of a variable to the hash code of a
+	 * valuation.
+	 * @param name The name of the variable
+	 * @param value Its value
+	 * @return The contribution
+	 */
+	protected static int hash(String name, boolean value)
+	{
+		int h = name.hashCode() * 2 + (value ? 1 : 0);
+		// Finalization step of MurmurHash3
+		h ^= h >>> 16;
+		h *= 0x85ebca6b;
+		h ^= h >>> 13;
+		h *= 0xc2b2ae35;
+		h ^= h >>> 16;
+		return h;
 	}
 }
@@ -48,6 +48,28 @@ public class ValuationIterator implements Iterator<Valuation>
    */
   protected boolean m_update;
   
+  /**
+   * The symbol table the produced valuations are tied to, if any
+   */
+  protected SymbolTable m_symbols = null;
+  
+  /**
+   * The ID of the current valuation, where bit <i>i</i> is the value of
+   * the <i>i</i>-th variable
+   */
+  protected long m_index = 0;
+  
+  /**
+   * A BDD holding the constraint that enumerated valuations must satisfy,
+   * if any
+   */
+  protected Bdd m_bdd = null;
+  
+  /**
+   * The function of the constraint in {@link #m_bdd}
+   */
+  protected int m_constraint = Bdd.TRUE;
+  
   /**
    * Creates a new valuation iterator.
    * @param domain The set of variables. The iterator will enumerate all
@@ -94,30 +116,98 @@ public class ValuationIterator implements Iterator<Valuation>
     m_update = false;
   }
   
+  /**
+   * Creates a new valuation iterator over the variables of a symbol table.
+   * Valuations are enumerated in the same order as with
+   * {@link #ValuationIterator(String...)} called on the table's names, but
+   * each of them is tied to the symbol table and stores its values by slot.
+   * @param symbols The symbol table
+   */
+  public ValuationIterator(SymbolTable symbols)
+  {
+    this(symbols.getNames());
+    m_symbols = symbols;
+  }
+  
+  /**
+   * Restricts the enumeration to the valuations that satisfy a constraint,
+   * such as the mutual exclusion of two conditions. This method must be
+   * called before the enumeration starts. The iterator then jumps from one
+   * valuation satisfying the constraint to the next (see
+   * {@link Bdd#next(int, long)}), so that the cost of the enumeration
+   * depends on the number of these valuations rather than on the size of
+   * the whole domain.
+   * @param constraint The constraint, whose variables must all be part of
+   * the domain of the iterator
+   */
+  public void setConstraint(Operator constraint)
+  {
+    SymbolTable symbols = new SymbolTable(m_variables);
+    for (String v : constraint.getVariables())
+    {
+      if (symbols.getSlot(v) < 0)
+      {
+        throw new IllegalArgumentException("Variable " + v + " is not in the domain");
+      }
+    }
+    m_bdd = new Bdd(m_variables.length);
+    m_constraint = m_bdd.build(constraint, symbols);
+  }
+  
   @Override
   public boolean hasNext()
   {
     if (m_update)
     {
-      for (int i = 0; i < m_vector.length; i++)
+      increment();
+      m_update = false;
+    }
+    if (!m_done && m_bdd != null && !m_bdd.contains(m_constraint, m_index))
+    {
+      // Jump directly to the next valuation satisfying the constraint
+      long next = m_bdd.next(m_constraint, m_index);
+      if (next < 0)
+      {
+        m_done = true;
+      }
+      else
       {
-        if (m_vector[i] == false)
+        m_index = next;
+        for (int i = 0; i < m_vector.length; i++)
         {
-          m_vector[i] = true;
-          break;
+          m_vector[i] = ((next >>> i) & 1L) != 0;
         }
-        else
+      }
+    }
+    return !m_done;
+  }
+  
+  /**
+   * Moves the array of values to the next valuation in the enumeration.
+   */
+  protected void increment()
+  {
+    if (m_vector.length == 0)
+    {
+      m_done = true;
+    }
+    for (int i = 0; i < m_vector.length; i++)
+    {
+      if (m_vector[i] == false)
+      {
+        m_vector[i] = true;
+        break;
+      }
+      else
+      {
+        m_vector[i] = false;
+        if (i == m_vector.length - 1)
         {
-          m_vector[i] = false;
-          if (i == m_vector.length - 1)
-          {
-            m_done = true;
-          }
+          m_done = true;
         }
       }
-      m_update = false;
     }
-    return !m_done;
+    m_index++;
   }
 
   @Override
@@ -127,15 +217,66 @@ public class ValuationIterator implements Iterator<Valuation>
     {
       throw new NoSuchElementException("No new valuation to enumerate");
     }
-    Valuation v = new Valuation();
-    for (int i = 0; i < m_vector.length; i++)
+    Valuation v;
+    if (m_symbols != null)
     {
-      v.set(m_variables[i], m_vector[i]);
+      v = new Valuation(m_symbols);
+      for (int i = 0; i < m_vector.length; i++)
+      {
+        v.set(i, m_vector[i]);
+      }
+    }
+    else
+    {
+      v = new Valuation();
+      for (int i = 0; i < m_vector.length; i++)
+      {
+        v.set(m_variables[i], m_vector[i]);
+      }
     }
     m_update = true;
     return v;
   }
   
+  /**
+   * Moves to the next valuation without creating a {@link Valuation}
+   * object. This method is an alternative to {@link #hasNext()} and
+   * {@link #next()}; the current valuation is then read with
+   * {@link #getIndex()} and {@link #get(int)}.
+   * @return <tt>true</tt> if the iterator is on a valuation,
+   * <tt>false</tt> if all valuations have been enumerated
+   */
+  public boolean advance()
+  {
+    if (!hasNext())
+    {
+      return false;
+    }
+    m_update = true;
+    return true;
+  }
+  
+  /**
+   * Gets the ID of the current valuation. Bit <i>i</i> of this ID is the
+   * value of the <i>i</i>-th variable of the domain; IDs are therefore
+   * only meaningful for domains of at most 64 variables.
+   * @return The ID
+   */
+  public long getIndex()
+  {
+    return m_index;
+  }
+  
+  /**
+   * Gets the value of a variable in the current valuation.
+   * @param i The position of the variable in the domain
+   * @return The value of the variable
+   */
+  public boolean get(int i)
+  {
+    return m_vector[i];
+  }
+  
   @Override
   public void remove()
   {
@@ -0,0 +1,323 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A contiguous range of valuation IDs, which can be traversed with a cursor
+ * and split in two halves in constant time. Valuation IDs follow the
+ * convention of {@link SymbolTable#pack(Valuation)}: bit <i>i</i> of an ID
+ * is the value of the variable at slot <i>i</i>. The cursor exposes the
+ * current valuation as its ID, so that enumerating a range does not create
+ * any object.
+ * <p>
+ * A range plays the role of a splittable iterator: large ranges can be
+ * divided with {@link #trySplit()} or {@link #split(int)} and the pieces
+ * processed by different threads with
+ * {@link #process(List, int, Task)}. Split points are multiples of
+ * {@link BitslicedEvaluator#BLOCK_SIZE}, so that each piece covers whole
+ * blocks of a {@link BitslicedEvaluator}.
+ */
+public class ValuationRange
+{
+	/**
+	 * The first ID of the range.
+	 */
+	protected long m_from;
+	
+	/**
+	 * The ID following the last ID of the range.
+	 */
+	protected long m_to;
+	
+	/**
+	 * The ID of the current valuation of the cursor, or -1 if the cursor
+	 * has not been advanced yet.
+	 */
+	protected long m_index;
+	
+	/**
+	 * The ID of the next valuation the cursor will move to.
+	 */
+	protected long m_next;
+	
+	/**
+	 * Creates a range containing all the valuations of the variables in a
+	 * symbol table.
+	 * @param symbols The symbol table
+	 */
+	public ValuationRange(SymbolTable symbols)
+	{
+		this(0, getSize(symbols));
+	}
+	
+	/**
+	 * Creates a range of valuation IDs.
+	 * @param from The first ID of the range
+	 * @param to The ID following the last ID of the range
+	 */
+	public ValuationRange(long from, long to)
+	{
+		super();
+		if (from < 0 || to < from)
+		{
+			throw new IllegalArgumentException("Invalid range [" + from + "," + to + ")");
+		}
+		m_from = from;
+		m_to = to;
+		m_next = from;
+		m_index = -1;
+	}
+	
+	/**
+	 * Gets the number of valuations over the variables of a symbol table.
+	 * @param symbols The symbol table
+	 * @return The number of valuations
+	 */
+	protected static long getSize(SymbolTable symbols)
+	{
+		if (symbols.size() > SymbolTable.MAX_VARIABLES)
+		{
+			throw new IllegalArgumentException("Too many variables to enumerate: " + symbols.size());
+		}
+		return 1L << symbols.size();
+	}
+	
+	/**
+	 * Gets the first ID of the range.
+	 * @return The ID
+	 */
+	public long getFrom()
+	{
+		return m_from;
+	}
+	
+	/**
+	 * Gets the ID following the last ID of the range.
+	 * @return The ID
+	 */
+	public long getTo()
+	{
+		return m_to;
+	}
+	
+	/**
+	 * Gets the number of valuations the cursor has yet to visit.
+	 * @return The number of valuations
+	 */
+	public long getRemaining()
+	{
+		return m_to - m_next;
+	}
+	
+	/**
+	 * Moves the cursor to the next valuation of the range.
+	 * @return <tt>true</tt> if the cursor is on a valuation,
+	 * <tt>false</tt> if the range is exhausted
+	 */
+	public boolean advance()
+	{
+		if (m_next >= m_to)
+		{
+			return false;
+		}
+		m_index = m_next++;
+		return true;
+	}
+	
+	/**
+	 * Gets the ID of the valuation the cursor is on. This ID is also a
+	 * bitmask of the values of the variables.
+	 * @return The ID
+	 */
+	public long getIndex()
+	{
+		return m_index;
+	}
+	
+	/**
+	 * Gets the value of a variable in the valuation the cursor is on.
+	 * @param slot The slot of the variable
+	 * @return The value of the variable
+	 */
+	public boolean get(int slot)
+	{
+		return ((m_index >>> slot) & 1L) != 0;
+	}
+	
+	/**
+	 * Splits off the first half of the valuations the cursor has yet to
+	 * visit. This range keeps the second half.
+	 * @return A new range with the first half, or <tt>null</tt> if the
+	 * remaining valuations fit in a single block and are not split
+	 */
+	public ValuationRange trySplit()
+	{
+		long blocks = (m_to - m_next) / BitslicedEvaluator.BLOCK_SIZE;
+		if (blocks < 2 || m_next % BitslicedEvaluator.BLOCK_SIZE != 0)
+		{
+			return null;
+		}
+		long mid = m_next + (blocks / 2) * BitslicedEvaluator.BLOCK_SIZE;
+		ValuationRange prefix = new ValuationRange(m_next, mid);
+		m_from = mid;
+		m_next = mid;
+		return prefix;
+	}
+	
+	/**
+	 * Splits the valuations the cursor has yet to visit into at most a given
+	 * number of consecutive ranges. This range is left exhausted.
+	 * @param parts The maximum number of ranges
+	 * @return The list of ranges, in the order of their IDs
+	 */
+	public List<ValuationRange> split(int parts)
+	{
+		List<ValuationRange> ranges = new ArrayList<ValuationRange>(Math.max(1, parts));
+		long blocks = (m_to - m_next) / BitslicedEvaluator.BLOCK_SIZE;
+		if (parts <= 1 || blocks < 2 || m_next % BitslicedEvaluator.BLOCK_SIZE != 0)
+		{
+			ranges.add(new ValuationRange(m_next, m_to));
+		}
+		else
+		{
+			long per_part = blocks / Math.min(parts, blocks);
+			long start = m_next;
+			for (int i = 0; start < m_to; i++)
+			{
+				long end = start + per_part * BitslicedEvaluator.BLOCK_SIZE;
+				if (i == parts - 1 || end > m_to)
+				{
+					end = m_to;
+				}
+				ranges.add(new ValuationRange(start, end));
+				start = end;
+			}
+		}
+		m_next = m_to;
+		return ranges;
+	}
+	
+	/**
+	 * Gets the index of the first evaluator block covered by this range.
+	 * @param per_block The number of valuations per block
+	 * @return The index of the block
+	 * @see BitslicedEvaluator#getValuationsPerBlock()
+	 */
+	public long getFirstBlock(int per_block)
+	{
+		return m_from / per_block;
+	}
+	
+	/**
+	 * Gets the index following the last evaluator block covered by this
+	 * range.
+	 * @param per_block The number of valuations per block
+	 * @return The index of the block
+	 * @see BitslicedEvaluator#getValuationsPerBlock()
+	 */
+	public long getLastBlock(int per_block)
+	{
+		return (m_to + per_block - 1) / per_block;
+	}
+	
+	/**
+	 * Processes a list of ranges, possibly in parallel.
+	 * @param ranges The ranges
+	 * @param threads The number of threads to use. With one thread or
+	 * less, the ranges are processed in the calling thread.
+	 * @param task The task to run on each range
+	 * @return The results of the task, in the same order as the ranges
+	 */
+	public static <T> List<T> process(List<ValuationRange> ranges, int threads, final Task<T> task)
+	{
+		List<T> results = new ArrayList<T>(ranges.size());
+		if (threads <= 1 || ranges.size() <= 1)
+		{
+			for (ValuationRange r : ranges)
+			{
+				results.add(task.process(r));
+			}
+			return results;
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, ranges.size()));
+		try
+		{
+			List<Future<T>> futures = new ArrayList<Future<T>>(ranges.size());
+			for (final ValuationRange r : ranges)
+			{
+				futures.add(executor.submit(new Callable<T>() {
+					@Override
+					public T call()
+					{
+						return task.process(r);
+					}
+				}));
+			}
+			for (Future<T> f : futures)
+			{
+				results.add(f.get());
+			}
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+		catch (ExecutionException e)
+		{
+			if (e.getCause() instanceof RuntimeException)
+			{
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+		return results;
+	}
+	
+	@Override
+	public String toString()
+	{
+		return "[" + m_from + "," + m_to + ")";
+	}
+	
+	/**
+	 * A computation carried out on a range of valuations.
+	 * @param <T> The type of the result of the computation
+	 */
+	public static interface Task<T>
+	{
+		/**
+		 * Processes a range of valuations.
+		 * @param r The range
+		 * @return The result
+		 */
+		public T process(ValuationRange r);
+	}
+}
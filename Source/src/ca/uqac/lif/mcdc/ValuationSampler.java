@@ -0,0 +1,33 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc;
+
+/**
+ * Draws valuations of a formula, for use by a
+ * {@link SampledHypergraphGenerator}.
+ */
+public interface ValuationSampler
+{
+	/**
+	 * Draws a valuation.
+	 * @param num_vars The number of variables of the formula, at most 62
+	 * @return The ID of the valuation; bit <i>i</i> of this ID is the value
+	 * of the variable at slot <i>i</i> (see {@link SymbolTable#pack(Valuation)})
+	 */
+	public long next(int num_vars);
+}
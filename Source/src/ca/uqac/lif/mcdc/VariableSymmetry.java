@@ -0,0 +1,614 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Groups of variables of a formula that can be swapped without changing
+ * the formula or the set of truncations applied to it. Two variables are
+ * interchangeable when exchanging their names produces the same formula, up
+ * to the order of the operands of conjunctions and disjunctions. For
+ * example, in <i>a</i>&and;<i>b</i> &or; <i>c</i>&and;<i>b</i>, variables
+ * <i>a</i> and <i>c</i> are interchangeable.
+ * <p>
+ * Swapping the values of interchangeable variables does not change the
+ * hologram produced by a valuation, except for the names of the
+ * variables. Valuations can therefore be grouped into orbits, and only one
+ * canonical representative of each orbit needs to be evaluated: the one
+ * where, within each group, the variables that are true are the ones with
+ * the lowest slots. The hypergraph built on these representatives (see
+ * {@link HypergraphGenerator#setSymmetry(boolean)}) has one vertex per
+ * orbit; a hitting set of this graph is turned into a hitting set of the
+ * original one by picking valuations in the orbits of its representatives
+ * (see {@link #expand(Set, Operator, HittingSetSolver, Truncation...)}).
+ * <p>
+ * Symmetries are only looked for when all the truncations refer to
+ * variables by name and produce leaves or flat lists of leaves
+ * ({@link VariableBasedTruncation} and {@link KeepValuesOf}). For them,
+ * two holograms are related by a permutation of interchangeable variables
+ * exactly when they are equal once these variables are renamed. Holograms
+ * keeping larger parts of the tree, such as those of {@link KeepAll} or
+ * {@link KeepClauses}, may contain subtrees that can only be exchanged by
+ * moving several groups at once; no group is found when one of these
+ * truncations is present.
+ */
+public class VariableSymmetry
+{
+	/**
+	 * The symbol table of the formula.
+	 */
+	protected final SymbolTable m_symbols;
+	
+	/**
+	 * The slots of the variables in each group, in ascending order.
+	 */
+	protected final int[][] m_groups;
+	
+	/**
+	 * A map associating the name of each variable in a group to the index of
+	 * this group.
+	 */
+	protected final Map<String,Integer> m_groupOf;
+	
+	/**
+	 * Detects the groups of interchangeable variables of a formula.
+	 * @param phi The formula
+	 * @param truncations The truncations that will be applied to the
+	 * formula
+	 * @return The symmetry; it has no group if no two variables are
+	 * interchangeable
+	 */
+	public static VariableSymmetry detect(Operator phi, Truncation ... truncations)
+	{
+		SymbolTable symbols = phi.getSymbolTable();
+		String[] names = symbols.getNames();
+		List<List<Integer>> groups = new ArrayList<List<Integer>>();
+		Map<String,String> renaming = new HashMap<String,String>();
+		Set<String> t_keys = getTruncationKeys(renaming, truncations);
+		if (t_keys != null)
+		{
+			String f_key = getKey(phi, renaming);
+			boolean[] grouped = new boolean[names.length];
+			for (int i = 0; i < names.length; i++)
+			{
+				if (grouped[i])
+				{
+					continue;
+				}
+				List<Integer> group = new ArrayList<Integer>();
+				group.add(i);
+				for (int j = i + 1; j < names.length; j++)
+				{
+					// Being interchangeable is an equivalence relation, so
+					// comparing with the first variable of the group is enough
+					renaming.put(names[i], names[j]);
+					renaming.put(names[j], names[i]);
+					if (!grouped[j] && f_key.equals(getKey(phi, renaming)) && t_keys.equals(getTruncationKeys(renaming, truncations)))
+					{
+						group.add(j);
+						grouped[j] = true;
+					}
+					renaming.clear();
+				}
+				if (group.size() > 1)
+				{
+					groups.add(group);
+				}
+			}
+		}
+		int[][] a_groups = new int[groups.size()][];
+		for (int g = 0; g < a_groups.length; g++)
+		{
+			List<Integer> group = groups.get(g);
+			a_groups[g] = new int[group.size()];
+			for (int i = 0; i < a_groups[g].length; i++)
+			{
+				a_groups[g][i] = group.get(i);
+			}
+		}
+		return new VariableSymmetry(symbols, a_groups);
+	}
+	
+	/**
+	 * Creates a new symmetry.
+	 * @param symbols The symbol table of the formula
+	 * @param groups The slots of the variables in each group, in ascending
+	 * order
+	 */
+	protected VariableSymmetry(SymbolTable symbols, int[][] groups)
+	{
+		super();
+		m_symbols = symbols;
+		m_groups = groups;
+		m_groupOf = new HashMap<String,Integer>();
+		for (int g = 0; g < groups.length; g++)
+		{
+			for (int slot : groups[g])
+			{
+				m_groupOf.put(symbols.getName(slot), g);
+			}
+		}
+	}
+	
+	/**
+	 * Gets the groups of interchangeable variables.
+	 * @return A list of groups, each given as the sorted list of the names
+	 * of its variables
+	 */
+	public List<List<String>> getGroups()
+	{
+		List<List<String>> groups = new ArrayList<List<String>>(m_groups.length);
+		for (int[] group : m_groups)
+		{
+			List<String> names = new ArrayList<String>(group.length);
+			for (int slot : group)
+			{
+				names.add(m_symbols.getName(slot));
+			}
+			groups.add(names);
+		}
+		return groups;
+	}
+	
+	/**
+	 * Gets the number of orbits, which is also the number of canonical
+	 * valuations.
+	 * @return The number of orbits
+	 */
+	public long getOrbitCount()
+	{
+		long count = 1L << m_symbols.size();
+		for (int[] group : m_groups)
+		{
+			count = (count >>> group.length) * (group.length + 1);
+		}
+		return count;
+	}
+	
+	/**
+	 * Determines if a valuation is the canonical representative of its
+	 * orbit.
+	 * @param id The ID of the valuation
+	 * @return <tt>true</tt> if the valuation is canonical, <tt>false</tt>
+	 * otherwise
+	 */
+	public boolean isCanonical(long id)
+	{
+		for (int[] group : m_groups)
+		{
+			boolean seen_false = false;
+			for (int slot : group)
+			{
+				boolean b = ((id >>> slot) & 1L) != 0;
+				if (b && seen_false)
+				{
+					return false;
+				}
+				seen_false |= !b;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Gets the IDs of all the canonical valuations, in ascending order.
+	 * @return The list of IDs
+	 */
+	public List<Long> getRepresentatives()
+	{
+		long free = (1L << m_symbols.size()) - 1;
+		for (int[] group : m_groups)
+		{
+			for (int slot : group)
+			{
+				free &= ~(1L << slot);
+			}
+		}
+		List<Long> ids = new ArrayList<Long>();
+		ids.add(0L);
+		// Every subset of the free variables can be true
+		for (int slot = 0; slot < m_symbols.size(); slot++)
+		{
+			if (((free >>> slot) & 1L) == 0)
+			{
+				continue;
+			}
+			int size = ids.size();
+			for (int i = 0; i < size; i++)
+			{
+				ids.add(ids.get(i) | (1L << slot));
+			}
+		}
+		// In each group, only the k lowest slots can be true
+		for (int[] group : m_groups)
+		{
+			int size = ids.size();
+			long prefix = 0;
+			for (int slot : group)
+			{
+				prefix |= 1L << slot;
+				for (int i = 0; i < size; i++)
+				{
+					ids.add(ids.get(i) | prefix);
+				}
+			}
+		}
+		Collections.sort(ids);
+		return ids;
+	}
+	
+	/**
+	 * Gets the canonical representative of the orbit of a valuation.
+	 * @param id The ID of the valuation
+	 * @return The ID of the representative
+	 */
+	public long getRepresentative(long id)
+	{
+		for (int[] group : m_groups)
+		{
+			int count = 0;
+			for (int slot : group)
+			{
+				if (((id >>> slot) & 1L) != 0)
+				{
+					count++;
+					id &= ~(1L << slot);
+				}
+			}
+			for (int i = 0; i < count; i++)
+			{
+				id |= 1L << group[i];
+			}
+		}
+		return id;
+	}
+	
+	/**
+	 * Gets all the valuations in the orbit of a valuation.
+	 * @param id The ID of the valuation
+	 * @return The set of IDs of the valuations in its orbit
+	 */
+	public Set<Long> getOrbit(long id)
+	{
+		List<Long> ids = new ArrayList<Long>();
+		ids.add(id);
+		for (int[] group : m_groups)
+		{
+			int count = 0;
+			long mask = 0;
+			for (int slot : group)
+			{
+				mask |= 1L << slot;
+				if (((id >>> slot) & 1L) != 0)
+				{
+					count++;
+				}
+			}
+			if (count == 0 || count == group.length)
+			{
+				continue;
+			}
+			List<Long> images = new ArrayList<Long>();
+			// Enumerate the subsets of the group of the same size
+			for (long bits = (1L << count) - 1; bits < 1L << group.length; bits = nextCombination(bits))
+			{
+				long spread = 0;
+				for (int i = 0; i < group.length; i++)
+				{
+					if (((bits >>> i) & 1L) != 0)
+					{
+						spread |= 1L << group[i];
+					}
+				}
+				for (long base : ids)
+				{
+					images.add((base & ~mask) | spread);
+				}
+			}
+			ids = images;
+		}
+		return new HashSet<Long>(ids);
+	}
+	
+	/**
+	 * Turns a hitting set of the hypergraph built on canonical valuations
+	 * into a hitting set of the original hypergraph. Every hyperedge of the
+	 * original graph contains a valuation in the orbit of one of the
+	 * representatives; the valuations of these orbits are evaluated, and
+	 * the solver picks among them a set that hits all the hyperedges they
+	 * produce.
+	 * @param ids The set of IDs of the representatives
+	 * @param phi The formula
+	 * @param solver The solver used to pick valuations in the orbits
+	 * @param truncations The truncations applied to the formula
+	 * @return The set of IDs of the valuations in the test suite
+	 */
+	public Set<Long> expand(Set<Long> ids, Operator phi, HittingSetSolver solver, Truncation ... truncations)
+	{
+		Set<Long> candidates = new HashSet<Long>();
+		for (long id : ids)
+		{
+			candidates.addAll(getOrbit(id));
+		}
+		Hypergraph h = new Hypergraph(new HologramEncoder(m_symbols));
+		for (long id : candidates)
+		{
+			HologramNode n = phi.evaluate(m_symbols.unpack(id));
+			for (Truncation t : truncations)
+			{
+				h.addTo(t.applyTo(n), id);
+			}
+		}
+		return solver.solve(h);
+	}
+	
+	/**
+	 * Puts a hologram in a form that is the same for all the holograms
+	 * obtained from each other by exchanging interchangeable variables.
+	 * The children of dummy nodes (such as those produced by
+	 * {@link KeepValuesOf}) are sorted, and the variables of each group are
+	 * renamed in their order of appearance in the sorted tree.
+	 * @param n The hologram
+	 * @return A new hologram in canonical form
+	 */
+	public HologramNode canonicalize(HologramNode n)
+	{
+		if (n == null)
+		{
+			return null;
+		}
+		if (n.m_children.isEmpty())
+		{
+			// A leaf: a variable of a group is renamed as the first one
+			Integer g = m_groupOf.get(n.getLabel());
+			if (g == null)
+			{
+				return n;
+			}
+			return new HologramNode(m_symbols.getName(m_groups[g][0]), n.getValue());
+		}
+		Map<HologramNode,String> keys = new IdentityHashMap<HologramNode,String>();
+		getNodeKey(n, keys);
+		return canonicalize(n, keys, new HashMap<String,String>(), new int[m_groups.length]);
+	}
+	
+	/**
+	 * Recursively builds the canonical form of a hologram.
+	 * @param n The current node
+	 * @param keys A map associating each node to its key
+	 * @param renaming The new names given so far to the variables of each
+	 * group
+	 * @param used The number of names given so far in each group
+	 * @return The new node
+	 */
+	protected HologramNode canonicalize(HologramNode n, Map<HologramNode,String> keys, Map<String,String> renaming, int[] used)
+	{
+		if (n == null)
+		{
+			return null;
+		}
+		String label = n.getLabel();
+		Integer g = m_groupOf.get(label);
+		if (g != null && n.m_children.isEmpty())
+		{
+			String new_label = renaming.get(label);
+			if (new_label == null)
+			{
+				new_label = m_symbols.getName(m_groups[g][used[g]++]);
+				renaming.put(label, new_label);
+			}
+			label = new_label;
+		}
+		HologramNode new_n = new HologramNode(label, n.getValue());
+		for (HologramNode c : getSortedChildren(n, keys))
+		{
+			new_n.addChild(canonicalize(c, keys, renaming, used));
+		}
+		return new_n;
+	}
+	
+	/**
+	 * Computes a key for a hologram where the variables of each group are
+	 * replaced by the same placeholder, and children that can be reordered
+	 * are sorted.
+	 * @param n The hologram
+	 * @param keys A map where the key of each node is stored
+	 * @return The key
+	 */
+	protected String getNodeKey(HologramNode n, Map<HologramNode,String> keys)
+	{
+		if (n == null)
+		{
+			return "null";
+		}
+		StringBuilder out = new StringBuilder();
+		Integer g = m_groupOf.get(n.getLabel());
+		if (g != null && n.m_children.isEmpty())
+		{
+			out.append("#").append(g);
+		}
+		else
+		{
+			out.append(n.getLabel());
+		}
+		out.append(":").append(n.getValue()).append("(");
+		List<String> c_keys = new ArrayList<String>(n.m_children.size());
+		for (HologramNode c : n.m_children)
+		{
+			c_keys.add(getNodeKey(c, keys));
+		}
+		if (isUnordered(n.getLabel()))
+		{
+			Collections.sort(c_keys);
+		}
+		for (String k : c_keys)
+		{
+			out.append(k).append(",");
+		}
+		out.append(")");
+		String key = out.toString();
+		keys.put(n, key);
+		return key;
+	}
+	
+	/**
+	 * Gets the children of a hologram node, sorted by their key if their order
+	 * does not matter.
+	 * @param n The node
+	 * @param keys A map associating each node to its key
+	 * @return The list of children
+	 */
+	protected static List<HologramNode> getSortedChildren(final HologramNode n, final Map<HologramNode,String> keys)
+	{
+		List<HologramNode> children = new ArrayList<HologramNode>(n.m_children);
+		if (isUnordered(n.getLabel()))
+		{
+			Collections.sort(children, new Comparator<HologramNode>()
+			{
+				@Override
+				public int compare(HologramNode n1, HologramNode n2)
+				{
+					String k1 = n1 == null ? "null" : keys.get(n1);
+					String k2 = n2 == null ? "null" : keys.get(n2);
+					return k1.compareTo(k2);
+				}
+			});
+		}
+		return children;
+	}
+	
+	/**
+	 * Determines if the order of the children of a node does not matter.
+	 * @param label The label of the node
+	 * @return <tt>true</tt> if the children can be reordered
+	 */
+	protected static boolean isUnordered(String label)
+	{
+		return label.equals(HologramNode.DUMMY_SYMBOL);
+	}
+	
+	/**
+	 * Computes a key for a formula whose variables are renamed, such that
+	 * two formulas have the same key if and only if they are equal up to the
+	 * order of the operands of conjunctions and disjunctions.
+	 * @param phi The formula
+	 * @param renaming A map associating variable names to new names;
+	 * variables absent from the map keep their name
+	 * @return The key
+	 */
+	protected static String getKey(Operator phi, Map<String,String> renaming)
+	{
+		if (phi instanceof Atom)
+		{
+			String name = ((Atom) phi).getName();
+			String new_name = renaming.get(name);
+			return new_name == null ? name : new_name;
+		}
+		if (phi instanceof Negation)
+		{
+			return Negation.SYMBOL + "(" + getKey(((Negation) phi).getOperand(), renaming) + ")";
+		}
+		List<Operator> operands;
+		String symbol;
+		if (phi instanceof Conjunction)
+		{
+			operands = ((Conjunction) phi).getOperands();
+			symbol = Conjunction.SYMBOL;
+		}
+		else
+		{
+			operands = ((Disjunction) phi).getOperands();
+			symbol = Disjunction.SYMBOL;
+		}
+		List<String> keys = new ArrayList<String>(operands.size());
+		for (Operator op : operands)
+		{
+			keys.add(getKey(op, renaming));
+		}
+		Collections.sort(keys);
+		StringBuilder out = new StringBuilder();
+		out.append(symbol).append("(");
+		for (String k : keys)
+		{
+			out.append(k).append(",");
+		}
+		out.append(")");
+		return out.toString();
+	}
+	
+	/**
+	 * Computes the set of keys of truncations whose variables are renamed.
+	 * @param renaming A map associating variable names to new names;
+	 * variables absent from the map keep their name
+	 * @param truncations The truncations
+	 * @return The set of keys, or <tt>null</tt> if one of the truncations
+	 * is not supported
+	 */
+	protected static Set<String> getTruncationKeys(Map<String,String> renaming, Truncation ... truncations)
+	{
+		Set<String> keys = new HashSet<String>();
+		for (Truncation t : truncations)
+		{
+			String key = t.getClass().getName();
+			if (t instanceof VariableBasedTruncation)
+			{
+				String name = ((VariableBasedTruncation) t).m_name;
+				String new_name = renaming.get(name);
+				key += ":" + (new_name == null ? name : new_name);
+			}
+			else if (t instanceof KeepValuesOf)
+			{
+				List<String> names = new ArrayList<String>();
+				for (String name : ((KeepValuesOf) t).m_variables)
+				{
+					String new_name = renaming.get(name);
+					names.add(new_name == null ? name : new_name);
+				}
+				Collections.sort(names);
+				key += ":" + names;
+			}
+			else
+			{
+				return null;
+			}
+			keys.add(key);
+		}
+		return keys;
+	}
+	
+	/**
+	 * Computes the next number with the same number of bits set to 1.
+	 * @param bits The number
+	 * @return The next number
+	 */
+	protected static long nextCombination(long bits)
+	{
+		long lowest = bits & -bits;
+		long ripple = bits + lowest;
+		return (((ripple ^ bits) >>> 2) / lowest) | ripple;
+	}
+}
@@ -0,0 +1,83 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc;
+
+import java.util.Random;
+
+/**
+ * Draws valuations stratified by Hamming weight. Successive valuations have
+ * 0, 1, ..., <i>n</i> true variables in turn, and the variables set to true
+ * are chosen at random. Contrary to uniform sampling, which mostly produces
+ * valuations with about <i>n</i>/2 true variables, this reaches the
+ * valuations where few or most conditions hold.
+ */
+public class WeightStratifiedSampler implements ValuationSampler
+{
+	/**
+	 * The source of randomness.
+	 */
+	protected final Random m_random;
+	
+	/**
+	 * The Hamming weight of the next valuation.
+	 */
+	protected int m_weight;
+	
+	/**
+	 * An array of slots, shuffled to choose the true variables.
+	 */
+	protected int[] m_slots;
+	
+	/**
+	 * Creates a new stratified sampler.
+	 * @param seed The seed of the random generator
+	 */
+	public WeightStratifiedSampler(long seed)
+	{
+		super();
+		m_random = new Random(seed);
+		m_weight = 0;
+		m_slots = new int[0];
+	}
+	
+	@Override
+	public long next(int num_vars)
+	{
+		if (m_slots.length != num_vars)
+		{
+			m_slots = new int[num_vars];
+			for (int i = 0; i < num_vars; i++)
+			{
+				m_slots[i] = i;
+			}
+			m_weight = 0;
+		}
+		// Partial Fisher-Yates shuffle of the first m_weight slots
+		long id = 0;
+		for (int i = 0; i < m_weight; i++)
+		{
+			int j = i + m_random.nextInt(num_vars - i);
+			int tmp = m_slots[i];
+			m_slots[i] = m_slots[j];
+			m_slots[j] = tmp;
+			id |= 1L << m_slots[i];
+		}
+		m_weight = (m_weight + 1) % (num_vars + 1);
+		return id;
+	}
+}
@@ -0,0 +1,133 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc.test;
+
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import ca.uqac.lif.mcdc.Bdd;
+import ca.uqac.lif.mcdc.BddHypergraph;
+import ca.uqac.lif.mcdc.BddHypergraphGenerator;
+import ca.uqac.lif.mcdc.Hypergraph;
+import ca.uqac.lif.mcdc.HypergraphGenerator;
+import ca.uqac.lif.mcdc.KeepIfDetermines;
+import ca.uqac.lif.mcdc.KeepNthClause;
+import ca.uqac.lif.mcdc.KeepValuesOf;
+import ca.uqac.lif.mcdc.Operator;
+import ca.uqac.lif.mcdc.SymbolTable;
+import ca.uqac.lif.mcdc.Truncation;
+import mcdclab.benchmark.TCASBenchmark;
+
+import static ca.uqac.lif.mcdc.Conjunction.And;
+import static ca.uqac.lif.mcdc.Disjunction.Or;
+import static ca.uqac.lif.mcdc.Negation.Not;
+
+/**
+ * Unit tests for the BDD package and the hypergraphs built from it.
+ */
+public class BddTest
+{
+	@Test
+	public void testOperations()
+	{
+		Operator op = Or(And("a", Not("b")), "c");
+		Bdd bdd = new Bdd(3);
+		int f = bdd.build(op, op.getSymbolTable());
+		assertEquals(5, bdd.count(f));
+		assertEquals(3, bdd.count(bdd.not(f)));
+		assertEquals(8, bdd.count(Bdd.TRUE));
+		// The same function built differently has the same index
+		int g = bdd.or(bdd.and(bdd.var(0), bdd.not(bdd.var(1))), bdd.var(2));
+		assertEquals(f, g);
+		assertEquals(Bdd.FALSE, bdd.and(f, bdd.not(f)));
+		Set<Long> ids = new HashSet<Long>();
+		bdd.expand(f, ids);
+		assertEquals(5, ids.size());
+		assertTrue(ids.contains(bdd.pickOne(f)));
+		assertFalse(ids.contains(2L));
+	}
+	
+	@Test
+	public void testHypergraph()
+	{
+		Operator op = new TCASBenchmark().getFormula(3);
+		Set<Truncation> truncations = new HashSet<Truncation>();
+		for (String v : op.getVariables())
+		{
+			truncations.add(new KeepIfDetermines(v));
+		}
+		truncations.addAll(KeepValuesOf.generateTWay(2, op));
+		truncations.addAll(KeepNthClause.generateClauseCoverage(op));
+		Hypergraph h1 = new HypergraphGenerator().getGraph(op, truncations);
+		BddHypergraph bh = new BddHypergraphGenerator().getGraph(op, truncations);
+		assertEquals(h1.getEdgeCount(), bh.getEdgeCount());
+		Hypergraph h2 = bh.expand();
+		assertEquals(h1.getEdgeCount(), h2.getEdgeCount());
+	}
+	
+	@Test
+	public void testDetermines()
+	{
+		// a determines a or b when b is false
+		BddHypergraph bh = new BddHypergraphGenerator().getGraph(Or("a", "b"), new KeepIfDetermines("a"));
+		assertEquals(3, bh.getEdgeCount());
+		long total = 0;
+		for (int set : bh.getEdges().values())
+		{
+			long size = bh.getBdd().count(set);
+			assertTrue(size == 1 || size == 2);
+			total += size;
+		}
+		assertEquals(4, total);
+	}
+	
+	@Test
+	public void testMinterm()
+	{
+		Bdd bdd = new Bdd(5);
+		int f = bdd.minterm(0x13L);
+		assertEquals(1, bdd.count(f));
+		assertEquals(0x13L, bdd.pickOne(f));
+		assertTrue(bdd.contains(f, 0x13L));
+		assertFalse(bdd.contains(f, 0x12L));
+		assertEquals(bdd.cube(new int[] {0, 1, 2, 3, 4}, new boolean[] {true, true, false, false, true}), f);
+	}
+	
+	@Test
+	public void testNext()
+	{
+		Operator op = Or(And("a", Not("b")), And("c", "d", Not("e")));
+		SymbolTable symbols = op.getSymbolTable();
+		Bdd bdd = new Bdd(symbols.size());
+		int f = bdd.build(op, symbols);
+		for (long from = 0; from <= 32; from++)
+		{
+			long expected = from;
+			while (expected < 32 && !bdd.contains(f, expected))
+			{
+				expected++;
+			}
+			assertEquals(expected == 32 ? -1 : expected, bdd.next(f, from));
+		}
+		assertEquals(-1, bdd.next(Bdd.FALSE, 0));
+	}
+}
@@ -0,0 +1,236 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc.test;
+
+import static org.junit.Assert.*;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import ca.uqac.lif.mcdc.BitslicedEvaluator;
+import ca.uqac.lif.mcdc.CompiledFormula;
+import ca.uqac.lif.mcdc.GrayCodeEvaluator;
+import ca.uqac.lif.mcdc.HologramBuffer;
+import ca.uqac.lif.mcdc.HologramNode;
+import ca.uqac.lif.mcdc.Operator;
+import ca.uqac.lif.mcdc.SymbolTable;
+import ca.uqac.lif.mcdc.Valuation;
+import ca.uqac.lif.mcdc.ValuationIterator;
+import mcdclab.benchmark.TCASBenchmark;
+
+import static ca.uqac.lif.mcdc.Conjunction.And;
+import static ca.uqac.lif.mcdc.Disjunction.Or;
+import static ca.uqac.lif.mcdc.Negation.Not;
+
+/**
+ * Unit tests for the bitsliced evaluator.
+ */
+public class BitslicedEvaluatorTest
+{
+	@Test
+	public void testSmall()
+	{
+		// a or b: true on valuations 1, 2, 3
+		BitslicedEvaluator ev = new BitslicedEvaluator(Or("a", "b"));
+		assertEquals(1, ev.getBlockCount());
+		assertEquals(4, ev.getValuationsPerBlock());
+		long[] table = ev.getTruthTable();
+		assertEquals(1, table.length);
+		assertEquals(0xEL, table[0]);
+	}
+	
+	@Test
+	public void testHolograms()
+	{
+		TCASBenchmark benchmark = new TCASBenchmark();
+		for (int id : new int[] {1, 4, 10})
+		{
+			Operator op = benchmark.getFormula(id);
+			BitslicedEvaluator ev = new BitslicedEvaluator(op);
+			long[][] tables = ev.getTruthTables();
+			long[] words = new long[ev.getNodeCount()];
+			ValuationIterator it = new ValuationIterator(op.getSymbolTable());
+			long index = 0;
+			while (it.hasNext())
+			{
+				Valuation v = it.next();
+				long block = index / BitslicedEvaluator.BLOCK_SIZE;
+				int k = (int) (index % BitslicedEvaluator.BLOCK_SIZE);
+				if (k == 0)
+				{
+					ev.evaluate(block, words);
+				}
+				boolean expected = op.evaluate(v).getValue();
+				assertEquals(op.evaluate(v), ev.getHologram(words, k));
+				assertEquals(expected, ((tables[ev.getRoot()][(int) block] >>> k) & 1L) != 0);
+				index++;
+			}
+		}
+	}
+	
+	@Test
+	public void testSubformula()
+	{
+		Operator op = And(Not("a"), "b");
+		BitslicedEvaluator ev = new BitslicedEvaluator(op);
+		long[][] tables = ev.getTruthTables();
+		// Nodes in postorder: a, not a, b, and
+		assertEquals(0xAL, tables[0][0]);
+		assertEquals(0x5L, tables[1][0]);
+		assertEquals(0xCL, tables[2][0]);
+		assertEquals(0x4L, tables[3][0]);
+	}
+	
+	@Test
+	public void testBuffer()
+	{
+		Operator op = Or("a", And("b", Not("c")));
+		BitslicedEvaluator ev = new BitslicedEvaluator(op);
+		HologramBuffer buffer = new HologramBuffer(ev);
+		long[] words = new long[ev.getNodeCount()];
+		ev.evaluate(0, words);
+		ValuationIterator it = new ValuationIterator(op.getSymbolTable());
+		for (int k = 0; k < ev.getValuationsPerBlock(); k++)
+		{
+			HologramNode n = buffer.fill(words, k);
+			assertSame(buffer.getRoot(), n);
+			assertTrue(it.hasNext());
+			assertEquals(op.evaluate(it.next()), n);
+		}
+	}
+	
+	@Test
+	public void testBufferShared()
+	{
+		// The shared subformula gets one subtree per occurrence
+		Operator shared = And("b", Not("c"));
+		Operator op = Or(And("a", shared), And("d", shared), Not(shared));
+		BitslicedEvaluator ev = new BitslicedEvaluator(op);
+		HologramBuffer buffer = new HologramBuffer(ev);
+		long[] words = new long[ev.getNodeCount()];
+		ev.evaluate(0, words);
+		SymbolTable symbols = op.getSymbolTable();
+		for (int k = 0; k < 16; k++)
+		{
+			HologramNode n = buffer.fill(words, k);
+			assertEquals(op.evaluate(symbols.unpack(k)), n);
+			assertTrue(isTree(n, new IdentityHashMap<HologramNode,Boolean>()));
+		}
+	}
+	
+	/**
+	 * Checks that no node of a hologram is reachable from its root through
+	 * more than one path.
+	 * @param n The root of the hologram
+	 * @param visited The nodes visited so far
+	 * @return <tt>true</tt> if the hologram is a tree
+	 */
+	protected static boolean isTree(HologramNode n, Map<HologramNode,Boolean> visited)
+	{
+		if (visited.put(n, true) != null)
+		{
+			return false;
+		}
+		for (HologramNode c : n.getChildren())
+		{
+			if (!isTree(c, visited))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	@Test
+	public void testGrayCode()
+	{
+		TCASBenchmark benchmark = new TCASBenchmark();
+		for (int id : new int[] {1, 4})
+		{
+			Operator op = benchmark.getFormula(id);
+			GrayCodeEvaluator gray = new GrayCodeEvaluator(new BitslicedEvaluator(op));
+			boolean[] visited = new boolean[(int) gray.getValuationCount()];
+			long previous = -1;
+			do
+			{
+				long index = gray.getIndex();
+				assertFalse(visited[(int) index]);
+				visited[(int) index] = true;
+				if (previous >= 0)
+				{
+					assertEquals(1, Long.bitCount(index ^ previous));
+				}
+				previous = index;
+				Valuation v = op.getSymbolTable().unpack(index);
+				assertEquals(op.evaluate(v), gray.getRoot());
+			} while (gray.next());
+			for (boolean b : visited)
+			{
+				assertTrue(b);
+			}
+		}
+	}
+	@Test
+	public void testLimits()
+	{
+		Operator op = wideOr(40);
+		BitslicedEvaluator ev = new BitslicedEvaluator(op);
+		assertEquals(1L << 34, ev.getBlockCount());
+		try
+		{
+			ev.getTruthTable();
+			fail("The truth table does not fit in an array");
+		}
+		catch (IllegalArgumentException e)
+		{
+			// Expected
+		}
+		new BitslicedEvaluator(wideOr(SymbolTable.MAX_VARIABLES));
+		new CompiledFormula(wideOr(SymbolTable.MAX_VARIABLES));
+		try
+		{
+			new BitslicedEvaluator(wideOr(SymbolTable.MAX_VARIABLES + 1));
+			fail("Too many variables");
+		}
+		catch (IllegalArgumentException e)
+		{
+			// Expected
+		}
+		try
+		{
+			new CompiledFormula(wideOr(SymbolTable.MAX_VARIABLES + 1));
+			fail("Too many variables");
+		}
+		catch (IllegalArgumentException e)
+		{
+			// Expected
+		}
+	}
+	
+	protected static Operator wideOr(int num_vars)
+	{
+		Object[] names = new Object[num_vars];
+		for (int i = 0; i < num_vars; i++)
+		{
+			names[i] = "x" + i;
+		}
+		return Or(names);
+	}
+}
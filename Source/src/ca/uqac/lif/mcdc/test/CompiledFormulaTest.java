@@ -0,0 +1,71 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc.test;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import ca.uqac.lif.mcdc.CompiledFormula;
+import ca.uqac.lif.mcdc.Operator;
+import ca.uqac.lif.mcdc.Valuation;
+import ca.uqac.lif.mcdc.ValuationIterator;
+import mcdclab.benchmark.TCASBenchmark;
+
+import static ca.uqac.lif.mcdc.Conjunction.And;
+import static ca.uqac.lif.mcdc.Disjunction.Or;
+import static ca.uqac.lif.mcdc.Negation.Not;
+
+/**
+ * Unit tests for compiled formulas.
+ */
+public class CompiledFormulaTest
+{
+	@Test
+	public void testSimple()
+	{
+		CompiledFormula cf = new CompiledFormula(Or("c", And("a", Not("b"))));
+		// Bit 0 is a, bit 1 is b, bit 2 is c
+		assertFalse(cf.evaluate(0));
+		assertTrue(cf.evaluate(1));
+		assertFalse(cf.evaluate(3));
+		assertTrue(cf.evaluate(6));
+		assertTrue(cf.evaluate(Valuation.get(true, false, false)));
+	}
+	
+	@Test
+	public void testTCAS()
+	{
+		TCASBenchmark benchmark = new TCASBenchmark();
+		for (int id : new int[] {2, 3, 5})
+		{
+			Operator op = benchmark.getFormula(id);
+			CompiledFormula cf = new CompiledFormula(op);
+			ValuationIterator it = new ValuationIterator(op.getSymbolTable());
+			long index = 0;
+			while (it.hasNext())
+			{
+				Valuation v = it.next();
+				boolean expected = op.evaluate(v).getValue();
+				assertEquals(expected, cf.evaluate(index));
+				assertEquals(index, cf.pack(v));
+				index++;
+			}
+		}
+	}
+}
@@ -0,0 +1,132 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc.test;
+
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import ca.uqac.lif.mcdc.Bdd;
+import ca.uqac.lif.mcdc.BddHypergraph;
+import ca.uqac.lif.mcdc.BddHypergraphGenerator;
+import ca.uqac.lif.mcdc.DecomposedSuiteGenerator;
+import ca.uqac.lif.mcdc.FormulaDecomposition;
+import ca.uqac.lif.mcdc.GreedyHittingSetSolver;
+import ca.uqac.lif.mcdc.HypergraphGenerator;
+import ca.uqac.lif.mcdc.KeepIfDetermines;
+import ca.uqac.lif.mcdc.KeepValuesOf;
+import ca.uqac.lif.mcdc.Operator;
+import ca.uqac.lif.mcdc.Truncation;
+import mcdclab.benchmark.FaaBenchmark;
+import mcdclab.benchmark.TCASBenchmark;
+
+import static ca.uqac.lif.mcdc.Conjunction.And;
+import static ca.uqac.lif.mcdc.Disjunction.Or;
+import static ca.uqac.lif.mcdc.Negation.Not;
+
+/**
+ * Unit tests for {@link FormulaDecomposition} and
+ * {@link DecomposedSuiteGenerator}.
+ */
+public class DecomposedSuiteGeneratorTest
+{
+	@Test
+	public void testDecompose()
+	{
+		Operator op = new FaaBenchmark().getFormula(10);
+		FormulaDecomposition d = FormulaDecomposition.decompose(op);
+		assertTrue(d.isSplit());
+		assertFalse(d.isConjunction());
+		assertEquals(3, d.getComponents().size());
+		// Operands sharing a variable stay together
+		d = FormulaDecomposition.decompose(And(Or("a", "b"), Or("b", "c"), Not("d")));
+		assertTrue(d.isSplit());
+		assertEquals(2, d.getComponents().size());
+		assertEquals(3, d.getComponents().get(0).getVariables().size());
+		d = FormulaDecomposition.decompose(And(Or("a", "b"), Or("b", "c")));
+		assertFalse(d.isSplit());
+		d = FormulaDecomposition.decompose(Not(And("a", "b")));
+		assertFalse(d.isSplit());
+	}
+	
+	@Test
+	public void testMcdc()
+	{
+		Operator op = new FaaBenchmark().getFormula(10);
+		Truncation[] truncations = getMcdc(op);
+		Set<Long> suite = new DecomposedSuiteGenerator().generate(op, truncations);
+		assertCovers(op, suite, truncations);
+		// Not larger than a suite computed on the whole formula
+		Set<Long> whole = GreedyHittingSetSolver.instance.solve(new HypergraphGenerator().getGraph(op, truncations));
+		assertTrue(suite.size() <= whole.size());
+	}
+	
+	@Test
+	public void testTWay()
+	{
+		// Pairs of values across components are not covered by local suites
+		Operator op = And(Or("a", "b"), Or("c", "d"));
+		Truncation[] truncations = new Truncation[] {new KeepValuesOf("a", "c"), new KeepValuesOf("b", "d")};
+		Set<Long> suite = new DecomposedSuiteGenerator().generate(op, truncations);
+		assertCovers(op, suite, truncations);
+	}
+	
+	@Test
+	public void testTcas()
+	{
+		TCASBenchmark b = new TCASBenchmark();
+		for (int i = 1; i <= 20; i++)
+		{
+			Operator op = b.getFormula(i);
+			if (op == null)
+			{
+				continue;
+			}
+			Truncation[] truncations = getMcdc(op);
+			assertCovers(op, new DecomposedSuiteGenerator().generate(op, truncations), truncations);
+		}
+	}
+	
+	protected static Truncation[] getMcdc(Operator op)
+	{
+		Set<Truncation> truncations = new HashSet<Truncation>();
+		for (String v : op.getVariables())
+		{
+			truncations.add(new KeepIfDetermines(v));
+		}
+		return truncations.toArray(new Truncation[truncations.size()]);
+	}
+	
+	protected static void assertCovers(Operator op, Set<Long> suite, Truncation ... truncations)
+	{
+		BddHypergraph h = new BddHypergraphGenerator().getGraph(op, truncations);
+		Bdd bdd = h.getBdd();
+		for (int edge : h.getEdges().values())
+		{
+			boolean hit = false;
+			for (long id : suite)
+			{
+				hit |= bdd.contains(edge, id);
+			}
+			assertTrue(hit);
+		}
+	}
+}
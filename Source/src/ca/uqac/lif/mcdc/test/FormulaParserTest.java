@@ -0,0 +1,106 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc.test;
+
+import static org.junit.Assert.*;
+
+import java.io.StringReader;
+import java.util.List;
+
+import org.junit.Test;
+
+import ca.uqac.lif.mcdc.BitslicedEvaluator;
+import ca.uqac.lif.mcdc.FormulaParser;
+import ca.uqac.lif.mcdc.FormulaReader;
+import ca.uqac.lif.mcdc.Operator;
+import mcdclab.benchmark.FaaBenchmark;
+import mcdclab.benchmark.TCASBenchmark;
+
+import static ca.uqac.lif.mcdc.Conjunction.And;
+import static ca.uqac.lif.mcdc.Disjunction.Or;
+import static ca.uqac.lif.mcdc.Negation.Not;
+
+/**
+ * Unit tests for the formula parser.
+ */
+public class FormulaParserTest
+{
+	@Test
+	public void testInfix()
+	{
+		FormulaParser parser = new FormulaParser();
+		assertSame(And("a", Not("b")), parser.parse("(a ∧ ¬b)"));
+		assertSame(Or(And("x1", "y_2"), "z"), parser.parse("x1 & y_2 | z"));
+		assertSame(Not(Or("a", "b")), parser.parse("¬(a ∨ b)"));
+	}
+	
+	@Test
+	public void testCompact()
+	{
+		FormulaParser parser = new FormulaParser(true);
+		assertSame(Or(And("a", Not("b")), "c"), parser.parse("(a!b+c)"));
+		assertSame(And("a", Or("b", "c"), Not(And("d", "e"))), parser.parse("(a(b+c)!(de))"));
+		assertSame(And("x1", "x2"), parser.parse("x1x2"));
+	}
+	
+	@Test
+	public void testRoundTrip()
+	{
+		FormulaParser parser = new FormulaParser();
+		TCASBenchmark tcas = new TCASBenchmark();
+		for (int i = 1; i <= 20; i++)
+		{
+			checkRoundTrip(parser, tcas.getFormula(i));
+		}
+		FaaBenchmark faa = new FaaBenchmark();
+		for (int i = 1; i <= 10; i++)
+		{
+			checkRoundTrip(parser, faa.getFormula(i));
+		}
+	}
+	
+	protected static void checkRoundTrip(FormulaParser parser, Operator op)
+	{
+		if (op == null)
+		{
+			return;
+		}
+		// An operator with a single operand is read back as this operand,
+		// so the text may differ, but not the truth table
+		Operator parsed = parser.parse(op.toString());
+		assertEquals(parsed.toString(), parser.parse(parsed.toString()).toString());
+		assertArrayEquals(new BitslicedEvaluator(op).getTruthTable(), new BitslicedEvaluator(parsed).getTruthTable());
+	}
+	
+	@Test
+	public void testReader()
+	{
+		String text = "# Some formulas\n(a ∧ b)\n\n  a ∨ ¬c  \n";
+		FormulaReader reader = new FormulaReader(new StringReader(text), new FormulaParser());
+		List<Operator> formulas = reader.readAll();
+		assertEquals(2, formulas.size());
+		assertSame(Or("a", Not("c")), formulas.get(1));
+		assertEquals(4, reader.getLineNumber());
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testError()
+	{
+		new FormulaParser().parse("(a ∧ b");
+	}
+}
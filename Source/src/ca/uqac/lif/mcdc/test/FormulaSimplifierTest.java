@@ -0,0 +1,118 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc.test;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import ca.uqac.lif.mcdc.FormulaSimplifier;
+import ca.uqac.lif.mcdc.HologramNode;
+import ca.uqac.lif.mcdc.Operator;
+import ca.uqac.lif.mcdc.Simplification;
+import ca.uqac.lif.mcdc.Valuation;
+import ca.uqac.lif.mcdc.ValuationIterator;
+import mcdclab.benchmark.FaaBenchmark;
+import mcdclab.benchmark.TCASBenchmark;
+
+import static ca.uqac.lif.mcdc.Conjunction.And;
+import static ca.uqac.lif.mcdc.Disjunction.Or;
+import static ca.uqac.lif.mcdc.Negation.Not;
+
+/**
+ * Unit tests for {@link FormulaSimplifier}.
+ */
+public class FormulaSimplifierTest
+{
+	@Test
+	public void testFlatten()
+	{
+		Operator op = Or(Or("a", And("b", "c")), Or("d", "e"));
+		Simplification s = new FormulaSimplifier().simplify(op);
+		assertSame(Or("a", And("b", "c"), "d", "e"), s.getSimplified());
+		// Node b is now under the second operand of the root
+		assertArrayEquals(new int[] {1, 0}, s.getSimplifiedPath(0, 1, 0));
+		assertArrayEquals(new int[] {0, 1, 0}, s.getOriginalPath(1, 0));
+		// The flattened disjunctions are merged into the root
+		assertArrayEquals(new int[0], s.getSimplifiedPath(1));
+	}
+	
+	@Test
+	public void testDuplicates()
+	{
+		Operator op = Or(And("a", Not("b"), "a", Not("b")), "c");
+		Simplification s = new FormulaSimplifier().simplify(op);
+		assertSame(Or(And("a", Not("b")), "c"), s.getSimplified());
+		assertArrayEquals(new int[] {0, 1, 0}, s.getSimplifiedPath(0, 3, 0));
+	}
+	
+	@Test
+	public void testConstantClauses()
+	{
+		Operator op = And(Or("a", Not("a")), Or(And("b", Not("b")), "c"), "d");
+		Simplification s = new FormulaSimplifier().simplify(op);
+		assertSame(And(Or("c"), "d"), s.getSimplified());
+		assertEquals(1, s.getAlwaysTrueClauses().size());
+		assertArrayEquals(new int[] {0}, s.getAlwaysTrueClauses().get(0));
+		assertEquals(1, s.getNeverTrueClauses().size());
+		assertArrayEquals(new int[] {1, 0}, s.getNeverTrueClauses().get(0));
+		assertNull(s.getSimplifiedPath(0, 1));
+	}
+	
+	@Test
+	public void testHolograms()
+	{
+		FormulaSimplifier simplifier = new FormulaSimplifier();
+		TCASBenchmark tcas = new TCASBenchmark();
+		for (int id : new int[] {1, 4, 10})
+		{
+			checkHolograms(simplifier.simplify(tcas.getFormula(id)));
+		}
+		checkHolograms(simplifier.simplify(new FaaBenchmark().getFormula(5)));
+	}
+	
+	/**
+	 * Checks that every node of the simplified hologram has the value of
+	 * the original node it comes from, for all valuations.
+	 * @param s The simplification
+	 */
+	protected static void checkHolograms(Simplification s)
+	{
+		ValuationIterator it = new ValuationIterator(s.getOriginal().getSymbolTable());
+		while (it.hasNext())
+		{
+			Valuation v = it.next();
+			checkNode(s, s.getOriginal().evaluate(v), s.getSimplified().evaluate(v), new int[0]);
+		}
+	}
+	
+	protected static void checkNode(Simplification s, HologramNode original, HologramNode simplified, int[] path)
+	{
+		HologramNode n = Simplification.getNode(simplified, path);
+		HologramNode o = Simplification.getNode(original, s.getOriginalPath(path));
+		assertEquals(o.getLabel(), n.getLabel());
+		assertEquals(o.getValue(), n.getValue());
+		for (int i = 0; i < n.getChildren().size(); i++)
+		{
+			int[] c_path = new int[path.length + 1];
+			System.arraycopy(path, 0, c_path, 0, path.length);
+			c_path[path.length] = i;
+			checkNode(s, original, simplified, c_path);
+		}
+	}
+}
@@ -0,0 +1,70 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc.test;
+
+import static org.junit.Assert.*;
+
+import java.util.Set;
+
+import org.junit.Test;
+
+import ca.uqac.lif.mcdc.FrozenFormula;
+import ca.uqac.lif.mcdc.Operator;
+import mcdclab.benchmark.TCASBenchmark;
+
+import static ca.uqac.lif.mcdc.Conjunction.And;
+import static ca.uqac.lif.mcdc.Disjunction.Or;
+import static ca.uqac.lif.mcdc.Negation.Not;
+
+/**
+ * Unit tests for {@link FrozenFormula}.
+ */
+public class FrozenFormulaTest
+{
+	@Test
+	public void testMetadata()
+	{
+		Operator op = Or(And("c", Not("a")), And("b", "a"));
+		FrozenFormula f = op.freeze();
+		assertSame(f, op.freeze());
+		assertSame(op, f.getFormula());
+		assertEquals(op.getVariables(), f.getVariables());
+		assertEquals(3, f.getVariableCount());
+		assertArrayEquals(new String[] {"a", "b", "c"}, f.getSortedVariables());
+		assertEquals(op.getSize(), f.getSize());
+		assertEquals(op.getDepth(), f.getDepth());
+		assertSame(op.getSymbolTable(), f.getSymbolTable());
+	}
+	
+	@Test(expected = UnsupportedOperationException.class)
+	public void testUnmodifiable()
+	{
+		Set<String> vars = Or("a", "b").freeze().getVariables();
+		vars.add("c");
+	}
+	
+	@Test
+	public void testEngines()
+	{
+		TCASBenchmark benchmark = new TCASBenchmark();
+		FrozenFormula f = benchmark.getFormula(3).freeze();
+		assertSame(f.getEvaluator(), f.getEvaluator());
+		assertSame(f.getCompiled(), f.getCompiled());
+		assertSame(f.getSymbolTable(), f.getEvaluator().getSymbolTable());
+	}
+}
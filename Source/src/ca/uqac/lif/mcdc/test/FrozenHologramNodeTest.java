@@ -0,0 +1,105 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc.test;
+
+import static ca.uqac.lif.mcdc.Conjunction.And;
+import static ca.uqac.lif.mcdc.Disjunction.Or;
+import static ca.uqac.lif.mcdc.Negation.Not;
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import ca.uqac.lif.mcdc.FrozenHologramNode;
+import ca.uqac.lif.mcdc.HologramNode;
+import ca.uqac.lif.mcdc.Operator;
+import ca.uqac.lif.mcdc.Valuation;
+
+/**
+ * Unit tests for {@link FrozenHologramNode} and the hash code of holograms.
+ */
+public class FrozenHologramNodeTest
+{
+	@Test
+	public void testLeaves()
+	{
+		// Leaves with different labels or values hash differently
+		Set<Integer> codes = new HashSet<Integer>();
+		codes.add(new HologramNode("a", true).hashCode());
+		codes.add(new HologramNode("a", false).hashCode());
+		codes.add(new HologramNode("a", null).hashCode());
+		codes.add(new HologramNode("b", true).hashCode());
+		assertEquals(4, codes.size());
+	}
+	
+	@Test
+	public void testFreeze()
+	{
+		Operator op = Or(And("a", Not("b")), And("c", "d"));
+		HologramNode n = op.evaluate(Valuation.get(true, false, true, true));
+		FrozenHologramNode f = n.freeze();
+		assertEquals(n, f);
+		assertEquals(f, n);
+		assertEquals(n.hashCode(), f.hashCode());
+		assertSame(f, f.freeze());
+		assertSame(f, f.duplicate(true));
+		HologramNode other = op.evaluate(Valuation.get(true, true, true, true));
+		assertFalse(f.equals(other));
+		assertFalse(f.equals(other.freeze()));
+		// Changing the mutable tree does not change the frozen copy
+		n.getChildren().get(0).setValue(!n.getChildren().get(0).getValue());
+		assertFalse(f.equals(n));
+		assertEquals(f, op.evaluate(Valuation.get(true, false, true, true)));
+	}
+	
+	@Test(expected = UnsupportedOperationException.class)
+	public void testImmutable1()
+	{
+		new HologramNode("a", true).freeze().setValue(false);
+	}
+	
+	@Test(expected = UnsupportedOperationException.class)
+	public void testImmutable2()
+	{
+		new HologramNode("a", true).freeze().getChildren().add(new HologramNode("b"));
+	}
+	
+	@Test
+	public void testDeep()
+	{
+		// Freezing and comparing deep trees does not overflow the stack
+		HologramNode n1 = new HologramNode("x", true);
+		HologramNode n2 = new HologramNode("x", true);
+		for (int i = 0; i < 100000; i++)
+		{
+			HologramNode p1 = new HologramNode("!", i % 2 == 0);
+			p1.addChild(n1);
+			n1 = p1;
+			HologramNode p2 = new HologramNode("!", i % 2 == 0);
+			p2.addChild(n2);
+			n2 = p2;
+		}
+		FrozenHologramNode f1 = n1.freeze();
+		FrozenHologramNode f2 = n2.freeze();
+		assertEquals(f1.hashCode(), f2.hashCode());
+		assertTrue(f1.equals(f2));
+		assertTrue(f1.equals(n2));
+	}
+}
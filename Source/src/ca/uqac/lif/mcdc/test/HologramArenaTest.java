@@ -0,0 +1,128 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc.test;
+
+import static ca.uqac.lif.mcdc.Conjunction.And;
+import static ca.uqac.lif.mcdc.Disjunction.Or;
+import static ca.uqac.lif.mcdc.Negation.Not;
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import ca.uqac.lif.mcdc.ArenaTruncation;
+import ca.uqac.lif.mcdc.BitslicedEvaluator;
+import ca.uqac.lif.mcdc.HologramArena;
+import ca.uqac.lif.mcdc.HologramEncoder;
+import ca.uqac.lif.mcdc.HologramNode;
+import ca.uqac.lif.mcdc.HypergraphGenerator;
+import ca.uqac.lif.mcdc.KeepClauses;
+import ca.uqac.lif.mcdc.KeepNthClause;
+import ca.uqac.lif.mcdc.KeepTop;
+import ca.uqac.lif.mcdc.KeepValuesOf;
+import ca.uqac.lif.mcdc.Operator;
+import ca.uqac.lif.mcdc.Truncation;
+
+/**
+ * Unit tests for {@link HologramArena} and the {@link ArenaTruncation}s.
+ */
+public class HologramArenaTest
+{
+	@Test
+	public void testFill()
+	{
+		// Shared subformulas are laid out once per occurrence
+		Operator a_b = And("a", "b");
+		Operator op = Or(a_b, And(Not("c"), a_b));
+		BitslicedEvaluator evaluator = op.freeze().getEvaluator();
+		HologramArena arena = new HologramArena(evaluator, new HologramEncoder(op.getSymbolTable()));
+		long[] words = new long[evaluator.getNodeCount()];
+		evaluator.evaluate(0, words);
+		for (int k = 0; k < evaluator.getValuationsPerBlock(); k++)
+		{
+			int root = arena.fill(words, k);
+			assertEquals(evaluator.getHologram(words, k), arena.toNode(root));
+		}
+		int size = arena.size();
+		int leaf = arena.addNode(arena.getLabelId("a"), true, 0);
+		assertEquals(size + 1, arena.size());
+		assertEquals("a", arena.getLabel(leaf));
+		assertEquals(Boolean.TRUE, arena.getValue(leaf));
+		arena.clear();
+		assertEquals(size, arena.size());
+	}
+	
+	@Test
+	public void testTruncations()
+	{
+		Operator op = Or(And("a", Not("b")), And("c", "d"), Not("e"));
+		Set<Truncation> truncations = new HashSet<Truncation>();
+		truncations.add(new KeepTop(2));
+		truncations.add(new KeepTop(3));
+		truncations.add(KeepClauses.instance);
+		truncations.addAll(KeepNthClause.generateClauseCoverage(op));
+		truncations.addAll(KeepValuesOf.generateTWay(2, op));
+		truncations.add(new KeepValuesOf("a", "z"));
+		BitslicedEvaluator evaluator = op.freeze().getEvaluator();
+		HologramEncoder encoder = new HologramEncoder(op.getSymbolTable());
+		HologramArena arena = new HologramArena(evaluator, encoder);
+		long[] words = new long[evaluator.getNodeCount()];
+		evaluator.evaluate(0, words);
+		for (int k = 0; k < evaluator.getValuationsPerBlock(); k++)
+		{
+			HologramNode n = evaluator.getHologram(words, k);
+			int root = arena.fill(words, k);
+			for (Truncation t : truncations)
+			{
+				arena.clear();
+				int truncated = ((ArenaTruncation) t).applyTo(arena, root);
+				assertEquals(t.applyTo(n), arena.toNode(truncated));
+				assertEquals(encoder.encode(t.applyTo(n)), encoder.encode(arena, truncated));
+			}
+		}
+	}
+	
+	@Test
+	public void testNotDnf()
+	{
+		// KeepClauses returns the tree itself when the root is not a disjunction
+		Operator op = And("a", "b");
+		BitslicedEvaluator evaluator = op.freeze().getEvaluator();
+		HologramArena arena = new HologramArena(evaluator, new HologramEncoder(op.getSymbolTable()));
+		long[] words = new long[evaluator.getNodeCount()];
+		evaluator.evaluate(0, words);
+		int root = arena.fill(words, 3);
+		assertEquals(root, KeepClauses.instance.applyTo(arena, root));
+	}
+	
+	@Test
+	public void testGenerator()
+	{
+		Operator op = Or(And("a", Not("b")), And("c", "d"), And("a", "e"));
+		Set<Truncation> truncations = new HashSet<Truncation>();
+		truncations.add(KeepClauses.instance);
+		truncations.addAll(KeepNthClause.generateClauseCoverage(op));
+		truncations.addAll(KeepValuesOf.generateTWay(2, op));
+		HypergraphGenerator with = new HypergraphGenerator();
+		HypergraphGenerator without = new HypergraphGenerator();
+		without.setArena(false);
+		assertEquals(without.getGraph(op, truncations).getEdgeCount(), with.getGraph(op, truncations).getEdgeCount());
+	}
+}
@@ -0,0 +1,141 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc.test;
+
+import static ca.uqac.lif.mcdc.Conjunction.And;
+import static ca.uqac.lif.mcdc.Disjunction.Or;
+import static ca.uqac.lif.mcdc.Negation.Not;
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import ca.uqac.lif.mcdc.FrozenHologramNode;
+import ca.uqac.lif.mcdc.HologramFactory;
+import ca.uqac.lif.mcdc.HologramNode;
+import ca.uqac.lif.mcdc.KeepIfDetermines;
+import ca.uqac.lif.mcdc.KeepIfUniquelyDetermines;
+import ca.uqac.lif.mcdc.KeepValuesOf;
+import ca.uqac.lif.mcdc.KeepVariable;
+import ca.uqac.lif.mcdc.Operator;
+import ca.uqac.lif.mcdc.Truncation;
+import ca.uqac.lif.mcdc.Valuation;
+
+/**
+ * Unit tests for {@link HologramFactory}.
+ */
+public class HologramFactoryTest
+{
+	@Test
+	public void testIntern()
+	{
+		Operator op = Or(And("a", Not("b")), And("c", "d"));
+		HologramFactory factory = new HologramFactory(op.getSymbolTable());
+		HologramNode n1 = op.evaluate(Valuation.get(true, false, true, true));
+		HologramNode n2 = op.evaluate(Valuation.get(true, false, true, true));
+		HologramNode n3 = op.evaluate(Valuation.get(true, true, true, true));
+		FrozenHologramNode f1 = factory.intern(n1);
+		assertEquals(n1, f1);
+		assertSame(f1, factory.intern(n2));
+		assertSame(f1, factory.intern(f1));
+		assertNotSame(f1, factory.intern(n3));
+		assertEquals(n3, factory.intern(n3));
+		assertNull(factory.intern(null));
+	}
+	
+	@Test
+	public void testSubtrees()
+	{
+		Operator op = Or(And("a", "b"), And("c", "d"));
+		HologramFactory factory = new HologramFactory(op.getSymbolTable());
+		FrozenHologramNode f1 = factory.intern(op.evaluate(Valuation.get(true, true, false, false)));
+		FrozenHologramNode f2 = factory.intern(op.evaluate(Valuation.get(true, true, true, false)));
+		// The left clause is the same in both trees, and is shared
+		assertSame(f1.getChildren().get(0), f2.getChildren().get(0));
+		assertNotSame(f1.getChildren().get(1), f2.getChildren().get(1));
+	}
+	
+	@Test
+	public void testLeaves()
+	{
+		Operator op = And("a", "b");
+		HologramFactory factory = new HologramFactory(op.getSymbolTable());
+		// The dummy node and one leaf per variable and value
+		assertEquals(5, factory.size());
+		FrozenHologramNode leaf = factory.getLeaf(1, true);
+		assertEquals("b", leaf.getLabel());
+		assertEquals(Boolean.TRUE, leaf.getValue());
+		assertSame(leaf, factory.intern(new HologramNode("b", true)));
+		assertSame(factory.intern(HologramNode.dummyNode()), factory.intern(HologramNode.dummyNode()));
+		assertEquals(5, factory.size());
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testLeafOutOfRange()
+	{
+		new HologramFactory(And("a", "b").getSymbolTable()).getLeaf(2, true);
+	}
+	
+	@Test
+	public void testGetNode()
+	{
+		HologramFactory factory = new HologramFactory();
+		FrozenHologramNode n1 = factory.getNode("?", null, new HologramNode("a", true), null);
+		FrozenHologramNode n2 = factory.getNode("?", null, new HologramNode("a", true), null);
+		assertSame(n1, n2);
+		assertEquals(2, n1.getChildren().size());
+		assertNull(n1.getChildren().get(1));
+	}
+	
+	@Test
+	public void testTruncations()
+	{
+		// Truncated trees are few, however many valuations produce them
+		Operator op = Or(And("a", "b"), And("c", "d"));
+		HologramFactory factory = new HologramFactory(op.getSymbolTable());
+		Truncation t = new KeepValuesOf("a", "c");
+		for (int i = 0; i < 16; i++)
+		{
+			factory.intern(t.applyTo(op.evaluate(Valuation.get((i & 1) != 0, (i & 2) != 0, (i & 4) != 0, (i & 8) != 0))));
+		}
+		// The dummy node and the 8 leaves, plus one root per pair of values
+		assertEquals(13, factory.size());
+	}
+	
+	@Test
+	public void testFlyweights()
+	{
+		// Truncations return shared nodes instead of allocating new ones
+		Operator op = Or(And("a", "b"), And("c", "d"));
+		HologramNode n1 = op.evaluate(Valuation.get(false, false, false, false));
+		HologramNode n2 = op.evaluate(Valuation.get(false, false, false, true));
+		Truncation t = new KeepIfDetermines("a");
+		assertSame(FrozenHologramNode.getDummy(false), t.applyTo(n1));
+		assertSame(t.applyTo(n1), t.applyTo(n2));
+		t = new KeepVariable("e");
+		assertSame(HologramNode.dummyNode(), t.applyTo(n1));
+		t = new KeepIfUniquelyDetermines("a");
+		Operator tautology = Or("a", Not("a"));
+		HologramNode n3 = tautology.evaluate(Valuation.get(true));
+		assertEquals("a", t.applyTo(n3).getLabel());
+		assertSame(t.applyTo(n3), t.applyTo(tautology.evaluate(Valuation.get(false))));
+		// The factory gives back the same shared nodes
+		HologramFactory factory = new HologramFactory(op.getSymbolTable());
+		assertSame(FrozenHologramNode.getDummy(false), factory.intern(new KeepIfDetermines("a").applyTo(n1)));
+		assertSame(HologramNode.dummyNode(), factory.getNode(HologramNode.DUMMY_SYMBOL, null));
+	}
+}
@@ -51,6 +51,20 @@ public class HologramNodeTest
 		assertEquals(t_n.getLabel(), HologramNode.DUMMY_SYMBOL);
 	}
 	
+	@Test
+	public void testToStringPartial()
+	{
+		// Only a has a value: the root and the leaf of b are unknown
+		Valuation v = new Valuation();
+		v.set("a", true);
+		HologramNode n = And(a, b).evaluate(v);
+		assertNull(n.getValue());
+		String s = n.toString();
+		assertTrue(s.startsWith(Conjunction.SYMBOL + ",?"));
+		assertTrue(s.contains("a,T"));
+		assertTrue(s.contains("b,?"));
+	}
+	
 	@Test
 	public void test2()
 	{
@@ -68,4 +82,24 @@ public class HologramNodeTest
 		assertEquals(c.getLabel(), HologramNode.DUMMY_SYMBOL);
 	}
 	
-}
+	@Test
+	public void testHashCodeDeep()
+	{
+		HologramNode root = new HologramNode("∧", true);
+		HologramNode n = root;
+		for (int i = 0; i < 100000; i++)
+		{
+			HologramNode c = new HologramNode(i % 2 == 0 ? "∨" : "∧", true);
+			n.addChild(c);
+			n.addChild(new HologramNode("a", i % 3 == 0));
+			n = c;
+		}
+		n.addChild(new HologramNode("b", false).freeze());
+		int h = root.hashCode();
+		assertEquals(h, root.hashCode());
+		assertEquals(h, root.freeze().hashCode());
+		n.setValue(false);
+		assertFalse(h == root.hashCode());
+	}
+	
+}
\ No newline at end of file
@@ -0,0 +1,155 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc.test;
+
+import static ca.uqac.lif.mcdc.Conjunction.And;
+import static ca.uqac.lif.mcdc.Disjunction.Or;
+import static ca.uqac.lif.mcdc.Negation.Not;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import ca.uqac.lif.mcdc.HologramEncoder;
+import ca.uqac.lif.mcdc.HologramNode;
+import ca.uqac.lif.mcdc.HologramSignature;
+import ca.uqac.lif.mcdc.KeepValuesOf;
+import ca.uqac.lif.mcdc.Operator;
+import ca.uqac.lif.mcdc.Truncation;
+import ca.uqac.lif.mcdc.Valuation;
+
+/**
+ * Unit tests for {@link HologramSignature} and {@link HologramEncoder}.
+ */
+public class HologramSignatureTest
+{
+	@Test
+	public void testCanonical()
+	{
+		// Two trees have the same signature if and only if they are equal
+		Operator op = Or(And("a", Not("b")), And("c", "d"));
+		HologramEncoder encoder = new HologramEncoder(op.getSymbolTable());
+		List<HologramNode> trees = new ArrayList<HologramNode>();
+		for (int i = 0; i < 16; i++)
+		{
+			trees.add(op.evaluate(Valuation.get((i & 1) != 0, (i & 2) != 0, (i & 4) != 0, (i & 8) != 0)));
+		}
+		for (HologramNode n1 : trees)
+		{
+			for (HologramNode n2 : trees)
+			{
+				assertEquals(n1.equals(n2), encoder.encode(n1).equals(encoder.encode(n2)));
+			}
+		}
+	}
+	
+	@Test
+	public void testPacked()
+	{
+		Operator op = Or(And("a", "b"), And("c", "d"));
+		HologramEncoder encoder = new HologramEncoder(op.getSymbolTable());
+		HologramNode n = op.evaluate(Valuation.get(true, false, true, true));
+		Truncation t = new KeepValuesOf("a", "c");
+		// Dummy root and two leaves: 10 bits each
+		HologramSignature s = encoder.encode(t.applyTo(n));
+		assertTrue(s.isPacked());
+		assertTrue(s.getBits() < (1L << 30));
+		// The whole tree takes more than 64 bits
+		HologramSignature s_full = encoder.encode(n);
+		assertFalse(s_full.isPacked());
+		assertEquals(n, encoder.decode(s_full));
+		assertEquals(t.applyTo(n), encoder.decode(s));
+	}
+	
+	@Test
+	public void testMissingChildren()
+	{
+		HologramEncoder encoder = new HologramEncoder();
+		HologramNode n1 = new KeepValuesOf("a", "z").applyTo(And("a", "b").evaluate(Valuation.get(true, true)));
+		HologramNode n2 = new KeepValuesOf("z", "a").applyTo(And("a", "b").evaluate(Valuation.get(true, true)));
+		assertNull(n1.getChildren().get(1));
+		assertFalse(encoder.encode(n1).equals(encoder.encode(n2)));
+		assertEquals(n1, encoder.decode(encoder.encode(n1)));
+		assertEquals(n2, encoder.decode(encoder.encode(n2)));
+		assertNull(encoder.decode(encoder.encode(null)));
+	}
+	
+	@Test
+	public void testBytes()
+	{
+		Operator op = Or(And("a", Not("b")), And("c", "d"));
+		HologramEncoder encoder = new HologramEncoder(op.getSymbolTable());
+		HologramNode n = op.evaluate(Valuation.get(true, false, true, true));
+		HologramSignature s1 = encoder.encode(n);
+		HologramSignature s2 = encoder.encode(n.getChildren().get(0).getChildren().get(0));
+		assertEquals(s1, HologramSignature.fromBytes(s1.toBytes()));
+		assertEquals(s2, HologramSignature.fromBytes(s2.toBytes()));
+		assertEquals(s1.hashCode(), HologramSignature.fromBytes(s1.toBytes()).hashCode());
+	}
+	
+	@Test
+	public void testOrder()
+	{
+		Operator op = Or(And("a", Not("b")), And("c", "d"));
+		HologramEncoder encoder = new HologramEncoder(op.getSymbolTable());
+		List<HologramSignature> sigs = new ArrayList<HologramSignature>();
+		for (int i = 0; i < 16; i++)
+		{
+			HologramNode n = op.evaluate(Valuation.get((i & 1) != 0, (i & 2) != 0, (i & 4) != 0, (i & 8) != 0));
+			sigs.add(encoder.encode(n));
+			sigs.add(encoder.encode(n.getChildren().get(1)));
+		}
+		Collections.sort(sigs);
+		for (int i = 1; i < sigs.size(); i++)
+		{
+			int c = sigs.get(i - 1).compareTo(sigs.get(i));
+			assertTrue(c <= 0);
+			assertEquals(c == 0, sigs.get(i - 1).equals(sigs.get(i)));
+			assertEquals(Integer.signum(c), -Integer.signum(sigs.get(i).compareTo(sigs.get(i - 1))));
+		}
+	}
+	
+	@Test
+	public void testTranslate()
+	{
+		// Encoders that see labels in a different order give different IDs
+		HologramEncoder e1 = new HologramEncoder();
+		HologramEncoder e2 = new HologramEncoder();
+		HologramNode n1 = new HologramNode("x", true);
+		HologramNode n2 = new HologramNode("y", false);
+		e1.encode(n1);
+		e2.encode(n2);
+		Set<HologramSignature> sigs = new HashSet<HologramSignature>();
+		sigs.add(e2.translate(e1.encode(n2), e1));
+		sigs.add(e2.encode(n2));
+		assertEquals(1, sigs.size());
+		assertEquals(n2, e2.decode(e2.translate(e1.encode(n2), e1)));
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public void testNotPacked()
+	{
+		Operator op = Or(And("a", Not("b")), And("c", "d"));
+		new HologramEncoder(op.getSymbolTable()).encode(op.evaluate(Valuation.get(true, true, true, true))).getBits();
+	}
+}
@@ -19,13 +19,23 @@ package ca.uqac.lif.mcdc.test;
 
 import static org.junit.Assert.*;
 
+import java.util.HashSet;
+import java.util.Set;
+
 import org.junit.Test;
 
+import ca.uqac.lif.mcdc.GreedyHittingSetSolver;
 import ca.uqac.lif.mcdc.Hypergraph;
 import ca.uqac.lif.mcdc.HypergraphGenerator;
 import ca.uqac.lif.mcdc.KeepAll;
 import ca.uqac.lif.mcdc.KeepClauses;
+import ca.uqac.lif.mcdc.KeepIfDetermines;
+import ca.uqac.lif.mcdc.KeepNthClause;
+import ca.uqac.lif.mcdc.KeepValuesOf;
 import ca.uqac.lif.mcdc.KeepVariable;
+import ca.uqac.lif.mcdc.Operator;
+import ca.uqac.lif.mcdc.Truncation;
+import mcdclab.benchmark.TCASBenchmark;
 
 import static ca.uqac.lif.mcdc.Conjunction.And;
 import static ca.uqac.lif.mcdc.Disjunction.Or;
@@ -68,4 +78,104 @@ public class HypergraphTest
 		Hypergraph h = generator.getGraph(Or(And("a", "b"), And("c", "d")), KeepClauses.instance);
 		assertEquals(4, h.getEdgeCount());
 	}
+	
+	@Test
+	public void testGrayCode()
+	{
+		HypergraphGenerator generator = new HypergraphGenerator();
+		generator.setGrayCode(true);
+		Hypergraph h = generator.getGraph(Or(And("a", "b"), And("c", "d")), KeepClauses.instance);
+		assertEquals(4, h.getEdgeCount());
+		assertEquals(Boolean.TRUE, generator.getValuation(5).get("a"));
+		assertEquals(Boolean.TRUE, generator.getValuation(5).get("c"));
+		assertEquals(Boolean.FALSE, generator.getValuation(5).get("b"));
+	}
+	
+	@Test
+	public void testCubes()
+	{
+		HypergraphGenerator generator = new HypergraphGenerator();
+		generator.setCubes(true);
+		Hypergraph h = generator.getGraph(Or(And("a", "b"), And("c", "d")), KeepClauses.instance, new KeepNthClause(1));
+		assertEquals(7, h.getEdgeCount());
+		h = generator.getGraph(Or(And("a", "b"), And("c", "d")), new KeepVariable("a"));
+		assertEquals(2, h.getEdgeCount());
+	}
+	
+	@Test
+	public void testTruthTables()
+	{
+		Operator op = new TCASBenchmark().getFormula(3);
+		Set<Truncation> truncations = new HashSet<Truncation>();
+		for (String v : op.getVariables())
+		{
+			truncations.add(new KeepIfDetermines(v));
+		}
+		truncations.addAll(KeepValuesOf.generateTWay(2, op));
+		truncations.add(new KeepNthClause(1));
+		HypergraphGenerator generator = new HypergraphGenerator();
+		generator.setTruthTables(true);
+		Hypergraph h = generator.getGraph(op, truncations);
+		assertEquals(new HypergraphGenerator().getGraph(op, truncations).getEdgeCount(), h.getEdgeCount());
+		assertEquals(Boolean.TRUE, generator.getValuation(5).get(op.getSortedVariables()[2]));
+		// Small formula: a and b each determine the conjunction when the other is true
+		h = generator.getGraph(And("a", "b"), new KeepIfDetermines("a"), new KeepIfDetermines("b"));
+		assertEquals(5, h.getEdgeCount());
+	}
+	
+	@Test
+	public void testGetValuation()
+	{
+		HypergraphGenerator generator = new HypergraphGenerator();
+		generator.getGraph(And("a", "b"), KeepClauses.instance);
+		assertEquals(Boolean.TRUE, generator.getValuation(2).get("b"));
+		// Valuations refer to the formula of the last graph produced
+		generator.getGraph(Or("x", "y", "z"), KeepClauses.instance);
+		assertEquals(Boolean.TRUE, generator.getValuation(6).get("z"));
+		assertEquals(Boolean.FALSE, generator.getValuation(6).get("x"));
+		assertNull(generator.getValuation(6).get("a"));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testGetValuationOutOfRange()
+	{
+		HypergraphGenerator generator = new HypergraphGenerator();
+		generator.getGraph(And("a", "b"), KeepClauses.instance);
+		generator.getValuation(4);
+	}
+	
+	@Test
+	public void testConstraint()
+	{
+		Operator op = Or(And("a", Not("b"), "e"), And("c", "f"), And("d", Not("e"), "g"));
+		Operator constraint = And(Not(And("a", "b")), Not(And("c", "d")));
+		Set<Truncation> truncations = KeepValuesOf.generateTWay(2, op);
+		for (String v : op.getVariables())
+		{
+			truncations.add(new KeepIfDetermines(v));
+		}
+		HypergraphGenerator generator = new HypergraphGenerator();
+		generator.setConstraint(constraint);
+		Hypergraph h = generator.getGraph(op, truncations);
+		Set<Long> suite = GreedyHittingSetSolver.instance.solve(h);
+		for (long id : suite)
+		{
+			assertEquals(Boolean.TRUE, constraint.evaluate(generator.getValuation(id)).getValue());
+		}
+		// Edges produced only by infeasible valuations disappear
+		assertTrue(h.getEdgeCount() < new HypergraphGenerator().getGraph(op, truncations).getEdgeCount());
+		// Other modes produce the same graph
+		HypergraphGenerator tt_generator = new HypergraphGenerator();
+		tt_generator.setConstraint(constraint);
+		tt_generator.setTruthTables(true);
+		Hypergraph tt_h = tt_generator.getGraph(op, truncations);
+		assertEquals(h.getEdgeCount(), tt_h.getEdgeCount());
+		assertEquals(suite, GreedyHittingSetSolver.instance.solve(tt_h));
+		HypergraphGenerator p_generator = new HypergraphGenerator();
+		p_generator.setConstraint(constraint);
+		p_generator.setThreads(2);
+		Hypergraph p_h = p_generator.getGraph(op, truncations);
+		assertEquals(h.getEdgeCount(), p_h.getEdgeCount());
+		assertEquals(suite, GreedyHittingSetSolver.instance.solve(p_h));
+	}
 }
@@ -0,0 +1,190 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc.test;
+
+import static org.junit.Assert.*;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import ca.uqac.lif.mcdc.Atom;
+import ca.uqac.lif.mcdc.Conjunction;
+import ca.uqac.lif.mcdc.Disjunction;
+import ca.uqac.lif.mcdc.HologramNode;
+import ca.uqac.lif.mcdc.Negation;
+import ca.uqac.lif.mcdc.Operator;
+import ca.uqac.lif.mcdc.OperatorPool;
+import ca.uqac.lif.mcdc.Valuation;
+import ca.uqac.lif.mcdc.ValuationIterator;
+import mcdclab.benchmark.TCASBenchmark;
+
+import static ca.uqac.lif.mcdc.Conjunction.And;
+import static ca.uqac.lif.mcdc.Disjunction.Or;
+import static ca.uqac.lif.mcdc.Negation.Not;
+
+/**
+ * Unit tests for the hash-consing of operators.
+ */
+public class OperatorPoolTest
+{
+	@Test
+	public void testSharing()
+	{
+		Operator op1 = And("a", Not("b"));
+		Operator op2 = And("a", Not("b"));
+		assertSame(op1, op2);
+		assertNotSame(op1, And(Not("b"), "a"));
+		Operator op3 = Or(And("c", op1), And("d", op2));
+		Conjunction c1 = (Conjunction) ((Disjunction) op3).getOperands().get(0);
+		Conjunction c2 = (Conjunction) ((Disjunction) op3).getOperands().get(1);
+		assertSame(c1.getOperands().get(1), c2.getOperands().get(1));
+	}
+	
+	@Test
+	public void testArgumentUntouched()
+	{
+		Atom a = new Atom("a");
+		Negation n = new Negation(new Atom("b"));
+		Conjunction c = new Conjunction(a, n);
+		Operator pooled = OperatorPool.intern(c);
+		assertNotSame(c, pooled);
+		assertSame(And("a", Not("b")), pooled);
+		// The argument and its operands were not replaced by pooled ones
+		assertSame(a, c.getOperands().get(0));
+		assertSame(n, c.getOperands().get(1));
+		assertNotSame(a, ((Conjunction) pooled).getOperands().get(0));
+		assertSame(pooled, OperatorPool.intern(pooled));
+	}
+	
+	@Test
+	public void testHolograms()
+	{
+		TCASBenchmark benchmark = new TCASBenchmark();
+		for (int id : new int[] {3, 5})
+		{
+			Operator op = benchmark.getFormula(id);
+			// A duplicate is made of fresh, unshared operators
+			Operator copy = op.duplicate(false);
+			ValuationIterator it = new ValuationIterator(op.getSymbolTable());
+			while (it.hasNext())
+			{
+				Valuation v = it.next();
+				assertEquals(copy.evaluate(v), op.evaluate(v));
+			}
+		}
+	}
+	
+	@Test
+	public void testModifiedValuation()
+	{
+		Operator op = Or(And("a", "b"), And("a", "b"));
+		Valuation v = new Valuation();
+		v.set("a", true);
+		v.set("b", true);
+		assertTrue(op.evaluate(v).getValue());
+		v.set("b", false);
+		assertFalse(op.evaluate(v).getValue());
+	}
+	
+	@Test
+	public void testUnsharedTrees()
+	{
+		// Two formulas sharing a pooled subformula, which also occurs twice
+		// in the first one
+		Operator shared = And("a", Not("b"));
+		Operator op1 = Or(And("c", shared), And("d", shared));
+		Operator op2 = Or(shared, "c");
+		op1.getSymbolTable();
+		op2.getSymbolTable();
+		Valuation v = Valuation.get(true, false, true, true);
+		Map<HologramNode,Boolean> nodes = new IdentityHashMap<HologramNode,Boolean>();
+		HologramNode n1 = op1.evaluate(v);
+		assertTrue(addNodes(n1, nodes));
+		assertTrue(addNodes(op2.evaluate(v), nodes));
+		// Evaluating again on the same valuation gives a new tree
+		HologramNode n1_again = op1.evaluate(v);
+		assertTrue(addNodes(n1_again, nodes));
+		assertEquals(n1, n1_again);
+		assertEquals(op1.duplicate(false).evaluate(v), n1);
+	}
+	
+	@Test
+	public void testThreads() throws InterruptedException
+	{
+		// The same pooled subformulas occur in formulas evaluated at once
+		final Operator shared = And("a", Not("b"));
+		final Operator[] formulas = new Operator[] {Or(And("c", shared), And("d", shared)), Or(shared, "c"), Or(Not(shared), shared, And("d", shared))};
+		final boolean[] failed = new boolean[1];
+		Thread[] threads = new Thread[formulas.length];
+		for (int t = 0; t < threads.length; t++)
+		{
+			final Operator op = formulas[t];
+			threads[t] = new Thread()
+			{
+				@Override
+				public void run()
+				{
+					Operator copy = op.duplicate(false);
+					for (int round = 0; round < 2000; round++)
+					{
+						ValuationIterator it = new ValuationIterator(op.getSymbolTable());
+						while (it.hasNext())
+						{
+							Valuation v = it.next();
+							if (!copy.evaluate(v).equals(op.evaluate(v)))
+							{
+								failed[0] = true;
+							}
+						}
+					}
+				}
+			};
+			threads[t].start();
+		}
+		for (Thread th : threads)
+		{
+			th.join();
+		}
+		assertFalse(failed[0]);
+	}
+	
+	/**
+	 * Adds the nodes of a tree to a map, checking that none of them is
+	 * already there.
+	 * @param n The root of the tree
+	 * @param nodes The map
+	 * @return <tt>true</tt> if no node was already in the map
+	 */
+	protected static boolean addNodes(HologramNode n, Map<HologramNode,Boolean> nodes)
+	{
+		if (nodes.put(n, true) != null)
+		{
+			return false;
+		}
+		for (HologramNode c : n.getChildren())
+		{
+			if (!addNodes(c, nodes))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+}
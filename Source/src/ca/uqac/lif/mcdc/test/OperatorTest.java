@@ -23,7 +23,9 @@ import java.util.Set;
 
 import org.junit.Test;
 
+import ca.uqac.lif.mcdc.HologramNode;
 import ca.uqac.lif.mcdc.Operator;
+import ca.uqac.lif.mcdc.Valuation;
 import mcdclab.benchmark.TCASBenchmark;
 
 import static ca.uqac.lif.mcdc.Conjunction.And;
@@ -44,4 +46,21 @@ public class OperatorTest
 		Set<String> vars = op.getVariables();
 		assertEquals(13, vars.size());
 	}
+	
+	@Test
+	public void testPartial()
+	{
+		Operator op = Or(And("a", "b"), Not("c"));
+		Valuation v = new Valuation();
+		v.set("a", false);
+		HologramNode n = op.evaluate(v);
+		// a is false, so the first clause is false whatever the value of b
+		assertNull(n.getValue());
+		assertEquals(Boolean.FALSE, n.getChildren().get(0).getValue());
+		assertNull(n.getChildren().get(1).getValue());
+		v.set("c", false);
+		n = op.evaluate(v);
+		assertEquals(Boolean.TRUE, n.getValue());
+		assertNull(n.getChildren().get(0).getChildren().get(1).getValue());
+	}
 }
@@ -0,0 +1,129 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc.test;
+
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import ca.uqac.lif.mcdc.CategoryCoverage;
+import ca.uqac.lif.mcdc.KeepIfDetermines;
+import ca.uqac.lif.mcdc.Operator;
+import ca.uqac.lif.mcdc.PackedValuation;
+import ca.uqac.lif.mcdc.SymbolTable;
+import ca.uqac.lif.mcdc.Valuation;
+
+import static ca.uqac.lif.mcdc.Conjunction.And;
+import static ca.uqac.lif.mcdc.Disjunction.Or;
+import static ca.uqac.lif.mcdc.Negation.Not;
+
+/**
+ * Unit tests for {@link PackedValuation} and the hashing of
+ * {@link Valuation}s.
+ */
+public class PackedValuationTest
+{
+	@Test
+	public void testBridge()
+	{
+		SymbolTable symbols = new SymbolTable("a", "b", "c");
+		Valuation v = new Valuation();
+		v.set("a", true);
+		v.set("b", false);
+		v.set("c", true);
+		PackedValuation p = new PackedValuation(symbols, v);
+		assertEquals(5, p.getId());
+		assertTrue(p.get(0));
+		assertFalse(p.get("b"));
+		assertNull(p.get("d"));
+		assertEquals(2, p.countTrue());
+		assertEquals(p, new PackedValuation(symbols, 5));
+		assertEquals(p.hashCode(), new PackedValuation(symbols, 5).hashCode());
+		assertFalse(p.equals(new PackedValuation(symbols, 4)));
+		// Round trip
+		Valuation v2 = p.toValuation();
+		assertEquals(v, v2);
+		assertEquals(v.hashCode(), v2.hashCode());
+		assertEquals(symbols.unpack(5), v);
+		assertEquals(symbols.unpack(5).hashCode(), v.hashCode());
+	}
+	
+	@Test
+	public void testWide()
+	{
+		String[] names = new String[100];
+		for (int i = 0; i < names.length; i++)
+		{
+			names[i] = "x" + i;
+		}
+		SymbolTable symbols = new SymbolTable(names);
+		Valuation v = new Valuation(symbols);
+		for (int i = 0; i < names.length; i++)
+		{
+			v.set(i, i % 3 == 0);
+		}
+		PackedValuation p = new PackedValuation(symbols, v);
+		assertTrue(p.get(99));
+		assertFalse(p.get(98));
+		assertEquals(34, p.countTrue());
+		assertEquals(v, p.toValuation());
+		assertEquals(p, new PackedValuation(symbols, p.toValuation()));
+	}
+	
+	@Test
+	public void testHashing()
+	{
+		// Valuations of the same formula should not share hash codes
+		SymbolTable symbols = new SymbolTable("a", "b", "c", "d", "e", "f", "g", "h", "i", "j");
+		Set<Integer> codes = new HashSet<Integer>();
+		Set<Integer> packed_codes = new HashSet<Integer>();
+		for (long id = 0; id < 1024; id++)
+		{
+			codes.add(symbols.unpack(id).hashCode());
+			packed_codes.add(new PackedValuation(symbols, id).hashCode());
+		}
+		assertTrue(codes.size() > 1000);
+		assertTrue(packed_codes.size() > 1000);
+	}
+	
+	@Test
+	public void testCoverage()
+	{
+		Operator op = Or(And("a", Not("b")), And("c", "d"));
+		SymbolTable symbols = op.getSymbolTable();
+		CategoryCoverage cov = new CategoryCoverage(new KeepIfDetermines("a"), new KeepIfDetermines("c"));
+		Set<Valuation> suite = new HashSet<Valuation>();
+		Set<Valuation> all = new HashSet<Valuation>();
+		Set<PackedValuation> packed_suite = new HashSet<PackedValuation>();
+		Set<PackedValuation> packed_all = new HashSet<PackedValuation>();
+		for (long id = 0; id < 16; id++)
+		{
+			all.add(symbols.unpack(id));
+			packed_all.add(new PackedValuation(symbols, id));
+			if (id % 5 == 0)
+			{
+				suite.add(symbols.unpack(id));
+				packed_suite.add(new PackedValuation(symbols, id));
+			}
+		}
+		assertEquals(cov.getCoverage(op, suite, all), cov.getPackedCoverage(op, packed_suite, packed_all), 0);
+	}
+}
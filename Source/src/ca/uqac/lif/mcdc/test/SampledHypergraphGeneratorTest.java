@@ -0,0 +1,145 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc.test;
+
+import static ca.uqac.lif.mcdc.Conjunction.And;
+import static ca.uqac.lif.mcdc.Disjunction.Or;
+import static ca.uqac.lif.mcdc.Negation.Not;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import ca.uqac.lif.mcdc.BitslicedEvaluator;
+import ca.uqac.lif.mcdc.GreedyHittingSetSolver;
+import ca.uqac.lif.mcdc.HaltonSampler;
+import ca.uqac.lif.mcdc.Hypergraph;
+import ca.uqac.lif.mcdc.HypergraphGenerator;
+import ca.uqac.lif.mcdc.KeepIfDetermines;
+import ca.uqac.lif.mcdc.KeepNthClause;
+import ca.uqac.lif.mcdc.Operator;
+import ca.uqac.lif.mcdc.SampledHypergraphGenerator;
+import ca.uqac.lif.mcdc.Truncation;
+import ca.uqac.lif.mcdc.UniformSampler;
+import ca.uqac.lif.mcdc.ValuationSampler;
+import ca.uqac.lif.mcdc.WeightStratifiedSampler;
+import mcdclab.benchmark.TCASBenchmark;
+
+/**
+ * Unit tests for {@link SampledHypergraphGenerator} and the valuation
+ * samplers.
+ */
+public class SampledHypergraphGeneratorTest
+{
+	protected static Set<Truncation> getMcdc(Operator op)
+	{
+		Set<Truncation> truncations = new HashSet<Truncation>();
+		for (String v : op.getVariables())
+		{
+			truncations.add(new KeepIfDetermines(v));
+		}
+		return truncations;
+	}
+	
+	@Test
+	public void testExhausted()
+	{
+		// All the valuations of a small formula end up being drawn
+		Operator op = Or(And("a", Not("b")), And("c", "d"));
+		Set<Truncation> truncations = getMcdc(op);
+		SampledHypergraphGenerator generator = new SampledHypergraphGenerator(new UniformSampler(0));
+		Hypergraph h = generator.getGraph(op, truncations);
+		assertEquals(new HypergraphGenerator().getGraph(op, truncations).getEdgeCount(), h.getEdgeCount());
+		assertEquals(16, generator.getSampleCount());
+		assertEquals(1, generator.getEstimatedCoverage(), 0);
+	}
+	
+	@Test
+	public void testTcas()
+	{
+		Operator op = new TCASBenchmark().getFormula(10);
+		Set<Truncation> truncations = getMcdc(op);
+		int edges = new HypergraphGenerator().getGraph(op, truncations).getEdgeCount();
+		ValuationSampler[] samplers = {new UniformSampler(0), new WeightStratifiedSampler(0), new HaltonSampler(0)};
+		for (ValuationSampler s : samplers)
+		{
+			SampledHypergraphGenerator generator = new SampledHypergraphGenerator(s);
+			Hypergraph h = generator.getGraph(op, truncations);
+			assertEquals(edges, h.getEdgeCount());
+			assertTrue(generator.getSampleCount() < 1L << op.getVariables().size());
+			assertTrue(generator.getEstimatedCoverage() >= 0.99);
+			for (long id : GreedyHittingSetSolver.instance.solve(h))
+			{
+				assertNotNull(generator.getValuation(id));
+			}
+		}
+	}
+	
+	@Test
+	public void testWide()
+	{
+		// 40 conditions: 2^40 valuations cannot be enumerated
+		List<Object> clauses = new ArrayList<Object>();
+		for (int i = 0; i < 40; i += 4)
+		{
+			clauses.add(And("x" + (10 + i), Not("x" + (11 + i)), Or("x" + (12 + i), "x" + (13 + i))));
+		}
+		Operator op = Or(clauses.toArray());
+		Set<Truncation> truncations = getMcdc(op);
+		truncations.addAll(KeepNthClause.generateClauseCoverage(op));
+		SampledHypergraphGenerator generator = new SampledHypergraphGenerator(new HaltonSampler(0));
+		generator.setMaxSamples(1 << 14);
+		Hypergraph h = generator.getGraph(op, truncations);
+		assertTrue(h.getEdgeCount() > 0);
+		assertTrue(generator.getSampleCount() <= 1 << 14);
+		assertTrue(generator.getEstimatedCoverage() > 0 && generator.getEstimatedCoverage() <= 1);
+	}
+	
+	@Test
+	public void testStratified()
+	{
+		WeightStratifiedSampler s = new WeightStratifiedSampler(0);
+		for (int w = 0; w <= 10; w++)
+		{
+			assertEquals(w, Long.bitCount(s.next(10)));
+		}
+		assertEquals(0, s.next(10));
+	}
+	
+	@Test
+	public void testEvaluateIds()
+	{
+		// Evaluating arbitrary valuations gives the same result as blocks
+		Operator op = new TCASBenchmark().getFormula(3);
+		BitslicedEvaluator evaluator = op.freeze().getEvaluator();
+		long[] block_words = new long[evaluator.getNodeCount()];
+		long[] words = new long[evaluator.getNodeCount()];
+		long[] ids = {130, 7, 4095, 0, 64};
+		evaluator.evaluate(ids, ids.length, words);
+		int root = evaluator.getRoot();
+		for (int k = 0; k < ids.length; k++)
+		{
+			evaluator.evaluate(ids[k] / 64, block_words);
+			assertEquals((block_words[root] >>> (ids[k] % 64)) & 1L, (words[root] >>> k) & 1L);
+		}
+	}
+}
@@ -0,0 +1,113 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc.test;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import ca.uqac.lif.mcdc.Atom;
+import ca.uqac.lif.mcdc.HologramNode;
+import ca.uqac.lif.mcdc.Operator;
+import ca.uqac.lif.mcdc.SymbolTable;
+import ca.uqac.lif.mcdc.Valuation;
+import ca.uqac.lif.mcdc.ValuationIterator;
+
+import static ca.uqac.lif.mcdc.Conjunction.And;
+import static ca.uqac.lif.mcdc.Disjunction.Or;
+import static ca.uqac.lif.mcdc.Negation.Not;
+
+/**
+ * Unit tests for symbol tables and slot-based valuations.
+ */
+public class SymbolTableTest
+{
+	@Test
+	public void testSlots()
+	{
+		Operator op = Or("c", And("a", Not("b")));
+		SymbolTable st = op.getSymbolTable();
+		assertEquals(3, st.size());
+		assertEquals(0, st.getSlot("a"));
+		assertEquals(1, st.getSlot("b"));
+		assertEquals(2, st.getSlot("c"));
+		assertEquals(-1, st.getSlot("d"));
+		assertSame(st, op.getSymbolTable());
+	}
+	
+	@Test
+	public void testEvaluate()
+	{
+		Operator op = Or("c", And("a", Not("b")));
+		ValuationIterator it = new ValuationIterator(op.getSymbolTable());
+		while (it.hasNext())
+		{
+			Valuation v = it.next();
+			Valuation mv = new Valuation();
+			mv.set("a", v.get("a"));
+			mv.set("b", v.get("b"));
+			mv.set("c", v.get("c"));
+			assertEquals(mv, v);
+			assertEquals(v, mv);
+			HologramNode n = op.evaluate(v);
+			assertEquals(op.evaluate(mv), n);
+			assertEquals(2, n.getChildren().get(0).getSlot());
+		}
+	}
+	
+	@Test
+	public void testSharedAtom()
+	{
+		Atom a = new Atom("a");
+		Operator op1 = And(a, "b");
+		Operator op2 = Or("0", a);
+		op1.getSymbolTable();
+		op2.getSymbolTable();
+		Valuation v = new Valuation(op1.getSymbolTable());
+		v.set("a", true);
+		v.set("b", true);
+		assertTrue(op1.evaluate(v).getValue());
+		Valuation w = new Valuation(op2.getSymbolTable());
+		w.set("0", false);
+		w.set("a", true);
+		assertTrue(op2.evaluate(w).getValue());
+	}
+	
+	@Test
+	public void testSharedAtomSlots()
+	{
+		Atom a = new Atom("a");
+		Operator op1 = And(a, "b");
+		Operator op2 = Or("0", a);
+		SymbolTable st1 = op1.getSymbolTable();
+		SymbolTable st2 = op2.getSymbolTable();
+		assertEquals(0, st1.getSlot(a));
+		assertEquals(1, st2.getSlot(a));
+		assertEquals(-1, st1.getSlot(new Atom("0")));
+		Valuation v = new Valuation(st1);
+		v.set("a", true);
+		v.set("b", false);
+		assertEquals(0, op1.evaluate(v).getChildren().get(0).getSlot());
+		Valuation w = new Valuation(st2);
+		w.set("0", false);
+		w.set("a", true);
+		HologramNode n = op2.evaluate(w);
+		assertEquals(1, n.getChildren().get(1).getSlot());
+		assertTrue(n.getValue());
+	}
+}
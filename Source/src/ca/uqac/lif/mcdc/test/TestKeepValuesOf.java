@@ -20,6 +20,7 @@ package ca.uqac.lif.mcdc.test;
 import org.junit.Test;
 
 import ca.uqac.lif.mcdc.Atom;
+import ca.uqac.lif.mcdc.CombinationIterator;
 import ca.uqac.lif.mcdc.HologramNode;
 import ca.uqac.lif.mcdc.KeepValuesOf;
 import ca.uqac.lif.mcdc.Operator;
@@ -47,4 +48,38 @@ public class TestKeepValuesOf
 		HologramNode t = tau.applyTo(n);
 		assertEquals(2, t.getChildren().size());
 	}
+	
+	@Test
+	public void testTWay()
+	{
+		Operator op = And(Or(c, d, b), Not(And(Not(a), d)));
+		assertEquals(6, KeepValuesOf.generateTWay(2, op).size());
+		assertEquals(4, KeepValuesOf.generateTWay(3, op).size());
+		assertEquals(1, KeepValuesOf.generateTWay(0, op).size());
+		assertTrue(KeepValuesOf.generateTWay(5, op).isEmpty());
+		int cnt = 0;
+		for (KeepValuesOf tau : KeepValuesOf.iterateTWay(2, op))
+		{
+			assertEquals(2, tau.applyTo(op.evaluate(Valuation.get(true, false, true, true))).getChildren().size());
+			cnt++;
+		}
+		assertEquals(6, cnt);
+	}
+	
+	@Test
+	public void testCombinations()
+	{
+		CombinationIterator it = new CombinationIterator(5, 3);
+		assertArrayEquals(new int[] {0, 1, 2}, it.next());
+		assertArrayEquals(new int[] {0, 1, 3}, it.next());
+		int cnt = 2;
+		int[] last = null;
+		while (it.hasNext())
+		{
+			last = it.next();
+			cnt++;
+		}
+		assertEquals(10, cnt);
+		assertArrayEquals(new int[] {2, 3, 4}, last);
+	}
 }
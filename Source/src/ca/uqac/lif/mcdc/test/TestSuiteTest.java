@@ -0,0 +1,162 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc.test;
+
+import static ca.uqac.lif.mcdc.Conjunction.And;
+import static ca.uqac.lif.mcdc.Disjunction.Or;
+import static ca.uqac.lif.mcdc.Negation.Not;
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import ca.uqac.lif.mcdc.CategoryCoverage;
+import ca.uqac.lif.mcdc.FrozenHologramNode;
+import ca.uqac.lif.mcdc.HologramNode;
+import ca.uqac.lif.mcdc.KeepIfDetermines;
+import ca.uqac.lif.mcdc.Operator;
+import ca.uqac.lif.mcdc.SymbolTable;
+import ca.uqac.lif.mcdc.TestSuite;
+import ca.uqac.lif.mcdc.Valuation;
+
+/**
+ * Unit tests for {@link TestSuite}.
+ */
+public class TestSuiteTest
+{
+	@Test
+	public void testSparse()
+	{
+		TestSuite s = TestSuite.of(20, 7, 3, 100000, 3);
+		assertFalse(s.isDense());
+		assertEquals(3, s.size());
+		assertTrue(s.contains(100000));
+		assertFalse(s.contains(4));
+		assertArrayEquals(new long[] {3, 7, 100000}, s.toArray());
+	}
+	
+	@Test
+	public void testDense()
+	{
+		long[] ids = new long[100];
+		for (int i = 0; i < ids.length; i++)
+		{
+			ids[i] = 2 * i;
+		}
+		TestSuite s = TestSuite.of(8, ids);
+		assertTrue(s.isDense());
+		assertEquals(100, s.size());
+		assertTrue(s.contains(198));
+		assertFalse(s.contains(199));
+		assertFalse(s.contains(1000));
+		assertArrayEquals(ids, s.toArray());
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testOutOfRange()
+	{
+		TestSuite.of(3, 8);
+	}
+	
+	@Test
+	public void testAlgebra()
+	{
+		Random r = new Random(0);
+		for (int round = 0; round < 50; round++)
+		{
+			int num_vars = 4 + r.nextInt(8);
+			Set<Long> set_a = randomSet(r, num_vars, r.nextInt(1 << num_vars));
+			Set<Long> set_b = randomSet(r, num_vars, r.nextInt(1 << (num_vars - 3)));
+			TestSuite a = TestSuite.of(num_vars, set_a);
+			TestSuite b = TestSuite.of(num_vars, set_b);
+			Set<Long> expected = new HashSet<Long>(set_a);
+			expected.addAll(set_b);
+			assertEquals(TestSuite.of(num_vars, expected), a.union(b));
+			assertEquals(TestSuite.of(num_vars, expected), b.union(a));
+			expected = new HashSet<Long>(set_a);
+			expected.retainAll(set_b);
+			assertEquals(TestSuite.of(num_vars, expected), a.intersection(b));
+			expected = new HashSet<Long>(set_a);
+			expected.removeAll(set_b);
+			assertEquals(TestSuite.of(num_vars, expected), a.difference(b));
+			expected = new HashSet<Long>(set_b);
+			expected.removeAll(set_a);
+			assertEquals(TestSuite.of(num_vars, expected), b.difference(a));
+			assertEquals(expected.size(), b.difference(a).size());
+		}
+	}
+	
+	@Test
+	public void testCoverage()
+	{
+		Operator op = Or(And("a", Not("b")), And("c", "d"));
+		SymbolTable symbols = op.getSymbolTable();
+		CategoryCoverage cov = new CategoryCoverage(new KeepIfDetermines("a"), new KeepIfDetermines("c"));
+		TestSuite suite = TestSuite.of(4, 0, 5, 12, 13);
+		Set<Valuation> valuations = suite.toValuations(symbols);
+		assertEquals(4, valuations.size());
+		assertEquals(cov.getCoverage(op, valuations), cov.getCoverage(op, suite), 0);
+		assertEquals(suite, TestSuite.of(symbols, valuations));
+	}
+	
+	@Test
+	public void testCoveragePaths()
+	{
+		Operator op = Or(And("a", Not("b")), And("c", "d"));
+		SymbolTable symbols = op.getSymbolTable();
+		CategoryCoverage cov = new CategoryCoverage(new KeepIfDetermines("a"), new KeepIfDetermines("c"));
+		TestSuite suite = TestSuite.of(4, 0, 5, 12, 13);
+		Set<Valuation> valuations = suite.toValuations(symbols);
+		Set<Valuation> all = new HashSet<Valuation>();
+		for (long id = 0; id < 16; id++)
+		{
+			all.add(symbols.unpack(id));
+		}
+		float expected = cov.getCoverage(op, suite);
+		assertEquals(expected, cov.getCoverage(op, valuations, all), 0);
+		cov.setGrayCode(true);
+		assertEquals(expected, cov.getCoverage(op, suite), 0);
+		List<Map<HologramNode,Integer>> distros = cov.getCategoryDistribution(op);
+		assertEquals(2, distros.size());
+		for (Map<HologramNode,Integer> distro : distros)
+		{
+			int total = 0;
+			for (Map.Entry<HologramNode,Integer> e : distro.entrySet())
+			{
+				assertTrue(e.getKey() instanceof FrozenHologramNode);
+				total += e.getValue();
+			}
+			assertTrue(total <= 16);
+		}
+	}
+	
+	protected static Set<Long> randomSet(Random r, int num_vars, int size)
+	{
+		Set<Long> set = new HashSet<Long>();
+		for (int i = 0; i < size; i++)
+		{
+			set.add((long) r.nextInt(1 << num_vars));
+		}
+		return set;
+	}
+}
@@ -21,8 +21,13 @@ import static org.junit.Assert.*;
 
 import org.junit.Test;
 
+import ca.uqac.lif.mcdc.Valuation;
 import ca.uqac.lif.mcdc.ValuationIterator;
 
+import static ca.uqac.lif.mcdc.Conjunction.And;
+import static ca.uqac.lif.mcdc.Disjunction.Or;
+import static ca.uqac.lif.mcdc.Negation.Not;
+
 /**
  * Unit tests for operators.
  */
@@ -40,4 +45,61 @@ public class ValuationIteratorTest
 		}
 		assertEquals((int) Math.pow(2, 11), cnt);
 	}
+	
+	@Test
+	public void testCursor()
+	{
+		ValuationIterator it = new ValuationIterator("a", "b", "c");
+		long cnt = 0;
+		while (it.advance())
+		{
+			assertEquals(cnt, it.getIndex());
+			assertEquals((cnt & 4) != 0, it.get(2));
+			cnt++;
+		}
+		assertEquals(8, cnt);
+	}
+	
+	@Test
+	public void testConstraint()
+	{
+		ValuationIterator it = new ValuationIterator("a", "b", "c", "d");
+		it.setConstraint(And(Not(And("a", "b")), Not(And("c", "d"))));
+		int cnt = 0;
+		while (it.hasNext())
+		{
+			Valuation v = it.next();
+			assertFalse(v.get("a") && v.get("b"));
+			assertFalse(v.get("c") && v.get("d"));
+			cnt++;
+		}
+		assertEquals(9, cnt);
+	}
+	
+	@Test
+	public void testConstraintJumps()
+	{
+		// Only 3 valuations out of 2^40 satisfy the constraint
+		String[] names = new String[40];
+		Object[] negated = new Object[38];
+		for (int i = 0; i < names.length; i++)
+		{
+			names[i] = String.format("x%02d", i);
+			if (i < negated.length)
+			{
+				negated[i] = Not(names[i]);
+			}
+		}
+		ValuationIterator it = new ValuationIterator(names);
+		it.setConstraint(And(And(negated), Or(names[38], names[39])));
+		long[] expected = {1L << 38, 1L << 39, 3L << 38};
+		int cnt = 0;
+		while (it.advance())
+		{
+			assertEquals(expected[cnt], it.getIndex());
+			assertEquals(cnt != 1, it.get(38));
+			cnt++;
+		}
+		assertEquals(3, cnt);
+	}
 }
@@ -0,0 +1,126 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc.test;
+
+import static ca.uqac.lif.mcdc.Conjunction.And;
+import static ca.uqac.lif.mcdc.Disjunction.Or;
+import static ca.uqac.lif.mcdc.Negation.Not;
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import ca.uqac.lif.mcdc.ConfusionMatrix;
+import ca.uqac.lif.mcdc.GreedyHittingSetSolver;
+import ca.uqac.lif.mcdc.Hypergraph;
+import ca.uqac.lif.mcdc.HypergraphGenerator;
+import ca.uqac.lif.mcdc.KeepIfDetermines;
+import ca.uqac.lif.mcdc.KeepNthClause;
+import ca.uqac.lif.mcdc.KeepValuesOf;
+import ca.uqac.lif.mcdc.Operator;
+import ca.uqac.lif.mcdc.SymbolTable;
+import ca.uqac.lif.mcdc.Truncation;
+import ca.uqac.lif.mcdc.TruncationEntropy;
+import ca.uqac.lif.mcdc.ValuationRange;
+
+/**
+ * Unit tests for {@link ValuationRange}.
+ */
+public class ValuationRangeTest
+{
+	protected static Operator getFormula()
+	{
+		return Or(And("a", "b", Not("c")), And("c", Or("d", "e")), And(Not("a"), "f", "g"), And("h", "i"));
+	}
+	
+	@Test
+	public void testCursor()
+	{
+		ValuationRange r = new ValuationRange(new SymbolTable("a", "b", "c"));
+		long cnt = 0;
+		while (r.advance())
+		{
+			assertEquals(cnt, r.getIndex());
+			assertEquals((cnt & 2) != 0, r.get(1));
+			cnt++;
+		}
+		assertEquals(8, cnt);
+		assertFalse(r.advance());
+	}
+	
+	@Test
+	public void testSplit()
+	{
+		ValuationRange r = new ValuationRange(0, 1024);
+		ValuationRange prefix = r.trySplit();
+		assertEquals(0, prefix.getFrom());
+		assertEquals(512, prefix.getTo());
+		assertEquals(512, r.getFrom());
+		assertEquals(512, r.getRemaining());
+		// A single block is not split
+		assertNull(new ValuationRange(0, 64).trySplit());
+		List<ValuationRange> parts = new ValuationRange(0, 1024).split(3);
+		assertEquals(3, parts.size());
+		long next = 0;
+		for (ValuationRange part : parts)
+		{
+			assertEquals(next, part.getFrom());
+			assertEquals(0, part.getFrom() % 64);
+			next = part.getTo();
+		}
+		assertEquals(1024, next);
+		assertEquals(1, new ValuationRange(0, 16).split(4).size());
+	}
+	
+	@Test
+	public void testGraph()
+	{
+		Operator op = getFormula();
+		Set<Truncation> truncations = KeepValuesOf.generateTWay(2, op);
+		for (String v : op.getVariables())
+		{
+			truncations.add(new KeepIfDetermines(v));
+		}
+		truncations.add(new KeepNthClause(1));
+		HypergraphGenerator reference = new HypergraphGenerator();
+		Hypergraph expected = reference.getGraph(op, truncations);
+		HypergraphGenerator generator = new HypergraphGenerator();
+		generator.setThreads(3);
+		Hypergraph h = generator.getGraph(op, truncations);
+		assertEquals(expected.getEdgeCount(), h.getEdgeCount());
+		assertEquals(GreedyHittingSetSolver.instance.solve(expected), GreedyHittingSetSolver.instance.solve(h));
+		assertEquals(generator.getValuation(37), reference.getValuation(37));
+	}
+	
+	@Test
+	public void testMetrics()
+	{
+		Operator op = getFormula();
+		Set<Truncation> criterion1 = KeepValuesOf.generateTWay(2, op);
+		Set<Truncation> criterion2 = KeepNthClause.generateClauseCoverage(op);
+		TruncationEntropy te = new TruncationEntropy();
+		te.setThreads(4);
+		assertEquals(TruncationEntropy.calculate(op, criterion1), te.getEntropy(op, criterion1), 0);
+		int[][] expected = new ConfusionMatrix(op, criterion1, criterion2).getArray();
+		int[][] array = new ConfusionMatrix(op, criterion1, criterion2, 4).getArray();
+		assertTrue(Arrays.deepEquals(expected, array));
+	}
+}
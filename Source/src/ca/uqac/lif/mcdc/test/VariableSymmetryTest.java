@@ -0,0 +1,127 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ca.uqac.lif.mcdc.test;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import ca.uqac.lif.mcdc.Bdd;
+import ca.uqac.lif.mcdc.BddHypergraph;
+import ca.uqac.lif.mcdc.BddHypergraphGenerator;
+import ca.uqac.lif.mcdc.GreedyHittingSetSolver;
+import ca.uqac.lif.mcdc.Hypergraph;
+import ca.uqac.lif.mcdc.HypergraphGenerator;
+import ca.uqac.lif.mcdc.KeepIfDetermines;
+import ca.uqac.lif.mcdc.KeepNthClause;
+import ca.uqac.lif.mcdc.KeepValuesOf;
+import ca.uqac.lif.mcdc.Operator;
+import ca.uqac.lif.mcdc.Truncation;
+import ca.uqac.lif.mcdc.VariableSymmetry;
+import mcdclab.benchmark.FaaBenchmark;
+
+import static ca.uqac.lif.mcdc.Conjunction.And;
+import static ca.uqac.lif.mcdc.Disjunction.Or;
+import static ca.uqac.lif.mcdc.Negation.Not;
+
+/**
+ * Unit tests for {@link VariableSymmetry}.
+ */
+public class VariableSymmetryTest
+{
+	@Test
+	public void testDetect()
+	{
+		Operator op = Or(And("a", "b"), And("c", "b"), Not("d"));
+		VariableSymmetry s = VariableSymmetry.detect(op, getMcdc(op));
+		List<List<String>> groups = s.getGroups();
+		assertEquals(1, groups.size());
+		assertEquals(Arrays.asList("a", "c"), groups.get(0));
+		// b, d free (4 valuations) times 3 orbits for {a, c}
+		assertEquals(12, s.getOrbitCount());
+		assertEquals(12, s.getRepresentatives().size());
+		assertTrue(s.isCanonical(1)); // a true, c false
+		assertFalse(s.isCanonical(4)); // a false, c true
+		assertEquals(1, s.getRepresentative(4));
+		assertEquals(2, s.getOrbit(1).size());
+		// Truncations must be swapped as well
+		s = VariableSymmetry.detect(op, new KeepIfDetermines("a"));
+		assertTrue(s.getGroups().isEmpty());
+		s = VariableSymmetry.detect(op, new KeepNthClause(1));
+		assertTrue(s.getGroups().isEmpty());
+	}
+	
+	@Test
+	public void testFaa()
+	{
+		Operator op = new FaaBenchmark().getFormula(1);
+		VariableSymmetry s = VariableSymmetry.detect(op, getMcdc(op));
+		assertFalse(s.getGroups().isEmpty());
+		assertTrue(s.getGroups().get(0).containsAll(Arrays.asList("a", "c", "d", "e")));
+		assertTrue(s.getOrbitCount() < 1L << op.getVariables().size());
+	}
+	
+	@Test
+	public void testSuite()
+	{
+		FaaBenchmark b = new FaaBenchmark();
+		for (int i = 1; i <= 12; i++)
+		{
+			Operator op = b.getFormula(i);
+			Truncation[] mcdc = getMcdc(op);
+			checkSuite(op, mcdc);
+			Set<Truncation> t_way = KeepValuesOf.generateTWay(2, op);
+			checkSuite(op, t_way.toArray(new Truncation[t_way.size()]));
+		}
+	}
+	
+	protected static void checkSuite(Operator op, Truncation ... truncations)
+	{
+		HypergraphGenerator g = new HypergraphGenerator();
+		g.setSymmetry(true);
+		Hypergraph h = g.getGraph(op, truncations);
+		Set<Long> suite = g.expand(GreedyHittingSetSolver.instance.solve(h));
+		BddHypergraph bh = new BddHypergraphGenerator().getGraph(op, truncations);
+		assertTrue(h.getEdgeCount() <= bh.getEdgeCount());
+		Bdd bdd = bh.getBdd();
+		for (int edge : bh.getEdges().values())
+		{
+			boolean hit = false;
+			for (long id : suite)
+			{
+				hit |= bdd.contains(edge, id);
+			}
+			assertTrue(hit);
+		}
+	}
+	
+	protected static Truncation[] getMcdc(Operator op)
+	{
+		Set<Truncation> truncations = new HashSet<Truncation>();
+		for (String v : op.getVariables())
+		{
+			truncations.add(new KeepIfDetermines(v));
+		}
+		return truncations.toArray(new Truncation[truncations.size()]);
+	}
+}
@@ -40,6 +40,7 @@ import ca.uqac.lif.synthia.random.RandomFloat;
 import ca.uqac.lif.synthia.random.RandomInteger;
 import mcdclab.benchmark.DnfOperatorPicker;
 import mcdclab.benchmark.FaaBenchmark;
+import mcdclab.benchmark.FileBenchmark;
 import mcdclab.benchmark.TCASBenchmarkDNF;
 import mcdclab.experiment.ActsTestGenerationExperiment;
 import mcdclab.experiment.Apsec99TestGenerationExperiment;
@@ -87,6 +88,7 @@ import static mcdclab.experiment.TestGenerationExperiment.METHOD;
 import static mcdclab.experiment.TestGenerationExperiment.SIZE;
 import static mcdclab.experiment.TestGenerationExperiment.TIME;
 
+import java.io.IOException;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -109,6 +111,29 @@ public class MyLaboratory extends Laboratory
 	 * The timeout used to cancel experiments, in milliseconds
 	 */
 	protected long m_timeout = 300000;
+	
+	/**
+	 * The name of a file of formulas to add to the benchmark (see
+	 * {@link FileBenchmark}), or <tt>null</tt>.
+	 */
+	protected String m_corpus = null;
+	
+	/**
+	 * Whether the formulas of the corpus file are in the compact syntax.
+	 */
+	protected boolean m_corpusCompact = false;
+	
+	/**
+	 * Whether hypergraph experiments handle each independent component of
+	 * their formula separately.
+	 */
+	protected boolean m_decompose = false;
+	
+	/**
+	 * Whether hypergraph experiments build their hypergraph from a sample
+	 * of valuations.
+	 */
+	protected boolean m_sample = false;
 
 	@Override
 	public void setup()
@@ -155,6 +180,19 @@ public class MyLaboratory extends Laboratory
 			{
 				m_timeout = Integer.parseInt(c_line.getOptionValue("timeout").trim()) * 1000;
 			}
+			if (c_line.hasOption("corpus"))
+			{
+				m_corpus = c_line.getOptionValue("corpus").trim();
+				m_corpusCompact = c_line.hasOption("compact");
+			}
+			if (c_line.hasOption("decompose"))
+			{
+				m_decompose = true;
+			}
+			if (c_line.hasOption("sample"))
+			{
+				m_sample = true;
+			}
 			if (c_line.hasOption("mcdc"))
 			{
 				specific = true;
@@ -267,6 +305,8 @@ public class MyLaboratory extends Laboratory
 
 			// The factory to generate experiments
 			TestSuiteGenerationFactory factory = new TestSuiteGenerationFactory(this, op_provider, only_hypergraph, m_timeout);
+			factory.setDecomposed(m_decompose);
+			factory.setSampled(m_sample);
 
 			for (Region f_r : big_r.all(METHOD, CRITERION, FORMULA))
 			{
@@ -306,6 +346,8 @@ public class MyLaboratory extends Laboratory
 
 			// The factory to generate experiments
 			TestSuiteGenerationFactory factory = new TestSuiteGenerationFactory(this, op_provider, only_hypergraph, m_timeout);
+			factory.setDecomposed(m_decompose);
+			factory.setSampled(m_sample);
 			{
 				// SAFECOMP'18 results for MC/DC
 				Scanner scanner = new Scanner(FileHelper.internalFileToStream(MyLaboratory.class, "/mcdclab/results/safecomp2018.csv"));
@@ -422,6 +464,8 @@ public class MyLaboratory extends Laboratory
 
 			// The factory to generate experiments
 			TestSuiteGenerationFactory factory = new TestSuiteGenerationFactory(this, op_provider, only_hypergraph, m_timeout);
+			factory.setDecomposed(m_decompose);
+			factory.setSampled(m_sample);
 
 			for (Region c_r : big_r.all(CRITERION))
 			{
@@ -528,6 +572,8 @@ public class MyLaboratory extends Laboratory
 			}
 			// The factory to generate experiments
 			TestSuiteGenerationFactory factory = new TestSuiteGenerationFactory(this, op_provider, only_hypergraph, m_timeout);
+			factory.setDecomposed(m_decompose);
+			factory.setSampled(m_sample);
 			for (Region c_r : big_r.all(CRITERION))
 			{
 				String criterion = c_r.getString(CRITERION);
@@ -715,7 +761,7 @@ public class MyLaboratory extends Laboratory
 			for (int i = 1; i <= 20; i++) // All TCAS
 			{
 				Operator op = benchmark.getFormula(i);
-				if (op != null && (!small || op.getVariables().size() < 10))
+				if (op != null && (!small || op.freeze().getVariableCount() < 10))
 				{
 					provider.add("TCAS " + i, op);
 				}
@@ -726,12 +772,32 @@ public class MyLaboratory extends Laboratory
 			for (int i = 1; i <= num_formulas; i++) // All FAA
 			{
 				Operator op = benchmark.getFormula(i);
-				if (op != null && (!small || op.getVariables().size() < 10))
+				if (op != null && (!small || op.freeze().getVariableCount() < 10))
 				{
 					provider.add("FAA " + i, op);
 				}
 			}
 		}
+		if (m_corpus != null)
+		{
+			FileBenchmark benchmark;
+			try
+			{
+				benchmark = new FileBenchmark(m_corpus, m_corpusCompact);
+			}
+			catch (IOException e)
+			{
+				throw new IllegalArgumentException("Cannot read the corpus file " + m_corpus, e);
+			}
+			for (int i = 1; i <= benchmark.countFormulas(); i++)
+			{
+				Operator op = benchmark.getFormula(i);
+				if (!small || op.freeze().getVariableCount() < 10)
+				{
+					provider.add("File " + i, op);
+				}
+			}
+		}
 	}
 
 	protected static class ToolTriplet
@@ -796,6 +862,10 @@ public class MyLaboratory extends Laboratory
 		parser.addArgument(new Argument().withLongName("tway").withDescription("Run combinatorial experiments"));
 		parser.addArgument(new Argument().withLongName("merging").withDescription("Run criterion merging experiments"));
 		parser.addArgument(new Argument().withLongName("only-hypergraph").withDescription("Run only hypergraph experiments"));
+		parser.addArgument(new Argument().withLongName("corpus").withDescription("Add the formulas of file f to the benchmark").withArgument("f"));
+		parser.addArgument(new Argument().withLongName("compact").withDescription("Formulas of the corpus use the compact syntax"));
+		parser.addArgument(new Argument().withLongName("decompose").withDescription("Generate hypergraph test suites one formula component at a time"));
+		parser.addArgument(new Argument().withLongName("sample").withDescription("Build hypergraphs from a sample of valuations"));
 		parser.addArgument(new Argument().withLongName("timeout").withDescription("Timeout experiments after x sec").withArgument("x"));
 	}
 
@@ -100,7 +100,7 @@ public class OperatorProvider
 		int max_depth = 0;
 		for (Operator op : m_formulas.values())
 		{
-			max_depth = Math.max(max_depth, op.getDepth());
+			max_depth = Math.max(max_depth, op.freeze().getDepth());
 		}
 		return max_depth;
 	}
@@ -115,7 +115,7 @@ public class OperatorProvider
 		int max_nv = 0;
 		for (Operator op : m_formulas.values())
 		{
-			max_nv = Math.max(max_nv, op.getVariables().size());
+			max_nv = Math.max(max_nv, op.freeze().getVariableCount());
 		}
 		return max_nv;
 	}
@@ -130,7 +130,7 @@ public class OperatorProvider
 		int max_nv = 0;
 		for (Operator op : m_formulas.values())
 		{
-			max_nv = Math.max(max_nv, op.getSize());
+			max_nv = Math.max(max_nv, op.freeze().getSize());
 		}
 		return max_nv;
 	}
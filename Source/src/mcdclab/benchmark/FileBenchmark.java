@@ -0,0 +1,94 @@
+/*
+    Graph-based MC/DC testing
+    Copyright (C) 2021 Sylvain Hallé
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mcdclab.benchmark;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import ca.uqac.lif.mcdc.FormulaParser;
+import ca.uqac.lif.mcdc.FormulaReader;
+import ca.uqac.lif.mcdc.Operator;
+
+/**
+ * A benchmark made of formulas read from a text source, one formula per
+ * line (see {@link FormulaReader}). Formula <i>n</i> is the <i>n</i>-th
+ * formula of the source, starting at 1.
+ */
+public class FileBenchmark extends FormulaBenchmark
+{
+	/**
+	 * The formulas of the benchmark.
+	 */
+	protected List<Operator> m_formulas;
+	
+	/**
+	 * Creates a new benchmark from an input stream. The stream is read
+	 * entirely, but is not closed.
+	 * @param is The input stream
+	 * @param compact Set to <tt>true</tt> if formulas are in the compact
+	 * syntax, <tt>false</tt> if they are in the infix syntax (see
+	 * {@link FormulaParser})
+	 */
+	public FileBenchmark(InputStream is, boolean compact)
+	{
+		super();
+		m_formulas = new FormulaReader(is, new FormulaParser(compact)).readAll();
+	}
+	
+	/**
+	 * Creates a new benchmark from a file.
+	 * @param filename The name of the file
+	 * @param compact Set to <tt>true</tt> if formulas are in the compact
+	 * syntax, <tt>false</tt> if they are in the infix syntax
+	 * @throws IOException If the file cannot be read
+	 */
+	public FileBenchmark(String filename, boolean compact) throws IOException
+	{
+		super();
+		FormulaReader reader = new FormulaReader(new FileInputStream(filename), new FormulaParser(compact));
+		try
+		{
+			m_formulas = reader.readAll();
+		}
+		finally
+		{
+			reader.close();
+		}
+	}
+	
+	/**
+	 * Counts the formulas in the benchmark.
+	 * @return The number of formulas
+	 */
+	public int countFormulas()
+	{
+		return m_formulas.size();
+	}
+	
+	@Override
+	public Operator getFormula(int id)
+	{
+		if (id < 1 || id > m_formulas.size())
+		{
+			return null;
+		}
+		return m_formulas.get(id - 1);
+	}
+}
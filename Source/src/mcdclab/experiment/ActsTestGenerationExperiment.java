@@ -85,7 +85,7 @@ public class ActsTestGenerationExperiment extends TestGenerationExperiment
 	protected SUT buildSUT()
 	{
 		ArrayList<Parameter> params = new ArrayList<Parameter>();
-		Set<String> vars = getFormula().getVariables();
+		Set<String> vars = getFormula().freeze().getVariables();
 		for (String v : vars)
 		{
 			Parameter p = new Parameter(v);
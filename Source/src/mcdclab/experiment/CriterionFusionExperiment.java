@@ -26,6 +26,7 @@ import ca.uqac.lif.mcdc.HittingSetRunner;
 import ca.uqac.lif.mcdc.Hypergraph;
 import ca.uqac.lif.mcdc.HypergraphGenerator;
 import ca.uqac.lif.mcdc.Operator;
+import ca.uqac.lif.mcdc.TestSuite;
 import ca.uqac.lif.mcdc.Truncation;
 import clojure.lang.PersistentHashSet;
 
@@ -122,16 +123,14 @@ public class CriterionFusionExperiment extends FormulaBasedExperiment
 		
 		// Step 2: generate a test suite for each set of transformations and merge
 		start = System.currentTimeMillis();
-		Set<Long> suite = new HashSet<Long>();
+		int num_vars = getFormula().freeze().getVariableCount();
+		TestSuite suite = TestSuite.of(num_vars);
 		for (Set<Truncation> st : m_truncationSets)
 		{
 			HypergraphGenerator generator = new HypergraphGenerator();
 			Hypergraph g = generator.getGraph(getFormula(), st);
 			PersistentHashSet hs = HittingSetRunner.runHittingSet(g);
-			for (Object o : hs)
-			{
-				suite.add((Long) o);
-			}
+			suite = suite.union(TestSuite.of(num_vars, hs));
 		}
 		end = System.currentTimeMillis();
 		write(TIME_MERGED, end - start);
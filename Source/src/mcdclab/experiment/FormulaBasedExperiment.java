@@ -20,6 +20,7 @@ package mcdclab.experiment;
 import ca.uqac.lif.json.JsonElement;
 import ca.uqac.lif.json.JsonNumber;
 import ca.uqac.lif.labpal.Experiment;
+import ca.uqac.lif.mcdc.FrozenFormula;
 import ca.uqac.lif.mcdc.Operator;
 
 public abstract class FormulaBasedExperiment extends Experiment
@@ -57,8 +58,9 @@ public abstract class FormulaBasedExperiment extends Experiment
 		describe(FORMULA_SIZE, "The size of the formula to generate coverage for");
 		describe(NUM_VARS, "The number of variables in the formula");
 		setInput(FORMULA, formula_name);
-		setInput(FORMULA_SIZE, formula.getSize());
-		setInput(NUM_VARS, formula.getVariables().size());
+		FrozenFormula frozen = formula.freeze();
+		setInput(FORMULA_SIZE, frozen.getSize());
+		setInput(NUM_VARS, frozen.getVariableCount());
 		m_formula = formula;
 	}
 	
@@ -23,12 +23,17 @@ import java.util.Set;
 
 import ca.uqac.lif.labpal.ExperimentException;
 import ca.uqac.lif.mcdc.CategoryCoverage;
+import ca.uqac.lif.mcdc.DecomposedSuiteGenerator;
 import ca.uqac.lif.mcdc.HittingSetRunner;
 import ca.uqac.lif.mcdc.HologramNode;
 import ca.uqac.lif.mcdc.Hypergraph;
 import ca.uqac.lif.mcdc.HypergraphGenerator;
 import ca.uqac.lif.mcdc.Operator;
+import ca.uqac.lif.mcdc.PackedValuation;
+import ca.uqac.lif.mcdc.SampledHypergraphGenerator;
+import ca.uqac.lif.mcdc.SymbolTable;
 import ca.uqac.lif.mcdc.Truncation;
+import ca.uqac.lif.mcdc.UniformSampler;
 import ca.uqac.lif.mcdc.Valuation;
 import clojure.lang.PersistentHashSet;
 
@@ -71,9 +76,23 @@ public class HittingSetTestGenerationExperiment extends TestGenerationExperiment
 	/**
 	 * The test suite produced as a result of running this experiment. Contrary
 	 * to other types of experiments, here the test suite is kept so that it can
-	 * be reused in eventual calls to {@link #getCoverage(Set)}.
+	 * be reused in eventual calls to {@link #getCoverage(Set)}. The
+	 * valuations are packed, so that comparing them in the set only
+	 * compares a few words.
 	 */
-	protected Set<Valuation> m_testSuite;
+	protected Set<PackedValuation> m_testSuite;
+	
+	/**
+	 * Whether the test suite is generated by handling each independent
+	 * component of the formula separately.
+	 */
+	protected boolean m_decomposed = false;
+	
+	/**
+	 * Whether the hypergraph is built from a sample of valuations instead
+	 * of all of them.
+	 */
+	protected boolean m_sampled = false;
 	
 	static
 	{
@@ -101,7 +120,7 @@ public class HittingSetTestGenerationExperiment extends TestGenerationExperiment
 		describe(TIME_SOLVING, "The time (in ms) required to find ahypergraph vertex covering");
 		setInput(METHOD, NAME);
 		m_truncations = truncations;
-		m_testSuite = new HashSet<Valuation>();
+		m_testSuite = new HashSet<PackedValuation>();
 	}
 	
 	/**
@@ -120,7 +139,33 @@ public class HittingSetTestGenerationExperiment extends TestGenerationExperiment
 		{
 			getTruncations()[i++] = t;
 		}
-		m_testSuite = new HashSet<Valuation>();
+		m_testSuite = new HashSet<PackedValuation>();
+	}
+
+	/**
+	 * Sets whether the test suite is generated with a
+	 * {@link DecomposedSuiteGenerator}, which builds a hypergraph for each
+	 * independent component of the formula instead of a single one. All the
+	 * truncations must then be computable symbolically.
+	 * @param b <tt>true</tt> to decompose the formula, <tt>false</tt> to
+	 * build the hypergraph of the whole formula (the default)
+	 */
+	public void setDecomposed(boolean b)
+	{
+		m_decomposed = b;
+	}
+
+	/**
+	 * Sets whether the hypergraph is built from a sample of valuations with
+	 * a {@link SampledHypergraphGenerator}. The test suite then only covers
+	 * the classes found in the sample, and the coverage written by the
+	 * experiment is the estimate given by the generator.
+	 * @param b <tt>true</tt> to sample valuations, <tt>false</tt> to
+	 * enumerate all of them (the default)
+	 */
+	public void setSampled(boolean b)
+	{
+		m_sampled = b;
 	}
 
 	@Override
@@ -129,7 +174,20 @@ public class HittingSetTestGenerationExperiment extends TestGenerationExperiment
 		long start = System.currentTimeMillis();
 		write(SIZE, 0);
 		write(TIME, 0);
-		HypergraphGenerator generator = new HypergraphGenerator();
+		if (m_decomposed)
+		{
+			executeDecomposed(start);
+			return;
+		}
+		HypergraphGenerator generator;
+		if (m_sampled)
+		{
+			generator = new SampledHypergraphGenerator(new UniformSampler(0));
+		}
+		else
+		{
+			generator = new HypergraphGenerator();
+		}
 		Hypergraph h = generator.getGraph(getFormula(), getTruncations());
 		long end_generation = System.currentTimeMillis();
 		write(NUM_EDGES, h.getEdgeCount());
@@ -137,20 +195,64 @@ public class HittingSetTestGenerationExperiment extends TestGenerationExperiment
 		PersistentHashSet phs = HittingSetRunner.runHittingSet(h);
 		long end = System.currentTimeMillis();
 		write(TIME, end - start);
+		SymbolTable symbols = getFormula().getSymbolTable();
 		Iterator<?> it = phs.iterator();
 		while (it.hasNext())
 		{
 			long vertex = (Long) it.next();
-			Valuation v = generator.getValuation(vertex);
-			if (v == null)
+			Valuation v;
+			try
+			{
+				v = generator.getValuation(vertex);
+			}
+			catch (IllegalArgumentException e)
 			{
-				throw new ExperimentException("A valuation index corresponds to no valuation");
+				throw new ExperimentException(e);
 			}
-			m_testSuite.add(v);
+			m_testSuite.add(new PackedValuation(symbols, v));
 		}
 		write(SIZE, phs.size());
 		write(TIME_GENERATION, end_generation - start);
 		write(TIME_SOLVING, end - end_generation);
+		if (generator instanceof SampledHypergraphGenerator)
+		{
+			write(COVERAGE, ((SampledHypergraphGenerator) generator).getEstimatedCoverage());
+		}
+		else
+		{
+			write(COVERAGE, 1);
+		}
+	}
+	
+	/**
+	 * Generates the test suite with a {@link DecomposedSuiteGenerator}. The
+	 * hypergraphs of the components are built and solved together, so the
+	 * whole duration is counted as generation time.
+	 * @param start The time at which the experiment started
+	 * @throws ExperimentException If a truncation cannot be computed
+	 * symbolically
+	 */
+	protected void executeDecomposed(long start) throws ExperimentException
+	{
+		Set<Long> ids;
+		try
+		{
+			ids = new DecomposedSuiteGenerator().generate(getFormula(), getTruncations());
+		}
+		catch (IllegalArgumentException e)
+		{
+			throw new ExperimentException(e);
+		}
+		long end = System.currentTimeMillis();
+		SymbolTable symbols = getFormula().getSymbolTable();
+		for (long id : ids)
+		{
+			m_testSuite.add(new PackedValuation(symbols, id));
+		}
+		write(TIME, end - start);
+		write(SIZE, ids.size());
+		write(TIME_GENERATION, end - start);
+		write(TIME_SOLVING, 0);
 		write(COVERAGE, 1);
 	}
 	
@@ -160,10 +262,10 @@ public class HittingSetTestGenerationExperiment extends TestGenerationExperiment
 	 * @param test_suite The test suite
 	 * @return The coverage ratio
 	 */
-	public float getCoverage(Set<Valuation> test_suite)
+	public float getCoverage(Set<PackedValuation> test_suite)
 	{
 		CategoryCoverage cov = new CategoryCoverage(getTruncations());
-		return cov.getCoverage(getFormula(), test_suite, m_testSuite);
+		return cov.getPackedCoverage(getFormula(), test_suite, m_testSuite);
 	}
 	
 	/**
@@ -175,13 +277,13 @@ public class HittingSetTestGenerationExperiment extends TestGenerationExperiment
 	public Set<HologramNode> getTrees()
 	{
 		Set<HologramNode> trees = new HashSet<HologramNode>(m_testSuite.size());
-		for (Valuation v : m_testSuite)
+		for (PackedValuation v : m_testSuite)
 		{
-			HologramNode original = getFormula().evaluate(v);
+			HologramNode original = getFormula().evaluate(v.toValuation());
 			for (Truncation t : getTruncations())
 			{
-				HologramNode transformed = t.applyTo(original);
-				trees.add(transformed);
+				// Frozen once, so that the set hashes each tree only once
+				trees.add(t.applyTo(original).freeze());
 			}
 		}
 		return trees;
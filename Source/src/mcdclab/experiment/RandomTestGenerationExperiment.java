@@ -21,7 +21,8 @@ import java.util.HashSet;
 import java.util.Set;
 
 import ca.uqac.lif.labpal.ExperimentException;
-import ca.uqac.lif.mcdc.Valuation;
+import ca.uqac.lif.mcdc.PackedValuation;
+import ca.uqac.lif.mcdc.SymbolTable;
 import ca.uqac.lif.synthia.random.RandomBoolean;
 import mcdclab.benchmark.ValuationPicker;
 
@@ -82,15 +83,16 @@ public class RandomTestGenerationExperiment extends DependentTestGenerationExper
 		setProgression(0.5f);
 		int target_size = m_reference.readInt(SIZE);
 		RandomBoolean bool = new RandomBoolean(m_seed);
-		ValuationPicker picker = new ValuationPicker(bool, getFormula().getSortedVariables());
+		SymbolTable symbols = getFormula().freeze().getSymbolTable();
+		ValuationPicker picker = new ValuationPicker(bool, getFormula().freeze().getSortedVariables());
 		float best_coverage = 0;
 		long start = System.currentTimeMillis();
 		for (int run = 0; run < NUM_RERUNS; run++)
 		{
-			Set<Valuation> suite = new HashSet<Valuation>(target_size);
+			Set<PackedValuation> suite = new HashSet<PackedValuation>(target_size);
 			for (int i = 0; i < target_size; i++)
 			{
-				suite.add(picker.pick());
+				suite.add(new PackedValuation(symbols, picker.pick()));
 			}
 			best_coverage = Math.max(best_coverage, m_reference.getCoverage(suite));
 		}
@@ -80,6 +80,6 @@ public abstract class TestGenerationExperiment extends FormulaBasedExperiment
 		describe(TIME, "The time (in ms) taken to generate the test suite");
 		describe(COVERAGE, "The coverage achieved by the generated test suite");
 		describe(SIZE_EXHAUSTIVE, "The size that an exhaustive test suite would have for the same formula");
-		write(SIZE_EXHAUSTIVE, Math.pow(2, formula.getVariables().size()));
+		write(SIZE_EXHAUSTIVE, Math.pow(2, formula.freeze().getVariableCount()));
 	}	
 }
@@ -92,6 +92,18 @@ public class TestSuiteGenerationFactory extends FormulaBasedExperimentFactory<Te
 	 */
 	protected long m_maxDuration = -1;
 	
+	/**
+	 * Whether hypergraph experiments decompose their formula (see
+	 * {@link HittingSetTestGenerationExperiment#setDecomposed(boolean)}).
+	 */
+	protected boolean m_decomposed = false;
+	
+	/**
+	 * Whether hypergraph experiments sample valuations (see
+	 * {@link HittingSetTestGenerationExperiment#setSampled(boolean)}).
+	 */
+	protected boolean m_sampled = false;
+	
 	/**
 	 * Creates a new experiment factory.
 	 * @param lab The lab to which the experiments will be added
@@ -121,12 +133,32 @@ public class TestSuiteGenerationFactory extends FormulaBasedExperimentFactory<Te
 		this(lab, provider, false, max_duration);
 	}
 	
+	/**
+	 * Sets whether the hypergraph experiments produced by this factory
+	 * handle each independent component of their formula separately.
+	 * @param b <tt>true</tt> to decompose formulas, <tt>false</tt> otherwise
+	 */
+	public void setDecomposed(boolean b)
+	{
+		m_decomposed = b;
+	}
+	
+	/**
+	 * Sets whether the hypergraph experiments produced by this factory
+	 * build their hypergraph from a sample of valuations.
+	 * @param b <tt>true</tt> to sample valuations, <tt>false</tt> otherwise
+	 */
+	public void setSampled(boolean b)
+	{
+		m_sampled = b;
+	}
+	
 	public static Set<Truncation> getTruncations(Operator formula, String criterion)
 	{
 		Set<Truncation> out_set = new HashSet<Truncation>();
 		if (criterion.compareTo(C_MCDC) == 0)
 		{
-			Set<String> vars = formula.getVariables();
+			Set<String> vars = formula.freeze().getVariables();
 			for (String v : vars)
 			{
 				out_set.add(new KeepIfDetermines(v));
@@ -173,7 +205,7 @@ public class TestSuiteGenerationFactory extends FormulaBasedExperimentFactory<Te
 		if (criterion.endsWith("-way"))
 		{
 			int t = Integer.parseInt(criterion.substring(0, 1));
-			if (op.getVariables().size() < t)
+			if (op.freeze().getVariableCount() < t)
 			{
 				// Cannot calculate t-way with fewer than t variables
 				return null;
@@ -182,10 +214,12 @@ public class TestSuiteGenerationFactory extends FormulaBasedExperimentFactory<Te
 		String method = r.getString(METHOD);
 		if (method.compareTo(HittingSetTestGenerationExperiment.NAME) == 0)
 		{
-			TestGenerationExperiment tge = getHittingSetExperiment(op, formula_name, r.getString(CRITERION));
+			HittingSetTestGenerationExperiment tge = getHittingSetExperiment(op, formula_name, r.getString(CRITERION));
 			if (tge != null)
 			{
 				tge.setMaxDuration(m_maxDuration);
+				tge.setDecomposed(m_decomposed);
+				tge.setSampled(m_sampled);
 			}
 			return tge;
 		}
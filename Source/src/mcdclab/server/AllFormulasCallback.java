@@ -24,7 +24,7 @@ import java.util.Map;
 
 import ca.uqac.lif.labpal.Laboratory;
 import ca.uqac.lif.labpal.server.TemplatePageCallback;
-import ca.uqac.lif.mcdc.Operator;
+import ca.uqac.lif.mcdc.FrozenFormula;
 import mcdclab.NaturalOrderComparator;
 import mcdclab.OperatorProvider;
 
@@ -102,8 +102,8 @@ public class AllFormulasCallback extends TemplatePageCallback
 		contents.append("<tr><th>Name</th><th>Number of variables</th><th>Nesting depth</th><th>Size</th><th>Expression</th></tr>\n");
 		for (String name : names)
 		{
-			Operator op = m_provider.getFormula(name);
-			contents.append("<tr><td>").append(name).append("</td><td>").append(op.getVariables().size()).append("</td><td>");
+			FrozenFormula op = m_provider.getFormula(name).freeze();
+			contents.append("<tr><td>").append(name).append("</td><td>").append(op.getVariableCount()).append("</td><td>");
 			contents.append(op.getDepth()).append("</td><td>").append(op.getSize()).append("</td><td>");
 			contents.append(op.toString()).append("</td></tr>\n");
 		}